@@ -0,0 +1,71 @@
+package bench;
+
+import cg.ColumnGenerationSolver;
+import master.LpBackends;
+import master.LpException;
+import model.Flight;
+import model.FlightTable;
+import network.ConnectionNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pricing.LabelSettingPricing;
+import pricing.PricingCascade;
+import pricing.PricingEngine;
+import pricing.PricingProblem;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Full column generation run to LP optimality, without per-iteration logging.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ColumnGenerationBenchmark {
+    @Param({"50", "200", "500"})
+    public int flights;
+
+    @Param({"label", "cascade"})
+    public String pricing;
+
+    private FlightTable table;
+    private PricingProblem problem;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Flight> schedule = SyntheticSchedule.generate(flights, 42);
+        table = new FlightTable(schedule);
+        ConnectionNetwork network = new ConnectionNetwork(table, 40, false);
+        problem = new PricingProblem(network, SyntheticSchedule.BASE, 12, 8, 200, 100, 150, 120);
+    }
+
+    @Benchmark
+    public double solve() throws LpException {
+        PricingEngine engine = new LabelSettingPricing(problem);
+        if (pricing.equals("cascade")) {
+            engine = new PricingCascade(problem, engine);
+        }
+        ColumnGenerationSolver solver = new ColumnGenerationSolver(table, engine, 50, LpBackends.create("simplex"));
+        solver.setVerbose(false);
+        try {
+            solver.solve();
+            return solver.getUpperBound();
+        } finally {
+            solver.getMasterProblem().close();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package bench;
+
+import model.Flight;
+import model.FlightTable;
+import model.Pairing;
+import network.ConnectionNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pricing.PricingProblem;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * One call of the exhaustive DFS pricing (PricingProblem.solve) under a fixed dual vector,
+ * on the schedule sizes it can still enumerate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DfsPricingBenchmark {
+    @Param({"50", "200", "500"})
+    public int flights;
+
+    private PricingProblem pricing;
+    private double[] duals;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Flight> schedule = SyntheticSchedule.generate(flights, 42);
+        FlightTable table = new FlightTable(schedule);
+        ConnectionNetwork network = new ConnectionNetwork(table, 40, false);
+        pricing = new PricingProblem(network, SyntheticSchedule.BASE, 12, 8, 200, 100, 150, 120);
+        duals = SyntheticSchedule.duals(schedule, 100, 7);
+    }
+
+    @Benchmark
+    public List<Pairing> solve() {
+        return pricing.solve(duals);
+    }
+}
@@ -0,0 +1,132 @@
+package bench;
+
+import cg.ColumnGenerationSolver;
+import cg.Disruption;
+import cg.DisruptionSolver;
+import master.LpBackends;
+import master.LpException;
+import model.Flight;
+import model.FlightTable;
+import network.ConnectionNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pricing.LabelSettingPricing;
+import pricing.PricingEngine;
+import pricing.PricingProblem;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+ * Disruption recovery latency: a solved schedule loses 1% of its flights and 2% are
+ * delayed by 45 minutes, then the LP is solved again. "resume" applies the changes to
+ * the solved RMP (DisruptionSolver), "scratch" runs column generation over the changed
+ * schedule from the Big-M start. The base solve happens in the setup and is not timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DisruptionBenchmark {
+    private static final int DELAY_MIN = 45;
+
+    @Param({"200", "500"})
+    public int flights;
+
+    @Param({"resume", "scratch"})
+    public String mode;
+
+    private final Function<PricingProblem, PricingEngine> engines = LabelSettingPricing::new;
+    private List<Flight> schedule;
+    private Disruption disruption;
+    private List<Flight> changed;
+    private ColumnGenerationSolver solved;
+    private PricingProblem solvedProblem;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        schedule = SyntheticSchedule.generate(flights, 42);
+        Random random = new Random(7);
+        disruption = new Disruption();
+        Set<String> cancelled = new HashSet<>();
+        changed = new ArrayList<>();
+        for (Flight f : schedule) {
+            double r = random.nextDouble();
+            if (r < 0.01) {
+                disruption.cancel(f.getFlightId());
+                cancelled.add(f.getFlightId());
+            } else if (r < 0.03) {
+                disruption.delay(f.getFlightId(), DELAY_MIN);
+                changed.add(new Flight(f.getFlightId(), f.getFrom(), f.getTo(), f.getDepTime().plusMinutes(DELAY_MIN),
+                        f.getArrTime().plusMinutes(DELAY_MIN), f.getDurationHours(), f.getAircraft(), f.getBase(),
+                        f.getFlightCost(), f.isNight()));
+            } else {
+                changed.add(f);
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void solveBase() throws LpException {
+        if (!mode.equals("resume"))
+            return;
+        FlightTable table = new FlightTable(schedule);
+        solvedProblem = problem(table);
+        solved = solver(table, solvedProblem);
+        solved.solve();
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() {
+        if (solved != null) {
+            solved.getMasterProblem().close();
+            solved = null;
+        }
+    }
+
+    @Benchmark
+    public double recover() throws LpException {
+        if (mode.equals("resume")) {
+            new DisruptionSolver(solved, solvedProblem, engines).apply(disruption);
+            return solved.getUpperBound();
+        }
+        FlightTable table = new FlightTable(changed);
+        ColumnGenerationSolver solver = solver(table, problem(table));
+        try {
+            solver.solve();
+            return solver.getUpperBound();
+        } finally {
+            solver.getMasterProblem().close();
+        }
+    }
+
+    private static PricingProblem problem(FlightTable table) {
+        ConnectionNetwork network = new ConnectionNetwork(table, 40, false);
+        return new PricingProblem(network, SyntheticSchedule.BASE, 12, 8, 200, 100, 150, 120);
+    }
+
+    private ColumnGenerationSolver solver(FlightTable table, PricingProblem problem) throws LpException {
+        ColumnGenerationSolver solver = new ColumnGenerationSolver(table, engines.apply(problem), 50,
+                LpBackends.create("simplex"));
+        solver.setVerbose(false);
+        return solver;
+    }
+}
@@ -0,0 +1,81 @@
+package bench;
+
+import master.LpBackends;
+import master.LpException;
+import master.RestrictedMasterProblem;
+import model.Flight;
+import model.FlightTable;
+import model.Pairing;
+import network.ConnectionNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pricing.LabelSettingPricing;
+import pricing.PricingProblem;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * RMP add-column / solve cycles: a fresh RMP with the Big-M start columns, then batches of
+ * priced columns added and re-solved from the previous basis, like CG iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MasterBenchmark {
+    private static final int BATCH = 50;
+    private static final int BATCHES = 10;
+
+    @Param({"50", "200", "500"})
+    public int flights;
+
+    @Param({"simplex"})
+    public String backend;
+
+    private FlightTable table;
+    private List<Pairing> columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Flight> schedule = SyntheticSchedule.generate(flights, 42);
+        table = new FlightTable(schedule);
+        ConnectionNetwork network = new ConnectionNetwork(table, 40, false);
+        PricingProblem problem = new PricingProblem(network, SyntheticSchedule.BASE, 12, 8, 200, 100, 150, 120);
+        double[] duals = SyntheticSchedule.duals(schedule, 100, 7);
+        columns = new LabelSettingPricing(problem).solve(duals);
+        columns.sort(Comparator.comparingDouble(p -> p.getReducedCost(duals)));
+        columns = columns.subList(0, Math.min(columns.size(), BATCH * BATCHES));
+    }
+
+    @Benchmark
+    public double addAndSolve() throws LpException {
+        RestrictedMasterProblem rmp = new RestrictedMasterProblem(table, LpBackends.create(backend));
+        try {
+            rmp.generateInitialSolution();
+            rmp.solve();
+            for (int k = 0; k < columns.size(); k++) {
+                rmp.addColumn(columns.get(k));
+                if ((k + 1) % BATCH == 0 || k == columns.size() - 1) {
+                    rmp.solve();
+                }
+            }
+            return rmp.getObjectiveValue();
+        } finally {
+            rmp.close();
+        }
+    }
+}
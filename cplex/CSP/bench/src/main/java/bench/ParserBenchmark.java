@@ -0,0 +1,62 @@
+package bench;
+
+import model.Flight;
+import model.FlightTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.BinarySchedule;
+import util.InputParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * InputParser.parseFlights on a CSV written once per trial, against loading the same
+ * schedule from its binary form (util.BinarySchedule, without arcs).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"50", "500", "5000", "50000"})
+    public int flights;
+
+    private String file;
+    private String binaryFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Flight> schedule = SyntheticSchedule.generate(flights, 42);
+        file = SyntheticSchedule.writeCsv(schedule).toString();
+        Path binary = Files.createTempFile("flights-" + flights + "-", ".bin");
+        binary.toFile().deleteOnExit();
+        binaryFile = binary.toString();
+        BinarySchedule.write(new FlightTable(schedule), null, binaryFile);
+    }
+
+    @Benchmark
+    public List<Flight> parseFlights() throws IOException {
+        return InputParser.parseFlights(file);
+    }
+
+    @Benchmark
+    public FlightTable readBinary() throws IOException {
+        return BinarySchedule.read(binaryFile).getTable();
+    }
+}
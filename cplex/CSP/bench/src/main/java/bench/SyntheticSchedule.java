@@ -0,0 +1,59 @@
+package bench;
+
+import model.Flight;
+import util.ScheduleGenerator;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/*
+ * Seeded single-hub schedule for the benchmarks: util.ScheduleGenerator with DAC as the
+ * only base, so every spoke flight has a return and the hub has many connections.
+ */
+final class SyntheticSchedule {
+    static final String BASE = "DAC";
+    private static final int SPOKES = 24;
+
+    private SyntheticSchedule() {
+    }
+
+    static List<Flight> generate(int count, long seed) {
+        ScheduleGenerator generator = new ScheduleGenerator();
+        generator.setFlights(count);
+        generator.setBases(List.of(BASE));
+        generator.setSpokesPerBase(SPOKES);
+        generator.setSeed(seed);
+        return generator.generate();
+    }
+
+    // the same schedule in the InputParser CSV format
+    static Path writeCsv(List<Flight> flights) throws IOException {
+        Path file = Files.createTempFile("flights-" + flights.size() + "-", ".csv");
+        file.toFile().deleteOnExit();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("FlightID,From,To,DepTime,ArrTime,Duration,Aircraft,Base,FlightCost,Night");
+            for (Flight f : flights) {
+                out.println(String.format(Locale.ROOT, "%s,%s,%s,%s,%s,%.2f,%s,%s,%.0f,%d", f.getFlightId(),
+                        f.getFrom(), f.getTo(), f.getDepTime(), f.getArrTime(), f.getDurationHours(),
+                        f.getAircraft(), f.getBase(), f.getFlightCost(), f.isNight() ? 1 : 0));
+            }
+        }
+        return file;
+    }
+
+    // fixed duals that make a good share of the multi-leg pairings price out
+    static double[] duals(List<Flight> flights, double hourlyCost, long seed) {
+        Random random = new Random(seed);
+        double[] duals = new double[flights.size()];
+        for (int i = 0; i < duals.length; i++) {
+            Flight f = flights.get(i);
+            duals[i] = f.getFlightCost() + f.getDurationHours() * hourlyCost + random.nextInt(150);
+        }
+        return duals;
+    }
+}
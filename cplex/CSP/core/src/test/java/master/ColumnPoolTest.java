@@ -0,0 +1,121 @@
+package master;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnPoolTest {
+
+    @Test
+    void recognisesTheSameCoverAtNoLowerCost() {
+        ColumnPool pool = new ColumnPool();
+        pool.add(new int[]{3, 7, 9}, 100, 1, false);
+
+        assertTrue(pool.dominated(new int[]{3, 7, 9}, 100, 1));
+        assertTrue(pool.dominated(new int[]{9, 3, 7}, 120, 1)); // any order
+        assertFalse(pool.dominated(new int[]{3, 7, 9}, 99, 1)); // cheaper
+        assertFalse(pool.dominated(new int[]{3, 7, 9}, 100, 2)); // other base
+        assertFalse(pool.dominated(new int[]{3, 7}, 100, 1));
+        assertFalse(pool.dominated(new int[]{3, 7, 9, 11}, 100, 1));
+        assertFalse(pool.dominated(new int[]{3, 7, 8}, 100, 1));
+    }
+
+    @Test
+    void neverIndexesArtificials() {
+        ColumnPool pool = new ColumnPool();
+        pool.add(new int[]{4}, 1e6, 0, true);
+        assertFalse(pool.dominated(new int[]{4}, 1e6, 0));
+        assertEquals(0, pool.getIndexedCount());
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void probesPastCollidingAndDeletedSlots() {
+        // covers whose hashes land in the same slot of the initial table chain by linear
+        // probing; unindexing the first must leave the others reachable
+        int mask = 511;
+        List<int[]> colliding = new ArrayList<>();
+        int target = -1;
+        for (int a = 0; a < 200 && colliding.size() < 4; a++) {
+            for (int b = a + 1; b < 200 && colliding.size() < 4; b++) {
+                int[] path = {a, b};
+                long hash = ColumnPool.coverageHash(path, 0);
+                int slot = (int) (hash ^ (hash >>> 32)) & mask;
+                if (target < 0) {
+                    target = slot;
+                }
+                if (slot == target) {
+                    colliding.add(path);
+                }
+            }
+        }
+        assertEquals(4, colliding.size());
+
+        ColumnPool pool = new ColumnPool();
+        int[] ids = new int[colliding.size()];
+        for (int k = 0; k < ids.length; k++) {
+            ids[k] = pool.add(colliding.get(k), 10, 0, false);
+        }
+        for (int[] path : colliding) {
+            assertTrue(pool.dominated(path, 10, 0));
+        }
+        pool.unindex(ids[0]);
+        assertFalse(pool.dominated(colliding.get(0), 10, 0));
+        for (int k = 1; k < ids.length; k++) {
+            assertTrue(pool.dominated(colliding.get(k), 10, 0));
+        }
+        pool.remove(ids[1]);
+        assertFalse(pool.dominated(colliding.get(1), 10, 0));
+        assertTrue(pool.dominated(colliding.get(2), 10, 0));
+        assertTrue(pool.dominated(colliding.get(3), 10, 0));
+    }
+
+    @Test
+    void keepsEntriesThroughGrowthRemovalAndCompaction() {
+        Random random = new Random(3);
+        ColumnPool pool = new ColumnPool();
+        Map<Integer, int[]> stored = new HashMap<>();
+        Map<Integer, Double> costs = new HashMap<>();
+        for (int round = 0; round < 5000; round++) {
+            if (!stored.isEmpty() && random.nextInt(3) == 0) {
+                int id = new ArrayList<>(stored.keySet()).get(random.nextInt(stored.size()));
+                int[] path = stored.remove(id);
+                costs.remove(id);
+                pool.remove(id);
+                assertFalse(pool.dominated(path, Double.MAX_VALUE, 0)); // covers are never stored twice
+            } else {
+                int[] path = random.ints(0, 500).distinct().limit(1 + random.nextInt(6)).toArray();
+                if (pool.dominated(path, Double.MAX_VALUE, 0))
+                    continue;
+                double cost = random.nextInt(1000);
+                int id = pool.add(path, cost, 0, false);
+                assertFalse(stored.containsKey(id), "live id handed out twice");
+                stored.put(id, path);
+                costs.put(id, cost);
+            }
+        }
+
+        assertEquals(stored.size(), pool.size());
+        assertEquals(stored.size(), pool.getIndexedCount());
+        double[] duals = random.doubles(500, 0, 50).toArray();
+        int[] ids = stored.keySet().stream().mapToInt(Integer::intValue).toArray();
+        double[] batch = new double[ids.length];
+        pool.getReducedCosts(ids, ids.length, duals, batch);
+        for (int k = 0; k < ids.length; k++) {
+            int id = ids[k];
+            assertArrayEquals(stored.get(id), pool.getFlights(id));
+            assertEquals(costs.get(id), pool.getCost(id));
+            assertTrue(pool.dominated(stored.get(id), costs.get(id), 0));
+            assertEquals(pool.getReducedCost(id, duals), batch[k], 1e-9);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package master;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimplexBackendTest {
+    private static final double TOL = 1e-6;
+
+    @Test
+    void solvesCoveringLp() throws LpException {
+        // min 2x + 3y, x + y >= 4, x + 3y >= 6: optimum 9 at (3, 1), duals (1.5, 0.5)
+        SimplexBackend lp = new SimplexBackend();
+        int r1 = lp.addRow(LpBackend.Sense.GREATER_EQUAL, 4, "r1");
+        int r2 = lp.addRow(LpBackend.Sense.GREATER_EQUAL, 6, "r2");
+        lp.addColumn(2, new int[]{r1, r2}, new double[]{1, 1}, 0, Double.POSITIVE_INFINITY, "x");
+        lp.addColumn(3, new int[]{r1, r2}, new double[]{1, 3}, 0, Double.POSITIVE_INFINITY, "y");
+        lp.solve();
+
+        assertEquals(9, lp.getObjectiveValue(), TOL);
+        assertArrayEquals(new double[]{3, 1}, lp.getValues(), TOL);
+        assertArrayEquals(new double[]{1.5, 0.5}, lp.getDuals(), TOL);
+        assertArrayEquals(new double[]{0, 0}, lp.getReducedCosts(), TOL);
+    }
+
+    @Test
+    void respectsColumnBounds() throws LpException {
+        // min -x - 2y, x + y = 1.5, 0 <= x, y <= 1: y at its upper bound
+        SimplexBackend lp = new SimplexBackend();
+        int r = lp.addRow(LpBackend.Sense.EQUAL, 1.5, "r");
+        lp.addColumn(-1, new int[]{r}, new double[]{1}, 0, 1, "x");
+        lp.addColumn(-2, new int[]{r}, new double[]{1}, 0, 1, "y");
+        lp.solve();
+
+        assertEquals(-2.5, lp.getObjectiveValue(), TOL);
+        assertArrayEquals(new double[]{0.5, 1}, lp.getValues(), TOL);
+    }
+
+    @Test
+    void solvesBealesCyclingExample() throws LpException {
+        // cycles under the textbook Dantzig rule without anti-cycling; optimum -5/4
+        SimplexBackend lp = new SimplexBackend();
+        int r1 = lp.addRow(LpBackend.Sense.LESS_EQUAL, 0, "r1");
+        int r2 = lp.addRow(LpBackend.Sense.LESS_EQUAL, 0, "r2");
+        int r3 = lp.addRow(LpBackend.Sense.LESS_EQUAL, 1, "r3");
+        double inf = Double.POSITIVE_INFINITY;
+        lp.addColumn(-0.75, new int[]{r1, r2}, new double[]{0.25, 0.5}, 0, inf, "x4");
+        lp.addColumn(20, new int[]{r1, r2}, new double[]{-8, -12}, 0, inf, "x5");
+        lp.addColumn(-0.5, new int[]{r1, r2, r3}, new double[]{-1, -0.5, 1}, 0, inf, "x6");
+        lp.addColumn(6, new int[]{r1, r2}, new double[]{9, 3}, 0, inf, "x7");
+        lp.solve();
+
+        assertEquals(-1.25, lp.getObjectiveValue(), TOL);
+    }
+
+    @Test
+    void solvesDegenerateSetPartitioning() throws LpException {
+        // three flights, pairs at 5 and the triple at 12: every pair at 1/2 costs 7.5
+        SimplexBackend lp = new SimplexBackend();
+        int[] rows = new int[3];
+        for (int i = 0; i < 3; i++) {
+            rows[i] = lp.addRow(LpBackend.Sense.EQUAL, 1, "Cover_" + i);
+            lp.addColumn(10, new int[]{rows[i]}, new double[]{1}, 0, Double.POSITIVE_INFINITY, "s" + i);
+        }
+        lp.addColumn(5, new int[]{rows[0], rows[1]}, new double[]{1, 1}, 0, Double.POSITIVE_INFINITY, "p01");
+        lp.addColumn(5, new int[]{rows[1], rows[2]}, new double[]{1, 1}, 0, Double.POSITIVE_INFINITY, "p12");
+        lp.addColumn(5, new int[]{rows[0], rows[2]}, new double[]{1, 1}, 0, Double.POSITIVE_INFINITY, "p02");
+        lp.addColumn(12, new int[]{rows[0], rows[1], rows[2]}, new double[]{1, 1, 1}, 0, Double.POSITIVE_INFINITY,
+                "t012");
+        lp.solve();
+
+        assertEquals(7.5, lp.getObjectiveValue(), TOL);
+    }
+
+    @Test
+    void provesOptimalityOfRandomSetPartitioning() throws LpException {
+        // many columns over few rows with tied costs: a highly degenerate master, checked by
+        // its certificate (primal feasible, reduced costs >= 0, equal primal and dual objectives)
+        Random random = new Random(7);
+        int m = 40;
+        SimplexBackend lp = new SimplexBackend();
+        for (int i = 0; i < m; i++) {
+            lp.addRow(LpBackend.Sense.EQUAL, 1, "Cover_" + i);
+            lp.addColumn(1000, new int[]{i}, new double[]{1}, 0, Double.POSITIVE_INFINITY, "s" + i);
+        }
+        int[][] columns = new int[400][];
+        double[] costs = new double[400];
+        for (int k = 0; k < columns.length; k++) {
+            int size = 2 + random.nextInt(4);
+            columns[k] = random.ints(0, m).distinct().limit(size).sorted().toArray();
+            costs[k] = 100 * size + random.nextInt(3) * 10; // many ties
+            double[] ones = new double[size];
+            Arrays.fill(ones, 1.0);
+            lp.addColumn(costs[k], columns[k], ones, 0, Double.POSITIVE_INFINITY, "c" + k);
+        }
+        lp.solve();
+
+        double[] x = lp.getValues();
+        double[] y = lp.getDuals();
+        double[] rc = lp.getReducedCosts();
+        double[] rowSum = new double[m];
+        for (int i = 0; i < m; i++) {
+            rowSum[i] += x[i];
+        }
+        for (int k = 0; k < columns.length; k++) {
+            for (int i : columns[k]) {
+                rowSum[i] += x[m + k];
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            assertEquals(1, rowSum[i], TOL, "row " + i);
+        }
+        double dualObjective = 0;
+        for (double d : y) {
+            dualObjective += d;
+        }
+        for (int j = 0; j < rc.length; j++) {
+            assertTrue(x[j] > -TOL, "x" + j + " = " + x[j]);
+            assertTrue(rc[j] > -TOL, "rc" + j + " = " + rc[j]);
+        }
+        assertEquals(lp.getObjectiveValue(), dualObjective, 1e-5 * Math.abs(dualObjective));
+    }
+
+    @Test
+    void warmStartsAfterAddingAColumn() throws LpException {
+        SimplexBackend lp = new SimplexBackend();
+        int r0 = lp.addRow(LpBackend.Sense.EQUAL, 1, "r0");
+        int r1 = lp.addRow(LpBackend.Sense.EQUAL, 1, "r1");
+        lp.addColumn(100, new int[]{r0}, new double[]{1}, 0, Double.POSITIVE_INFINITY, "s0");
+        lp.addColumn(100, new int[]{r1}, new double[]{1}, 0, Double.POSITIVE_INFINITY, "s1");
+        lp.solve();
+        assertEquals(200, lp.getObjectiveValue(), TOL);
+
+        lp.addColumn(30, new int[]{r0, r1}, new double[]{1, 1}, 0, Double.POSITIVE_INFINITY, "p");
+        lp.solve();
+        assertEquals(30, lp.getObjectiveValue(), TOL);
+        assertTrue(lp.isBasic(2));
+    }
+
+    @Test
+    void reportsInfeasibleAndUnboundedLps() {
+        SimplexBackend infeasible = new SimplexBackend();
+        assertThrows(LpException.class, () -> {
+            int r = infeasible.addRow(LpBackend.Sense.GREATER_EQUAL, 2, "r");
+            infeasible.addColumn(1, new int[]{r}, new double[]{1}, 0, 1, "x");
+            infeasible.solve();
+        });
+
+        SimplexBackend unbounded = new SimplexBackend();
+        assertThrows(LpException.class, () -> {
+            int r = unbounded.addRow(LpBackend.Sense.GREATER_EQUAL, 1, "r");
+            unbounded.addColumn(-1, new int[]{r}, new double[]{1}, 0, Double.POSITIVE_INFINITY, "x");
+            unbounded.solve();
+        });
+    }
+
+    @Test
+    void clearLeavesAnEmptyModel() throws LpException {
+        SimplexBackend lp = new SimplexBackend();
+        int r = lp.addRow(LpBackend.Sense.GREATER_EQUAL, 1, "r");
+        lp.addColumn(5, new int[]{r}, new double[]{1}, 0, Double.POSITIVE_INFINITY, "x");
+        lp.solve();
+        lp.clear();
+        assertEquals(0, lp.getRowCount());
+        assertEquals(0, lp.getColumnCount());
+
+        r = lp.addRow(LpBackend.Sense.GREATER_EQUAL, 2, "r");
+        lp.addColumn(3, new int[]{r}, new double[]{1}, 0, Double.POSITIVE_INFINITY, "x");
+        lp.solve();
+        assertEquals(6, lp.getObjectiveValue(), TOL);
+    }
+}
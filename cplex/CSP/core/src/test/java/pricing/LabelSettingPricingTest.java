@@ -0,0 +1,92 @@
+package pricing;
+
+import cg.ColumnGenerationSolver;
+import master.LpException;
+import master.SimplexBackend;
+import model.FlightTable;
+import model.Pairing;
+import network.ConnectionNetwork;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.InputParser;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the label-setting engine against the DFS of PricingProblem on the sample schedule
+class LabelSettingPricingTest {
+    private static final String SAMPLE = "../data/flights.csv";
+
+    private FlightTable table;
+    private ConnectionNetwork network;
+
+    @BeforeEach
+    void loadSample() throws IOException {
+        table = new FlightTable(InputParser.parseFlights(SAMPLE));
+        network = new ConnectionNetwork(table, 40, false);
+    }
+
+    private PricingProblem problem() {
+        return new PricingProblem(network, "DAC", 12, 8, 200, 100, 150, 120);
+    }
+
+    @Test
+    void findsTheSameBestReducedCostAsDfs() {
+        PricingProblem dfs = problem();
+        LabelSettingPricing labels = new LabelSettingPricing(problem());
+        Random random = new Random(11);
+        int priced = 0;
+        for (int draw = 0; draw < 50; draw++) {
+            double[] duals = new double[table.size()];
+            for (int i = 0; i < duals.length; i++) {
+                duals[i] = random.nextDouble() * 1500;
+            }
+            double best = bestReducedCost(dfs.solve(duals), duals);
+            assertEquals(best, bestReducedCost(labels.solve(duals), duals), 1e-6, "draw " + draw);
+            if (best < 0) {
+                priced++;
+            }
+        }
+        assertTrue(priced > 0, "no draw priced out");
+    }
+
+    @Test
+    void returnsOnlyColumnsThatPriceOut() {
+        LabelSettingPricing labels = new LabelSettingPricing(problem());
+        double[] duals = new double[table.size()];
+        Arrays.fill(duals, 800);
+        List<Pairing> columns = labels.solve(duals);
+        assertFalse(columns.isEmpty());
+        for (Pairing p : columns) {
+            assertTrue(p.getReducedCost(duals) < 0, p.toString());
+        }
+    }
+
+    @Test
+    void reachesTheSameLpOptimumAsDfs() throws LpException {
+        assertEquals(13539, solve(problem()), 1e-6);
+        assertEquals(13539, solve(new LabelSettingPricing(problem())), 1e-6);
+    }
+
+    private double solve(PricingEngine engine) throws LpException {
+        ColumnGenerationSolver solver = new ColumnGenerationSolver(table, engine, 50, new SimplexBackend());
+        solver.setVerbose(false);
+        solver.solve();
+        assertEquals("optimal", solver.getStopReason());
+        return solver.getUpperBound();
+    }
+
+    private static double bestReducedCost(List<Pairing> columns, double[] duals) {
+        double best = 0;
+        for (Pairing p : columns) {
+            best = Math.min(best, p.getReducedCost(duals));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,67 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonTest {
+
+    @Test
+    void parsesARequest() {
+        Map<String, Object> request = Json.parseObject(
+                " {\"base\": \"DAC\", \"timeLimit\": 50, \"bnp\": false, \"cache\": null,"
+                        + " \"engines\": [\"label\", \"dfs\"], \"note\": \"a\\\"b\\u0041\\n\"} ");
+        assertEquals("DAC", request.get("base"));
+        assertEquals(new BigDecimal("50"), request.get("timeLimit"));
+        assertEquals(Boolean.FALSE, request.get("bnp"));
+        assertTrue(request.containsKey("cache"));
+        assertNull(request.get("cache"));
+        assertEquals(List.of("label", "dfs"), request.get("engines"));
+        assertEquals("a\"bA\n", request.get("note"));
+        assertEquals(List.of("base", "timeLimit", "bnp", "cache", "engines", "note"),
+                List.copyOf(request.keySet()));
+        assertTrue(Json.parseObject("{}").isEmpty());
+    }
+
+    @Test
+    void rejectsAnythingButOneObject() {
+        for (String text : new String[]{"[1, 2]", "\"object\"", "42", "true", "null"}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> Json.parseObject(text), text);
+            assertEquals("Expected a JSON object", e.getMessage());
+        }
+    }
+
+    @Test
+    void reportsWhereTheTextGoesWrong() {
+        assertError("", "Bad JSON at 0: unexpected end");
+        assertError("   ", "Bad JSON at 3: unexpected end");
+        assertError("{\"a\": 1} x", "Bad JSON at 9: unexpected x");
+        assertError("{\"a\": 1}}", "Bad JSON at 8: unexpected }");
+        assertError("{a: 1}", "Bad JSON at 1: expected a key");
+        assertError("{\"a\": 1,}", "Bad JSON at 8: expected a key");
+        assertError("{\"a\" 1}", "Bad JSON at 5: expected :");
+        assertError("{\"a\": 1", "Bad JSON at 7: expected }");
+        assertError("{\"a\": [1, 2}", "Bad JSON at 11: expected ]");
+        assertError("{\"a\": }", "Bad JSON at 6: bad value");
+        assertError("{\"a\": 1.2.3}", "Bad JSON at 11: bad value");
+        assertError("{\"a\": tru}", "Bad JSON at 6: bad value");
+        assertError("{\"a\": \"open}", "Bad JSON at 12: unterminated string");
+        assertError("{\"a\": \"x\\", "Bad JSON at 9: unterminated string");
+        assertError("{\"a\": \"\\u12\"}", "Bad JSON at 9: bad \\u escape");
+        assertError("{\"a\": \"\\uzzzz\"}", "Bad JSON at 9: bad \\u escape");
+    }
+
+    private static void assertError(String text, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Json.parseObject(text), text);
+        assertEquals(message, e.getMessage(), text);
+    }
+}
@@ -0,0 +1,100 @@
+package util;
+
+import model.FlightTable;
+import network.ConnectionNetwork;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryScheduleTest {
+    private static final String SAMPLE = "../data/flights.csv";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsTheSampleSchedule() throws IOException {
+        FlightTable table = new FlightTable(InputParser.parseFlights(SAMPLE));
+        String file = dir.resolve("flights.bin").toString();
+        BinarySchedule.write(table, null, file);
+
+        assertTrue(BinarySchedule.isBinary(file));
+        BinarySchedule read = BinarySchedule.read(file);
+        assertSameFlights(table, read.getTable());
+        assertFalse(read.hasNetwork(40, false));
+    }
+
+    @Test
+    void roundTripsADatedScheduleWithItsNetwork() throws IOException {
+        ScheduleGenerator generator = new ScheduleGenerator();
+        generator.setFlights(200);
+        generator.setDays(3);
+        generator.setStartDate(LocalDate.of(2024, 3, 1));
+        FlightTable table = new FlightTable(generator.generate());
+        assertTrue(table.isDated());
+        ConnectionNetwork network = new ConnectionNetwork(table, 40, true, 6 * 60);
+        String file = dir.resolve("dated.bin").toString();
+        BinarySchedule.write(table, network, file);
+
+        BinarySchedule read = BinarySchedule.read(file);
+        assertSameFlights(table, read.getTable());
+        assertTrue(read.hasNetwork(40, true, 6 * 60));
+        assertFalse(read.hasNetwork(40, true));
+        assertFalse(read.hasNetwork(30, true, 6 * 60));
+
+        ConnectionNetwork stored = read.getNetwork(40, true, 6 * 60);
+        assertEquals(network.getArcCount(), stored.getArcCount());
+        assertArrayEquals(network.getDepartureOrder(), stored.getDepartureOrder());
+        for (int i = 0; i < table.size(); i++) {
+            assertArrayEquals(network.getSuccessors(i), stored.getSuccessors(i), "successors of " + i);
+            assertArrayEquals(network.getTurnMinutes(i), stored.getTurnMinutes(i), "turns of " + i);
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotBinarySchedules() throws IOException {
+        assertFalse(BinarySchedule.isBinary(SAMPLE));
+        assertThrows(IOException.class, () -> BinarySchedule.read(SAMPLE));
+
+        FlightTable table = new FlightTable(InputParser.parseFlights(SAMPLE));
+        Path file = dir.resolve("flights.bin");
+        BinarySchedule.write(table, null, file.toString());
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = dir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        IOException e = assertThrows(IOException.class, () -> BinarySchedule.read(truncated.toString()));
+        assertTrue(e.getMessage().contains("truncated"), e.getMessage());
+    }
+
+    private static void assertSameFlights(FlightTable expected, FlightTable actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isDated(), actual.isDated());
+        for (int i = 0; i < expected.size(); i++) {
+            String at = "flight " + i;
+            assertEquals(expected.flightId(i), actual.flightId(i), at);
+            assertEquals(expected.getAirports().codeOf(expected.from(i)), actual.getAirports().codeOf(actual.from(i)), at);
+            assertEquals(expected.getAirports().codeOf(expected.to(i)), actual.getAirports().codeOf(actual.to(i)), at);
+            assertEquals(expected.getAirports().codeOf(expected.base(i)), actual.getAirports().codeOf(actual.base(i)), at);
+            assertEquals(expected.getAircraftTypes().codeOf(expected.aircraft(i)),
+                    actual.getAircraftTypes().codeOf(actual.aircraft(i)), at);
+            assertEquals(expected.depTime(i), actual.depTime(i), at);
+            assertEquals(expected.arrTime(i), actual.arrTime(i), at);
+            assertEquals(expected.durationHours(i), actual.durationHours(i), at);
+            assertEquals(expected.cost(i), actual.cost(i), at);
+            assertEquals(expected.isNight(i), actual.isNight(i), at);
+            assertEquals(expected.fingerprint(i), actual.fingerprint(i), at);
+            assertEquals(i, actual.indexOf(expected.flightId(i)), at);
+        }
+    }
+}
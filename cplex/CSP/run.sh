@@ -1,15 +1,19 @@
 #!/bin/bash
 
-CPLEX_JAR="/Users/Inz_mac/Applications/CPLEX_Studio_Community2212/cplex/lib/cplex.jar"
-CPLEX_LIB_PATH="/Users/Inz_mac/Applications/CPLEX_Studio_Community2212/cplex/bin/arm64_osx"
+CPLEX_JAR="${CPLEX_JAR:-/Users/Inz_mac/Applications/CPLEX_Studio_Community2212/cplex/lib/cplex.jar}"
+CPLEX_LIB_PATH="${CPLEX_LIB_PATH:-/Users/Inz_mac/Applications/CPLEX_Studio_Community2212/cplex/bin/arm64_osx}"
 
-if [ ! -f "$CPLEX_JAR" ]; then
-    echo "Error: cplex.jar not found at: $CPLEX_JAR"
-    echo "Please edit 'run.sh' and update the CPLEX_JAR path."
-    exit 1
-fi
+# every package under src, so a new one cannot be left out of the build
+SOURCES=$(find src -name '*.java' | sort)
 
-if [ ! -d "$CPLEX_LIB_PATH" ]; then
+if [ ! -f "$CPLEX_JAR" ]; then
+    echo "Warning: cplex.jar not found at: $CPLEX_JAR"
+    echo "Building without CPLEX, the built-in simplex LP backend will be used."
+    echo "Set CPLEX_JAR (or edit 'run.sh') to enable the CPLEX backend."
+    CPLEX_JAR=""
+    # CplexBackend is the only class that needs cplex.jar
+    SOURCES=$(echo "$SOURCES" | grep -v 'master/CplexBackend.java')
+elif [ ! -d "$CPLEX_LIB_PATH" ]; then
     echo "Warning: CPLEX library path not found at: $CPLEX_LIB_PATH"
     echo "The application might fail if it cannot find native libraries."
 fi
@@ -17,13 +21,7 @@ fi
 mkdir -p bin
 
 echo "Compiling sources..."
-javac -d bin -cp ".:$CPLEX_JAR" \
-    src/util/*.java \
-    src/model/*.java \
-    src/master/*.java \
-    src/pricing/*.java \
-    src/cg/*.java \
-    src/Main.java
+javac -d bin -cp ".:$CPLEX_JAR" $SOURCES
 
 if [ $? -ne 0 ]; then
     echo "Compilation failed."
@@ -34,4 +32,4 @@ echo "Compilation successful."
 
 echo "Running Crew Scheduling CLI..."
 echo "------------------------------------------------"
-java --enable-native-access=ALL-UNNAMED -cp "bin:$CPLEX_JAR" -Djava.library.path="$CPLEX_LIB_PATH" Main
+java --enable-native-access=ALL-UNNAMED -cp "bin:$CPLEX_JAR" -Djava.library.path="$CPLEX_LIB_PATH" Main "$@"
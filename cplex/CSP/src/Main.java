@@ -1,18 +1,66 @@
+import batch.BatchCli;
+import bnp.BranchAndPrice;
 import cg.ColumnGenerationSolver;
-import ilog.concert.IloException;
-import model.Flight;
+import cg.RollingHorizonSolver;
+import cg.TerminationCriteria;
+import master.LpBackend;
+import master.LpBackends;
+import master.LpException;
+import master.RestrictedMasterProblem;
+import metrics.SolverMetrics;
+import metrics.TraceSink;
+import model.FlightTable;
+import model.Pairing;
+import network.ConnectionNetwork;
+import pricing.LabelSettingPricing;
+import pricing.MultiBasePricing;
+import pricing.ParallelPricing;
+import pricing.PricingCascade;
+import pricing.PricingEngine;
 import pricing.PricingProblem;
+import service.LoadTest;
+import service.SolveService;
+import stabilization.BoxStep;
+import stabilization.DualStabilizer;
+import stabilization.NoStabilization;
+import stabilization.WentgesSmoothing;
+import util.BinarySchedule;
+import util.ColumnCache;
 import util.InputParser;
 import util.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.management.JMException;
 
 public class Main {
     
     public static void main(String[] args) {
+        // "serve" runs the local solve service, "loadtest" its client, see service.SolveService
+        if (args.length > 0 && (args[0].equals("serve") || args[0].equals("loadtest"))) {
+            String[] rest = Arrays.copyOfRange(args, 1, args.length);
+            if (args[0].equals("serve")) {
+                SolveService.main(rest);
+            } else {
+                LoadTest.main(rest);
+            }
+            return;
+        }
+        // with arguments the solver runs headless, see batch.BatchCli for the flags
+        if (args.length > 0) {
+            BatchCli.main(args);
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
 
         utils.header("Crew Scheduling Problem");
@@ -40,22 +88,65 @@ public class Main {
                 }
             }
 
-            List<Flight> flights = InputParser.parseFlights(filePath);
-            System.out.println("Loaded " + flights.size() + " flights.");
+            // binary schedules (util.BinarySchedule) load without parsing and may carry their arcs
+            BinarySchedule binary = null;
+            FlightTable table;
+            long loadStart = System.currentTimeMillis();
+            if (BinarySchedule.isBinary(filePath)) {
+                binary = BinarySchedule.read(filePath);
+                table = binary.getTable();
+            } else {
+                table = new FlightTable(InputParser.parseFlights(filePath));
+            }
+            System.out.println("Loaded " + table.size() + " flights in " + (System.currentTimeMillis() - loadStart) + " ms.");
 
             // taking operational constraints
             System.out.println("\n===  STEP 2: OPERATIONAL CONSTRAINTS  ===");
 
-            String defaultBase = flights.get(0).getBase();
-            System.out.println("Enter home base airport (default: " + defaultBase + ")");
+            if (table.size() == 0) {
+                System.err.println("Error: No flights loaded, cannot set default base.");
+                return;
+            }
+            String defaultBase = table.getAirports().codeOf(table.base(0));
+            System.out.println("Enter home base airport(s) (comma-separated, all = every Base in the file, default: "
+                    + defaultBase + ")");
             System.out.print(":: ");
-            String base = scanner.nextLine().trim();
-            if (base.isEmpty()) {
-                if (flights.isEmpty()) {
-                    System.err.println("Error: No flights loaded, cannot set default base.");
-                    return;
+            String baseStr = scanner.nextLine().trim();
+            List<String> bases = new ArrayList<>();
+            if (baseStr.isEmpty()) {
+                bases.add(defaultBase);
+            } else if (baseStr.equalsIgnoreCase("all")) {
+                for (int i = 0; i < table.size(); i++) {
+                    String b = table.getAirports().codeOf(table.base(i));
+                    if (!bases.contains(b)) {
+                        bases.add(b);
+                    }
+                }
+            } else {
+                for (String b : baseStr.split(",")) {
+                    bases.add(b.trim());
+                }
+            }
+            String base = bases.get(0);
+
+            // several bases share one RMP, each prices its own pairings
+            boolean ownFlightsOnly = false;
+            Map<String, Double> capacities = new LinkedHashMap<>();
+            if (bases.size() > 1) {
+                System.out.println("Only use the flights of each base's Base column? (yes/no, default: no)");
+                System.out.print(":: ");
+                String ownStr = scanner.nextLine().trim().toLowerCase();
+                ownFlightsOnly = ownStr.equals("yes") || ownStr.equals("y");
+
+                System.out.println("Max pairings per base (e.g. DAC=10,CGP=5, default: no limit)");
+                System.out.print(":: ");
+                String capStr = scanner.nextLine().trim();
+                if (!capStr.isEmpty()) {
+                    for (String entry : capStr.split(",")) {
+                        String[] kv = entry.split("=");
+                        capacities.put(kv[0].trim(), Double.parseDouble(kv[1].trim()));
+                    }
                 }
-                base = defaultBase;
             }
 
             System.out.println("Maximum duty time (hours, default: 12)");
@@ -73,10 +164,33 @@ public class Main {
             String turnStr = scanner.nextLine().trim();
             long minTurn = turnStr.isEmpty() ? 40 : Long.parseLong(turnStr);
 
-            System.out.println("Allow overnight duties? (yes/no, default: no)");
+            // a dated schedule allows pairings over several days, which rest overnight
+            boolean dated = table.isDated();
+            System.out.println("Allow overnight duties? (yes/no, default: " + (dated ? "yes" : "no") + ")");
             System.out.print(":: ");
             String nightStr = scanner.nextLine().trim().toLowerCase();
-            boolean allowOvernight = nightStr.equals("yes") || nightStr.equals("y");
+            boolean allowOvernight = nightStr.isEmpty() ? dated : nightStr.equals("yes") || nightStr.equals("y");
+
+            int maxDuties = 1;
+            double minRest = 10.0;
+            long maxConnection = Long.MAX_VALUE;
+            double layoverCost = 150.0;
+            if (dated) {
+                System.out.println("Max duties per pairing (default: 3)");
+                System.out.print(":: ");
+                String dutiesStr = scanner.nextLine().trim();
+                maxDuties = dutiesStr.isEmpty() ? 3 : Integer.parseInt(dutiesStr);
+
+                System.out.println("Minimum rest between duties (hours, default: 10)");
+                System.out.print(":: ");
+                String restStr = scanner.nextLine().trim();
+                minRest = restStr.isEmpty() ? 10.0 : Double.parseDouble(restStr);
+
+                System.out.println("Maximum connection time, rests included (hours, default: 24)");
+                System.out.print(":: ");
+                String connStr = scanner.nextLine().trim();
+                maxConnection = Math.round((connStr.isEmpty() ? 24.0 : Double.parseDouble(connStr)) * 60);
+            }
 
             // taking cost parameters
             System.out.println("\n===  STEP 3: COST PARAMETERS  ===");
@@ -101,28 +215,308 @@ public class Main {
             String overStr = scanner.nextLine().trim();
             double overPenalty = overStr.isEmpty() ? 120.0 : Double.parseDouble(overStr);
 
+            if (dated) {
+                System.out.println("Layover cost per rest away from base (default: 150)");
+                System.out.print(":: ");
+                String layoverStr = scanner.nextLine().trim();
+                layoverCost = layoverStr.isEmpty() ? 150.0 : Double.parseDouble(layoverStr);
+            }
+
             System.out.println("Max columns(flights) per iteration (default: 50)");
             System.out.print(":: ");
             String maxColsStr = scanner.nextLine().trim();
             int maxCols = maxColsStr.isEmpty() ? 50 : Integer.parseInt(maxColsStr);
 
+            System.out.println("Pricing engine (label/dfs, default: label)");
+            System.out.print(":: ");
+            String engineStr = scanner.nextLine().trim().toLowerCase();
+            boolean useDfs = engineStr.equals("dfs");
+
+            System.out.println("Pricing threads (default: 1)");
+            System.out.print(":: ");
+            String threadsStr = scanner.nextLine().trim();
+            int threads = threadsStr.isEmpty() ? 1 : Integer.parseInt(threadsStr);
+            boolean async = false;
+            if (threads > 1) {
+                System.out.println("Price while the RMP re-optimizes (asynchronous)? (yes/no, default: no)");
+                System.out.print(":: ");
+                String asyncStr = scanner.nextLine().trim().toLowerCase();
+                async = asyncStr.equals("yes") || asyncStr.equals("y");
+            }
+            int asyncWorkers = async ? threads : 0;
+
+            System.out.println("Heuristic pricing tiers before exact pricing? (yes/no, default: yes)");
+            System.out.print(":: ");
+            String cascadeStr = scanner.nextLine().trim().toLowerCase();
+            boolean useCascade = !(cascadeStr.equals("no") || cascadeStr.equals("n"));
+
+            System.out.println("LP backend (auto/cplex/simplex, default: auto)");
+            System.out.print(":: ");
+            LpBackend lp = LpBackends.create(scanner.nextLine().trim());
+            System.out.println("Using LP backend: " + lp.getName());
+
+            System.out.println("Column age limit (iterations, 0 = keep all, default: 10)");
+            System.out.print(":: ");
+            String ageStr = scanner.nextLine().trim();
+            int maxAge = ageStr.isEmpty() ? 10 : Integer.parseInt(ageStr);
+
+            System.out.println("Dual stabilization (none/smoothing/boxstep, default: smoothing)");
+            System.out.print(":: ");
+            String stabStr = scanner.nextLine().trim().toLowerCase();
+            Supplier<DualStabilizer> stabilizers;
+            if (stabStr.equals("none")) {
+                stabilizers = NoStabilization::new;
+            } else if (stabStr.equals("boxstep")) {
+                System.out.println("Box-step half width (default: 100)");
+                System.out.print(":: ");
+                String deltaStr = scanner.nextLine().trim();
+                double delta = deltaStr.isEmpty() ? 100.0 : Double.parseDouble(deltaStr);
+                stabilizers = () -> new BoxStep(delta, 10);
+            } else {
+                System.out.println("Smoothing alpha (0-1, default: 0.5)");
+                System.out.print(":: ");
+                String alphaStr = scanner.nextLine().trim();
+                double alpha = alphaStr.isEmpty() ? 0.5 : Double.parseDouble(alphaStr);
+                stabilizers = () -> new WentgesSmoothing(alpha);
+            }
+
+            System.out.println("Stop at relative gap (%, 0 = prove optimality, default: 0)");
+            System.out.print(":: ");
+            String relGapStr = scanner.nextLine().trim();
+            double relGap = relGapStr.isEmpty() ? 0.0 : Double.parseDouble(relGapStr) / 100.0;
+
+            System.out.println("Stop at absolute gap (0 = off, default: 0)");
+            System.out.print(":: ");
+            String absGapStr = scanner.nextLine().trim();
+            double absGap = absGapStr.isEmpty() ? 0.0 : Double.parseDouble(absGapStr);
+
+            System.out.println("Max iterations (0 = no limit, default: 0)");
+            System.out.print(":: ");
+            String iterStr = scanner.nextLine().trim();
+            int maxIter = iterStr.isEmpty() ? 0 : Integer.parseInt(iterStr);
+
+            System.out.println("Time limit (seconds, 0 = none, default: 0)");
+            System.out.print(":: ");
+            String timeStr = scanner.nextLine().trim();
+            long timeLimitMs = timeStr.isEmpty() ? 0 : (long) (Double.parseDouble(timeStr) * 1000);
+
+            System.out.println("Iteration trace file (.csv or .json, empty = off, default: off)");
+            System.out.print(":: ");
+            String traceStr = scanner.nextLine().trim();
+
+            // long dated schedules are solved window by window
+            int windowDays = 0;
+            int stepDays = 1;
+            if (dated) {
+                System.out.println("Rolling horizon window (days, 0 = whole schedule at once, default: 0)");
+                System.out.print(":: ");
+                String windowStr = scanner.nextLine().trim();
+                windowDays = windowStr.isEmpty() ? 0 : Integer.parseInt(windowStr);
+                if (windowDays > 0) {
+                    System.out.println("Days committed per window (default: 1)");
+                    System.out.print(":: ");
+                    String stepStr = scanner.nextLine().trim();
+                    stepDays = stepStr.isEmpty() ? 1 : Integer.parseInt(stepStr);
+                }
+            }
+
+            // pairings of earlier runs under the same rules seed the RMP
+            ColumnCache cache = null;
+            if (windowDays == 0) {
+                System.out.println("Column cache directory (empty = off, default: off)");
+                System.out.print(":: ");
+                String cacheStr = scanner.nextLine().trim();
+                if (!cacheStr.isEmpty()) {
+                    System.out.println("Column cache size limit (MB, default: 256)");
+                    System.out.print(":: ");
+                    String cacheMbStr = scanner.nextLine().trim();
+                    double cacheMb = cacheMbStr.isEmpty() ? 256 : Double.parseDouble(cacheMbStr);
+                    cache = new ColumnCache(Path.of(cacheStr), (long) (cacheMb * 1024 * 1024));
+                }
+            }
+
+            String bnpStr = "none";
+            if (windowDays == 0) {
+                System.out.println("Integer solution by branch-and-price (none/bestbound/depthfirst, default: none)");
+                System.out.print(":: ");
+                bnpStr = scanner.nextLine().trim().toLowerCase();
+            }
+            TerminationCriteria termination = new TerminationCriteria(relGap, absGap, maxIter, timeLimitMs);
+
+            // every solver reports its iterations to the metrics (also over JMX) and the trace
+            SolverMetrics metrics = new SolverMetrics();
+            try {
+                metrics.register("main");
+            } catch (JMException e) {
+                System.err.println("Metrics not registered over JMX: " + e.getMessage());
+            }
+            TraceSink trace = traceStr.isEmpty() ? null : TraceSink.open(Path.of(traceStr));
+
+            if (windowDays > 0) {
+                // every window prices over its own table and network; capacities are per window
+                int duties = maxDuties;
+                double rest = minRest;
+                double layover = layoverCost;
+                long connection = maxConnection;
+                boolean own = ownFlightsOnly;
+                AtomicInteger windows = new AtomicInteger();
+                RollingHorizonSolver rolling = new RollingHorizonSolver(table, window -> {
+                    PricingProblem p = new PricingProblem(
+                            new ConnectionNetwork(window, minTurn, allowOvernight, connection), base, maxDuty, maxFly,
+                            fixedCost, hourlyCost, nightPenalty, overPenalty);
+                    p.setDutyRules(duties, rest, layover);
+                    ColumnGenerationSolver s = new ColumnGenerationSolver(window,
+                            engine(p, bases, own, useDfs, useCascade, threads), maxCols, LpBackends.create(lp.getName()));
+                    s.setMaxColumnAge(maxAge);
+                    s.setAsyncWorkers(asyncWorkers);
+                    s.setStabilizer(stabilizers.get());
+                    s.setTermination(termination);
+                    s.setName("window " + windows.incrementAndGet());
+                    s.addListener(metrics);
+                    if (trace != null) {
+                        s.addListener(trace);
+                    }
+                    for (Map.Entry<String, Double> e : capacities.entrySet()) {
+                        s.setBaseCapacity(e.getKey(), e.getValue());
+                    }
+                    return s;
+                }, lp.getName(), windowDays, stepDays);
+                lp.close();
+                System.out.println("Step 4: Rolling Horizon Execution");
+                System.out.println("--------------------------------");
+                rolling.solve();
+                rolling.printSolution();
+                report(metrics, trace);
+                return;
+            }
+
             // initialization
-            PricingProblem pricing = new PricingProblem(flights, base, maxDuty, maxFly, minTurn, allowOvernight,
+            // the flight table and connection network are shared by pricing and the RMP
+            ConnectionNetwork network = binary != null ? binary.getNetwork(minTurn, allowOvernight, maxConnection)
+                    : new ConnectionNetwork(table, minTurn, allowOvernight, maxConnection);
+            PricingProblem pricing = new PricingProblem(network, base, maxDuty, maxFly,
                     fixedCost, hourlyCost, nightPenalty, overPenalty);
+            pricing.setDutyRules(maxDuties, minRest, layoverCost);
+
+            if (bases.size() > 1 && !bnpStr.isEmpty() && !bnpStr.equals("none")) {
+                System.out.println("Branch-and-price works on a single base, solving the LP relaxation.");
+            } else if (bnpStr.equals("bestbound") || bnpStr.equals("depthfirst")) {
+                // nodes are solved in parallel, so every node prices on one thread
+                BranchAndPrice bnp = new BranchAndPrice(table, pricing, p -> {
+                    PricingEngine exact = useDfs ? p : new LabelSettingPricing(p);
+                    return useCascade ? new PricingCascade(p, exact) : exact;
+                }, lp.getName(), maxCols);
+                lp.close();
+                bnp.setNodeSelection(bnpStr.equals("depthfirst") ? BranchAndPrice.NodeSelection.DEPTH_FIRST
+                        : BranchAndPrice.NodeSelection.BEST_BOUND);
+                bnp.setThreads(threads);
+                bnp.setStabilizerFactory(stabilizers);
+                bnp.setMaxColumnAge(maxAge);
+                bnp.setTermination(termination);
+                bnp.addListener(metrics);
+                if (trace != null) {
+                    bnp.addListener(trace);
+                }
 
-            ColumnGenerationSolver solver = new ColumnGenerationSolver(flights, pricing, maxCols);
+                bnp.solve();
+                bnp.printSolution();
+                report(metrics, trace);
+                return;
+            }
+
+            PricingEngine engine = engine(pricing, bases, ownFlightsOnly, useDfs, useCascade, threads);
+            ColumnGenerationSolver solver = new ColumnGenerationSolver(table, engine, maxCols, lp);
+            solver.setMaxColumnAge(maxAge);
+            solver.setAsyncWorkers(asyncWorkers);
+            solver.setStabilizer(stabilizers.get());
+            solver.setTermination(termination);
+            solver.addListener(metrics);
+            if (trace != null) {
+                solver.addListener(trace);
+            }
+            for (Map.Entry<String, Double> e : capacities.entrySet()) {
+                solver.setBaseCapacity(e.getKey(), e.getValue());
+            }
+
+            List<PricingProblem> problems = engine instanceof MultiBasePricing
+                    ? new ArrayList<>(((MultiBasePricing) engine).getProblems().values()) : List.of(pricing);
+            if (cache != null) {
+                long cacheStart = System.currentTimeMillis();
+                solver.addSeedColumns(cache.load(table, problems));
+                if (cache.getLoadedDuals() != null) {
+                    solver.setWarmStartDuals(cache.getLoadedDuals());
+                }
+                System.out.println("Column cache: " + cache.getLoadedColumns() + " columns seeded from "
+                        + cache.getEntriesRead() + " entries, " + cache.getStaleColumns() + " stale, in "
+                        + (System.currentTimeMillis() - cacheStart) + " ms");
+            }
 
             solver.solve();
+            if (cache != null) {
+                // printSolution closes the RMP, so the columns are stored first
+                RestrictedMasterProblem rmp = solver.getMasterProblem();
+                List<Pairing> columns = new ArrayList<>();
+                for (Pairing p : rmp.getColumns()) {
+                    if (!rmp.isArtificial(p)) {
+                        columns.add(p);
+                    }
+                }
+                cache.store(table, problems, columns, rmp.getDuals());
+            }
             solver.printSolution();
+            if (engine instanceof PricingCascade) {
+                System.out.println(((PricingCascade) engine).describeStats());
+            }
+            if (engine instanceof MultiBasePricing) {
+                MultiBasePricing multiBase = (MultiBasePricing) engine;
+                for (Map.Entry<String, PricingEngine> e : multiBase.getEngines().entrySet()) {
+                    if (e.getValue() instanceof PricingCascade) {
+                        System.out.println(e.getKey() + " " + ((PricingCascade) e.getValue()).describeStats());
+                    }
+                }
+                multiBase.shutdown();
+            }
+            report(metrics, trace);
 
         } catch (IOException e) {
             System.err.println("IO Error: " + e.getMessage());
-        } catch (IloException e) {
-            System.err.println("CPLEX Error: " + e.getMessage());
+        } catch (LpException e) {
+            System.err.println("Solver Error: " + e.getMessage());
             e.printStackTrace();
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace();
         }
     }
+
+    private static void report(SolverMetrics metrics, TraceSink trace) throws IOException {
+        System.out.println("Metrics: " + metrics.getIterations() + " iterations | RMP " + metrics.getRmpMillis()
+                + " ms | pricing " + metrics.getPricingMillis() + " ms | nodes expanded "
+                + metrics.getNodesExpanded() + ", generated " + metrics.getNodesGenerated() + ", pruned "
+                + metrics.getNodesPruned() + ", cut unclosable " + metrics.getNodesUnclosable() + ", cut by bound "
+                + metrics.getNodesBounded());
+        if (trace != null) {
+            trace.close();
+            System.out.println("Iteration trace written.");
+        }
+    }
+
+    private static PricingEngine engine(PricingProblem pricing, List<String> bases, boolean ownFlightsOnly,
+                                        boolean useDfs, boolean useCascade, int threads) {
+        if (bases.size() > 1) {
+            // the bases are priced in parallel, one thread each
+            return MultiBasePricing.forBases(pricing, bases, ownFlightsOnly, p -> {
+                PricingEngine exact = useDfs ? p : new LabelSettingPricing(p);
+                return useCascade ? new PricingCascade(p, exact) : exact;
+            }, threads);
+        }
+        PricingEngine engine;
+        if (threads > 1) {
+            engine = useDfs ? new ParallelPricing(pricing, threads)
+                    : new ParallelPricing(new LabelSettingPricing(pricing), threads);
+        } else {
+            engine = useDfs ? pricing : new LabelSettingPricing(pricing);
+        }
+        return useCascade ? new PricingCascade(pricing, engine) : engine;
+    }
 }
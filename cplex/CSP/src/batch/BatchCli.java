@@ -0,0 +1,226 @@
+package batch;
+
+import model.FlightTable;
+import util.BinarySchedule;
+import util.InputParser;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Headless entry point (Main with arguments): solves one or more parameter sets without
+ * prompting and writes a CSV results table.
+ *
+ *   --file path          flight schedule, CSV or binary (default: data/flights.csv)
+ *   --scenarios path     one scenario per line as key=value pairs, '#' starts a comment;
+ *                        "name=..." labels the line, other keys override the flags
+ *   --workers n          scenarios solved at the same time (default: available cores)
+ *   --out path           results table (default: stdout)
+ *   --<key> v1,v2,...    any Scenario key: base own-flights capacity duty fly turn
+ *                        overnight max-duties min-rest (hours) max-connection (hours, 0 =
+ *                        none) fixed hourly night overtime layover max-cols engine cascade
+ *                        async lp age stabilization alpha box-width rel-gap (%) abs-gap
+ *                        max-iter time-limit (seconds) window step (days, dated schedules)
+ *                        cache (directory) cache-mb trace (directory); base=DAC+CGP (or all)
+ *                        prices several bases against one RMP, capacity=DAC:10+CGP:5
+ *                        limits their pairings, window > 0 solves a rolling horizon, cache
+ *                        seeds each solve with the columns of earlier runs under the same
+ *                        rules, trace writes each scenario's iterations to <name>.csv,
+ *                        async > 0 prices on that many threads while the RMP re-optimizes
+ *
+ * Comma-separated values form a grid: every combination becomes a scenario, on the
+ * command line as well as on a scenario line. Progress goes to stderr.
+ *
+ * e.g. java Main --duty 10,12 --hourly 100,150 --workers 4 --out sweep.csv
+ */
+public class BatchCli {
+    private static final String[] RESULT_COLUMNS = {"status", "objective", "lower_bound", "gap_pct", "iterations",
+            "stop_reason", "pairings", "uncovered", "rmp_columns", "cached_columns", "network_ms", "solve_ms",
+            "rmp_ms", "pricing_ms"};
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        } catch (InterruptedException e) {
+            System.err.println("Interrupted");
+            System.exit(1);
+        }
+    }
+
+    // returns the exit status: 0 if every scenario solved, 1 otherwise
+    public static int run(String[] args) throws IOException, InterruptedException {
+        String file = "data/flights.csv";
+        String scenarioFile = null;
+        String out = null;
+        int workers = Runtime.getRuntime().availableProcessors();
+        Map<String, String> flags = new LinkedHashMap<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--"))
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            String key = arg.substring(2);
+            String value;
+            int eq = key.indexOf('=');
+            if (eq >= 0) {
+                value = key.substring(eq + 1);
+                key = key.substring(0, eq);
+            } else {
+                if (i + 1 >= args.length)
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                value = args[++i];
+            }
+
+            switch (key) {
+                case "file":
+                    file = value;
+                    break;
+                case "scenarios":
+                    scenarioFile = value;
+                    break;
+                case "workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "out":
+                    out = value;
+                    break;
+                default:
+                    if (!Scenario.isKey(key))
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    flags.put(key, value);
+            }
+        }
+
+        List<Scenario> scenarios = new ArrayList<>();
+        if (scenarioFile == null) {
+            scenarios.addAll(Scenario.grid("s1", flags));
+        } else {
+            for (Map<String, String> line : readScenarioFile(scenarioFile)) {
+                Map<String, String> values = new LinkedHashMap<>(flags);
+                String name = line.remove("name");
+                values.putAll(line);
+                scenarios.addAll(Scenario.grid(name != null ? name : "s" + (scenarios.size() + 1), values));
+            }
+        }
+        for (Scenario s : scenarios) {
+            s.validate();
+        }
+
+        // the schedule is loaded once and shared by every scenario
+        long loadStart = System.currentTimeMillis();
+        BatchRunner runner;
+        FlightTable table;
+        if (BinarySchedule.isBinary(file)) {
+            BinarySchedule binary = BinarySchedule.read(file);
+            table = binary.getTable();
+            runner = new BatchRunner(binary);
+        } else {
+            table = new FlightTable(InputParser.parseFlights(file));
+            runner = new BatchRunner(table);
+        }
+        System.err.printf("Loaded %d flights in %d ms, solving %d scenarios on %d workers%n", table.size(),
+                System.currentTimeMillis() - loadStart, scenarios.size(), workers);
+
+        long start = System.currentTimeMillis();
+        AtomicInteger done = new AtomicInteger();
+        List<BatchRunner.Result> results = runner.run(scenarios, workers, r -> System.err.printf(
+                "[%d/%d] %s: %s%n", done.incrementAndGet(), scenarios.size(), r.getScenario().getName(),
+                r.getError() == null ? String.format(Locale.ROOT, "%.2f in %d ms", r.getObjective(), r.getSolveMillis())
+                        : r.getError()));
+        System.err.printf("Batch finished in %d ms%n", System.currentTimeMillis() - start);
+
+        try (PrintWriter writer = out == null ? new PrintWriter(new OutputStreamWriter(System.out))
+                : new PrintWriter(out)) {
+            writeTable(writer, results);
+        }
+        return results.stream().allMatch(r -> r.getError() == null) ? 0 : 1;
+    }
+
+    private static List<Map<String, String>> readScenarioFile(String path) throws IOException {
+        List<Map<String, String>> lines = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = br.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (line.isEmpty())
+                    continue;
+
+                Map<String, String> values = new LinkedHashMap<>();
+                for (String pair : line.split("\\s+")) {
+                    int eq = pair.indexOf('=');
+                    String key = eq < 0 ? pair : pair.substring(0, eq);
+                    if (eq < 0 || !(key.equals("name") || Scenario.isKey(key)))
+                        throw new IllegalArgumentException(path + ":" + lineNumber + ": expected key=value, found " + pair);
+                    values.put(key, pair.substring(eq + 1));
+                }
+                lines.add(values);
+            }
+        }
+        return lines;
+    }
+
+    private static void writeTable(PrintWriter writer, List<BatchRunner.Result> results) {
+        List<String> keys = Scenario.keys();
+        List<String> header = new ArrayList<>();
+        header.add("scenario");
+        for (String key : keys) {
+            header.add(key.replace('-', '_'));
+        }
+        header.addAll(List.of(RESULT_COLUMNS));
+        writer.println(String.join(",", header));
+
+        for (BatchRunner.Result r : results) {
+            List<String> row = new ArrayList<>();
+            row.add(csv(r.getScenario().getName()));
+            for (String key : keys) {
+                row.add(csv(r.getScenario().get(key)));
+            }
+            if (r.getError() != null) {
+                row.add(csv("error: " + r.getError()));
+                for (int k = 1; k < RESULT_COLUMNS.length; k++) {
+                    row.add("");
+                }
+            } else {
+                row.add("ok");
+                row.add(String.format(Locale.ROOT, "%.4f", r.getObjective()));
+                row.add(String.format(Locale.ROOT, "%.4f", r.getLowerBound()));
+                row.add(String.format(Locale.ROOT, "%.4f", 100.0 * r.getRelativeGap()));
+                row.add(String.valueOf(r.getIterations()));
+                row.add(csv(r.getStopReason()));
+                row.add(String.valueOf(r.getPairings()));
+                row.add(String.valueOf(r.getUncovered()));
+                row.add(String.valueOf(r.getRmpColumns()));
+                row.add(String.valueOf(r.getCachedColumns()));
+                row.add(String.valueOf(r.getNetworkMillis()));
+                row.add(String.valueOf(r.getSolveMillis()));
+                row.add(String.valueOf(r.getRmpMillis()));
+                row.add(String.valueOf(r.getPricingMillis()));
+            }
+            writer.println(String.join(",", row));
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n"))
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        return value;
+    }
+}
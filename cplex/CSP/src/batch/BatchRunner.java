@@ -0,0 +1,410 @@
+package batch;
+
+import cg.ColumnGenerationSolver;
+import cg.IterationListener;
+import cg.RollingHorizonSolver;
+import cg.TerminationCriteria;
+import master.LpBackend;
+import master.LpBackendPool;
+import master.LpBackends;
+import master.LpException;
+import master.RestrictedMasterProblem;
+import metrics.SolverMetrics;
+import metrics.TraceSink;
+import model.FlightTable;
+import model.Pairing;
+import network.ConnectionNetwork;
+import pricing.LabelSettingPricing;
+import pricing.MultiBasePricing;
+import pricing.PricingCascade;
+import pricing.PricingEngine;
+import pricing.PricingProblem;
+import stabilization.BoxStep;
+import stabilization.DualStabilizer;
+import stabilization.NoStabilization;
+import stabilization.WentgesSmoothing;
+import util.BinarySchedule;
+import util.ColumnCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * Solves the LP relaxation of many scenarios of one schedule on a pool of workers.
+ *
+ * The FlightTable is shared read-only by all scenarios, and so is the ConnectionNetwork of
+ * each turnaround / overnight / max connection combination, built once by the first
+ * scenario that needs it (or taken from the binary schedule's stored arcs). Every scenario
+ * gets its own PricingProblem, pricing engine, LP backend and ColumnGenerationSolver, and
+ * prices on its worker's thread. Rolling-horizon scenarios (window > 0) build a network
+ * per window instead; their objective is the cost of the committed pairings and they
+ * report no lower bound. With a cache directory a scenario is seeded from, and then stores
+ * its final columns and duals into, the ColumnCache entry of its rules. With a trace
+ * directory every scenario writes its iterations to <directory>/<scenario name>.csv.
+ * With an LpBackendPool the LP of each (non-rolling) scenario is borrowed from the pool
+ * and handed back after the solve instead of being opened and closed.
+ */
+public class BatchRunner {
+    private final FlightTable table;
+    private final BinarySchedule binary;
+    private final Map<String, ConnectionNetwork> networks = new ConcurrentHashMap<>();
+    private LpBackendPool backends; // null: every scenario opens and closes its own LP
+
+    public BatchRunner(FlightTable table) {
+        this.table = table;
+        this.binary = null;
+    }
+
+    public BatchRunner(BinarySchedule binary) {
+        this.table = binary.getTable();
+        this.binary = binary;
+    }
+
+    /*
+     * runs every scenario, at most workers at a time; results come back in scenario order,
+     * onFinish sees each one as it completes (from the worker thread)
+     */
+    public List<Result> run(List<Scenario> scenarios, int workers, Consumer<Result> onFinish)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, workers));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Scenario s : scenarios) {
+                futures.add(pool.submit(() -> {
+                    Result r = solve(s);
+                    if (onFinish != null) {
+                        onFinish.accept(r);
+                    }
+                    return r;
+                }));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> f : futures) {
+                try {
+                    results.add(f.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause()); // solve() catches its own failures
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public void setBackendPool(LpBackendPool backends) {
+        this.backends = backends;
+    }
+
+    public Result solve(Scenario s) {
+        return solve(s, null, () -> false);
+    }
+
+    /*
+     * solve(s) with one more listener on its solvers, e.g. for progress, and a cancellation
+     * asked after every iteration: a cancelled solve stops with reason "cancelled" and
+     * reports the RMP it had, a cancelled rolling horizon fails before its next window
+     */
+    public Result solve(Scenario s, IterationListener progress, BooleanSupplier cancelled) {
+        Result r = new Result(s);
+        long start = System.nanoTime();
+        LpBackend lp = null;
+        MultiBasePricing multiBase = null;
+        SolverMetrics metrics = new SolverMetrics();
+        TraceSink trace = null;
+        try {
+            List<IterationListener> listeners = new ArrayList<>();
+            listeners.add(metrics);
+            if (progress != null) {
+                listeners.add(progress);
+            }
+            if (!s.get("trace").isEmpty()) {
+                trace = openTrace(Path.of(s.get("trace")), s.getName());
+                listeners.add(trace);
+            }
+            List<String> bases = bases(s);
+            if (s.getInt("window") > 0) {
+                // every window builds its own network, there is no shared one
+                AtomicInteger windows = new AtomicInteger();
+                RollingHorizonSolver rolling = new RollingHorizonSolver(table, w -> {
+                    if (cancelled.getAsBoolean())
+                        throw new LpException("cancelled");
+                    ColumnGenerationSolver ws = solver(s, w, problem(s, new ConnectionNetwork(w, s.getInt("turn"),
+                            s.getBoolean("overnight"), maxConnection(s)), bases), bases, listeners,
+                            LpBackends.create(s.get("lp")));
+                    ws.setName(s.getName() + " window " + windows.incrementAndGet());
+                    ws.setCancellation(cancelled);
+                    return ws;
+                }, s.get("lp"), s.getInt("window"), s.getInt("step"));
+                rolling.setVerbose(false);
+                rolling.solve();
+                r.solveMillis = (System.nanoTime() - start) / 1_000_000;
+                r.rmpMillis = metrics.getRmpMillis();
+                r.pricingMillis = metrics.getPricingMillis();
+                r.objective = rolling.getTotalCost();
+                r.iterations = rolling.getIterations();
+                r.stopReason = rolling.getWindows().size() + " windows";
+                r.pairings = rolling.getSolution().size();
+                r.uncovered = rolling.getUncovered().size();
+                return r;
+            }
+
+            ConnectionNetwork network = network(s.getInt("turn"), s.getBoolean("overnight"), maxConnection(s));
+            long built = System.nanoTime();
+            r.networkMillis = (built - start) / 1_000_000;
+
+            PricingProblem pricing = problem(s, network, bases);
+            lp = backends != null ? backends.borrow(s.get("lp")) : LpBackends.create(s.get("lp"));
+            ColumnGenerationSolver solver = solver(s, table, pricing, bases, listeners, lp);
+            solver.setCancellation(cancelled);
+            if (solver.getPricingEngine() instanceof MultiBasePricing) {
+                multiBase = (MultiBasePricing) solver.getPricingEngine();
+            }
+            ColumnCache cache = null;
+            List<PricingProblem> problems = null;
+            if (!s.get("cache").isEmpty()) {
+                cache = new ColumnCache(Path.of(s.get("cache")), (long) (s.getDouble("cache-mb") * 1024 * 1024));
+                problems = multiBase != null ? new ArrayList<>(multiBase.getProblems().values())
+                        : List.of(pricing);
+                List<Pairing> cached = cache.load(table, problems);
+                solver.addSeedColumns(cached);
+                if (cache.getLoadedDuals() != null) {
+                    solver.setWarmStartDuals(cache.getLoadedDuals());
+                }
+                r.cachedColumns = cached.size();
+            }
+            solver.solve();
+            r.solveMillis = (System.nanoTime() - built) / 1_000_000;
+
+            RestrictedMasterProblem rmp = solver.getMasterProblem();
+            if (cache != null) {
+                List<Pairing> columns = new ArrayList<>();
+                for (Pairing p : rmp.getColumns()) {
+                    if (!rmp.isArtificial(p)) {
+                        columns.add(p);
+                    }
+                }
+                cache.store(table, problems, columns, rmp.getDuals());
+            }
+            r.objective = solver.getUpperBound();
+            r.lowerBound = solver.getLowerBound();
+            r.gap = solver.getRelativeGap();
+            r.iterations = solver.getIterations();
+            r.stopReason = solver.getStopReason();
+            r.rmpColumns = rmp.getColumnCount();
+            r.rmpMillis = metrics.getRmpMillis();
+            r.pricingMillis = metrics.getPricingMillis();
+            for (Pairing p : rmp.getSolution()) {
+                if (rmp.isArtificial(p)) {
+                    r.uncovered++;
+                } else {
+                    r.pairings++;
+                }
+            }
+        } catch (Exception e) {
+            r.error = e.getMessage() == null ? e.toString() : e.getMessage();
+        } finally {
+            if (lp != null && backends != null) {
+                backends.release(lp);
+            } else if (lp != null) {
+                lp.close();
+            }
+            if (multiBase != null) {
+                multiBase.shutdown();
+            }
+            if (trace != null) {
+                try {
+                    trace.close();
+                } catch (IOException e) {
+                    if (r.error == null) {
+                        r.error = "trace: " + e.getMessage();
+                    }
+                }
+            }
+        }
+        return r;
+    }
+
+    // <directory>/<scenario name>.csv, the name made safe for a file name
+    private static TraceSink openTrace(Path directory, String scenario) throws IOException {
+        Files.createDirectories(directory);
+        return TraceSink.open(directory.resolve(scenario.replaceAll("[^A-Za-z0-9._#-]", "_") + ".csv"));
+    }
+
+    // the scenario's rules and costs over this network, for its first base
+    private static PricingProblem problem(Scenario s, ConnectionNetwork network, List<String> bases) {
+        PricingProblem pricing = new PricingProblem(network, bases.get(0), s.getDouble("duty"), s.getDouble("fly"),
+                s.getDouble("fixed"), s.getDouble("hourly"), s.getDouble("night"), s.getDouble("overtime"));
+        pricing.setDutyRules(s.getInt("max-duties"), s.getDouble("min-rest"), s.getDouble("layover"));
+        return pricing;
+    }
+
+    // column generation over this table and LP, pricing as the scenario asks
+    private static ColumnGenerationSolver solver(Scenario s, FlightTable table, PricingProblem pricing,
+                                                 List<String> bases, List<IterationListener> listeners,
+                                                 LpBackend lp) throws LpException {
+        boolean dfs = s.get("engine").equalsIgnoreCase("dfs");
+        boolean cascade = s.getBoolean("cascade");
+        Function<PricingProblem, PricingEngine> engines = p -> {
+            PricingEngine exact = dfs ? p : new LabelSettingPricing(p);
+            return cascade ? new PricingCascade(p, exact) : exact;
+        };
+        // several bases price one after the other on this worker, the pool is busy already
+        PricingEngine engine = bases.size() > 1
+                ? MultiBasePricing.forBases(pricing, bases, s.getBoolean("own-flights"), engines, 1)
+                : engines.apply(pricing);
+
+        ColumnGenerationSolver solver = new ColumnGenerationSolver(table, engine, s.getInt("max-cols"), lp);
+        for (Map.Entry<String, Double> e : s.getCapacities().entrySet()) {
+            solver.setBaseCapacity(e.getKey(), e.getValue());
+        }
+        solver.setVerbose(false);
+        solver.setName(s.getName());
+        for (IterationListener listener : listeners) {
+            solver.addListener(listener);
+        }
+        solver.setMaxColumnAge(s.getInt("age"));
+        solver.setAsyncWorkers(s.getInt("async"));
+        solver.setStabilizer(stabilizer(s));
+        solver.setTermination(new TerminationCriteria(s.getDouble("rel-gap") / 100.0, s.getDouble("abs-gap"),
+                s.getInt("max-iter"), (long) (s.getDouble("time-limit") * 1000)));
+        return solver;
+    }
+
+    // hours in the scenario, 0 = no limit
+    private static long maxConnection(Scenario s) {
+        double hours = s.getDouble("max-connection");
+        return hours > 0 ? Math.round(hours * 60) : Long.MAX_VALUE;
+    }
+
+    private List<String> bases(Scenario s) {
+        List<String> bases = s.getBases();
+        if (bases.isEmpty()) {
+            bases.add(table.getAirports().codeOf(table.base(0)));
+        } else if (bases.size() == 1 && bases.get(0).equalsIgnoreCase("all")) {
+            bases.clear();
+            for (int i = 0; i < table.size(); i++) {
+                String b = table.getAirports().codeOf(table.base(i));
+                if (!bases.contains(b)) {
+                    bases.add(b);
+                }
+            }
+        }
+        return bases;
+    }
+
+    private ConnectionNetwork network(int turn, boolean overnight, long maxConnection) {
+        return networks.computeIfAbsent(turn + "/" + overnight + "/" + maxConnection, key -> binary != null
+                ? binary.getNetwork(turn, overnight, maxConnection)
+                : new ConnectionNetwork(table, turn, overnight, maxConnection));
+    }
+
+    private static DualStabilizer stabilizer(Scenario s) {
+        switch (s.get("stabilization").toLowerCase()) {
+            case "none":
+                return new NoStabilization();
+            case "boxstep":
+                return new BoxStep(s.getDouble("box-width"), 10);
+            default:
+                return new WentgesSmoothing(s.getDouble("alpha"));
+        }
+    }
+
+    public static class Result {
+        private final Scenario scenario;
+        private String error;
+        private double objective = Double.NaN;
+        private double lowerBound = Double.NaN;
+        private double gap = Double.NaN;
+        private int iterations;
+        private String stopReason;
+        private int pairings;
+        private int uncovered; // flights left on their Big-M singleton
+        private int rmpColumns;
+        private int cachedColumns; // seeded from the column cache
+        private long networkMillis;
+        private long solveMillis;
+        private long rmpMillis;
+        private long pricingMillis;
+
+        Result(Scenario scenario) {
+            this.scenario = scenario;
+        }
+
+        public Scenario getScenario() {
+            return scenario;
+        }
+
+        // null if the scenario solved
+        public String getError() {
+            return error;
+        }
+
+        public double getObjective() {
+            return objective;
+        }
+
+        public double getLowerBound() {
+            return lowerBound;
+        }
+
+        public double getRelativeGap() {
+            return gap;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public String getStopReason() {
+            return stopReason;
+        }
+
+        public int getPairings() {
+            return pairings;
+        }
+
+        public int getUncovered() {
+            return uncovered;
+        }
+
+        public int getRmpColumns() {
+            return rmpColumns;
+        }
+
+        public int getCachedColumns() {
+            return cachedColumns;
+        }
+
+        // time to build (or wait for) the shared connection network
+        public long getNetworkMillis() {
+            return networkMillis;
+        }
+
+        public long getSolveMillis() {
+            return solveMillis;
+        }
+
+        // of the solve time, spent in RMP solves and in pricing
+        public long getRmpMillis() {
+            return rmpMillis;
+        }
+
+        public long getPricingMillis() {
+            return pricingMillis;
+        }
+    }
+}
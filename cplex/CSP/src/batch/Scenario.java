@@ -0,0 +1,184 @@
+package batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * One parameter set of a batch run: the values Main asks for interactively, keyed by the
+ * names of the batch flags (without the leading "--"). Unset keys take Main's defaults.
+ * List-valued keys use '+' since ',' makes a grid: base=DAC+CGP, capacity=DAC:10+CGP:5.
+ */
+public class Scenario {
+    // every parameter key, in results table order, with Main's default ("" = from the schedule)
+    static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+    static {
+        DEFAULTS.put("base", "");
+        DEFAULTS.put("own-flights", "no");
+        DEFAULTS.put("capacity", "");
+        DEFAULTS.put("duty", "12");
+        DEFAULTS.put("fly", "8");
+        DEFAULTS.put("turn", "40");
+        DEFAULTS.put("overnight", "no");
+        DEFAULTS.put("max-duties", "1");
+        DEFAULTS.put("min-rest", "10");
+        DEFAULTS.put("max-connection", "0");
+        DEFAULTS.put("layover", "150");
+        DEFAULTS.put("fixed", "200");
+        DEFAULTS.put("hourly", "100");
+        DEFAULTS.put("night", "150");
+        DEFAULTS.put("overtime", "120");
+        DEFAULTS.put("max-cols", "50");
+        DEFAULTS.put("engine", "label");
+        DEFAULTS.put("cascade", "yes");
+        DEFAULTS.put("async", "0");
+        DEFAULTS.put("lp", "auto");
+        DEFAULTS.put("age", "10");
+        DEFAULTS.put("stabilization", "smoothing");
+        DEFAULTS.put("alpha", "0.5");
+        DEFAULTS.put("box-width", "100");
+        DEFAULTS.put("rel-gap", "0");
+        DEFAULTS.put("abs-gap", "0");
+        DEFAULTS.put("max-iter", "0");
+        DEFAULTS.put("time-limit", "0");
+        DEFAULTS.put("window", "0");
+        DEFAULTS.put("step", "1");
+        DEFAULTS.put("cache", "");
+        DEFAULTS.put("cache-mb", "256");
+        DEFAULTS.put("trace", "");
+    }
+
+    private final String name;
+    private final Map<String, String> values;
+
+    public Scenario(String name, Map<String, String> values) {
+        this.name = name;
+        this.values = new LinkedHashMap<>(DEFAULTS);
+        this.values.putAll(values);
+    }
+
+    public static boolean isKey(String key) {
+        return DEFAULTS.containsKey(key);
+    }
+
+    static List<String> keys() {
+        return new ArrayList<>(DEFAULTS.keySet());
+    }
+
+    /*
+     * every combination of the comma-separated values, e.g. {duty=10,12; hourly=100,150}
+     * gives four scenarios named prefix#1..prefix#4 (just prefix if there is only one)
+     */
+    static List<Scenario> grid(String prefix, Map<String, String> lists) {
+        List<Map<String, String>> combos = new ArrayList<>();
+        combos.add(new LinkedHashMap<>());
+        for (Map.Entry<String, String> e : lists.entrySet()) {
+            List<Map<String, String>> next = new ArrayList<>();
+            for (Map<String, String> combo : combos) {
+                for (String value : e.getValue().split(",")) {
+                    Map<String, String> extended = new LinkedHashMap<>(combo);
+                    extended.put(e.getKey(), value.trim());
+                    next.add(extended);
+                }
+            }
+            combos = next;
+        }
+        if (combos.size() == 1)
+            return Collections.singletonList(new Scenario(prefix, combos.get(0)));
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int k = 0; k < combos.size(); k++) {
+            scenarios.add(new Scenario(prefix + "#" + (k + 1), combos.get(k)));
+        }
+        return scenarios;
+    }
+
+    // checks every value up front, so a typo fails the batch before anything runs
+    public void validate() {
+        for (String key : Arrays.asList("duty", "fly", "fixed", "hourly", "night", "overtime", "alpha",
+                "box-width", "rel-gap", "abs-gap", "time-limit", "min-rest", "max-connection", "layover",
+                "cache-mb")) {
+            getDouble(key);
+        }
+        for (String key : Arrays.asList("turn", "max-cols", "age", "max-iter", "max-duties", "window", "step",
+                "async")) {
+            getInt(key);
+        }
+        getBoolean("overnight");
+        getBoolean("cascade");
+        getBoolean("own-flights");
+        getCapacities();
+        choice("engine", "label", "dfs");
+        choice("stabilization", "none", "smoothing", "boxstep");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String get(String key) {
+        if (!isKey(key))
+            throw new IllegalArgumentException("Unknown parameter: " + key);
+        return values.get(key);
+    }
+
+    public double getDouble(String key) {
+        try {
+            return Double.parseDouble(get(key));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + ": " + key + " is not a number: " + get(key));
+        }
+    }
+
+    public int getInt(String key) {
+        try {
+            return Integer.parseInt(get(key));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + ": " + key + " is not an integer: " + get(key));
+        }
+    }
+
+    public boolean getBoolean(String key) {
+        String v = get(key).toLowerCase();
+        if (v.equals("yes") || v.equals("y") || v.equals("true"))
+            return true;
+        if (v.equals("no") || v.equals("n") || v.equals("false"))
+            return false;
+        throw new IllegalArgumentException(name + ": " + key + " must be yes or no: " + get(key));
+    }
+
+    // "DAC+CGP" or "all" (empty = the first flight's base, resolved by the runner)
+    public List<String> getBases() {
+        List<String> bases = new ArrayList<>();
+        for (String b : get("base").split("\\+")) {
+            if (!b.isBlank()) {
+                bases.add(b.trim());
+            }
+        }
+        return bases;
+    }
+
+    // "DAC:10+CGP:5", pairings allowed out of each base
+    public Map<String, Double> getCapacities() {
+        Map<String, Double> capacities = new LinkedHashMap<>();
+        for (String entry : get("capacity").split("\\+")) {
+            if (entry.isBlank())
+                continue;
+            String[] kv = entry.split(":");
+            try {
+                capacities.put(kv[0].trim(), Double.parseDouble(kv[1].trim()));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(name + ": capacity must look like DAC:10+CGP:5: " + get("capacity"));
+            }
+        }
+        return capacities;
+    }
+
+    private void choice(String key, String... allowed) {
+        if (!Arrays.asList(allowed).contains(get(key).toLowerCase()))
+            throw new IllegalArgumentException(name + ": " + key + " must be one of "
+                    + String.join("/", allowed) + ": " + get(key));
+    }
+}
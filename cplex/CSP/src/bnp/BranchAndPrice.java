@@ -0,0 +1,419 @@
+package bnp;
+
+import cg.ColumnGenerationSolver;
+import cg.IterationListener;
+import cg.TerminationCriteria;
+import master.LpBackends;
+import master.LpException;
+import master.RestrictedMasterProblem;
+import model.FlightTable;
+import model.Pairing;
+import pricing.PricingEngine;
+import pricing.PricingProblem;
+import stabilization.DualStabilizer;
+import stabilization.NoStabilization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static bnp.FollowOnRule.TERMINAL;
+
+/*
+ * Branch-and-price on top of ColumnGenerationSolver, for integral set-partitioning
+ * solutions.
+ *
+ * Every node runs column generation in its own RMP and LP backend, with pricing over the
+ * connection network filtered by the node's follow-on rules, so the columns it generates
+ * always respect the branching. The node's columns seed its children. A fractional LP
+ * solution is branched on the follow-on pair (including pairing starts and ends) whose
+ * value is closest to 1/2: one child forces the pair together, the other forbids it.
+ * If every follow-on is integral the LP solution is an integral partition.
+ *
+ * Incumbents come from integral node solutions and from a restricted-master diving
+ * heuristic run at the root and every DIVE_INTERVAL nodes. Open nodes are processed by
+ * a pool of worker threads, in best-bound or depth-first order, until the tree is empty,
+ * the termination criteria (gap, node count, time) hold or the time runs out.
+ */
+public class BranchAndPrice {
+    public enum NodeSelection {
+        BEST_BOUND, DEPTH_FIRST
+    }
+
+    private static final double EPS = 1e-6;
+    private static final int DIVE_INTERVAL = 10;
+
+    private final FlightTable table;
+    private final PricingProblem rootProblem;
+    private final Function<PricingProblem, PricingEngine> engineFactory;
+    private final String backendName;
+    private final int maxColsPerIter;
+
+    private Supplier<DualStabilizer> stabilizerFactory = NoStabilization::new;
+    private int maxColumnAge = 0;
+    private NodeSelection selection = NodeSelection.BEST_BOUND;
+    private int threads = 1;
+    private TerminationCriteria termination = TerminationCriteria.exact();
+    private final List<IterationListener> listeners = new ArrayList<>();
+
+    // results
+    private List<Pairing> incumbent;
+    private double incumbentCost = Double.POSITIVE_INFINITY;
+    private double lowerBound = Double.NEGATIVE_INFINITY;
+    private double rootBound = Double.NEGATIVE_INFINITY;
+    private int nodes;
+    private int nextNodeId;
+    private String stopReason;
+    private long startTime;
+    private long endTime;
+
+    /*
+     * engineFactory builds the pricing engine of a node from its restricted pricing problem
+     * (the root gets rootProblem itself); every node opens its own backendName LP
+     */
+    public BranchAndPrice(FlightTable table, PricingProblem rootProblem,
+                          Function<PricingProblem, PricingEngine> engineFactory, String backendName, int maxColsPerIter) {
+        this.table = table;
+        this.rootProblem = rootProblem;
+        this.engineFactory = engineFactory;
+        this.backendName = backendName;
+        this.maxColsPerIter = maxColsPerIter;
+    }
+
+    public void solve() throws LpException {
+        startTime = System.currentTimeMillis();
+
+        System.out.println("Step 4: Branch-and-Price Execution");
+        System.out.println("----------------------------------");
+
+        Comparator<BranchNode> order = selection == NodeSelection.BEST_BOUND
+                ? Comparator.<BranchNode>comparingDouble(n -> n.bound).thenComparing(n -> -n.depth).thenComparingInt(n -> n.id)
+                : Comparator.<BranchNode>comparingInt(n -> -n.depth).thenComparingDouble(n -> n.bound).thenComparingInt(n -> n.id);
+        PriorityQueue<BranchNode> open = new PriorityQueue<>(order);
+        open.add(new BranchNode(nextNodeId++, 0, Double.NEGATIVE_INFINITY, Collections.emptyList(), Collections.emptyList()));
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads));
+        CompletionService<NodeResult> completed = new ExecutorCompletionService<>(workers);
+        Map<Future<NodeResult>, BranchNode> running = new HashMap<>();
+        try {
+            while (true) {
+                while (running.size() < Math.max(1, threads) && !open.isEmpty()) {
+                    BranchNode node = open.poll();
+                    if (prunable(node.bound))
+                        continue;
+                    running.put(completed.submit(() -> processNode(node)), node);
+                }
+                lowerBound = globalBound(open, running.values());
+                if (running.isEmpty()) {
+                    stopReason = incumbent == null ? "infeasible" : "optimal";
+                    break;
+                }
+                stopReason = termination.check(incumbentCost, lowerBound, nodes, System.currentTimeMillis() - startTime);
+                if (stopReason != null)
+                    break;
+
+                Future<NodeResult> done = completed.poll(1, TimeUnit.SECONDS);
+                if (done == null)
+                    continue;
+                running.remove(done);
+                NodeResult result = get(done);
+                nodes++;
+                handle(result, open);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopReason = "interrupted";
+        } finally {
+            workers.shutdownNow();
+        }
+
+        endTime = System.currentTimeMillis();
+    }
+
+    private void handle(NodeResult result, PriorityQueue<BranchNode> open) {
+        BranchNode node = result.node;
+        if (node.id == 0) {
+            rootBound = result.bound;
+        }
+        offerIncumbent(result.integral);
+        offerIncumbent(result.dived);
+
+        String status;
+        if (result.integral != null) {
+            status = "integral";
+        } else if (prunable(result.bound)) {
+            status = "pruned";
+        } else if (result.branch == null) {
+            status = "infeasible";
+        } else {
+            status = "branch on " + describe(result.branch.getFrom(), "start") + " -> "
+                    + describe(result.branch.getTo(), "end");
+            // the together child first, depth-first search dives into it
+            open.add(node.child(nextNodeId++, result.bound, new FollowOnRule(result.branch.getFrom(),
+                    result.branch.getTo(), true), result.columns));
+            open.add(node.child(nextNodeId++, result.bound, new FollowOnRule(result.branch.getFrom(),
+                    result.branch.getTo(), false), result.columns));
+        }
+        System.out.printf("Node %d (depth %d): LB = %.2f | Incumbent = %.2f | Open = %d | %s%n",
+                node.id, node.depth, result.bound, incumbentCost, open.size(), status);
+    }
+
+    private String describe(int flight, String terminal) {
+        return flight == TERMINAL ? terminal : table.flightId(flight);
+    }
+
+    private void offerIncumbent(List<Pairing> solution) {
+        if (solution == null)
+            return;
+        double cost = 0;
+        for (Pairing p : solution) {
+            cost += p.getCost();
+        }
+        if (cost < incumbentCost - EPS) {
+            incumbentCost = cost;
+            incumbent = solution;
+        }
+    }
+
+    private boolean prunable(double bound) {
+        return bound >= incumbentCost - EPS * Math.max(1.0, Math.abs(incumbentCost));
+    }
+
+    private double globalBound(PriorityQueue<BranchNode> open, Iterable<BranchNode> running) {
+        double bound = incumbentCost;
+        for (BranchNode n : open) {
+            bound = Math.min(bound, n.bound);
+        }
+        for (BranchNode n : running) {
+            bound = Math.min(bound, n.bound);
+        }
+        return bound;
+    }
+
+    private NodeResult get(Future<NodeResult> done) throws LpException, InterruptedException {
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof LpException)
+                throw (LpException) e.getCause();
+            throw new LpException("Branch-and-price node failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    // runs on a worker thread: only reads the shared table, root problem and node
+    private NodeResult processNode(BranchNode node) throws LpException {
+        BranchRestrictions restrictions = new BranchRestrictions(table.size(), node.rules);
+        PricingProblem problem = node.rules.isEmpty() ? rootProblem : restrictions.restrict(rootProblem);
+
+        ColumnGenerationSolver cg = new ColumnGenerationSolver(table, engineFactory.apply(problem), maxColsPerIter,
+                LpBackends.create(backendName));
+        cg.setVerbose(false);
+        cg.setName("node " + node.id);
+        for (IterationListener listener : listeners) {
+            cg.addListener(listener);
+        }
+        cg.setStabilizer(stabilizerFactory.get());
+        cg.setMaxColumnAge(maxColumnAge);
+        if (termination.getTimeLimitMillis() > 0) {
+            long remaining = termination.getTimeLimitMillis() - (System.currentTimeMillis() - startTime);
+            cg.setTermination(new TerminationCriteria(0, 0, 0, Math.max(1, remaining)));
+        }
+        List<Pairing> seeds = new ArrayList<>();
+        for (Pairing p : node.columns) {
+            if (restrictions.allows(p)) {
+                seeds.add(p);
+            }
+        }
+        cg.addSeedColumns(seeds);
+
+        RestrictedMasterProblem rmp = cg.getMasterProblem();
+        try {
+            cg.solve();
+            NodeResult result = new NodeResult(node, Math.max(node.bound, cg.getLowerBound()));
+
+            List<Pairing> columns = new ArrayList<>();
+            for (Pairing p : rmp.getColumns()) {
+                if (!rmp.isArtificial(p))
+                    columns.add(p);
+            }
+            for (Pairing p : rmp.getPooledColumns()) {
+                if (!rmp.isArtificial(p))
+                    columns.add(p);
+            }
+            result.columns = Collections.unmodifiableList(columns);
+
+            inspectSolution(rmp, result);
+            if (node.id % DIVE_INTERVAL == 0) {
+                result.dived = DivingHeuristic.dive(table, columns, LpBackends.create(backendName));
+            }
+            return result;
+        } finally {
+            rmp.close();
+        }
+    }
+
+    /*
+     * follow-on values of the LP solution, with the Big-M singletons as one-flight
+     * pairings; integral values everywhere mean an integral partition (a Big-M singleton
+     * in it leaves its flight uncovered at BIG_M cost, like in the LP)
+     */
+    private void inspectSolution(RestrictedMasterProblem rmp, NodeResult result) throws LpException {
+        List<Pairing> lpColumns = rmp.getColumns();
+        double[] values = rmp.getValues();
+
+        Map<Long, Double> followOn = new HashMap<>();
+        Map<String, Pairing> used = new LinkedHashMap<>();
+        for (int k = 0; k < values.length; k++) {
+            if (values[k] <= EPS)
+                continue;
+            Pairing p = lpColumns.get(k);
+            int[] path = p.getFlightIndices();
+            used.putIfAbsent(Arrays.toString(path), p);
+            followOn.merge(BranchRestrictions.arcKey(TERMINAL, path[0]), values[k], Double::sum);
+            for (int i = 0; i + 1 < path.length; i++) {
+                followOn.merge(BranchRestrictions.arcKey(path[i], path[i + 1]), values[k], Double::sum);
+            }
+            followOn.merge(BranchRestrictions.arcKey(path[path.length - 1], TERMINAL), values[k], Double::sum);
+        }
+
+        // the Big-M singletons ignore the rules, so decided pairs can look fractional again
+        Set<Long> decided = new HashSet<>();
+        for (FollowOnRule rule : result.node.rules) {
+            decided.add(BranchRestrictions.arcKey(rule.getFrom(), rule.getTo()));
+        }
+
+        boolean fractional = false;
+        long bestKey = 0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (Map.Entry<Long, Double> e : followOn.entrySet()) {
+            double v = e.getValue();
+            if (v <= EPS || v >= 1 - EPS)
+                continue;
+            fractional = true;
+            if (decided.contains(e.getKey()))
+                continue;
+            double distance = Math.abs(v - 0.5);
+            // ties on the smaller key keep the tree the same across runs
+            if (distance < bestDistance - EPS || (Math.abs(distance - bestDistance) <= EPS && e.getKey() < bestKey)) {
+                bestDistance = distance;
+                bestKey = e.getKey();
+            }
+        }
+
+        if (bestDistance < Double.POSITIVE_INFINITY) {
+            int from = (int) (bestKey >>> 32) - 1;
+            int to = (int) (bestKey & 0xffffffffL) - 1;
+            result.branch = new FollowOnRule(from, to, true);
+        } else if (!fractional) {
+            result.integral = new ArrayList<>(used.values());
+        }
+        // fractional only through Big-M singletons breaking the rules: no real partition
+        // satisfies this node's rules
+    }
+
+    // (incumbent - lower bound) / |incumbent|
+    public double getRelativeGap() {
+        if (incumbent == null || Double.isInfinite(lowerBound))
+            return Double.POSITIVE_INFINITY;
+        return Math.max(0.0, incumbentCost - lowerBound) / Math.max(1.0, Math.abs(incumbentCost));
+    }
+
+    public List<Pairing> getIncumbent() {
+        return incumbent;
+    }
+
+    public double getIncumbentCost() {
+        return incumbentCost;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    public void setStabilizerFactory(Supplier<DualStabilizer> stabilizerFactory) {
+        this.stabilizerFactory = stabilizerFactory;
+    }
+
+    public void setMaxColumnAge(int maxColumnAge) {
+        this.maxColumnAge = maxColumnAge;
+    }
+
+    public void setNodeSelection(NodeSelection selection) {
+        this.selection = selection;
+    }
+
+    // sees the iterations of every node's column generation, from the worker threads
+    public void addListener(IterationListener listener) {
+        listeners.add(listener);
+    }
+
+    // nodes solved concurrently, each with its own RMP
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    // gap against the incumbent, node count (as iterations) and time budget for the tree
+    public void setTermination(TerminationCriteria termination) {
+        this.termination = termination;
+    }
+
+    public void printSolution() {
+        System.out.println("\nSTEP 5: FINAL OUTPUT");
+        System.out.println("--------------------");
+        if (incumbent == null) {
+            System.out.println("No integral solution found.");
+        } else {
+            System.out.println("Total Cost: " + incumbentCost);
+        }
+        System.out.printf("Root LP Bound: %.2f | Lower Bound: %.2f | Gap: %.3f%%%n",
+                rootBound, lowerBound, 100.0 * getRelativeGap());
+        System.out.println("Stop Reason: " + stopReason);
+        System.out.println("Execution Time: " + (endTime - startTime) + " ms");
+        System.out.println("Nodes: " + nodes);
+        if (incumbent != null) {
+            System.out.println("\nSelected Pairings:");
+            for (Pairing p : incumbent) {
+                System.out.println(p.toString());
+            }
+        }
+    }
+
+    private static class NodeResult {
+        final BranchNode node;
+        final double bound;
+        List<Pairing> columns = Collections.emptyList();
+        FollowOnRule branch; // pair to branch on, null if the LP solution is integral
+        List<Pairing> integral; // the LP solution when it is an integral partition
+        List<Pairing> dived; // diving heuristic result
+
+        NodeResult(BranchNode node, double bound) {
+            this.node = node;
+            this.bound = bound;
+        }
+    }
+}
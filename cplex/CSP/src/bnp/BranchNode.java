@@ -0,0 +1,34 @@
+package bnp;
+
+import model.Pairing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Open node of the branch-and-price tree: the follow-on rules from the root down to it,
+ * the parent's bound and the parent's columns, which seed the node's RMP (the ones that
+ * break the new rule are dropped when the node is solved).
+ */
+class BranchNode {
+    final int id;
+    final int depth;
+    final double bound;
+    final List<FollowOnRule> rules;
+    final List<Pairing> columns;
+
+    BranchNode(int id, int depth, double bound, List<FollowOnRule> rules, List<Pairing> columns) {
+        this.id = id;
+        this.depth = depth;
+        this.bound = bound;
+        this.rules = rules;
+        this.columns = columns;
+    }
+
+    BranchNode child(int childId, double childBound, FollowOnRule rule, List<Pairing> parentColumns) {
+        List<FollowOnRule> childRules = new ArrayList<>(rules);
+        childRules.add(rule);
+        return new BranchNode(childId, depth + 1, childBound, Collections.unmodifiableList(childRules), parentColumns);
+    }
+}
@@ -0,0 +1,89 @@
+package bnp;
+
+import model.Pairing;
+import network.ConnectionNetwork;
+import pricing.PricingProblem;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static bnp.FollowOnRule.TERMINAL;
+
+/*
+ * The follow-on rules of a node translated into what pricing understands: connections
+ * removed from the network, plus flights that may not start or end a pairing. A pairing
+ * is allowed at the node iff every connection it uses survives and its first and last
+ * flights are allowed to start and end it.
+ */
+class BranchRestrictions {
+    private static final int NONE = -2;
+
+    private final int[] requiredNext; // NONE, TERMINAL (must end) or the flight that must follow
+    private final int[] requiredPrev; // NONE, TERMINAL (must start) or the flight that must precede
+    private final Set<Long> forbiddenArcs = new HashSet<>();
+    private final boolean[] noStart;
+    private final boolean[] noEnd;
+
+    BranchRestrictions(int flightCount, List<FollowOnRule> rules) {
+        requiredNext = new int[flightCount];
+        requiredPrev = new int[flightCount];
+        noStart = new boolean[flightCount];
+        noEnd = new boolean[flightCount];
+        Arrays.fill(requiredNext, NONE);
+        Arrays.fill(requiredPrev, NONE);
+
+        for (FollowOnRule rule : rules) {
+            int a = rule.getFrom();
+            int b = rule.getTo();
+            if (rule.isTogether()) {
+                if (a != TERMINAL) {
+                    requiredNext[a] = b;
+                    if (b != TERMINAL)
+                        noEnd[a] = true;
+                }
+                if (b != TERMINAL) {
+                    requiredPrev[b] = a;
+                    if (a != TERMINAL)
+                        noStart[b] = true;
+                }
+            } else if (a == TERMINAL) {
+                noStart[b] = true;
+            } else if (b == TERMINAL) {
+                noEnd[a] = true;
+            } else {
+                forbiddenArcs.add(arcKey(a, b));
+            }
+        }
+    }
+
+    static long arcKey(int from, int to) {
+        return ((long) (from + 1) << 32) | (to + 1);
+    }
+
+    boolean keepArc(int from, int to) {
+        if (requiredNext[from] != NONE && requiredNext[from] != to)
+            return false;
+        if (requiredPrev[to] != NONE && requiredPrev[to] != from)
+            return false;
+        return !forbiddenArcs.contains(arcKey(from, to));
+    }
+
+    boolean allows(Pairing pairing) {
+        int[] path = pairing.getFlightIndices();
+        if (noStart[path[0]] || noEnd[path[path.length - 1]])
+            return false;
+        for (int k = 0; k + 1 < path.length; k++) {
+            if (!keepArc(path[k], path[k + 1]))
+                return false;
+        }
+        return true;
+    }
+
+    // pricing problem over the filtered network of this node
+    PricingProblem restrict(PricingProblem root) {
+        ConnectionNetwork network = root.getNetwork().filter(this::keepArc);
+        return root.restrict(network, noStart, noEnd);
+    }
+}
@@ -0,0 +1,71 @@
+package bnp;
+
+import master.LpBackend;
+import master.LpException;
+import master.RestrictedMasterProblem;
+import model.FlightTable;
+import model.Pairing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Restricted-master MIP heuristic: LP-based diving over a fixed column set. The fractional
+ * column with the largest value is fixed to 1 and the LP re-solved from the current basis,
+ * until the solution is integral or needs a Big-M column. No pricing happens during the
+ * dive, so the result is only an incumbent, never a bound.
+ */
+public class DivingHeuristic {
+    private static final double EPS = 1e-6;
+
+    private DivingHeuristic() {
+    }
+
+    // integral set partition from these columns, or null if the dive fails
+    public static List<Pairing> dive(FlightTable table, List<Pairing> columns, LpBackend lp) throws LpException {
+        return dive(table, columns, lp, false);
+    }
+
+    /*
+     * allowUncovered keeps diving through Big-M columns instead of failing: the result then
+     * partitions only the flights it covers, the others are left out
+     */
+    public static List<Pairing> dive(FlightTable table, List<Pairing> columns, LpBackend lp, boolean allowUncovered)
+            throws LpException {
+        RestrictedMasterProblem rmp = new RestrictedMasterProblem(table, lp);
+        try {
+            rmp.generateInitialSolution();
+            for (Pairing p : columns) {
+                rmp.addColumn(p);
+            }
+            while (true) {
+                rmp.solve();
+                List<Pairing> lpColumns = rmp.getColumns();
+                double[] values = rmp.getValues();
+
+                int fix = -1;
+                for (int k = 0; k < values.length; k++) {
+                    if (values[k] <= EPS)
+                        continue;
+                    if (rmp.isArtificial(lpColumns.get(k)) && !allowUncovered)
+                        return null;
+                    if (values[k] < 1 - EPS && (fix < 0 || values[k] > values[fix])) {
+                        fix = k;
+                    }
+                }
+                if (fix < 0) {
+                    List<Pairing> solution = new ArrayList<>();
+                    for (int k = 0; k < values.length; k++) {
+                        if (values[k] > 0.5 && !rmp.isArtificial(lpColumns.get(k))) {
+                            solution.add(lpColumns.get(k));
+                        }
+                    }
+                    return solution;
+                }
+                rmp.setColumnBounds(fix, 1.0, 1.0);
+            }
+        } finally {
+            rmp.close();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package bnp;
+
+/*
+ * Ryan-Foster follow-on branching decision on a pair of flights: either flight "to" directly
+ * follows flight "from" in every pairing (together) or in none. TERMINAL stands for the
+ * pairing source when it is "from" (the flight starts a pairing) and for the sink when it
+ * is "to" (the flight ends a pairing).
+ */
+public class FollowOnRule {
+    public static final int TERMINAL = -1;
+
+    private final int from;
+    private final int to;
+    private final boolean together;
+
+    public FollowOnRule(int from, int to, boolean together) {
+        if (from == TERMINAL && to == TERMINAL)
+            throw new IllegalArgumentException("A follow-on rule needs at least one flight");
+        this.from = from;
+        this.to = to;
+        this.together = together;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public boolean isTogether() {
+        return together;
+    }
+
+    @Override
+    public String toString() {
+        String a = from == TERMINAL ? "source" : String.valueOf(from);
+        String b = to == TERMINAL ? "sink" : String.valueOf(to);
+        return a + (together ? " -> " : " -/> ") + b;
+    }
+}
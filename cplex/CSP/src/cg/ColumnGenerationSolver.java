@@ -1,112 +1,608 @@
 package cg;
 
-import ilog.concert.IloException;
+import master.LpBackend;
+import master.LpBackends;
+import master.LpException;
 import master.RestrictedMasterProblem;
 import model.Flight;
+import model.FlightTable;
 import model.Pairing;
-import pricing.PricingProblem;
+import pricing.AsyncPricing;
+import pricing.PricingEngine;
+import pricing.SearchCounters;
+import stabilization.DualStabilizer;
+import stabilization.NoStabilization;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 public class ColumnGenerationSolver {
-    private List<Flight> flights;
-    private PricingProblem pricingProblem;
+    // the asynchronous master re-optimizes once this share of a pricing round is done
+    private static final int ASYNC_BATCHES = 4;
+
+    private FlightTable table;
+    private PricingEngine pricingProblem;
     private RestrictedMasterProblem masterProblem;
     private int maxColsPerIter;
+    private DualStabilizer stabilizer = new NoStabilization();
+    private TerminationCriteria termination = TerminationCriteria.exact();
+    private List<Pairing> seedColumns = new ArrayList<>();
+    private double[] warmStartDuals;
+    private boolean verbose = true;
+    private String name = "cg";
+    private int asyncWorkers; // 0: synchronous rounds only
+    private BooleanSupplier cancellation = () -> false;
+    private final List<IterationListener> listeners = new CopyOnWriteArrayList<>();
 
     // Statistics
     private int iterations = 0;
+    private double lowerBound = Double.NEGATIVE_INFINITY;
+    private double upperBound = Double.POSITIVE_INFINITY;
+    private String stopReason;
     private long startTime;
     private long endTime;
 
-    public ColumnGenerationSolver(List<Flight> flights, PricingProblem pricingProblem, int maxColsPerIter) throws IloException {
-        this.flights = flights;
+    public ColumnGenerationSolver(List<Flight> flights, PricingEngine pricingProblem, int maxColsPerIter) throws LpException {
+        this(new FlightTable(flights), pricingProblem, maxColsPerIter);
+    }
+
+    // the table must list flights in the same order the pricing engine was built from
+    public ColumnGenerationSolver(FlightTable table, PricingEngine pricingProblem, int maxColsPerIter) throws LpException {
+        this(table, pricingProblem, maxColsPerIter, LpBackends.create("auto"));
+    }
+
+    public ColumnGenerationSolver(FlightTable table, PricingEngine pricingProblem, int maxColsPerIter,
+                                  LpBackend lp) throws LpException {
+        this.table = table;
         this.pricingProblem = pricingProblem;
-        this.masterProblem = new RestrictedMasterProblem(flights);
+        this.masterProblem = new RestrictedMasterProblem(table, lp);
         this.maxColsPerIter = maxColsPerIter;
+        // engines that keep a bounded top-k pool only need this many columns per call
+        pricingProblem.setColumnLimit(maxColsPerIter);
     }
 
-    public void solve() throws IloException {
+    public void solve() throws LpException {
         startTime = System.currentTimeMillis();
 
-        System.out.println("Step 4: Column Generation Execution");
-        System.out.println("-----------------------------------");
+        if (verbose) {
+            System.out.println("Step 4: Column Generation Execution");
+            System.out.println("-----------------------------------");
+        }
 
         // 1. Init RMP
         masterProblem.generateInitialSolution();
+        for (Pairing p : seedColumns) {
+            masterProblem.addColumn(p);
+        }
+        if (warmStartDuals != null) {
+            warmStart();
+        }
+        run();
+    }
+
+    /*
+     * runs column generation again on the RMP of the last solve, from its basis and columns,
+     * e.g. after a disruption changed the schedule (extendTable, dropFlight,
+     * invalidateColumns); statistics start over, warm-start duals are priced first if set
+     */
+    public void resume() throws LpException {
+        startTime = System.currentTimeMillis();
+        iterations = 0;
+        lowerBound = Double.NEGATIVE_INFINITY;
+        upperBound = Double.POSITIVE_INFINITY;
+        stopReason = null;
+        if (warmStartDuals != null) {
+            warmStart();
+        }
+        run();
+    }
+
+    // the asynchronous phase if enabled, then synchronous rounds unless it already stopped
+    private void run() throws LpException {
+        if (asyncWorkers > 0) {
+            iterateAsync();
+        }
+        if (stopReason == null) {
+            iterate();
+        }
 
+        endTime = System.currentTimeMillis();
+        for (IterationListener listener : listeners) {
+            listener.finished(name, stopReason);
+        }
+    }
+
+    /*
+     * Pipelined iterations: the AsyncPricing workers price at the duals of the last RMP
+     * solve while the master takes in the columns they stream and re-optimizes as soon as
+     * any of them prices out. The phase ends when a whole round of pricing at the current
+     * duals has nothing left that prices out (the synchronous rounds then prove optimality
+     * with the stabilizer and the cascade as usual) or when the termination criteria stop
+     * the solve. Pricing in this phase is not tied to one dual vector, so it gives no
+     * Lagrangian bound; the gap criteria only apply from the synchronous rounds on.
+     */
+    private void iterateAsync() throws LpException {
+        try (AsyncPricing async = new AsyncPricing(pricingProblem, asyncWorkers, maxColsPerIter)) {
+            while (true) {
+                iterations++;
+                SearchCounters searched = listeners.isEmpty() ? null : pricingProblem.getCounters().copy();
+                int pricedBefore = async.getPartsPriced();
+
+                long rmpStart = System.nanoTime();
+                masterProblem.solve();
+                long rmpNanos = System.nanoTime() - rmpStart;
+                double objVal = masterProblem.getObjectiveValue();
+                double[] duals = masterProblem.getDuals();
+                pricingProblem.setCapacityDuals(masterProblem.getCapacityDuals());
+                int version = async.publish(duals);
+                int recovered = masterProblem.recoverColumns(duals);
+
+                // collect what prices out at these duals as it comes, as RMP candidates, and
+                // take the best once a batch of the round is priced (or the whole round if
+                // nothing is found before). Candidates left over from earlier batches compete
+                // too, their parts are not priced again until the round comes back to them
+                int addedCount = 0;
+                double bestRedCost = 0;
+                int rejectedBefore = masterProblem.getRejectedCount();
+                int batch = Math.max(1, async.getPartCount() / ASYNC_BATCHES);
+                long waitStart = System.nanoTime();
+                List<Pairing> drained = new ArrayList<>();
+                while (true) {
+                    // read before draining: a complete round has queued all of its columns
+                    boolean complete = async.isComplete(version);
+                    int priced = async.getPriced(version);
+                    for (Pairing p = async.poll(); p != null; p = async.poll()) {
+                        double rc = masterProblem.getReducedCost(p, duals);
+                        if (rc < -0.0001) {
+                            drained.add(p);
+                        }
+                        bestRedCost = Math.min(bestRedCost, rc);
+                    }
+                    masterProblem.addCandidates(drained);
+                    drained.clear();
+                    if (complete || priced >= batch) {
+                        addedCount = masterProblem.takeCandidates(duals, maxColsPerIter);
+                        if (addedCount > 0 || recovered > 0 || complete)
+                            break;
+                    }
+                    async.await(version);
+                }
+                long pricingNanos = System.nanoTime() - waitStart;
+                int rejected = masterProblem.getRejectedCount() - rejectedBefore;
+                int priced = async.getPartsPriced() - pricedBefore;
+                upperBound = objVal;
+
+                if (verbose) {
+                    System.out.printf("Iter %d: Obj = %.2f | LB = %.2f | Gap = %.3f%% | Cols Added = %d | Best RedCost = %.2f | RMP Cols = %d | Pool = %d | Async = %d parts priced, %d per round%n",
+                            iterations, objVal, lowerBound, 100.0 * getRelativeGap(), addedCount + recovered,
+                            bestRedCost, masterProblem.getColumnCount(), masterProblem.getPoolSize(), priced,
+                            async.getPartCount());
+                }
+                if (searched != null) {
+                    notifyIteration(rmpNanos, pricingNanos, priced, objVal, bestRedCost, addedCount, recovered,
+                            rejected, duals, searched);
+                }
+
+                if (addedCount == 0 && recovered == 0)
+                    return;
+                stopReason = checkStop();
+                if (stopReason != null) {
+                    masterProblem.solve();
+                    upperBound = Math.min(upperBound, masterProblem.getObjectiveValue());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void iterate() throws LpException {
         boolean improvement = true;
         while (improvement) {
             iterations++;
+            // counters are only read when someone listens
+            SearchCounters searched = listeners.isEmpty() ? null : pricingProblem.getCounters().copy();
 
             // 2. Solve RMP
+            long rmpStart = System.nanoTime();
             masterProblem.solve();
+            long rmpNanos = System.nanoTime() - rmpStart;
             double objVal = masterProblem.getObjectiveValue();
 
-            // 3. Get Duals
-            double[] dualArray = masterProblem.getDuals();
-            Map<String, Double> dualMap = new HashMap<>();
-            for (int i = 0; i < flights.size(); i++) {
-                dualMap.put(flights.get(i).getFlightId(), dualArray[i]);
+            // a bound that meets the RMP objective (e.g. from warm-start duals) proves it optimal
+            if (lowerBound >= objVal - 1e-6 * Math.max(1.0, Math.abs(objVal))) {
+                upperBound = objVal;
+                stopReason = "optimal";
+                if (verbose) {
+                    System.out.printf("Iter %d: Obj = %.2f | LB = %.2f | bound met%n", iterations, objVal, lowerBound);
+                }
+                if (searched != null) {
+                    notifyIteration(rmpNanos, 0, 0, objVal, 0, 0, 0, 0, masterProblem.getDuals(), searched);
+                }
+                break;
             }
 
-            // 4. Solve PP
-            List<Pairing> newColumns = pricingProblem.solve(dualMap);
+            // 3. Get Duals (indexed like the FlightTable); the stabilizer smooths the capacity
+            // duals along with them
+            double[] duals = masterProblem.getDuals();
+            double[] rmpPoint = withCapacity(duals, masterProblem.getCapacityDuals());
 
-            // 5. Add columns (limit to maxColsPerIter, selecting best reduced costs)
-            int addedCount = 0;
-            double bestRedCost = 0;
+            // pairings cost >= 0, so a bound <= 0 comes from duals still shaped by the Big-M
+            // singletons; smoothing toward those would only decay their BIG_M entries by
+            // alpha per bound, so the center restarts at the RMP duals until a bound is positive
+            if (lowerBound <= 0) {
+                stabilizer.follow(rmpPoint);
+            }
+
+            // columns aged out of the RMP come back first if they price out again
+            int recovered = masterProblem.recoverColumns(duals);
 
-            // Calculate reduced costs and collect
+            // candidates left over from earlier rounds come next, the pricing search only runs
+            // once none of them prices out
+            int rejectedBefore = masterProblem.getRejectedCount();
+            int addedCount = masterProblem.takeCandidates(duals, maxColsPerIter);
+            double bestRedCost = masterProblem.getBestCandidateReducedCost();
+            int misprices = 0;
+            int pricingCalls = 0;
+            long pricingNanos = 0;
+
+            // 4. Solve PP at the stabilized duals; on a misprice (nothing prices out at the
+            // RMP duals) move the separation point toward the RMP duals and price again
             List<Pairing> candidates = new ArrayList<>();
-            for (Pairing p : newColumns) {
-                double rc = p.getCost();
-                for (Flight f : p.getFlights()) {
-                    rc -= dualMap.getOrDefault(f.getFlightId(), 0.0);
+            double[] candidateRedCosts = new double[16];
+            double[] lastSepPoint = null;
+            boolean bounded = false;
+            while (addedCount == 0) {
+                double[] sepPoint = stabilizer.separationPoint(rmpPoint, misprices);
+                double[] sepDuals = sepPoint.length == duals.length ? sepPoint : Arrays.copyOf(sepPoint, duals.length);
+                double[] sepCapacityDuals = Arrays.copyOfRange(sepPoint, duals.length, sepPoint.length);
+                pricingProblem.setCapacityDuals(sepCapacityDuals);
+                long pricingStart = System.nanoTime();
+                List<Pairing> newColumns = pricingProblem.solve(sepDuals);
+                pricingNanos += System.nanoTime() - pricingStart;
+                pricingCalls++;
+
+                // Calculate reduced costs and collect
+                double bestSepRedCost = 0;
+                for (Pairing p : newColumns) {
+                    bestSepRedCost = Math.min(bestSepRedCost,
+                            masterProblem.getReducedCost(p, sepDuals, sepCapacityDuals));
+                    double rc = masterProblem.getReducedCost(p, duals);
+                    if (rc < -0.0001) { // only negative, with the tolerance of pricing and recovery
+                        if (candidates.size() == candidateRedCosts.length) {
+                            candidateRedCosts = Arrays.copyOf(candidateRedCosts, 2 * candidates.size());
+                        }
+                        candidateRedCosts[candidates.size()] = rc;
+                        candidates.add(p);
+                    }
+                    if (rc < bestRedCost) bestRedCost = rc;
                 }
-                if (rc < 0) { // only negative
-                    candidates.add(p);
+                // every exact pricing round gives a valid Lagrangian lower bound, heuristic
+                // rounds may have missed the most negative column
+                if (pricingProblem.isLastSolveExact()) {
+                    double bound = lagrangianBound(sepDuals, sepCapacityDuals, bestSepRedCost);
+                    lowerBound = Math.max(lowerBound, bound);
+                    stabilizer.update(sepPoint, bound);
+                    bounded = true;
                 }
-                if (rc < bestRedCost) bestRedCost = rc;
+                lastSepPoint = sepPoint;
+
+                if (!candidates.isEmpty() || stabilizer.isExact(misprices))
+                    break;
+                misprices++;
+            }
+            if (lastSepPoint != null && !bounded) {
+                // heuristic rounds only: without the center moving, a cascade would price at
+                // the raw RMP duals until its final exact round
+                stabilizer.follow(lastSepPoint);
             }
 
+            // 5. Add columns (limit to maxColsPerIter, selecting best reduced costs)
+
             // Sort by reduced cost ascending (most negative first)
-            candidates.sort(Comparator.comparingDouble(p -> {
-                double rc = p.getCost();
-                for (Flight f : p.getFlights()) {
-                    rc -= dualMap.getOrDefault(f.getFlightId(), 0.0);
+            candidates = byReducedCost(candidates, candidateRedCosts);
+
+            // Add top maxColsPerIter, passing over the ones the RMP already holds; the rest
+            // wait as candidates
+            int next = 0;
+            for (; next < candidates.size() && addedCount < maxColsPerIter; next++) {
+                if (masterProblem.addColumn(candidates.get(next))) {
+                    addedCount++;
                 }
-                return rc;
-            }));
-
-            // Add top maxColsPerIter
-            for (int i = 0; i < Math.min(candidates.size(), maxColsPerIter); i++) {
-                Pairing p = candidates.get(i);
-                masterProblem.addColumn(p);
-                addedCount++;
+            }
+            masterProblem.addCandidates(candidates.subList(next, candidates.size()));
+            int rejected = masterProblem.getRejectedCount() - rejectedBefore;
+
+            upperBound = objVal;
+            if (addedCount == 0 && recovered == 0) {
+                // nothing prices out at the RMP duals: the RMP is LP optimal (an engine only
+                // comes back empty after its exact tier ran)
+                lowerBound = objVal;
             }
 
-            System.out.printf("Iter %d: Obj = %.2f | Cols Added = %d | Best RedCost = %.2f%n",
-                    iterations, objVal, addedCount, bestRedCost);
+            if (verbose) {
+                System.out.printf("Iter %d: Obj = %.2f | LB = %.2f | Gap = %.3f%% | Cols Added = %d | Best RedCost = %.2f | RMP Cols = %d | Pool = %d | Stab = %s, %d misprices%n",
+                        iterations, objVal, lowerBound, 100.0 * getRelativeGap(), addedCount + recovered, bestRedCost,
+                        masterProblem.getColumnCount(), masterProblem.getPoolSize(),
+                        stabilizer.describe(misprices), misprices);
+            }
+            if (searched != null) {
+                notifyIteration(rmpNanos, pricingNanos, pricingCalls, objVal, bestRedCost, addedCount, recovered,
+                        rejected, duals, searched);
+            }
 
-            if (addedCount == 0) {
+            if (addedCount == 0 && recovered == 0) {
+                stopReason = "optimal";
                 improvement = false;
+            } else {
+                stopReason = checkStop();
+                if (stopReason != null) {
+                    // the last columns were added after the solve, re-solve so the reported
+                    // objective and solution match the RMP
+                    masterProblem.solve();
+                    upperBound = Math.min(upperBound, masterProblem.getObjectiveValue());
+                    improvement = false;
+                }
             }
         }
+    }
 
-        endTime = System.currentTimeMillis();
+    private void notifyIteration(long rmpNanos, long pricingNanos, int pricingCalls, double objVal,
+                                 double bestRedCost, int added, int recovered, int rejected, double[] duals,
+                                 SearchCounters before) {
+        IterationStats stats = new IterationStats();
+        stats.solver = name;
+        stats.iteration = iterations;
+        stats.elapsedMillis = System.currentTimeMillis() - startTime;
+        stats.rmpNanos = rmpNanos;
+        stats.pricingNanos = pricingNanos;
+        stats.pricingCalls = pricingCalls;
+        stats.objective = objVal;
+        stats.lowerBound = lowerBound;
+        stats.gap = getRelativeGap();
+        stats.bestReducedCost = bestRedCost;
+        stats.columnsAdded = added;
+        stats.columnsRecovered = recovered;
+        stats.columnsRejected = rejected;
+        stats.rmpRows = masterProblem.getBackend().getRowCount();
+        stats.rmpColumns = masterProblem.getColumnCount();
+        stats.poolSize = masterProblem.getPoolSize();
+        double squares = 0;
+        for (double d : duals) {
+            stats.dualL1 += Math.abs(d);
+            squares += d * d;
+            stats.dualMax = Math.max(stats.dualMax, Math.abs(d));
+        }
+        stats.dualL2 = Math.sqrt(squares);
+        SearchCounters after = pricingProblem.getCounters();
+        stats.nodesExpanded = after.getExpanded() - before.getExpanded();
+        stats.nodesGenerated = after.getGenerated() - before.getGenerated();
+        stats.nodesPruned = after.getPruned() - before.getPruned();
+        stats.nodesUnclosable = after.getUnclosable() - before.getUnclosable();
+        stats.nodesBounded = after.getBounded() - before.getBounded();
+        Runtime runtime = Runtime.getRuntime();
+        stats.heapUsedBytes = runtime.totalMemory() - runtime.freeMemory();
+        for (IterationListener listener : listeners) {
+            listener.iteration(stats);
+        }
+    }
+
+    /*
+     * first columns priced at the warm-start duals instead of the Big-M duals of the start
+     * RMP, which would favour long pairings of any cost; the duals also center the stabilizer
+     */
+    private void warmStart() throws LpException {
+        // no capacity duals come with them, 0 is a valid dual for those rows
+        double[] capacityDuals = new double[masterProblem.getCapacityDuals().length];
+        stabilizer.warmStart(withCapacity(warmStartDuals, capacityDuals));
+        pricingProblem.setCapacityDuals(capacityDuals);
+        List<Pairing> columns = pricingProblem.solve(warmStartDuals);
+        double[] redCosts = new double[columns.size()];
+        for (int k = 0; k < redCosts.length; k++) {
+            redCosts[k] = masterProblem.getReducedCost(columns.get(k), warmStartDuals, capacityDuals);
+        }
+        columns = byReducedCost(columns, redCosts);
+        if (pricingProblem.isLastSolveExact()) {
+            // duals optimal for the previous solve bound this one too
+            double best = columns.isEmpty() ? 0 : redCosts[0];
+            lowerBound = Math.max(lowerBound, lagrangianBound(warmStartDuals, capacityDuals, best));
+        }
+        int limit = Math.min(columns.size(), maxColsPerIter);
+        for (int i = 0; i < limit; i++) {
+            masterProblem.addColumn(columns.get(i));
+        }
+        // the rest are re-priced at the first RMP duals
+        masterProblem.addCandidates(columns.subList(limit, columns.size()));
+    }
+
+    // the columns by reduced cost, most negative first; redCosts[k] is that of columns.get(k)
+    private static List<Pairing> byReducedCost(List<Pairing> columns, double[] redCosts) {
+        Integer[] order = new Integer[columns.size()];
+        for (int k = 0; k < order.length; k++) {
+            order[k] = k;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(k -> redCosts[k]));
+        List<Pairing> sorted = new ArrayList<>(order.length);
+        for (int k : order) {
+            sorted.add(columns.get(k));
+        }
+        return sorted;
+    }
+
+    /*
+     * Lagrangian bound at these duals: c'x = sum(duals) + sum(rc_p * x_p) for any cover,
+     * and at most K pairings are used, so the LP optimum is >= sum(duals) + K * min(0, rc_min);
+     * capacity rows add capacity * dual each. rc_min must be taken at the same capacity duals
+     */
+    private double lagrangianBound(double[] duals, double[] capacityDuals, double minRedCost) {
+        double sum = 0;
+        for (double d : duals) {
+            sum += d;
+        }
+        return sum + pricingProblem.getMaxPairings(table.size()) * Math.min(0.0, minRedCost)
+                + masterProblem.artificialBoundTerm(duals) + masterProblem.capacityBoundTerm(capacityDuals);
+    }
+
+    // the vector the stabilizer works on: the coverage duals, then the capacity duals if any
+    private static double[] withCapacity(double[] duals, double[] capacityDuals) {
+        if (capacityDuals.length == 0)
+            return duals;
+        double[] point = Arrays.copyOf(duals, duals.length + capacityDuals.length);
+        System.arraycopy(capacityDuals, 0, point, duals.length, capacityDuals.length);
+        return point;
+    }
+
+    // (upper - lower) / |upper|, 0 once optimal
+    public double getRelativeGap() {
+        if (Double.isInfinite(lowerBound) || Double.isInfinite(upperBound))
+            return Double.POSITIVE_INFINITY;
+        return Math.max(0.0, upperBound - lowerBound) / Math.max(1.0, Math.abs(upperBound));
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public void setTermination(TerminationCriteria termination) {
+        this.termination = termination;
+    }
+
+    /*
+     * asked after every iteration that added columns, from the solving thread; once it
+     * returns true the solve stops with reason "cancelled" and the RMP re-solved
+     */
+    public void setCancellation(BooleanSupplier cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    // reason to stop after an iteration that added columns, or null to keep going
+    private String checkStop() {
+        if (cancellation.getAsBoolean())
+            return "cancelled";
+        return termination.check(upperBound, lowerBound, iterations, System.currentTimeMillis() - startTime);
+    }
+
+    // columns added to the RMP next to the Big-M start columns, e.g. inherited from a parent node
+    public void addSeedColumns(List<Pairing> columns) {
+        seedColumns.addAll(columns);
+    }
+
+    // duals of an earlier, similar solve, indexed like the FlightTable
+    public void setWarmStartDuals(double[] duals) {
+        this.warmStartDuals = duals;
+    }
+
+    // per-iteration log on stdout
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    // sees the measurements of every iteration, see IterationStats
+    public void addListener(IterationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(IterationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /*
+     * prices on this many AsyncPricing workers while the RMP re-optimizes, before the
+     * synchronous rounds that prove optimality; 0 (the default) runs synchronous rounds only
+     */
+    public void setAsyncWorkers(int workers) {
+        this.asyncWorkers = Math.max(0, workers);
+    }
+
+    public int getAsyncWorkers() {
+        return asyncWorkers;
+    }
+
+    // tags the IterationStats of this solver, e.g. with its node or scenario
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RestrictedMasterProblem getMasterProblem() {
+        return masterProblem;
+    }
+
+    public PricingEngine getPricingEngine() {
+        return pricingProblem;
+    }
+
+    // prices with this engine from now on, e.g. one built over a changed schedule
+    public void setPricingEngine(PricingEngine pricingProblem) {
+        this.pricingProblem = pricingProblem;
+        pricingProblem.setColumnLimit(maxColsPerIter);
+    }
+
+    // see RestrictedMasterProblem.extendTable; the pricing engine must follow the new table
+    public void extendTable(FlightTable extended) throws LpException {
+        masterProblem.extendTable(extended);
+        table = extended;
+    }
+
+    // see RestrictedMasterProblem.dropFlight
+    public void dropFlight(int index) throws LpException {
+        masterProblem.dropFlight(index);
+    }
+
+    // see RestrictedMasterProblem.invalidateColumns; returns the number of columns invalidated
+    public int invalidateColumns(Predicate<Pairing> stale) throws LpException {
+        return masterProblem.invalidateColumns(stale);
+    }
+
+    public FlightTable getTable() {
+        return table;
+    }
+
+    public void setStabilizer(DualStabilizer stabilizer) {
+        this.stabilizer = stabilizer;
+    }
+
+    // at most capacity pairings out of this base (airport code), set before solve()
+    public void setBaseCapacity(String base, double capacity) throws LpException {
+        masterProblem.addCapacityRow(base, capacity);
+    }
+
+    // columns nonbasic with positive reduced cost for this many solves leave the RMP (0 keeps all)
+    public void setMaxColumnAge(int maxColumnAge) {
+        masterProblem.setMaxColumnAge(maxColumnAge);
     }
 
-    public void printSolution() throws IloException {
+    public void printSolution() throws LpException {
         System.out.println("\nSTEP 5: FINAL OUTPUT");
         System.out.println("--------------------");
         System.out.println("Total Cost: " + masterProblem.getObjectiveValue());
+        System.out.printf("Lower Bound: %.2f | Upper Bound: %.2f | Gap: %.3f%%%n",
+                lowerBound, upperBound, 100.0 * getRelativeGap());
+        System.out.println("Stop Reason: " + stopReason);
         System.out.println("Execution Time: " + (endTime - startTime) + " ms");
         System.out.println("Iterations: " + iterations);
+        System.out.printf("Column pool: %d columns in %d KB, %d duplicates rejected%n",
+                masterProblem.getColumnPool().size(), masterProblem.getColumnPool().getFootprintBytes() / 1024,
+                masterProblem.getRejectedCount());
         System.out.println("\nSelected Pairings:");
 
         List<Pairing> solution = masterProblem.getSolution();
@@ -0,0 +1,65 @@
+package cg;
+
+import model.Flight;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * One batch of schedule changes for DisruptionSolver.apply: flights cancelled, retimed
+ * (the same flight ID with new times, or delayed by some minutes) and added. Flights are
+ * named by ID; the changes are checked against the schedule when applied.
+ */
+public class Disruption {
+    private final Set<String> cancelled = new LinkedHashSet<>();
+    private final Map<String, Flight> retimed = new LinkedHashMap<>();
+    private final Map<String, Integer> delays = new LinkedHashMap<>();
+    private final List<Flight> added = new ArrayList<>();
+
+    public Disruption cancel(String flightId) {
+        cancelled.add(flightId);
+        return this;
+    }
+
+    // the flight with its ID as it now operates
+    public Disruption retime(Flight flight) {
+        retimed.put(flight.getFlightId(), flight);
+        return this;
+    }
+
+    // departure and arrival move by this many minutes (earlier if negative)
+    public Disruption delay(String flightId, int minutes) {
+        delays.merge(flightId, minutes, Integer::sum);
+        return this;
+    }
+
+    public Disruption add(Flight flight) {
+        added.add(flight);
+        return this;
+    }
+
+    public Set<String> getCancelled() {
+        return Collections.unmodifiableSet(cancelled);
+    }
+
+    public Map<String, Flight> getRetimed() {
+        return Collections.unmodifiableMap(retimed);
+    }
+
+    public Map<String, Integer> getDelays() {
+        return Collections.unmodifiableMap(delays);
+    }
+
+    public List<Flight> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    public boolean isEmpty() {
+        return cancelled.isEmpty() && retimed.isEmpty() && delays.isEmpty() && added.isEmpty();
+    }
+}
@@ -0,0 +1,247 @@
+package cg;
+
+import master.LpException;
+import master.RestrictedMasterProblem;
+import model.Flight;
+import model.FlightTable;
+import model.Pairing;
+import network.ConnectionNetwork;
+import pricing.PricingEngine;
+import pricing.PricingProblem;
+import stabilization.DualStabilizer;
+import stabilization.NoStabilization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * Disruption recovery on a solved ColumnGenerationSolver: flights are cancelled, retimed
+ * or added in place and column generation resumes from the current RMP, its columns and
+ * basis, instead of starting over.
+ *
+ * Flight indices never move. A retimed flight keeps its index and coverage row, a new one
+ * is appended with its own row and Big-M singleton, and a cancelled one keeps its row,
+ * covered by a free singleton (RestrictedMasterProblem.dropFlight). The connection network
+ * is updated around the changed flights only and a pricing problem with the same rules is
+ * derived over it, in which cancelled flights have no connections and neither start nor
+ * end a pairing. Only the columns over changed flights are touched: one over a cancelled
+ * flight is invalidated, one over a retimed flight is recosted and stays if it still keeps
+ * the rules, replaced by a copy at its new cost if that changed. Column generation then
+ * resumes warm-started at the last duals (the mean dual for new flights, 0 for cancelled
+ * ones) with a fresh stabilizer, since the dual space grew.
+ *
+ * Single-base: the solver must price with engineFactory.apply(problem).
+ */
+public class DisruptionSolver {
+    private final ColumnGenerationSolver solver;
+    private final Function<PricingProblem, PricingEngine> engineFactory;
+    private Supplier<DualStabilizer> stabilizerFactory = NoStabilization::new;
+    private PricingProblem problem;
+    private boolean[] cancelled;
+
+    // last apply
+    private long updateMillis;
+    private long resolveMillis;
+    private int invalidated;
+    private int recosted;
+    private int arcsBefore;
+    private int arcsAfter;
+
+    // solver has solved, pricing with an engine engineFactory built from problem
+    public DisruptionSolver(ColumnGenerationSolver solver, PricingProblem problem,
+                            Function<PricingProblem, PricingEngine> engineFactory) {
+        this.solver = solver;
+        this.problem = problem;
+        this.engineFactory = engineFactory;
+        this.cancelled = new boolean[solver.getTable().size()];
+    }
+
+    public void setStabilizerFactory(Supplier<DualStabilizer> stabilizerFactory) {
+        this.stabilizerFactory = stabilizerFactory;
+    }
+
+    /*
+     * applies the changes and resumes column generation; the solver then holds the LP
+     * optimum (or the termination criteria's answer) of the changed schedule
+     */
+    public void apply(Disruption disruption) throws LpException {
+        long start = System.nanoTime();
+        RestrictedMasterProblem rmp = solver.getMasterProblem();
+        FlightTable table = solver.getTable();
+        int n = table.size();
+        // the duals of the last solve, before the RMP grows rows they do not cover
+        double[] lastDuals = rmp.getDuals();
+
+        List<Flight> flights = new ArrayList<>(table.getFlights());
+        boolean[] changed = new boolean[n + disruption.getAdded().size()];
+        boolean[] dropped = Arrays.copyOf(cancelled, changed.length);
+        for (String id : disruption.getCancelled()) {
+            dropped[indexOf(table, id)] = true;
+        }
+        for (Flight f : disruption.getRetimed().values()) {
+            int i = activeIndex(table, f.getFlightId(), dropped);
+            flights.set(i, f);
+            changed[i] = true;
+        }
+        for (Map.Entry<String, Integer> e : disruption.getDelays().entrySet()) {
+            int i = activeIndex(table, e.getKey(), dropped);
+            flights.set(i, delayed(flights.get(i), e.getValue()));
+            changed[i] = true;
+        }
+        for (Flight f : disruption.getAdded()) {
+            if (table.indexOf(f.getFlightId()) >= 0)
+                throw new IllegalArgumentException("Flight already scheduled: " + f.getFlightId());
+            flights.add(f);
+        }
+
+        FlightTable updated = disruption.getAdded().isEmpty() && !contains(changed)
+                ? table : new FlightTable(flights);
+        ConnectionNetwork network = problem.getNetwork().update(updated, changed, dropped);
+        arcsBefore = problem.getNetwork().getArcCount();
+        arcsAfter = network.getArcCount();
+        PricingProblem next = problem.restrict(network, dropped, dropped.clone());
+
+        solver.extendTable(updated);
+        for (int i = 0; i < n; i++) {
+            if (dropped[i] && !cancelled[i]) {
+                solver.dropFlight(i);
+            }
+        }
+
+        // columns over cancelled flights go, those over retimed ones are checked again
+        List<Pairing> copies = new ArrayList<>();
+        invalidated = solver.invalidateColumns(p -> {
+            int[] path = p.getFlightIndices(updated);
+            boolean touched = false;
+            for (int i : path) {
+                if (dropped[i] && !cancelled[i])
+                    return true;
+                touched |= changed[i];
+            }
+            if (!touched)
+                return false;
+            double cost = next.recost(path);
+            if (Double.isNaN(cost))
+                return true;
+            if (Math.abs(cost - p.getCost()) <= 1e-9)
+                return false;
+            copies.add(next.createPairing(path, path.length, cost));
+            return true;
+        });
+        recosted = copies.size();
+        for (Pairing p : copies) {
+            rmp.addColumn(p);
+        }
+
+        problem = next;
+        cancelled = dropped;
+        solver.setPricingEngine(engineFactory.apply(next));
+        solver.setStabilizer(stabilizerFactory.get());
+        solver.setWarmStartDuals(warmDuals(lastDuals, updated.size()));
+        long resumed = System.nanoTime();
+        updateMillis = (resumed - start) / 1_000_000;
+
+        solver.resume();
+        resolveMillis = (System.nanoTime() - resumed) / 1_000_000;
+    }
+
+    // the last duals, the mean one for new flights and 0 for cancelled ones
+    private double[] warmDuals(double[] last, int size) {
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < last.length; i++) {
+            if (!cancelled[i]) {
+                sum += last[i];
+                count++;
+            }
+        }
+        double[] duals = Arrays.copyOf(last, size);
+        Arrays.fill(duals, last.length, size, count == 0 ? 0.0 : sum / count);
+        for (int i = 0; i < size; i++) {
+            if (cancelled[i]) {
+                duals[i] = 0.0;
+            }
+        }
+        return duals;
+    }
+
+    // the flight moved by this many minutes, onto another day if it crosses midnight
+    static Flight delayed(Flight f, int minutes) {
+        if (!f.isDated())
+            return new Flight(f.getFlightId(), f.getFrom(), f.getTo(), f.getDepTime().plusMinutes(minutes),
+                    f.getArrTime().plusMinutes(minutes), f.getDurationHours(), f.getAircraft(), f.getBase(),
+                    f.getFlightCost(), f.isNight());
+        int dep = f.getDepTime().getHour() * 60 + f.getDepTime().getMinute() + minutes;
+        return new Flight(f.getFlightId(), f.getFrom(), f.getTo(),
+                f.getDepDate().plusDays(Math.floorDiv(dep, FlightTable.MINUTES_PER_DAY)),
+                f.getDepTime().plusMinutes(minutes), f.getArrTime().plusMinutes(minutes), f.getDurationHours(),
+                f.getAircraft(), f.getBase(), f.getFlightCost(), f.isNight());
+    }
+
+    private static int indexOf(FlightTable table, String flightId) {
+        int i = table.indexOf(flightId);
+        if (i < 0)
+            throw new IllegalArgumentException("Unknown flight: " + flightId);
+        return i;
+    }
+
+    private static int activeIndex(FlightTable table, String flightId, boolean[] dropped) {
+        int i = indexOf(table, flightId);
+        if (dropped[i])
+            throw new IllegalArgumentException("Flight is cancelled: " + flightId);
+        return i;
+    }
+
+    private static boolean contains(boolean[] flags) {
+        for (boolean f : flags) {
+            if (f)
+                return true;
+        }
+        return false;
+    }
+
+    public ColumnGenerationSolver getSolver() {
+        return solver;
+    }
+
+    // the pricing problem of the current schedule
+    public PricingProblem getProblem() {
+        return problem;
+    }
+
+    public boolean isCancelled(int index) {
+        return cancelled[index];
+    }
+
+    // time of the last apply spent updating the network, RMP and columns
+    public long getUpdateMillis() {
+        return updateMillis;
+    }
+
+    // time of the last apply spent in column generation
+    public long getResolveMillis() {
+        return resolveMillis;
+    }
+
+    // columns the last apply took out, recosted ones included
+    public int getInvalidated() {
+        return invalidated;
+    }
+
+    // columns over retimed flights the last apply replaced by a copy at their new cost
+    public int getRecosted() {
+        return recosted;
+    }
+
+    public int getArcsBefore() {
+        return arcsBefore;
+    }
+
+    public int getArcsAfter() {
+        return arcsAfter;
+    }
+}
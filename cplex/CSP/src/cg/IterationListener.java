@@ -0,0 +1,14 @@
+package cg;
+
+/*
+ * Observer of the column generation loop, see ColumnGenerationSolver.addListener. Called
+ * on the solving thread after every iteration, so a listener shared by solvers on several
+ * threads (branch-and-price nodes, batch workers) must be thread-safe.
+ */
+public interface IterationListener {
+    void iteration(IterationStats stats);
+
+    // the solve (or resume) ended for this reason
+    default void finished(String solver, String stopReason) {
+    }
+}
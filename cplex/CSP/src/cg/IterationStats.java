@@ -0,0 +1,172 @@
+package cg;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Measurements of one column generation iteration, as handed to the IterationListeners.
+ * Times are wall-clock nanoseconds of this iteration only; the search counters are the
+ * pricing engine's effort during it (all misprice rounds). The dual norms are over the
+ * flight coverage duals of the RMP solve. Heap use is what the JVM reports right after
+ * the iteration, garbage included, so it is a trend rather than a live-set figure.
+ * Iterations of the asynchronous phase (ColumnGenerationSolver.setAsyncWorkers) price
+ * while the RMP solves: their pricing time is how long the master waited for columns and
+ * their pricing calls are the AsyncPricing parts priced meanwhile.
+ */
+public class IterationStats {
+    // field names, in the order of values()
+    private static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "solver", "iteration", "elapsed_ms", "rmp_ns", "pricing_ns", "pricing_calls", "objective",
+            "lower_bound", "gap", "best_reduced_cost", "columns_added", "columns_recovered", "columns_rejected",
+            "rmp_rows", "rmp_columns", "pool_size", "dual_l1", "dual_l2", "dual_max", "nodes_expanded",
+            "nodes_generated", "nodes_pruned", "nodes_unclosable", "nodes_bounded", "heap_used_bytes"));
+
+    String solver;
+    int iteration;
+    long elapsedMillis;
+    long rmpNanos;
+    long pricingNanos;
+    int pricingCalls;
+    double objective;
+    double lowerBound;
+    double gap;
+    double bestReducedCost;
+    int columnsAdded;
+    int columnsRecovered;
+    int columnsRejected;
+    int rmpRows;
+    int rmpColumns;
+    int poolSize;
+    double dualL1;
+    double dualL2;
+    double dualMax;
+    long nodesExpanded;
+    long nodesGenerated;
+    long nodesPruned;
+    long nodesUnclosable;
+    long nodesBounded;
+    long heapUsedBytes;
+
+    IterationStats() {
+    }
+
+    public static List<String> fieldNames() {
+        return FIELDS;
+    }
+
+    // one value per field name: String, Integer, Long or Double
+    public Object[] values() {
+        return new Object[]{solver, iteration, elapsedMillis, rmpNanos, pricingNanos, pricingCalls, objective,
+                lowerBound, gap, bestReducedCost, columnsAdded, columnsRecovered, columnsRejected, rmpRows, rmpColumns,
+                poolSize, dualL1, dualL2, dualMax, nodesExpanded, nodesGenerated, nodesPruned,
+                nodesUnclosable, nodesBounded, heapUsedBytes};
+    }
+
+    // the solver's name (ColumnGenerationSolver.setName), e.g. a node or scenario
+    public String getSolver() {
+        return solver;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    // since the solve (or resume) started
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getRmpNanos() {
+        return rmpNanos;
+    }
+
+    public long getPricingNanos() {
+        return pricingNanos;
+    }
+
+    // misprices + 1
+    public int getPricingCalls() {
+        return pricingCalls;
+    }
+
+    public double getObjective() {
+        return objective;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    // relative gap, infinite until there is a bound
+    public double getGap() {
+        return gap;
+    }
+
+    public double getBestReducedCost() {
+        return bestReducedCost;
+    }
+
+    public int getColumnsAdded() {
+        return columnsAdded;
+    }
+
+    public int getColumnsRecovered() {
+        return columnsRecovered;
+    }
+
+    // candidates turned away as duplicates of columns the RMP holds
+    public int getColumnsRejected() {
+        return columnsRejected;
+    }
+
+    public int getRmpRows() {
+        return rmpRows;
+    }
+
+    public int getRmpColumns() {
+        return rmpColumns;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public double getDualL1() {
+        return dualL1;
+    }
+
+    public double getDualL2() {
+        return dualL2;
+    }
+
+    public double getDualMax() {
+        return dualMax;
+    }
+
+    public long getNodesExpanded() {
+        return nodesExpanded;
+    }
+
+    public long getNodesGenerated() {
+        return nodesGenerated;
+    }
+
+    public long getNodesPruned() {
+        return nodesPruned;
+    }
+
+    // extensions cut because their duty could no longer end within the limits
+    public long getNodesUnclosable() {
+        return nodesUnclosable;
+    }
+
+    // extensions cut because no completion could price out
+    public long getNodesBounded() {
+        return nodesBounded;
+    }
+
+    public long getHeapUsedBytes() {
+        return heapUsedBytes;
+    }
+}
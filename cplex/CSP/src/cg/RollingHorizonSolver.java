@@ -0,0 +1,310 @@
+package cg;
+
+import bnp.DivingHeuristic;
+import master.LpBackends;
+import master.LpException;
+import master.RestrictedMasterProblem;
+import model.Flight;
+import model.FlightTable;
+import model.Pairing;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Rolling-horizon column generation for dated schedules too long to solve at once.
+ *
+ * The horizon is cut into windows of windowDays, each starting stepDays after the one
+ * before, so consecutive windows overlap by windowDays - stepDays. A window holds every
+ * flight departing before its end that no earlier window has committed. It gets its own
+ * FlightTable, network and solver from the WindowSolver, so memory follows the window
+ * size, not the horizon. After column generation a dive over the window's columns gives
+ * an integral partition of the flights it can cover (flights that only pair with later
+ * ones stay uncovered); the pairings starting before the next window are committed and
+ * the others are released, so the next window plans the overlap again.
+ *
+ * Each window is warm-started from the previous one: its columns that only cover flights
+ * still open seed the new RMP, and its final duals (by flight ID, the mean dual for flights
+ * new to the window) price the first columns and center the stabilizer.
+ */
+public class RollingHorizonSolver {
+    // builds the solver of one window, over a table of that window's flights
+    public interface WindowSolver {
+        ColumnGenerationSolver create(FlightTable window) throws LpException;
+    }
+
+    private final FlightTable table;
+    private final WindowSolver windowSolver;
+    private final String backendName;
+    private final int windowDays;
+    private final int stepDays;
+    private boolean verbose = true;
+
+    // results
+    private final List<Pairing> solution = new ArrayList<>();
+    private final List<Flight> uncovered = new ArrayList<>();
+    private final List<Window> windows = new ArrayList<>();
+    private double totalCost;
+    private long startTime;
+    private long endTime;
+
+    // the dive of each window opens its own backendName LP
+    public RollingHorizonSolver(FlightTable table, WindowSolver windowSolver, String backendName,
+                                int windowDays, int stepDays) {
+        if (!table.isDated())
+            throw new IllegalArgumentException("Rolling horizon needs a dated schedule");
+        if (stepDays < 1 || windowDays < stepDays)
+            throw new IllegalArgumentException("Need 1 <= step <= window days: step " + stepDays
+                    + ", window " + windowDays);
+        this.table = table;
+        this.windowSolver = windowSolver;
+        this.backendName = backendName;
+        this.windowDays = windowDays;
+        this.stepDays = stepDays;
+    }
+
+    public void solve() throws LpException {
+        startTime = System.currentTimeMillis();
+        int n = table.size();
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            firstDay = Math.min(firstDay, table.depDay(i));
+            lastDay = Math.max(lastDay, table.depDay(i));
+        }
+
+        boolean[] committed = new boolean[n];
+        List<Pairing> carried = new ArrayList<>();
+        Map<String, Double> carriedDuals = new HashMap<>();
+
+        boolean last = false;
+        for (int day = firstDay; !last; day += stepDays) {
+            long windowStart = System.currentTimeMillis();
+            int end = day + windowDays;
+            last = end > lastDay;
+            int commitEnd = last ? Integer.MAX_VALUE : day + stepDays; // the last window commits all
+
+            // open flights departing before the window ends, in table order
+            List<Flight> flights = new ArrayList<>();
+            List<Integer> original = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (!committed[i] && table.depDay(i) < end) {
+                    flights.add(table.getFlight(i));
+                    original.add(i);
+                }
+            }
+            Window w = new Window(LocalDate.ofEpochDay(day), flights.size());
+            windows.add(w);
+            if (flights.isEmpty())
+                continue;
+
+            FlightTable windowTable = new FlightTable(flights);
+            ColumnGenerationSolver solver = windowSolver.create(windowTable);
+            solver.setVerbose(false);
+            List<Pairing> seeds = remap(carried, windowTable);
+            solver.addSeedColumns(seeds);
+            w.seededColumns = seeds.size();
+            if (!carriedDuals.isEmpty()) {
+                solver.setWarmStartDuals(warmDuals(windowTable, carriedDuals));
+            }
+
+            RestrictedMasterProblem rmp = solver.getMasterProblem();
+            try {
+                solver.solve();
+                w.iterations = solver.getIterations();
+                w.lpObjective = solver.getUpperBound();
+
+                double[] duals = rmp.getDuals();
+                carriedDuals.clear();
+                for (int k = 0; k < duals.length; k++) {
+                    carriedDuals.put(windowTable.flightId(k), duals[k]);
+                }
+
+                List<Pairing> columns = new ArrayList<>();
+                for (Pairing p : rmp.getColumns()) {
+                    if (!rmp.isArtificial(p)) {
+                        columns.add(p);
+                    }
+                }
+                for (Pairing p : rmp.getPooledColumns()) {
+                    if (!rmp.isArtificial(p)) {
+                        columns.add(p);
+                    }
+                }
+                w.columns = columns.size();
+
+                // flights the window cannot cover yet (their return lies beyond it) stay open
+                List<Pairing> partition = DivingHeuristic.dive(windowTable, columns, LpBackends.create(backendName), true);
+
+                // commit the pairings that start before the next window
+                for (Pairing p : partition) {
+                    int[] indices = p.getFlightIndices();
+                    if (windowTable.depDay(indices[0]) >= commitEnd)
+                        continue;
+                    for (int k : indices) {
+                        committed[original.get(k)] = true;
+                    }
+                    solution.add(new Pairing(p.getFlights(), p.getCost()));
+                    totalCost += p.getCost();
+                    w.committed++;
+                }
+
+                // columns that still fit the open flights carry over
+                carried.clear();
+                for (Pairing p : columns) {
+                    boolean open = true;
+                    for (int k : p.getFlightIndices()) {
+                        open &= !committed[original.get(k)];
+                    }
+                    if (open) {
+                        carried.add(new Pairing(p.getFlights(), p.getCost()));
+                    }
+                }
+            } finally {
+                rmp.close();
+            }
+            w.millis = System.currentTimeMillis() - windowStart;
+
+            if (verbose) {
+                System.out.printf("Window %s: %d flights | %d seeded | %d iterations | LP = %.2f | %d columns | "
+                                + "%d pairings committed | %d ms%n", w.start, w.flights, w.seededColumns,
+                        w.iterations, w.lpObjective, w.columns, w.committed, w.millis);
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (!committed[i]) {
+                uncovered.add(table.getFlight(i));
+            }
+        }
+        endTime = System.currentTimeMillis();
+    }
+
+    // carried pairings in the indices of the new window, dropping any that left it
+    private static List<Pairing> remap(List<Pairing> carried, FlightTable window) {
+        List<Pairing> seeds = new ArrayList<>();
+        for (Pairing p : carried) {
+            int[] indices = new int[p.getFlights().size()];
+            boolean inWindow = true;
+            for (int k = 0; k < indices.length && inWindow; k++) {
+                indices[k] = window.indexOf(p.getFlights().get(k).getFlightId());
+                inWindow = indices[k] >= 0;
+            }
+            if (inWindow) {
+                seeds.add(new Pairing(p.getFlights(), indices, p.getCost()));
+            }
+        }
+        return seeds;
+    }
+
+    private static double[] warmDuals(FlightTable window, Map<String, Double> known) {
+        double mean = 0;
+        for (double d : known.values()) {
+            mean += d;
+        }
+        mean /= known.size();
+        double[] duals = new double[window.size()];
+        for (int i = 0; i < duals.length; i++) {
+            duals[i] = known.getOrDefault(window.flightId(i), mean);
+        }
+        return duals;
+    }
+
+    // per-window log on stdout
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public List<Pairing> getSolution() {
+        return solution;
+    }
+
+    // flights no committed pairing covers
+    public List<Flight> getUncovered() {
+        return uncovered;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public List<Window> getWindows() {
+        return windows;
+    }
+
+    public int getIterations() {
+        int total = 0;
+        for (Window w : windows) {
+            total += w.iterations;
+        }
+        return total;
+    }
+
+    public void printSolution() {
+        System.out.println("\nSTEP 5: FINAL OUTPUT");
+        System.out.println("--------------------");
+        System.out.println("Total Cost: " + totalCost);
+        System.out.println("Windows: " + windows.size() + " (" + windowDays + " days, committing " + stepDays + ")");
+        System.out.println("Uncovered Flights: " + uncovered.size());
+        System.out.println("Execution Time: " + (endTime - startTime) + " ms");
+        System.out.println("Iterations: " + getIterations());
+        System.out.println("\nSelected Pairings:");
+        for (Pairing p : solution) {
+            System.out.println(p.toString());
+        }
+        for (Flight f : uncovered) {
+            System.out.println("Uncovered: " + f);
+        }
+    }
+
+    public static class Window {
+        private final LocalDate start;
+        private final int flights;
+        private int seededColumns;
+        private int iterations;
+        private double lpObjective = Double.NaN;
+        private int columns;
+        private int committed;
+        private long millis;
+
+        Window(LocalDate start, int flights) {
+            this.start = start;
+            this.flights = flights;
+        }
+
+        public LocalDate getStart() {
+            return start;
+        }
+
+        public int getFlights() {
+            return flights;
+        }
+
+        public int getSeededColumns() {
+            return seededColumns;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public double getLpObjective() {
+            return lpObjective;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        public int getCommitted() {
+            return committed;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+    }
+}
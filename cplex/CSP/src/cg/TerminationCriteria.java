@@ -0,0 +1,55 @@
+package cg;
+
+/*
+ * When the CG loop may stop before pricing proves LP optimality: on a relative or
+ * absolute gap between the RMP objective (upper bound) and the best Lagrangian lower
+ * bound, on an iteration cap or on a wall-clock budget. Zero disables a criterion.
+ */
+public class TerminationCriteria {
+    private final double relativeGap;
+    private final double absoluteGap;
+    private final int maxIterations;
+    private final long timeLimitMillis;
+
+    public TerminationCriteria(double relativeGap, double absoluteGap, int maxIterations, long timeLimitMillis) {
+        this.relativeGap = relativeGap;
+        this.absoluteGap = absoluteGap;
+        this.maxIterations = maxIterations;
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    // run until pricing proves optimality
+    public static TerminationCriteria exact() {
+        return new TerminationCriteria(0, 0, 0, 0);
+    }
+
+    // reason to stop, or null to keep going
+    public String check(double upperBound, double lowerBound, int iterations, long elapsedMillis) {
+        double gap = upperBound - lowerBound;
+        if (absoluteGap > 0 && gap <= absoluteGap)
+            return "absolute gap";
+        if (relativeGap > 0 && gap <= relativeGap * Math.max(1.0, Math.abs(upperBound)))
+            return "relative gap";
+        if (maxIterations > 0 && iterations >= maxIterations)
+            return "iteration limit";
+        if (timeLimitMillis > 0 && elapsedMillis >= timeLimitMillis)
+            return "time limit";
+        return null;
+    }
+
+    public double getRelativeGap() {
+        return relativeGap;
+    }
+
+    public double getAbsoluteGap() {
+        return absoluteGap;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+}
@@ -0,0 +1,291 @@
+package master;
+
+import model.FlightTable;
+
+import java.util.Arrays;
+
+/*
+ * Column store of the RMP: every column it holds, in the LP or aged out of it, as a row of
+ * a compressed sparse arena of flight indices, with its cost, base and flags in parallel
+ * primitive arrays. An entry id stays valid until the entry is removed; freed ids are
+ * reused and the arena is compacted once more than half of it is garbage.
+ *
+ * Real columns are also indexed by a 64-bit coverage hash (the set of flights and the base
+ * the pairing starts at) in an open-addressing table, so a column that covers the same
+ * rows as an indexed one at no lower cost is recognised before it reaches the LP: as an LP
+ * column it would be a copy of the other one or dominated by it. Big-M singletons keep
+ * every row coverable and are never indexed.
+ */
+public class ColumnPool {
+    private static final int LIVE = 1;
+    private static final int INDEXED = 2;
+    private static final int ARTIFICIAL = 4;
+    // index slots
+    private static final int EMPTY = -1;
+    private static final int DELETED = -2;
+
+    // arena: entry e covers flights[start[e] .. start[e] + length[e])
+    private int[] flights = new int[1024];
+    private int arenaSize;
+    private int garbage; // arena slots of removed entries
+
+    private int[] start = new int[256];
+    private int[] length = new int[256];
+    private double[] costs = new double[256];
+    private int[] bases = new int[256];
+    private long[] hashes = new long[256];
+    private byte[] flags = new byte[256];
+    private int entries; // ids in use or free, below this
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int live;
+
+    // open addressing, linear probing: entry ids, EMPTY or DELETED
+    private int[] slots = emptySlots(512);
+    private int slotsUsed; // indexed + deleted
+    private int indexed;
+
+    /*
+     * stores the column; an indexed one is found by dominated() from now on
+     * returns its entry id
+     */
+    public int add(int[] path, double cost, int base, boolean artificial) {
+        int id = allocate();
+        if (arenaSize + path.length > flights.length) {
+            flights = Arrays.copyOf(flights, Math.max(flights.length * 2, arenaSize + path.length));
+        }
+        System.arraycopy(path, 0, flights, arenaSize, path.length);
+        start[id] = arenaSize;
+        length[id] = path.length;
+        arenaSize += path.length;
+        costs[id] = cost;
+        bases[id] = base;
+        hashes[id] = coverageHash(path, base);
+        flags[id] = (byte) (LIVE | (artificial ? ARTIFICIAL : 0));
+        live++;
+        if (!artificial) {
+            index(id);
+        }
+        return id;
+    }
+
+    /*
+     * an indexed column covers the same flights from the same base and costs at most cost
+     * (+1e-9); the order of the flights does not matter to the LP
+     */
+    public boolean dominated(int[] path, double cost, int base) {
+        long hash = coverageHash(path, base);
+        int mask = slots.length - 1;
+        for (int s = slot(hash, mask); slots[s] != EMPTY; s = (s + 1) & mask) {
+            int id = slots[s];
+            if (id >= 0 && hashes[id] == hash && costs[id] <= cost + 1e-9 && bases[id] == base
+                    && sameFlights(id, path))
+                return true;
+        }
+        return false;
+    }
+
+    // the entry is no longer found by dominated(), e.g. a column priced out of the LP
+    public void unindex(int id) {
+        if ((flags[id] & INDEXED) == 0)
+            return;
+        int mask = slots.length - 1;
+        int s = slot(hashes[id], mask);
+        while (slots[s] != id) {
+            s = (s + 1) & mask;
+        }
+        slots[s] = DELETED;
+        flags[id] &= ~INDEXED;
+        indexed--;
+    }
+
+    // frees the entry, its id may be handed out again
+    public void remove(int id) {
+        unindex(id);
+        flags[id] = 0;
+        garbage += length[id];
+        live--;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        if (garbage > 1024 && garbage > arenaSize / 2) {
+            compact();
+        }
+    }
+
+    // a copy of the entry's flight indices, in sequence
+    public int[] getFlights(int id) {
+        return Arrays.copyOfRange(flights, start[id], start[id] + length[id]);
+    }
+
+    public int getLength(int id) {
+        return length[id];
+    }
+
+    public int getFirstFlight(int id) {
+        return flights[start[id]];
+    }
+
+    public double getCost(int id) {
+        return costs[id];
+    }
+
+    public int getBase(int id) {
+        return bases[id];
+    }
+
+    public boolean isArtificial(int id) {
+        return (flags[id] & ARTIFICIAL) != 0;
+    }
+
+    // cost minus the duals of the covered flights, read straight from the arena
+    public double getReducedCost(int id, double[] duals) {
+        double rc = costs[id];
+        for (int k = start[id], end = start[id] + length[id]; k < end; k++) {
+            rc -= duals[flights[k]];
+        }
+        return rc;
+    }
+
+    /*
+     * reduced costs of many entries at once, out[k] for ids[k]: each row of the arena is a
+     * sparse 0/1 vector, so its dot product with the duals is a gathered sum. Four partial
+     * sums keep the adds independent, so the loop does not wait on one running total.
+     */
+    public void getReducedCosts(int[] ids, int count, double[] duals, double[] out) {
+        int[] arena = flights;
+        for (int k = 0; k < count; k++) {
+            int id = ids[k];
+            int i = start[id];
+            int end = i + length[id];
+            double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            for (; i + 3 < end; i += 4) {
+                s0 += duals[arena[i]];
+                s1 += duals[arena[i + 1]];
+                s2 += duals[arena[i + 2]];
+                s3 += duals[arena[i + 3]];
+            }
+            for (; i < end; i++) {
+                s0 += duals[arena[i]];
+            }
+            out[k] = costs[id] - ((s0 + s1) + (s2 + s3));
+        }
+    }
+
+    // entries stored
+    public int size() {
+        return live;
+    }
+
+    public int getIndexedCount() {
+        return indexed;
+    }
+
+    // arena and per-entry arrays as allocated
+    public long getFootprintBytes() {
+        return 4L * flights.length + (4 + 4 + 8 + 4 + 8 + 1) * (long) start.length + 4L * freeIds.length
+                + 4L * slots.length;
+    }
+
+    private int allocate() {
+        if (freeCount > 0)
+            return freeIds[--freeCount];
+        if (entries == start.length) {
+            int capacity = entries * 2;
+            start = Arrays.copyOf(start, capacity);
+            length = Arrays.copyOf(length, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            bases = Arrays.copyOf(bases, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        return entries++;
+    }
+
+    private void index(int id) {
+        if (2 * (slotsUsed + 1) > slots.length) {
+            rehash(indexed + 1 > slots.length / 4 ? slots.length * 2 : slots.length);
+        }
+        int mask = slots.length - 1;
+        int s = slot(hashes[id], mask);
+        while (slots[s] >= 0) {
+            s = (s + 1) & mask;
+        }
+        if (slots[s] == EMPTY) {
+            slotsUsed++;
+        }
+        slots[s] = id;
+        flags[id] |= INDEXED;
+        indexed++;
+    }
+
+    // the same table size clears the deleted slots
+    private void rehash(int capacity) {
+        int[] old = slots;
+        slots = emptySlots(capacity);
+        int mask = capacity - 1;
+        for (int id : old) {
+            if (id >= 0) {
+                int s = slot(hashes[id], mask);
+                while (slots[s] != EMPTY) {
+                    s = (s + 1) & mask;
+                }
+                slots[s] = id;
+            }
+        }
+        slotsUsed = indexed;
+    }
+
+    // live entries move to the front of the arena in id order, their ids unchanged
+    private void compact() {
+        int[] packed = new int[Math.max(1024, 2 * (arenaSize - garbage))];
+        int size = 0;
+        for (int id = 0; id < entries; id++) {
+            if ((flags[id] & LIVE) != 0) {
+                System.arraycopy(flights, start[id], packed, size, length[id]);
+                start[id] = size;
+                size += length[id];
+            }
+        }
+        flights = packed;
+        arenaSize = size;
+        garbage = 0;
+    }
+
+    // a pairing never covers a flight twice, so equal sets are equal length and inclusion
+    private boolean sameFlights(int id, int[] path) {
+        if (length[id] != path.length)
+            return false;
+        int from = start[id];
+        int to = from + length[id];
+        for (int f : path) {
+            int k = from;
+            while (k < to && flights[k] != f) {
+                k++;
+            }
+            if (k == to)
+                return false;
+        }
+        return true;
+    }
+
+    // order-independent: the sum of the mixed flight indices, then the base
+    static long coverageHash(int[] path, int base) {
+        long sum = 0;
+        for (int f : path) {
+            sum += FlightTable.mix(0x2545F4914F6CDD1DL, f);
+        }
+        return FlightTable.mix(sum, base);
+    }
+
+    private static int slot(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int[] emptySlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+}
@@ -0,0 +1,200 @@
+package master;
+
+import ilog.concert.IloColumn;
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloObjective;
+import ilog.concert.IloRange;
+import ilog.cplex.IloCplex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * LpBackend on top of IloCplex. Only this class depends on cplex.jar.
+ */
+public class CplexBackend implements LpBackend {
+    private IloCplex cplex;
+    private IloObjective objective;
+    private List<IloRange> rows;
+    private List<IloNumVar> variables;
+
+    public CplexBackend() throws LpException {
+        try {
+            this.cplex = new IloCplex();
+            // Turn off CPLEX output to console for cleaner CLI
+            cplex.setOut(null);
+            // CG only adds columns between solves: re-optimize with primal simplex
+            // from the previous basis instead of starting over
+            cplex.setParam(IloCplex.IntParam.RootAlg, IloCplex.Algorithm.Primal);
+            cplex.setParam(IloCplex.IntParam.AdvInd, 1);
+            this.objective = cplex.addMinimize();
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+        this.rows = new ArrayList<>();
+        this.variables = new ArrayList<>();
+    }
+
+    @Override
+    public int addRow(Sense sense, double rhs, String name) throws LpException {
+        try {
+            // Expression will be built as columns are added
+            IloLinearNumExpr expr = cplex.linearNumExpr();
+            IloRange row;
+            switch (sense) {
+                case LESS_EQUAL:
+                    row = cplex.addLe(expr, rhs, name);
+                    break;
+                case GREATER_EQUAL:
+                    row = cplex.addGe(expr, rhs, name);
+                    break;
+                default:
+                    row = cplex.addEq(expr, rhs, name);
+            }
+            rows.add(row);
+            return rows.size() - 1;
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int addColumn(double cost, int[] rowIndices, double[] coefs, double lb, double ub, String name)
+            throws LpException {
+        try {
+            IloColumn col = cplex.column(objective, cost);
+            for (int k = 0; k < rowIndices.length; k++) {
+                col = col.and(cplex.column(rows.get(rowIndices[k]), coefs[k]));
+            }
+            variables.add(cplex.numVar(col, lb, Double.isInfinite(ub) ? Double.MAX_VALUE : ub, name));
+            return variables.size() - 1;
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void solve() throws LpException {
+        try {
+            if (!cplex.solve()) {
+                throw new LpException("CPLEX found no solution, status " + cplex.getStatus());
+            }
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public double[] getDuals() throws LpException {
+        try {
+            return cplex.getDuals(rows.toArray(new IloRange[0]));
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public double[] getValues() throws LpException {
+        try {
+            return cplex.getValues(variables.toArray(new IloNumVar[0]));
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public double[] getReducedCosts() throws LpException {
+        try {
+            return cplex.getReducedCosts(variables.toArray(new IloNumVar[0]));
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void setColumnBounds(int column, double lb, double ub) throws LpException {
+        try {
+            IloNumVar var = variables.get(column);
+            var.setLB(lb);
+            var.setUB(Double.isInfinite(ub) ? Double.MAX_VALUE : ub);
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void setColumnCost(int column, double cost) throws LpException {
+        try {
+            cplex.setLinearCoef(objective, cost, variables.get(column));
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isBasic(int column) throws LpException {
+        try {
+            return cplex.getBasisStatus(variables.get(column)) == IloCplex.BasisStatus.Basic;
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void removeColumns(int[] columns) throws LpException {
+        int[] sorted = columns.clone();
+        Arrays.sort(sorted);
+        try {
+            for (int k = sorted.length - 1; k >= 0; k--) {
+                cplex.delete(variables.remove(sorted[k]));
+            }
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public double getObjectiveValue() throws LpException {
+        try {
+            return cplex.getObjValue();
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return variables.size();
+    }
+
+    @Override
+    public String getName() {
+        return "cplex";
+    }
+
+    // the IloCplex, its parameters and its license checkout are kept
+    @Override
+    public void clear() throws LpException {
+        try {
+            cplex.clearModel();
+            objective = cplex.addMinimize();
+        } catch (IloException e) {
+            throw new LpException("CPLEX Error: " + e.getMessage(), e);
+        }
+        rows.clear();
+        variables.clear();
+    }
+
+    @Override
+    public void close() {
+        cplex.end();
+    }
+}
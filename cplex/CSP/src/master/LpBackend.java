@@ -0,0 +1,54 @@
+package master;
+
+/*
+ * Solver-agnostic LP used by the RMP: minimize c'x subject to rows Ax (sense) rhs and
+ * lb <= x <= ub. Rows and columns are addressed by the index returned when they were
+ * added. Implementations: CplexBackend (needs cplex.jar and the native library) and
+ * SimplexBackend (pure Java).
+ */
+public interface LpBackend {
+    enum Sense {
+        EQUAL, LESS_EQUAL, GREATER_EQUAL
+    }
+
+    // adds an empty row, coefficients are supplied with the columns
+    int addRow(Sense sense, double rhs, String name) throws LpException;
+
+    int addColumn(double cost, int[] rows, double[] coefs, double lb, double ub, String name) throws LpException;
+
+    void solve() throws LpException;
+
+    // one dual per row
+    double[] getDuals() throws LpException;
+
+    // one primal value per column
+    double[] getValues() throws LpException;
+
+    // one reduced cost per column, against the last solve's duals
+    double[] getReducedCosts() throws LpException;
+
+    // changes the bounds of an existing column, the next solve starts from the current basis
+    void setColumnBounds(int column, double lb, double ub) throws LpException;
+
+    // changes the cost of an existing column, the basis stays primal feasible
+    void setColumnCost(int column, double cost) throws LpException;
+
+    // whether the column is in the basis of the last solve (basic columns cannot be removed)
+    boolean isBasic(int column) throws LpException;
+
+    // removes nonbasic columns, the remaining columns keep their relative order
+    void removeColumns(int[] columns) throws LpException;
+
+    double getObjectiveValue() throws LpException;
+
+    int getRowCount();
+
+    int getColumnCount();
+
+    String getName();
+
+    // drops every row and column; the solver environment and its settings stay for the next model
+    void clear() throws LpException;
+
+    void close();
+}
@@ -0,0 +1,106 @@
+package master;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Idle LP backends kept between solves, so a long-running process does not pay for a new
+ * solver environment (for CPLEX: the IloCplex, its parameters and its license checkout)
+ * every time. A released backend is cleared and waits, per backend name as given to
+ * LpBackends.create, for the next borrow of that name; above maxIdle per name it is
+ * closed instead. Thread-safe.
+ */
+public class LpBackendPool implements AutoCloseable {
+    private final int maxIdle;
+    private final Map<String, Deque<LpBackend>> idle = new HashMap<>();
+    private final Map<LpBackend, String> lent = new HashMap<>();
+    private int created;
+    private int reused;
+    private boolean closed;
+
+    public LpBackendPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    // an empty backend: an idle one of this name, or a new one
+    public LpBackend borrow(String name) throws LpException {
+        String key = name.toLowerCase();
+        synchronized (this) {
+            if (closed)
+                throw new LpException("LP backend pool is closed");
+            Deque<LpBackend> free = idle.get(key);
+            if (free != null && !free.isEmpty()) {
+                LpBackend lp = free.pop();
+                lent.put(lp, key);
+                reused++;
+                return lp;
+            }
+        }
+        // creating one may take a while (native library, license), not under the lock
+        LpBackend lp = LpBackends.create(key);
+        synchronized (this) {
+            lent.put(lp, key);
+            created++;
+        }
+        return lp;
+    }
+
+    // back to the pool; a backend that cannot be cleared, or one too many, is closed
+    public void release(LpBackend lp) {
+        String key;
+        synchronized (this) {
+            key = lent.remove(lp);
+            if (key == null)
+                throw new IllegalArgumentException("Backend not borrowed from this pool: " + lp.getName());
+        }
+        try {
+            lp.clear();
+        } catch (LpException e) {
+            lp.close();
+            return;
+        }
+        synchronized (this) {
+            Deque<LpBackend> free = idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+            if (!closed && free.size() < maxIdle) {
+                free.push(lp);
+                return;
+            }
+        }
+        lp.close();
+    }
+
+    public synchronized int getIdleCount() {
+        int count = 0;
+        for (Deque<LpBackend> free : idle.values()) {
+            count += free.size();
+        }
+        return count;
+    }
+
+    public synchronized int getLentCount() {
+        return lent.size();
+    }
+
+    // backends opened so far, and borrows served by an idle one
+    public synchronized int getCreatedCount() {
+        return created;
+    }
+
+    public synchronized int getReusedCount() {
+        return reused;
+    }
+
+    // closes the idle backends; lent ones are closed when they come back
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Deque<LpBackend> free : idle.values()) {
+            for (LpBackend lp : free) {
+                lp.close();
+            }
+            free.clear();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package master;
+
+/*
+ * Picks the LP backend by name: "cplex", "simplex" or "auto" (CPLEX when cplex.jar and
+ * its native library are available, the built-in simplex otherwise).
+ *
+ * CplexBackend is loaded by reflection so the rest of the code compiles and runs
+ * without cplex.jar on the classpath.
+ */
+public class LpBackends {
+    public static LpBackend create(String name) throws LpException {
+        switch (name.toLowerCase()) {
+            case "cplex":
+                return createCplex();
+            case "simplex":
+                return new SimplexBackend();
+            case "auto":
+            case "":
+                try {
+                    return createCplex();
+                } catch (LpException e) {
+                    return new SimplexBackend();
+                }
+            default:
+                throw new LpException("Unknown LP backend: " + name);
+        }
+    }
+
+    private static LpBackend createCplex() throws LpException {
+        try {
+            return (LpBackend) Class.forName("master.CplexBackend").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new LpException("CPLEX backend not available: " + e, e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package master;
+
+/*
+ * solver-agnostic error raised by the LP backends (CPLEX errors are wrapped in it)
+ */
+public class LpException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public LpException(String message) {
+        super(message);
+    }
+
+    public LpException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,105 +1,645 @@
 package master;
 
-import ilog.concert.*;
-import ilog.cplex.*;
 import model.Flight;
+import model.FlightTable;
 import model.Pairing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 public class RestrictedMasterProblem {
-    private IloCplex cplex;
-    private List<Flight> flights;
-    private List<Pairing> columns;
-    private Map<Flight, IloRange> constraints; // Flight coverage constraints
-    private Map<Pairing, IloNumVar> variables;
-
-    public RestrictedMasterProblem(List<Flight> flights) throws IloException {
-        this.flights = flights;
-        this.columns = new ArrayList<>();
-        this.constraints = new HashMap<>();
-        this.variables = new HashMap<>();
-        this.cplex = new IloCplex();
+    // cost of the singleton start columns
+    public static final double BIG_M = 1000000;
+
+    private LpBackend lp;
+    private FlightTable table;
+    private List<Pairing> columns; // column k of the LP is columns.get(k)
+    private List<Integer> entries; // and entries.get(k) its ColumnPool entry (-1 once disabled)
+    private int[] coverRows; // Flight coverage constraints, indexed like the FlightTable
+    private double[] values;
+
+    // column management: columns that stay nonbasic with positive reduced cost for
+    // maxColumnAge solves leave the LP and wait in the recoverable pool, as ColumnPool
+    // entries only. The pool rejects real columns the RMP already holds, in the LP or aged.
+    private int maxColumnAge = 0; // 0 keeps every column
+    private List<Integer> ages;
+    private final ColumnPool pool = new ColumnPool();
+    private List<Integer> aged; // pool entries out of the LP
+    // columns that priced out but did not fit in an iteration's quota, pool entries that have
+    // never been in the LP; takeCandidates re-prices them before the pricing search runs
+    private List<Integer> candidates = new ArrayList<>();
+    private double bestCandidateRedCost; // of the last takeCandidates, 0 if none priced out
+    private int rejected;
+    private Set<Pairing> artificials = Collections.newSetFromMap(new IdentityHashMap<>());
 
-        // Turn off CPLEX output to console for cleaner CLI
-        cplex.setOut(null);
+    // disruptions: invalidated columns are priced out until they leave the basis and can be
+    // removed; dropped flights are covered by a zero-cost singleton instead of a Big-M one
+    private Set<Pairing> disabled = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean[] dropped;
+
+    // optional per-base capacity rows: sum of the pairings out of a base <= its capacity,
+    // keyed by the base's airport id; their duals (<= 0) are read with the flight duals
+    private Map<Integer, Integer> capacityRowByBase = new HashMap<>();
+    private Map<Integer, Double> capacityByBase = new HashMap<>();
+    private Map<Integer, Double> capacityDuals = new HashMap<>(); // of the last solve
+
+    public RestrictedMasterProblem(List<Flight> flights) throws LpException {
+        this(new FlightTable(flights));
+    }
+
+    public RestrictedMasterProblem(FlightTable table) throws LpException {
+        this(table, LpBackends.create("auto"));
+    }
+
+    public RestrictedMasterProblem(FlightTable table, LpBackend lp) throws LpException {
+        this.table = table;
+        this.lp = lp;
+        this.columns = new ArrayList<>();
+        this.entries = new ArrayList<>();
+        this.coverRows = new int[table.size()];
+        this.ages = new ArrayList<>();
+        this.aged = new ArrayList<>();
+        this.dropped = new boolean[table.size()];
 
         buildModel();
     }
 
-    private void buildModel() throws IloException {
+    private void buildModel() throws LpException {
         // Minimize Total Cost
-        cplex.addMinimize();
 
         // Add constraints: Each flight covered exactly once (Relaxed to >= 1 sometimes
         // for stability, but =1 is standard Set Partitioning)
         // Here prompt says "Sum of pairings covering flight f = 1"
-        for (Flight f : flights) {
+        for (int i = 0; i < table.size(); i++) {
             // Expression will be built as columns are added
-            IloLinearNumExpr expr = cplex.linearNumExpr();
-            IloRange constraint = cplex.addEq(expr, 1.0, "Cover_" + f.getFlightId());
-            constraints.put(f, constraint);
+            coverRows[i] = lp.addRow(LpBackend.Sense.EQUAL, 1.0, "Cover_" + table.flightId(i));
+        }
+    }
+
+    /*
+     * adds the pairing as an LP column, unless it covers the same flights from the same base
+     * as a column the RMP holds (in the LP or aged out) at no lower cost
+     * returns false if it was rejected as such a duplicate
+     */
+    public boolean addColumn(Pairing pairing) throws LpException {
+        int[] indices = pairing.getFlightIndices(table);
+        boolean artificial = artificials.contains(pairing);
+        int base = indices.length > 0 && indices[0] >= 0 ? table.from(indices[0]) : -1;
+        if (!artificial && pool.dominated(indices, pairing.getCost(), base)) {
+            rejected++;
+            return false;
         }
+        addLpColumn(pairing, pool.add(indices, pairing.getCost(), base, artificial));
+        return true;
     }
 
-    public void addColumn(Pairing pairing) throws IloException {
+    private void addLpColumn(Pairing pairing, int entry) throws LpException {
         columns.add(pairing);
+        entries.add(entry);
+        ages.add(0);
 
         // Create variable for this pairing (0 <= x <= 1, Continuous for LP)
-        IloColumn col = cplex.column(cplex.getObjective(), pairing.getCost());
+        int[] indices = pairing.getFlightIndices(table);
+        int[] rows = new int[indices.length + 1];
+        int count = 0;
+        for (int index : indices) {
+            if (index >= 0) {
+                rows[count++] = coverRows[index];
+            }
+        }
+        Integer capacityRow = artificials.contains(pairing) ? null : capacityRowByBase.get(baseOf(pairing));
+        if (capacityRow != null) {
+            rows[count++] = capacityRow;
+        }
+        double[] coefs = new double[count];
+        Arrays.fill(coefs, 1.0);
+
+        lp.addColumn(pairing.getCost(), Arrays.copyOf(rows, count), coefs, 0.0, Double.POSITIVE_INFINITY,
+                "x_" + columns.size());
+    }
+
+    /*
+     * limits the pairings starting at this base (airport code) to capacity, e.g. the crews
+     * stationed there; must be called before any column is added
+     */
+    public void addCapacityRow(String base, double capacity) throws LpException {
+        if (!columns.isEmpty())
+            throw new IllegalStateException("Capacity rows must be added before the columns");
+        int baseId = table.getAirports().idOf(base);
+        if (baseId < 0)
+            throw new IllegalArgumentException("Unknown base: " + base);
+        capacityRowByBase.put(baseId, lp.addRow(LpBackend.Sense.LESS_EQUAL, capacity, "Capacity_" + base));
+        capacityByBase.put(baseId, capacity);
+    }
+
+    public void solve() throws LpException {
+        lp.solve();
+        values = null;
+        if (!disabled.isEmpty()) {
+            purgeDisabled();
+        }
+        capacityDuals.clear();
+        if (!capacityRowByBase.isEmpty()) {
+            double[] rowDuals = lp.getDuals();
+            for (Map.Entry<Integer, Integer> e : capacityRowByBase.entrySet()) {
+                capacityDuals.put(e.getKey(), rowDuals[e.getValue()]);
+            }
+        }
+        if (maxColumnAge > 0) {
+            ageColumns();
+        }
+    }
+
+    private void ageColumns() throws LpException {
+        values = lp.getValues();
+        double[] reducedCosts = lp.getReducedCosts();
+
+        List<Integer> expired = new ArrayList<>();
+        for (int k = 0; k < columns.size(); k++) {
+            if (values[k] <= 1e-9 && reducedCosts[k] > 1e-6) {
+                int age = ages.get(k) + 1;
+                ages.set(k, age);
+                if (age >= maxColumnAge) {
+                    expired.add(k);
+                }
+            } else {
+                ages.set(k, 0);
+            }
+        }
+        if (expired.isEmpty())
+            return;
+
+        // move the expired columns to the pool, which keeps their entries
+        List<Integer> expiredEntries = new ArrayList<>();
+        for (int k : expired) {
+            expiredEntries.add(entries.get(k));
+        }
+        removeColumns(expired);
+        aged.addAll(expiredEntries);
+    }
+
+    // removes the disabled columns that have left the basis
+    private void purgeDisabled() throws LpException {
+        List<Integer> nonbasic = new ArrayList<>();
+        for (int k = 0; k < columns.size(); k++) {
+            if (disabled.contains(columns.get(k)) && !lp.isBasic(k)) {
+                nonbasic.add(k);
+            }
+        }
+        if (nonbasic.isEmpty())
+            return;
+        // their pool entries went when they were disabled
+        for (Pairing p : removeColumns(nonbasic)) {
+            disabled.remove(p);
+            artificials.remove(p);
+        }
+    }
+
+    // takes these nonbasic columns (ascending) out of the LP, keeping the order of the others
+    private List<Pairing> removeColumns(List<Integer> remove) throws LpException {
+        int[] indices = new int[remove.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = remove.get(i);
+        }
+        lp.removeColumns(indices);
+
+        List<Pairing> removed = new ArrayList<>();
+        List<Pairing> keptColumns = new ArrayList<>();
+        List<Integer> keptEntries = new ArrayList<>();
+        List<Integer> keptAges = new ArrayList<>();
+        double[] keptValues = values == null ? null : new double[columns.size() - indices.length];
+        int next = 0;
+        for (int k = 0; k < columns.size(); k++) {
+            if (next < indices.length && indices[next] == k) {
+                removed.add(columns.get(k));
+                next++;
+            } else {
+                if (keptValues != null) {
+                    keptValues[keptColumns.size()] = values[k];
+                }
+                keptColumns.add(columns.get(k));
+                keptEntries.add(entries.get(k));
+                keptAges.add(ages.get(k));
+            }
+        }
+        columns = keptColumns;
+        entries = keptEntries;
+        ages = keptAges;
+        values = keptValues;
+        return removed;
+    }
+
+    /*
+     * moves the RMP to a changed schedule: extended keeps every flight of the current table
+     * at its index (retimed ones in place) and may append new flights, which get a coverage
+     * row and a Big-M singleton each. Columns over retimed flights are left to
+     * invalidateColumns.
+     */
+    public void extendTable(FlightTable extended) throws LpException {
+        int old = coverRows.length;
+        if (extended.size() < old)
+            throw new IllegalArgumentException("The new table has " + extended.size() + " flights, the RMP " + old);
+        FlightTable previous = table;
+        table = extended;
+        // capacity rows are keyed by airport id, which the new table may number differently
+        capacityRowByBase = remap(capacityRowByBase, previous);
+        capacityByBase = remap(capacityByBase, previous);
+        capacityDuals = remap(capacityDuals, previous);
+        coverRows = Arrays.copyOf(coverRows, extended.size());
+        dropped = Arrays.copyOf(dropped, extended.size());
+        for (int i = old; i < extended.size(); i++) {
+            coverRows[i] = lp.addRow(LpBackend.Sense.EQUAL, 1.0, "Cover_" + table.flightId(i));
+        }
+        for (int i = old; i < extended.size(); i++) {
+            addSingleton(i, BIG_M);
+        }
+    }
+
+    private <V> Map<Integer, V> remap(Map<Integer, V> byBase, FlightTable previous) {
+        Map<Integer, V> remapped = new HashMap<>();
+        for (Map.Entry<Integer, V> e : byBase.entrySet()) {
+            remapped.put(table.getAirports().idOf(previous.getAirports().codeOf(e.getKey())), e.getValue());
+        }
+        return remapped;
+    }
+
+    /*
+     * the flight no longer needs a crew: its row is covered by a zero-cost singleton, so its
+     * dual drops to at most 0, and its Big-M singleton is disabled. The pricing must no
+     * longer use the flight; the columns that do are left to invalidateColumns.
+     */
+    public void dropFlight(int index) throws LpException {
+        if (dropped[index])
+            return;
+        dropped[index] = true;
+        aged.removeIf(e -> {
+            if (!pool.isArtificial(e) || pool.getFirstFlight(e) != index)
+                return false;
+            pool.remove(e);
+            return true;
+        });
+        for (int k = 0; k < columns.size(); k++) {
+            Pairing p = columns.get(k);
+            if (artificials.contains(p) && p.getFlightIndices(table)[0] == index) {
+                disable(k);
+            }
+        }
+        addSingleton(index, 0.0);
+    }
+
+    public boolean isDropped(int index) {
+        return dropped[index];
+    }
+
+    /*
+     * takes the real columns the predicate matches out of the RMP: pooled ones are
+     * forgotten, LP ones are priced out and removed once a solve leaves them nonbasic.
+     * Candidates (see addCandidates) are all forgotten.
+     * Big-M singletons that aged out come back first, so every row stays coverable.
+     * returns the number of columns invalidated
+     */
+    public int invalidateColumns(Predicate<Pairing> stale) throws LpException {
+        List<Integer> singletons = new ArrayList<>();
+        aged.removeIf(e -> pool.isArtificial(e) && singletons.add(e));
+        for (int e : singletons) {
+            restore(e);
+        }
+        int before = aged.size();
+        aged.removeIf(e -> {
+            if (!stale.test(materialize(e)))
+                return false;
+            pool.remove(e);
+            return true;
+        });
+        int count = before - aged.size();
+        // candidates were never in the RMP and pricing finds them again on the new schedule
+        for (int e : candidates) {
+            pool.remove(e);
+        }
+        candidates.clear();
+        for (int k = 0; k < columns.size(); k++) {
+            Pairing p = columns.get(k);
+            if (!artificials.contains(p) && !disabled.contains(p) && stale.test(p)) {
+                disable(k);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * costs the column more than the Big-M singletons of its flights together, so no optimum
+     * uses it; unlike fixing it to 0 this keeps the basis primal feasible, and the next solve
+     * is a warm phase 2
+     */
+    private void disable(int column) throws LpException {
+        lp.setColumnCost(column, BIG_M * (columns.get(column).getFlightIndices(table).length + 1));
+        disabled.add(columns.get(column));
+        // a copy of the column at its new cost may come in meanwhile
+        pool.remove(entries.get(column));
+        entries.set(column, -1);
+        values = null;
+    }
+
+    // columns invalidated or dropped that are still basic in the LP
+    public int getDisabledCount() {
+        return disabled.size();
+    }
+
+    /*
+     * re-adds the pooled columns that have negative reduced cost under these duals
+     * returns the number of columns recovered
+     */
+    public int recoverColumns(double[] duals) throws LpException {
+        double[] rc = reducedCosts(aged, duals);
+        List<Integer> kept = new ArrayList<>(aged.size());
+        List<Integer> recovered = new ArrayList<>();
+        for (int k = 0; k < rc.length; k++) {
+            (rc[k] < -0.0001 ? recovered : kept).add(aged.get(k));
+        }
+        aged = kept;
+        for (int e : recovered) {
+            restore(e);
+        }
+        return recovered.size();
+    }
+
+    /*
+     * keeps columns that priced out but were not added, for takeCandidates; ones the RMP
+     * already holds (in the LP, aged or kept) are passed over
+     * returns the number kept
+     */
+    public int addCandidates(List<Pairing> pairings) {
+        int count = 0;
+        for (Pairing p : pairings) {
+            if (artificials.contains(p))
+                continue;
+            int[] indices = p.getFlightIndices(table);
+            int base = indices.length > 0 && indices[0] >= 0 ? table.from(indices[0]) : -1;
+            if (!pool.dominated(indices, p.getCost(), base)) {
+                candidates.add(pool.add(indices, p.getCost(), base, false));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * re-prices every candidate at these duals in one pass over the pool and adds the (at
+     * most max) most negative ones to the LP; candidates that no longer price out are
+     * dropped, pricing finds them again if they come back
+     * returns the number of columns added
+     */
+    public int takeCandidates(double[] duals, int max) throws LpException {
+        bestCandidateRedCost = 0;
+        if (candidates.isEmpty())
+            return 0;
+        double[] rc = reducedCosts(candidates, duals);
+        List<Integer> negative = new ArrayList<>();
+        for (int k = 0; k < rc.length; k++) {
+            if (rc[k] < -0.0001) {
+                negative.add(k);
+            } else {
+                pool.remove(candidates.get(k));
+            }
+        }
+        // reduced costs from the array, each computed once
+        negative.sort(Comparator.comparingDouble(k -> rc[k]));
+        if (!negative.isEmpty()) {
+            bestCandidateRedCost = rc[negative.get(0)];
+        }
+        List<Integer> kept = new ArrayList<>(Math.max(0, negative.size() - max));
+        for (int i = 0; i < negative.size(); i++) {
+            int e = candidates.get(negative.get(i));
+            if (i < max) {
+                restore(e);
+            } else {
+                kept.add(e);
+            }
+        }
+        candidates = kept;
+        return Math.min(max, negative.size());
+    }
+
+    // candidates kept for takeCandidates
+    public int getCandidateCount() {
+        return candidates.size();
+    }
+
+    // the most negative reduced cost among the candidates of the last takeCandidates, or 0
+    public double getBestCandidateReducedCost() {
+        return bestCandidateRedCost;
+    }
+
+    // reduced costs of these pool entries in this RMP, capacity duals included
+    private double[] reducedCosts(List<Integer> ids, double[] duals) {
+        int[] batch = new int[ids.size()];
+        for (int k = 0; k < batch.length; k++) {
+            batch[k] = ids.get(k);
+        }
+        double[] rc = new double[batch.length];
+        pool.getReducedCosts(batch, batch.length, duals, rc);
+        if (!capacityDuals.isEmpty()) {
+            for (int k = 0; k < batch.length; k++) {
+                if (!pool.isArtificial(batch[k])) {
+                    rc[k] -= capacityDual(pool.getBase(batch[k]));
+                }
+            }
+        }
+        return rc;
+    }
+
+    // the pooled entry back in the LP, as a new Pairing
+    private void restore(int entry) throws LpException {
+        Pairing p = materialize(entry);
+        if (pool.isArtificial(entry)) {
+            artificials.add(p);
+        }
+        addLpColumn(p, entry);
+    }
+
+    private Pairing materialize(int entry) {
+        int[] path = pool.getFlights(entry);
+        List<Flight> flights = new ArrayList<>(path.length);
+        for (int i : path) {
+            flights.add(table.getFlight(i));
+        }
+        return new Pairing(flights, path, pool.getCost(entry));
+    }
+
+    /*
+     * Lagrangian contribution of the Big-M singleton columns at these duals: each can be
+     * used at most once, so they add sum(min(0, BIG_M - dual_i)) to the bound (a dropped
+     * flight's singleton costs 0)
+     */
+    public double artificialBoundTerm(double[] duals) {
+        double term = 0;
+        for (int i = 0; i < duals.length; i++) {
+            term += Math.min(0.0, (dropped[i] ? 0.0 : BIG_M) - duals[i]);
+        }
+        return term;
+    }
+
+    /*
+     * Lagrangian contribution of the capacity rows: sum(capacity_b * dual_b), the duals
+     * indexed like getCapacityDuals
+     */
+    public double capacityBoundTerm(double[] capacityDuals) {
+        double term = 0;
+        for (Map.Entry<Integer, Double> e : capacityByBase.entrySet()) {
+            term += e.getValue() * capacityDuals[e.getKey()];
+        }
+        return term;
+    }
+
+    /*
+     * capacity duals of the last solve indexed by airport id, 0 for airports without a
+     * capacity row; empty if the RMP has none
+     */
+    public double[] getCapacityDuals() {
+        if (capacityRowByBase.isEmpty())
+            return new double[0];
+        double[] byAirport = new double[table.getAirports().size()];
+        for (Map.Entry<Integer, Double> e : capacityDuals.entrySet()) {
+            byAirport[e.getKey()] = e.getValue();
+        }
+        return byAirport;
+    }
+
+    // reduced cost of the pairing in this RMP: flight duals plus the capacity dual of its base
+    public double getReducedCost(Pairing pairing, double[] duals) {
+        double rc = pairing.getReducedCost(duals);
+        if (!capacityRowByBase.isEmpty() && !artificials.contains(pairing)) {
+            rc -= capacityDual(baseOf(pairing));
+        }
+        return rc;
+    }
+
+    // the same at other duals, e.g. a stabilized separation point; capacity duals as above
+    public double getReducedCost(Pairing pairing, double[] duals, double[] capacityDuals) {
+        double rc = pairing.getReducedCost(duals);
+        if (capacityDuals.length > 0 && !artificials.contains(pairing)) {
+            rc -= capacityDuals[baseOf(pairing)];
+        }
+        return rc;
+    }
+
+    private double capacityDual(int baseId) {
+        return capacityDuals.getOrDefault(baseId, 0.0);
+    }
+
+    // pairings start at their base
+    private int baseOf(Pairing pairing) {
+        return table.from(pairing.getFlightIndices(table)[0]);
+    }
+
+    public void setMaxColumnAge(int maxColumnAge) {
+        this.maxColumnAge = maxColumnAge;
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public int getPoolSize() {
+        return aged.size();
+    }
+
+    // real columns turned away by addColumn as duplicates of ones the RMP holds
+    public int getRejectedCount() {
+        return rejected;
+    }
+
+    // the column store: LP and aged columns, see ColumnPool
+    public ColumnPool getColumnPool() {
+        return pool;
+    }
+
+    // Big-M singleton from generateInitialSolution, not a real pairing
+    public boolean isArtificial(Pairing pairing) {
+        return artificials.contains(pairing);
+    }
 
-        for (Flight f : pairing.getFlights()) {
-            if (constraints.containsKey(f)) {
-                col = col.and(cplex.column(constraints.get(f), 1.0));
+    // columns currently in the LP, in LP column order
+    public List<Pairing> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    // real columns aged out of the LP, built from their pool entries on every call
+    public List<Pairing> getPooledColumns() {
+        List<Pairing> pooled = new ArrayList<>();
+        for (int e : aged) {
+            if (!pool.isArtificial(e)) {
+                pooled.add(materialize(e));
             }
         }
+        return pooled;
+    }
 
-        IloNumVar var = cplex.numVar(col, 0.0, Double.MAX_VALUE, "x_" + columns.size());
-        variables.put(pairing, var);
+    // primal values of the last solve, parallel to getColumns()
+    public double[] getValues() throws LpException {
+        if (values == null) {
+            values = lp.getValues();
+        }
+        return values.clone();
     }
 
-    public void solve() throws IloException {
-        cplex.solve();
+    public void setColumnBounds(int column, double lb, double ub) throws LpException {
+        lp.setColumnBounds(column, lb, ub);
     }
 
-    public double[] getDuals() throws IloException {
-        double[] duals = new double[flights.size()];
-        for (int i = 0; i < flights.size(); i++) {
-            duals[i] = cplex.getDual(constraints.get(flights.get(i)));
+    public double[] getDuals() throws LpException {
+        // one dual per coverage row, indexed like the FlightTable
+        double[] rowDuals = lp.getDuals();
+        double[] duals = new double[coverRows.length];
+        for (int i = 0; i < coverRows.length; i++) {
+            duals[i] = rowDuals[coverRows[i]];
         }
         return duals;
     }
 
-    public double getObjectiveValue() throws IloException {
-        return cplex.getObjValue();
+    public double getObjectiveValue() throws LpException {
+        return lp.getObjectiveValue();
+    }
+
+    public LpBackend getBackend() {
+        return lp;
     }
 
     public void close() {
-        cplex.end();
+        lp.close();
     }
 
-    public void generateInitialSolution() throws IloException {
+    public void generateInitialSolution() throws LpException {
         // Simple initialization: One pairing per flight (High cost to encourage
         // replacement)
         // This ensures feasibility.
-        for (Flight f : flights) {
-            Pairing p = new Pairing();
-            p.addFlight(f);
-            p.setCost(1000000); // Big M
-            addColumn(p);
+        for (int i = 0; i < table.size(); i++) {
+            addSingleton(i, BIG_M); // Big M
         }
     }
 
+    private void addSingleton(int index, double cost) throws LpException {
+        Pairing p = new Pairing(List.of(table.getFlight(index)), new int[]{index}, cost);
+        artificials.add(p);
+        addColumn(p);
+    }
+
     // Get the solution (selected pairings) with values > epsilon
-    public List<Pairing> getSolution() throws IloException {
+    public List<Pairing> getSolution() throws LpException {
+        double[] values = getValues();
         List<Pairing> selected = new ArrayList<>();
-        for (Pairing p : columns) {
-            double val = cplex.getValue(variables.get(p));
-            if (val > 0.0001) {
-                selected.add(p);
+        for (int k = 0; k < columns.size(); k++) {
+            if (values[k] > 0.0001) {
+                selected.add(columns.get(k));
             }
         }
         return selected;
@@ -0,0 +1,811 @@
+package master;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Pure-Java bounded revised simplex, so the CG loop runs without a CPLEX install.
+ *
+ * Every row gets an artificial variable (and a slack for inequality rows). A cold start
+ * puts the artificials in the basis and runs phase 1; afterwards they are fixed to zero.
+ * The basis inverse is kept dense and updated in product form, with a full
+ * refactorization every REFACTOR_INTERVAL pivots.
+ *
+ * Warm start: the basis is kept between solve() calls. Added columns enter nonbasic at
+ * their lower bound, so the previous basis stays primal feasible and primal simplex
+ * continues from it. Added rows extend the basis with their artificial.
+ *
+ * Degeneracy: set partitioning masters stall for thousands of zero-step pivots. After
+ * BLAND_AFTER of them in phase 2 the bounds of the basic variables are shifted outward by
+ * small random amounts, so steps become positive again. At the perturbed optimum the
+ * bounds are restored and the (tiny) primal infeasibility is repaired with dual simplex
+ * pivots, the basis stays dual feasible since the costs never change. Bland's rule is the
+ * last resort.
+ *
+ * Dense B^-1 is fine up to a few thousand rows; production-size masters should use CPLEX.
+ */
+public class SimplexBackend implements LpBackend {
+    private static final double FEAS_TOL = 1e-7;
+    private static final double OPT_TOL = 1e-7;
+    private static final double PIVOT_TOL = 1e-9;
+    private static final int REFACTOR_INTERVAL = 100;
+    // degenerate pivots in a row before perturbing the bounds, or switching to Bland's rule
+    // against cycling
+    private static final int BLAND_AFTER = 50;
+    // relative size of the bound shifts
+    private static final double PERTURBATION = 1e-6;
+
+    // rows
+    private int rowCount;
+    private double[] rhs = new double[16];
+
+    // variables: structural columns, slacks and artificials
+    private int varCount;
+    private final List<int[]> varRows = new ArrayList<>();
+    private final List<double[]> varCoefs = new ArrayList<>();
+    private double[] cost = new double[16];
+    private double[] lb = new double[16];
+    private double[] ub = new double[16];
+    private double[] x = new double[16];
+    private boolean[] artificial = new boolean[16];
+    private boolean[] atUpper = new boolean[16];
+    private int[] basisPos = new int[16]; // row position in the basis, -1 if nonbasic
+    private int[] artificialOfRow = new int[16];
+
+    // structural column index -> variable index
+    private int columnCount;
+    private int[] columnVar = new int[16];
+
+    // basis
+    private int[] basis = new int[0];
+    private double[][] binv = new double[0][0];
+    private boolean hasBasis;
+    private boolean needsRecompute;
+    private int updatesSinceRefactor;
+
+    // last solution
+    private double[] duals = new double[0];
+    private double objectiveValue;
+    private int lastIterations;
+
+    // bound perturbation against degeneracy, null when inactive
+    private boolean[] perturbed;
+    private double[] savedLb;
+    private double[] savedUb;
+    private final Random perturbationRandom = new Random(1);
+
+    @Override
+    public int addRow(Sense sense, double rowRhs, String name) {
+        int r = rowCount++;
+        if (r == rhs.length) {
+            rhs = Arrays.copyOf(rhs, 2 * r);
+            artificialOfRow = Arrays.copyOf(artificialOfRow, 2 * r);
+        }
+        rhs[r] = rowRhs;
+
+        if (sense != Sense.EQUAL) {
+            addVariable(new int[]{r}, new double[]{sense == Sense.LESS_EQUAL ? 1.0 : -1.0},
+                    0.0, 0.0, Double.POSITIVE_INFINITY, false);
+        }
+        int art = addVariable(new int[]{r}, new double[]{rowRhs >= 0 ? 1.0 : -1.0},
+                0.0, 0.0, Double.POSITIVE_INFINITY, true);
+        artificialOfRow[r] = art;
+
+        if (hasBasis) {
+            // the new row is empty in every basic column, so B^-1 grows by a diagonal entry
+            double sign = varCoefs.get(art)[0];
+            double[][] grown = new double[rowCount][rowCount];
+            for (int i = 0; i < r; i++) {
+                System.arraycopy(binv[i], 0, grown[i], 0, r);
+            }
+            grown[r][r] = sign;
+            binv = grown;
+            basis = Arrays.copyOf(basis, rowCount);
+            basis[r] = art;
+            basisPos[art] = r;
+            x[art] = Math.abs(rowRhs);
+            needsRecompute = true;
+        }
+        return r;
+    }
+
+    @Override
+    public int addColumn(double colCost, int[] rows, double[] coefs, double colLb, double colUb, String name)
+            throws LpException {
+        if (Double.isInfinite(colLb))
+            throw new LpException("Column " + name + " needs a finite lower bound");
+        int var = addVariable(rows.clone(), coefs.clone(), colCost, colLb, colUb, false);
+        if (columnCount == columnVar.length) {
+            columnVar = Arrays.copyOf(columnVar, 2 * columnCount);
+        }
+        columnVar[columnCount] = var;
+        if (colLb != 0.0) {
+            needsRecompute = true;
+        }
+        return columnCount++;
+    }
+
+    private int addVariable(int[] rows, double[] coefs, double c, double lower, double upper, boolean isArtificial) {
+        int v = varCount++;
+        if (v == cost.length) {
+            int cap = 2 * v;
+            cost = Arrays.copyOf(cost, cap);
+            lb = Arrays.copyOf(lb, cap);
+            ub = Arrays.copyOf(ub, cap);
+            x = Arrays.copyOf(x, cap);
+            artificial = Arrays.copyOf(artificial, cap);
+            atUpper = Arrays.copyOf(atUpper, cap);
+            basisPos = Arrays.copyOf(basisPos, cap);
+        }
+        varRows.add(rows);
+        varCoefs.add(coefs);
+        cost[v] = c;
+        lb[v] = lower;
+        ub[v] = upper;
+        x[v] = lower;
+        artificial[v] = isArtificial;
+        atUpper[v] = false;
+        basisPos[v] = -1;
+        return v;
+    }
+
+    @Override
+    public void solve() throws LpException {
+        lastIterations = 0;
+        if (!hasBasis) {
+            coldStart();
+        } else if (needsRecompute) {
+            recomputeBasics();
+        }
+        needsRecompute = false;
+        if (!basicsWithinBounds()) {
+            coldStart();
+        }
+
+        try {
+            // phase 1: drive the artificials out
+            if (artificialSum() > FEAS_TOL) {
+                iterate(true);
+                double scale = 1.0;
+                for (int r = 0; r < rowCount; r++) {
+                    scale += Math.abs(rhs[r]);
+                }
+                if (artificialSum() > FEAS_TOL * scale) {
+                    throw new LpException("LP is infeasible");
+                }
+            }
+            fixArtificials();
+
+            // phase 2
+            iterate(false);
+        } finally {
+            if (perturbed != null) {
+                restoreBounds();
+            }
+        }
+
+        duals = computeDuals(false);
+        objectiveValue = 0;
+        for (int k = 0; k < columnCount; k++) {
+            int v = columnVar[k];
+            objectiveValue += cost[v] * x[v];
+        }
+    }
+
+    // all slacks and structurals at their lower bound, artificials absorb the residual
+    private void coldStart() {
+        double[] residual = Arrays.copyOf(rhs, rowCount);
+        for (int v = 0; v < varCount; v++) {
+            if (artificial[v])
+                continue;
+            x[v] = lb[v];
+            atUpper[v] = false;
+            basisPos[v] = -1;
+            if (x[v] != 0.0) {
+                int[] rows = varRows.get(v);
+                double[] coefs = varCoefs.get(v);
+                for (int k = 0; k < rows.length; k++) {
+                    residual[rows[k]] -= coefs[k] * x[v];
+                }
+            }
+        }
+
+        basis = new int[rowCount];
+        binv = new double[rowCount][rowCount];
+        for (int r = 0; r < rowCount; r++) {
+            int art = artificialOfRow[r];
+            double sign = residual[r] >= 0 ? 1.0 : -1.0;
+            varCoefs.get(art)[0] = sign;
+            ub[art] = Double.POSITIVE_INFINITY;
+            x[art] = Math.abs(residual[r]);
+            atUpper[art] = false;
+            basis[r] = art;
+            basisPos[art] = r;
+            binv[r][r] = sign;
+        }
+        hasBasis = true;
+        updatesSinceRefactor = 0;
+    }
+
+    private void iterate(boolean phase1) throws LpException {
+        int limit = 100000 + 20 * (rowCount + varCount);
+        int degenerate = 0;
+        boolean perturbedOnce = false;
+        double[] w = new double[rowCount];
+
+        while (true) {
+            if (++lastIterations > limit)
+                throw new LpException("Simplex iteration limit reached");
+            if (updatesSinceRefactor >= REFACTOR_INTERVAL && !refactor())
+                throw new LpException("Singular basis");
+
+            if (!phase1 && !perturbedOnce && degenerate > BLAND_AFTER && perturbBasics() > 0) {
+                degenerate = 0;
+            }
+            boolean bland = degenerate > BLAND_AFTER;
+            double[] y = computeDuals(phase1);
+
+            // pricing: most violated reduced cost, or the first one under Bland's rule
+            int entering = -1;
+            int dir = 0;
+            double best = 0;
+            for (int v = 0; v < varCount; v++) {
+                if (basisPos[v] >= 0 || lb[v] == ub[v])
+                    continue;
+                double d = phaseCost(v, phase1) - dot(y, v);
+                double score;
+                int vDir;
+                if (!atUpper[v] && d < -OPT_TOL) {
+                    score = -d;
+                    vDir = 1;
+                } else if (atUpper[v] && d > OPT_TOL) {
+                    score = d;
+                    vDir = -1;
+                } else {
+                    continue;
+                }
+                if (score > best) {
+                    best = score;
+                    entering = v;
+                    dir = vDir;
+                    if (bland)
+                        break;
+                }
+            }
+            if (entering < 0) {
+                if (perturbed == null)
+                    return;
+                // optimal for the shifted bounds: restore them, repair and carry on
+                restoreBounds();
+                dualCleanup();
+                perturbedOnce = true;
+                degenerate = 0;
+                continue;
+            }
+
+            // w = B^-1 a_q
+            Arrays.fill(w, 0.0);
+            int[] rows = varRows.get(entering);
+            double[] coefs = varCoefs.get(entering);
+            for (int k = 0; k < rows.length; k++) {
+                int r = rows[k];
+                double a = coefs[k];
+                for (int i = 0; i < rowCount; i++) {
+                    w[i] += binv[i][r] * a;
+                }
+            }
+
+            // ratio test
+            int leavingPos = -1;
+            double step = Double.POSITIVE_INFINITY;
+            double bestPivot = 0;
+            boolean leavesAtUpper = false;
+            for (int i = 0; i < rowCount; i++) {
+                double delta = -dir * w[i];
+                if (Math.abs(delta) <= PIVOT_TOL)
+                    continue;
+                int v = basis[i];
+                double room;
+                boolean upper;
+                if (delta < 0) {
+                    if (lb[v] == Double.NEGATIVE_INFINITY)
+                        continue;
+                    room = (x[v] - lb[v]) / -delta;
+                    upper = false;
+                } else {
+                    if (ub[v] == Double.POSITIVE_INFINITY)
+                        continue;
+                    room = (ub[v] - x[v]) / delta;
+                    upper = true;
+                }
+                if (room < 0)
+                    room = 0;
+                boolean better;
+                if (room < step - 1e-12) {
+                    better = true;
+                } else if (room <= step + 1e-12) {
+                    better = bland ? v < basis[leavingPos] : Math.abs(delta) > bestPivot;
+                } else {
+                    better = false;
+                }
+                if (better) {
+                    step = Math.min(step, room);
+                    leavingPos = i;
+                    bestPivot = Math.abs(delta);
+                    leavesAtUpper = upper;
+                }
+            }
+
+            double flip = ub[entering] - lb[entering];
+            if (leavingPos < 0 && Double.isInfinite(flip))
+                throw new LpException("LP is unbounded");
+
+            if (leavingPos < 0 || flip <= step) {
+                // bound flip, the basis does not change
+                step = flip;
+                for (int i = 0; i < rowCount; i++) {
+                    x[basis[i]] -= dir * step * w[i];
+                }
+                atUpper[entering] = !atUpper[entering];
+                x[entering] = atUpper[entering] ? ub[entering] : lb[entering];
+            } else {
+                for (int i = 0; i < rowCount; i++) {
+                    x[basis[i]] -= dir * step * w[i];
+                }
+                x[entering] += dir * step;
+
+                int leaving = basis[leavingPos];
+                basisPos[leaving] = -1;
+                atUpper[leaving] = leavesAtUpper;
+                x[leaving] = leavesAtUpper ? ub[leaving] : lb[leaving];
+                basis[leavingPos] = entering;
+                basisPos[entering] = leavingPos;
+                atUpper[entering] = false;
+                pivot(w, leavingPos);
+            }
+
+            degenerate = step < 1e-12 ? degenerate + 1 : 0;
+        }
+    }
+
+    // shifts the bounds of the basic variables not shifted yet, returns how many were
+    private int perturbBasics() {
+        if (perturbed == null) {
+            perturbed = new boolean[varCount];
+            savedLb = new double[varCount];
+            savedUb = new double[varCount];
+        }
+        int count = 0;
+        for (int i = 0; i < rowCount; i++) {
+            int v = basis[i];
+            if (perturbed[v] || artificial[v])
+                continue;
+            perturbed[v] = true;
+            savedLb[v] = lb[v];
+            savedUb[v] = ub[v];
+            lb[v] -= PERTURBATION * (1.0 + Math.abs(lb[v])) * (1.0 + perturbationRandom.nextDouble());
+            if (!Double.isInfinite(ub[v])) {
+                ub[v] += PERTURBATION * (1.0 + Math.abs(ub[v])) * (1.0 + perturbationRandom.nextDouble());
+            }
+            count++;
+        }
+        return count;
+    }
+
+    // original bounds back, nonbasics onto them and the basics recomputed
+    private void restoreBounds() {
+        for (int v = 0; v < perturbed.length; v++) {
+            if (!perturbed[v])
+                continue;
+            lb[v] = savedLb[v];
+            ub[v] = savedUb[v];
+            if (basisPos[v] < 0) {
+                x[v] = atUpper[v] ? ub[v] : lb[v];
+            }
+        }
+        perturbed = null;
+        savedLb = null;
+        savedUb = null;
+        recomputeBasics();
+    }
+
+    /*
+     * dual simplex pivots until the basics are within their bounds: the most infeasible
+     * basic leaves at the violated bound, the entering variable keeps the reduced costs
+     * dual feasible (min ratio |d_j| / |alpha_j|)
+     */
+    private void dualCleanup() throws LpException {
+        int limit = lastIterations + 10000 + 20 * rowCount;
+        double[] w = new double[rowCount];
+        while (true) {
+            if (++lastIterations > limit)
+                throw new LpException("Simplex iteration limit reached");
+            if (updatesSinceRefactor >= REFACTOR_INTERVAL && !refactor())
+                throw new LpException("Singular basis");
+
+            int r = -1;
+            double worst = FEAS_TOL;
+            boolean toUpper = false;
+            for (int i = 0; i < rowCount; i++) {
+                int v = basis[i];
+                if (lb[v] - x[v] > worst) {
+                    worst = lb[v] - x[v];
+                    r = i;
+                    toUpper = false;
+                } else if (x[v] - ub[v] > worst) {
+                    worst = x[v] - ub[v];
+                    r = i;
+                    toUpper = true;
+                }
+            }
+            if (r < 0)
+                return;
+
+            // x_p = ... - alpha_j x_j: raise x_p when it is below lb, lower it when above ub
+            double[] y = computeDuals(false);
+            double[] rowR = binv[r];
+            int entering = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+            double bestAlpha = 0;
+            for (int v = 0; v < varCount; v++) {
+                if (basisPos[v] >= 0 || lb[v] == ub[v])
+                    continue;
+                double alpha = dot(rowR, v);
+                if (Math.abs(alpha) <= PIVOT_TOL)
+                    continue;
+                boolean eligible = toUpper == (atUpper[v] ? alpha < 0 : alpha > 0);
+                if (!eligible)
+                    continue;
+                double d = cost[v] - dot(y, v);
+                double ratio = Math.max(0.0, atUpper[v] ? -d : d) / Math.abs(alpha);
+                if (ratio < bestRatio - 1e-12 || (ratio <= bestRatio + 1e-12 && Math.abs(alpha) > bestAlpha)) {
+                    bestRatio = ratio;
+                    bestAlpha = Math.abs(alpha);
+                    entering = v;
+                }
+            }
+            if (entering < 0)
+                throw new LpException("LP is infeasible");
+
+            Arrays.fill(w, 0.0);
+            int[] rows = varRows.get(entering);
+            double[] coefs = varCoefs.get(entering);
+            for (int k = 0; k < rows.length; k++) {
+                int row = rows[k];
+                double a = coefs[k];
+                for (int i = 0; i < rowCount; i++) {
+                    w[i] += binv[i][row] * a;
+                }
+            }
+
+            int leaving = basis[r];
+            double target = toUpper ? ub[leaving] : lb[leaving];
+            double t = (x[leaving] - target) / w[r];
+            for (int i = 0; i < rowCount; i++) {
+                x[basis[i]] -= t * w[i];
+            }
+            x[entering] += t;
+
+            basisPos[leaving] = -1;
+            atUpper[leaving] = toUpper;
+            x[leaving] = target;
+            basis[r] = entering;
+            basisPos[entering] = r;
+            atUpper[entering] = false;
+            pivot(w, r);
+        }
+    }
+
+    private void pivot(double[] w, int r) {
+        double[] pivotRow = binv[r];
+        double p = w[r];
+        for (int k = 0; k < rowCount; k++) {
+            pivotRow[k] /= p;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            double f = w[i];
+            if (i == r || f == 0.0)
+                continue;
+            double[] row = binv[i];
+            for (int k = 0; k < rowCount; k++) {
+                row[k] -= f * pivotRow[k];
+            }
+        }
+        updatesSinceRefactor++;
+    }
+
+    // rebuilds B^-1 from the basic columns (Gauss-Jordan with partial pivoting)
+    private boolean refactor() {
+        int m = rowCount;
+        double[][] a = new double[m][2 * m];
+        for (int j = 0; j < m; j++) {
+            int v = basis[j];
+            int[] rows = varRows.get(v);
+            double[] coefs = varCoefs.get(v);
+            for (int k = 0; k < rows.length; k++) {
+                a[rows[k]][j] = coefs[k];
+            }
+            a[j][m + j] = 1.0;
+        }
+        for (int col = 0; col < m; col++) {
+            int pivotRow = col;
+            for (int i = col + 1; i < m; i++) {
+                if (Math.abs(a[i][col]) > Math.abs(a[pivotRow][col]))
+                    pivotRow = i;
+            }
+            if (Math.abs(a[pivotRow][col]) < PIVOT_TOL)
+                return false;
+            double[] tmp = a[col];
+            a[col] = a[pivotRow];
+            a[pivotRow] = tmp;
+
+            double p = a[col][col];
+            for (int k = col; k < 2 * m; k++) {
+                a[col][k] /= p;
+            }
+            for (int i = 0; i < m; i++) {
+                double f = a[i][col];
+                if (i == col || f == 0.0)
+                    continue;
+                for (int k = col; k < 2 * m; k++) {
+                    a[i][k] -= f * a[col][k];
+                }
+            }
+        }
+        // a = [I | B^-1] with rows in basis position order
+        binv = new double[m][];
+        for (int i = 0; i < m; i++) {
+            binv[i] = Arrays.copyOfRange(a[i], m, 2 * m);
+        }
+        updatesSinceRefactor = 0;
+        recomputeBasics();
+        return true;
+    }
+
+    // x_B = B^-1 (b - N x_N)
+    private void recomputeBasics() {
+        double[] residual = Arrays.copyOf(rhs, rowCount);
+        for (int v = 0; v < varCount; v++) {
+            if (basisPos[v] >= 0 || x[v] == 0.0)
+                continue;
+            int[] rows = varRows.get(v);
+            double[] coefs = varCoefs.get(v);
+            for (int k = 0; k < rows.length; k++) {
+                residual[rows[k]] -= coefs[k] * x[v];
+            }
+        }
+        for (int i = 0; i < rowCount; i++) {
+            double sum = 0;
+            double[] row = binv[i];
+            for (int k = 0; k < rowCount; k++) {
+                sum += row[k] * residual[k];
+            }
+            x[basis[i]] = sum;
+        }
+    }
+
+    private boolean basicsWithinBounds() {
+        for (int i = 0; i < rowCount; i++) {
+            int v = basis[i];
+            if (x[v] < lb[v] - FEAS_TOL || x[v] > ub[v] + FEAS_TOL)
+                return false;
+        }
+        return true;
+    }
+
+    private double artificialSum() {
+        double sum = 0;
+        for (int r = 0; r < rowCount; r++) {
+            sum += Math.abs(x[artificialOfRow[r]]);
+        }
+        return sum;
+    }
+
+    private void fixArtificials() {
+        for (int r = 0; r < rowCount; r++) {
+            int art = artificialOfRow[r];
+            ub[art] = 0.0;
+            if (basisPos[art] < 0) {
+                x[art] = 0.0;
+                atUpper[art] = false;
+            }
+        }
+    }
+
+    private double phaseCost(int v, boolean phase1) {
+        if (phase1)
+            return artificial[v] ? 1.0 : 0.0;
+        return cost[v];
+    }
+
+    // y = c_B B^-1
+    private double[] computeDuals(boolean phase1) {
+        double[] y = new double[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            double c = phaseCost(basis[i], phase1);
+            if (c == 0.0)
+                continue;
+            double[] row = binv[i];
+            for (int k = 0; k < rowCount; k++) {
+                y[k] += c * row[k];
+            }
+        }
+        return y;
+    }
+
+    private double dot(double[] y, int v) {
+        int[] rows = varRows.get(v);
+        double[] coefs = varCoefs.get(v);
+        double sum = 0;
+        for (int k = 0; k < rows.length; k++) {
+            sum += y[rows[k]] * coefs[k];
+        }
+        return sum;
+    }
+
+    @Override
+    public double[] getDuals() {
+        return duals.clone();
+    }
+
+    @Override
+    public double[] getValues() {
+        double[] values = new double[columnCount];
+        for (int k = 0; k < columnCount; k++) {
+            values[k] = x[columnVar[k]];
+        }
+        return values;
+    }
+
+    @Override
+    public double[] getReducedCosts() {
+        double[] reducedCosts = new double[columnCount];
+        if (duals.length != rowCount)
+            return reducedCosts;
+        for (int k = 0; k < columnCount; k++) {
+            int v = columnVar[k];
+            reducedCosts[k] = cost[v] - dot(duals, v);
+        }
+        return reducedCosts;
+    }
+
+    @Override
+    public void setColumnBounds(int column, double colLb, double colUb) throws LpException {
+        if (column < 0 || column >= columnCount)
+            throw new LpException("No such column: " + column);
+        if (Double.isInfinite(colLb))
+            throw new LpException("Column " + column + " needs a finite lower bound");
+        int v = columnVar[column];
+        lb[v] = colLb;
+        ub[v] = colUb;
+        if (basisPos[v] < 0) {
+            // nonbasic columns move to the nearest bound, the basics follow on the next solve
+            atUpper[v] = atUpper[v] && !Double.isInfinite(colUb);
+            x[v] = atUpper[v] ? colUb : colLb;
+            needsRecompute = true;
+        }
+        // a basic column left outside its new bounds makes the next solve start cold
+    }
+
+    @Override
+    public void setColumnCost(int column, double colCost) throws LpException {
+        if (column < 0 || column >= columnCount)
+            throw new LpException("No such column: " + column);
+        // the duals are recomputed from the costs at every iteration
+        cost[columnVar[column]] = colCost;
+    }
+
+    @Override
+    public boolean isBasic(int column) throws LpException {
+        if (column < 0 || column >= columnCount)
+            throw new LpException("No such column: " + column);
+        return basisPos[columnVar[column]] >= 0;
+    }
+
+    @Override
+    public void removeColumns(int[] columns) throws LpException {
+        boolean[] drop = new boolean[varCount];
+        for (int k : columns) {
+            int v = columnVar[k];
+            if (basisPos[v] >= 0)
+                throw new LpException("Cannot remove basic column " + k);
+            drop[v] = true;
+            if (x[v] != 0.0)
+                needsRecompute = true;
+        }
+
+        // compact the variable arrays, basis positions move along with their variables
+        int[] newIndex = new int[varCount];
+        int kept = 0;
+        for (int v = 0; v < varCount; v++) {
+            if (drop[v]) {
+                newIndex[v] = -1;
+                continue;
+            }
+            newIndex[v] = kept;
+            varRows.set(kept, varRows.get(v));
+            varCoefs.set(kept, varCoefs.get(v));
+            cost[kept] = cost[v];
+            lb[kept] = lb[v];
+            ub[kept] = ub[v];
+            x[kept] = x[v];
+            artificial[kept] = artificial[v];
+            atUpper[kept] = atUpper[v];
+            basisPos[kept] = basisPos[v];
+            kept++;
+        }
+        varRows.subList(kept, varCount).clear();
+        varCoefs.subList(kept, varCount).clear();
+        varCount = kept;
+
+        for (int i = 0; i < basis.length; i++) {
+            basis[i] = newIndex[basis[i]];
+        }
+        for (int r = 0; r < rowCount; r++) {
+            artificialOfRow[r] = newIndex[artificialOfRow[r]];
+        }
+        int keptColumns = 0;
+        for (int k = 0; k < columnCount; k++) {
+            int v = newIndex[columnVar[k]];
+            if (v >= 0) {
+                columnVar[keptColumns++] = v;
+            }
+        }
+        columnCount = keptColumns;
+    }
+
+    @Override
+    public double getObjectiveValue() {
+        return objectiveValue;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    // simplex iterations of the last solve() (both phases)
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    // the arrays keep their capacity, a model of the same size does not grow them again
+    @Override
+    public void clear() {
+        rowCount = 0;
+        varCount = 0;
+        varRows.clear();
+        varCoefs.clear();
+        columnCount = 0;
+        basis = new int[0];
+        binv = new double[0][0];
+        hasBasis = false;
+        needsRecompute = false;
+        updatesSinceRefactor = 0;
+        duals = new double[0];
+        objectiveValue = 0;
+        lastIterations = 0;
+        perturbed = null;
+        savedLb = null;
+        savedUb = null;
+        perturbationRandom.setSeed(1);
+    }
+
+    @Override
+    public String getName() {
+        return "simplex";
+    }
+
+    @Override
+    public void close() {
+        binv = new double[0][0];
+        hasBasis = false;
+    }
+}
@@ -0,0 +1,66 @@
+package metrics;
+
+import cg.IterationStats;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Writes every iteration as a CSV row, columns as in IterationStats.fieldNames(), one
+ * header line first. Rows are buffered and flushed when a solve finishes, so the file
+ * costs a formatted line per iteration and nothing per pricing node. Thread-safe: the
+ * solver column tells apart the iterations of solvers sharing one trace.
+ */
+public class CsvTraceSink implements TraceSink {
+    private final Writer out;
+
+    public CsvTraceSink(Path file) throws IOException {
+        this(Files.newBufferedWriter(file));
+    }
+
+    public CsvTraceSink(Writer out) throws IOException {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        this.out.write(String.join(",", IterationStats.fieldNames()));
+        this.out.write(System.lineSeparator());
+    }
+
+    @Override
+    public synchronized void iteration(IterationStats stats) {
+        StringBuilder line = new StringBuilder();
+        for (Object value : stats.values()) {
+            if (line.length() > 0) {
+                line.append(',');
+            }
+            line.append(value instanceof String ? quote((String) value) : String.valueOf(value));
+        }
+        try {
+            out.write(line.append(System.lineSeparator()).toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void finished(String solver, String stopReason) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,89 @@
+package metrics;
+
+import cg.IterationStats;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/*
+ * Writes the trace as JSON Lines: one object per iteration with the IterationStats fields,
+ * and one {"solver", "stop_reason"} object when a solve finishes. Non-finite numbers
+ * (no bound yet) are written as null. Buffered and flushed per finished solve like
+ * CsvTraceSink, and thread-safe.
+ */
+public class JsonTraceSink implements TraceSink {
+    private final Writer out;
+
+    public JsonTraceSink(Path file) throws IOException {
+        this(Files.newBufferedWriter(file));
+    }
+
+    public JsonTraceSink(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    }
+
+    @Override
+    public synchronized void iteration(IterationStats stats) {
+        List<String> names = IterationStats.fieldNames();
+        Object[] values = stats.values();
+        StringBuilder line = new StringBuilder("{");
+        for (int k = 0; k < values.length; k++) {
+            if (k > 0) {
+                line.append(',');
+            }
+            line.append(string(names.get(k))).append(':').append(value(values[k]));
+        }
+        write(line.append('}'));
+    }
+
+    @Override
+    public synchronized void finished(String solver, String stopReason) {
+        write(new StringBuilder("{\"solver\":").append(string(solver)).append(",\"stop_reason\":")
+                .append(stopReason == null ? "null" : string(stopReason)).append('}'));
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(StringBuilder line) {
+        try {
+            out.write(line.append('\n').toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String value(Object value) {
+        if (value instanceof String)
+            return string((String) value);
+        if (value instanceof Double && !Double.isFinite((Double) value))
+            return "null";
+        return String.valueOf(value);
+    }
+
+    private static String string(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,193 @@
+package metrics;
+
+import cg.IterationListener;
+import cg.IterationStats;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * In-process metrics registry for column generation: running totals (iterations, RMP and
+ * pricing time, columns, search nodes) and the latest iteration's figures, fed by any
+ * number of solvers on any threads. Read it directly, or register it with the platform
+ * MBean server to watch a long run from jconsole. Totals are LongAdders, so reporting
+ * never blocks a solver.
+ */
+public class SolverMetrics implements IterationListener, SolverMetricsMXBean {
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder rmpNanos = new LongAdder();
+    private final LongAdder pricingNanos = new LongAdder();
+    private final LongAdder columnsAdded = new LongAdder();
+    private final LongAdder nodesExpanded = new LongAdder();
+    private final LongAdder nodesGenerated = new LongAdder();
+    private final LongAdder nodesPruned = new LongAdder();
+    private final LongAdder nodesUnclosable = new LongAdder();
+    private final LongAdder nodesBounded = new LongAdder();
+
+    private volatile IterationStats last;
+    private volatile String lastStopReason;
+    private ObjectName registered;
+
+    @Override
+    public void iteration(IterationStats stats) {
+        iterations.increment();
+        rmpNanos.add(stats.getRmpNanos());
+        pricingNanos.add(stats.getPricingNanos());
+        columnsAdded.add(stats.getColumnsAdded() + stats.getColumnsRecovered());
+        nodesExpanded.add(stats.getNodesExpanded());
+        nodesGenerated.add(stats.getNodesGenerated());
+        nodesPruned.add(stats.getNodesPruned());
+        nodesUnclosable.add(stats.getNodesUnclosable());
+        nodesBounded.add(stats.getNodesBounded());
+        last = stats;
+    }
+
+    @Override
+    public void finished(String solver, String stopReason) {
+        solves.increment();
+        lastStopReason = stopReason;
+    }
+
+    // registers this registry as csp:type=ColumnGeneration,name=<name>
+    public synchronized ObjectName register(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("csp:type=ColumnGeneration,name=" + ObjectName.quote(name));
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+        server.registerMBean(this, objectName);
+        registered = objectName;
+        return objectName;
+    }
+
+    public synchronized void unregister() throws JMException {
+        if (registered != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+            registered = null;
+        }
+    }
+
+    @Override
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    @Override
+    public long getSolves() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getRmpMillis() {
+        return rmpNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public long getPricingMillis() {
+        return pricingNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public long getColumnsAdded() {
+        return columnsAdded.sum();
+    }
+
+    @Override
+    public long getNodesExpanded() {
+        return nodesExpanded.sum();
+    }
+
+    @Override
+    public long getNodesGenerated() {
+        return nodesGenerated.sum();
+    }
+
+    @Override
+    public long getNodesPruned() {
+        return nodesPruned.sum();
+    }
+
+    @Override
+    public long getNodesUnclosable() {
+        return nodesUnclosable.sum();
+    }
+
+    @Override
+    public long getNodesBounded() {
+        return nodesBounded.sum();
+    }
+
+    @Override
+    public String getLastSolver() {
+        IterationStats s = last;
+        return s == null ? null : s.getSolver();
+    }
+
+    @Override
+    public String getLastStopReason() {
+        return lastStopReason;
+    }
+
+    @Override
+    public double getLastObjective() {
+        IterationStats s = last;
+        return s == null ? Double.NaN : s.getObjective();
+    }
+
+    @Override
+    public double getLastLowerBound() {
+        IterationStats s = last;
+        return s == null ? Double.NaN : s.getLowerBound();
+    }
+
+    @Override
+    public double getLastGap() {
+        IterationStats s = last;
+        return s == null ? Double.NaN : s.getGap();
+    }
+
+    @Override
+    public int getLastRmpRows() {
+        IterationStats s = last;
+        return s == null ? 0 : s.getRmpRows();
+    }
+
+    @Override
+    public int getLastRmpColumns() {
+        IterationStats s = last;
+        return s == null ? 0 : s.getRmpColumns();
+    }
+
+    // RMP solve and pricing of the latest iteration
+    @Override
+    public long getLastIterationMillis() {
+        IterationStats s = last;
+        return s == null ? 0 : (s.getRmpNanos() + s.getPricingNanos()) / 1_000_000;
+    }
+
+    @Override
+    public long getLastHeapUsedBytes() {
+        IterationStats s = last;
+        return s == null ? 0 : s.getHeapUsedBytes();
+    }
+
+    @Override
+    public void reset() {
+        iterations.reset();
+        solves.reset();
+        rmpNanos.reset();
+        pricingNanos.reset();
+        columnsAdded.reset();
+        nodesExpanded.reset();
+        nodesGenerated.reset();
+        nodesPruned.reset();
+        nodesUnclosable.reset();
+        nodesBounded.reset();
+        last = null;
+        lastStopReason = null;
+    }
+}
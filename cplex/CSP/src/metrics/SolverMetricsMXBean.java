@@ -0,0 +1,48 @@
+package metrics;
+
+/*
+ * JMX view of SolverMetrics (jconsole / VisualVM: csp:type=ColumnGeneration,name=...).
+ * Totals are over every iteration reported since the last reset, the Last* attributes
+ * are those of the latest iteration of any solver.
+ */
+public interface SolverMetricsMXBean {
+    long getIterations();
+
+    long getSolves();
+
+    long getRmpMillis();
+
+    long getPricingMillis();
+
+    long getColumnsAdded();
+
+    long getNodesExpanded();
+
+    long getNodesGenerated();
+
+    long getNodesPruned();
+
+    long getNodesUnclosable();
+
+    long getNodesBounded();
+
+    String getLastSolver();
+
+    String getLastStopReason();
+
+    double getLastObjective();
+
+    double getLastLowerBound();
+
+    double getLastGap();
+
+    int getLastRmpRows();
+
+    int getLastRmpColumns();
+
+    long getLastIterationMillis();
+
+    long getLastHeapUsedBytes();
+
+    void reset();
+}
@@ -0,0 +1,18 @@
+package metrics;
+
+import cg.IterationListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/*
+ * An iteration trace written to a file, closed by its owner after the last solve.
+ */
+public interface TraceSink extends IterationListener, Closeable {
+    // JSON Lines for a .json / .jsonl file, CSV otherwise
+    static TraceSink open(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".json") || name.endsWith(".jsonl") ? new JsonTraceSink(file) : new CsvTraceSink(file);
+    }
+}
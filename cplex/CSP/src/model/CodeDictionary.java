@@ -0,0 +1,38 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Interns short codes (airports, aircraft types) to dense int ids so the hot loops
+ * compare ints instead of strings.
+ */
+public class CodeDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> codes = new ArrayList<>();
+
+    public int intern(String code) {
+        Integer id = ids.get(code);
+        if (id == null) {
+            id = codes.size();
+            ids.put(code, id);
+            codes.add(code);
+        }
+        return id;
+    }
+
+    // id of a known code, -1 if it was never interned
+    public int idOf(String code) {
+        return ids.getOrDefault(code, -1);
+    }
+
+    public String codeOf(int id) {
+        return codes.get(id);
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
@@ -1,32 +1,49 @@
 package model;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import util.TimeUtils;
 
 public class Flight {
-    private String flightId;
-    private String from;
-    private String to;
-    private LocalTime depTime;
-    private LocalTime arrTime;
-    private double durationHours;
-    private String aircraft;
-    private String base;
-    private double flightCost;
-    private boolean isNight;
+    private final String flightId;
+    private final String from;
+    private final String to;
+    private final LocalTime depTime;
+    private final LocalTime arrTime;
+    private final double durationHours;
+    private final String aircraft;
+    private final String base;
+    private final double flightCost;
+    private final boolean isNight;
+    // operating date of the departure, null in a cyclic (one repeating day) schedule
+    private final LocalDate depDate;
 
     public Flight(String flightId, String from, String to, String depTimeStr, String arrTimeStr, 
                   double durationHours, String aircraft, String base, double flightCost, int night) {
+        this(flightId, from, to, TimeUtils.parseTime(depTimeStr), TimeUtils.parseTime(arrTimeStr),
+                durationHours, aircraft, base, flightCost, night == 1);
+    }
+
+    // already parsed times, used by the file readers
+    public Flight(String flightId, String from, String to, LocalTime depTime, LocalTime arrTime,
+                  double durationHours, String aircraft, String base, double flightCost, boolean night) {
+        this(flightId, from, to, null, depTime, arrTime, durationHours, aircraft, base, flightCost, night);
+    }
+
+    // dated flight; the arrival is on the next day if arrTime is before depTime
+    public Flight(String flightId, String from, String to, LocalDate depDate, LocalTime depTime, LocalTime arrTime,
+                  double durationHours, String aircraft, String base, double flightCost, boolean night) {
         this.flightId = flightId;
         this.from = from;
         this.to = to;
-        this.depTime = TimeUtils.parseTime(depTimeStr);
-        this.arrTime = TimeUtils.parseTime(arrTimeStr);
+        this.depTime = depTime;
+        this.arrTime = arrTime;
         this.durationHours = durationHours;
         this.aircraft = aircraft;
         this.base = base;
         this.flightCost = flightCost;
-        this.isNight = (night == 1);
+        this.isNight = night;
+        this.depDate = depDate;
     }
 
     public String getFlightId() {
@@ -59,9 +76,17 @@ public class Flight {
     public boolean isNight() {
         return isNight;
     }
+    public LocalDate getDepDate() {
+        return depDate;
+    }
+    public boolean isDated() {
+        return depDate != null;
+    }
 
     @Override
     public String toString() {
+        if (depDate != null)
+            return String.format("%s [%s->%s] %s %s-%s", flightId, from, to, depDate, depTime, arrTime);
         return String.format("%s [%s->%s] %s-%s", flightId, from, to, depTime, arrTime);
     }
 }
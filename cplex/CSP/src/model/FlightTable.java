@@ -0,0 +1,290 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Dense, index-based view of the schedule used inside the CG loop.
+ *
+ * Flight i is the i-th flight of the list the table was built from, which is also the
+ * row of its coverage constraint in the RMP and its slot in the dual vector. Attributes
+ * are stored as parallel primitive arrays (times in minutes of the day, airports interned
+ * to ints) so pricing and reduced-cost evaluation need no boxing and no hashing.
+ * Flight stays the external representation and is kept for output. A table loaded from
+ * columns (the binary schedule format) creates its Flight objects only when asked for.
+ *
+ * Two time models: a cyclic table (no dates) is one day that repeats, and a connection
+ * is measured on the clock, as in the original solver. A dated table also stores the
+ * departure day (days since 1970-01-01), so depTime / arrTime are absolute minutes since
+ * the epoch and pairings may run over several days. Every flight of a table is either
+ * dated or not.
+ */
+public class FlightTable {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final AtomicReferenceArray<Flight> flights;
+    private final CodeDictionary airports;
+    private final CodeDictionary aircraftTypes;
+    private volatile Map<String, Integer> indexById; // built on first lookup for column-loaded tables
+
+    // flight IDs as UTF-8, flight i is idBytes[idOffsets[i], idOffsets[i + 1])
+    private final byte[] idBytes;
+    private final int[] idOffsets;
+
+    private final int[] from;
+    private final int[] to;
+    private final int[] base;
+    private final int[] aircraft;
+    private final int[] depMinute;
+    private final int[] arrMinute;
+    private final double[] durationHours;
+    private final double[] cost;
+    private final boolean[] night;
+    private final int[] depDay; // epoch day of the departure, null if cyclic
+
+    public FlightTable(List<Flight> flights) {
+        int n = flights.size();
+        this.flights = new AtomicReferenceArray<>(n);
+        this.airports = new CodeDictionary();
+        this.aircraftTypes = new CodeDictionary();
+        this.indexById = new HashMap<>();
+        this.idBytes = null;
+        this.idOffsets = null;
+
+        this.from = new int[n];
+        this.to = new int[n];
+        this.base = new int[n];
+        this.aircraft = new int[n];
+        this.depMinute = new int[n];
+        this.arrMinute = new int[n];
+        this.durationHours = new double[n];
+        this.cost = new double[n];
+        this.night = new boolean[n];
+        boolean dated = n > 0 && flights.get(0).isDated();
+        this.depDay = dated ? new int[n] : null;
+
+        for (int i = 0; i < n; i++) {
+            Flight f = flights.get(i);
+            this.flights.set(i, f);
+            indexById.put(f.getFlightId(), i);
+            from[i] = airports.intern(f.getFrom());
+            to[i] = airports.intern(f.getTo());
+            base[i] = airports.intern(f.getBase());
+            aircraft[i] = aircraftTypes.intern(f.getAircraft());
+            depMinute[i] = f.getDepTime().getHour() * 60 + f.getDepTime().getMinute();
+            arrMinute[i] = f.getArrTime().getHour() * 60 + f.getArrTime().getMinute();
+            durationHours[i] = f.getDurationHours();
+            cost[i] = f.getFlightCost();
+            night[i] = f.isNight();
+            if (f.isDated() != dated)
+                throw new IllegalArgumentException("Schedule mixes dated and undated flights: " + f.getFlightId());
+            if (dated) {
+                depDay[i] = Math.toIntExact(f.getDepDate().toEpochDay());
+            }
+        }
+    }
+
+    // takes the columns as they are (no copy); codes in from/to/base index airports
+    public FlightTable(CodeDictionary airports, CodeDictionary aircraftTypes, byte[] idBytes, int[] idOffsets,
+                       int[] from, int[] to, int[] base, int[] aircraft, int[] depMinute, int[] arrMinute,
+                       double[] durationHours, double[] cost, boolean[] night) {
+        this(airports, aircraftTypes, idBytes, idOffsets, from, to, base, aircraft, depMinute, arrMinute,
+                durationHours, cost, night, null);
+    }
+
+    // as above, dated if depDay (epoch day of each departure) is not null
+    public FlightTable(CodeDictionary airports, CodeDictionary aircraftTypes, byte[] idBytes, int[] idOffsets,
+                       int[] from, int[] to, int[] base, int[] aircraft, int[] depMinute, int[] arrMinute,
+                       double[] durationHours, double[] cost, boolean[] night, int[] depDay) {
+        this.flights = new AtomicReferenceArray<>(from.length);
+        this.airports = airports;
+        this.aircraftTypes = aircraftTypes;
+        this.idBytes = idBytes;
+        this.idOffsets = idOffsets;
+        this.from = from;
+        this.to = to;
+        this.base = base;
+        this.aircraft = aircraft;
+        this.depMinute = depMinute;
+        this.arrMinute = arrMinute;
+        this.durationHours = durationHours;
+        this.cost = cost;
+        this.night = night;
+        this.depDay = depDay;
+    }
+
+    public int size() {
+        return from.length;
+    }
+
+    public Flight getFlight(int index) {
+        Flight f = flights.get(index);
+        if (f == null) {
+            f = new Flight(flightId(index), airports.codeOf(from[index]), airports.codeOf(to[index]),
+                    depDay == null ? null : LocalDate.ofEpochDay(depDay[index]), clock(depMinute[index]), clock(arrMinute[index]), durationHours[index],
+                    aircraftTypes.codeOf(aircraft[index]), airports.codeOf(base[index]), cost[index], night[index]);
+            // one Flight per index even when pricing threads race here
+            if (!flights.compareAndSet(index, null, f)) {
+                f = flights.get(index);
+            }
+        }
+        return f;
+    }
+
+    public List<Flight> getFlights() {
+        return new AbstractList<>() {
+            @Override
+            public Flight get(int index) {
+                return getFlight(index);
+            }
+
+            @Override
+            public int size() {
+                return FlightTable.this.size();
+            }
+        };
+    }
+
+    public String flightId(int index) {
+        if (idBytes == null)
+            return flights.get(index).getFlightId();
+        return new String(idBytes, idOffsets[index], idOffsets[index + 1] - idOffsets[index], StandardCharsets.UTF_8);
+    }
+
+    // index of the flight with this ID, -1 if unknown
+    public int indexOf(String flightId) {
+        Map<String, Integer> index = indexById;
+        if (index == null) {
+            index = buildIndex();
+        }
+        return index.getOrDefault(flightId, -1);
+    }
+
+    private synchronized Map<String, Integer> buildIndex() {
+        if (indexById == null) {
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < size(); i++) {
+                index.put(flightId(i), i);
+            }
+            indexById = index;
+        }
+        return indexById;
+    }
+
+    private static LocalTime clock(int minute) {
+        return LocalTime.of(minute / 60, minute % 60);
+    }
+
+    public CodeDictionary getAirports() {
+        return airports;
+    }
+
+    public CodeDictionary getAircraftTypes() {
+        return aircraftTypes;
+    }
+
+    public int from(int index) {
+        return from[index];
+    }
+
+    public int to(int index) {
+        return to[index];
+    }
+
+    public int base(int index) {
+        return base[index];
+    }
+
+    public int aircraft(int index) {
+        return aircraft[index];
+    }
+
+    public int depMinute(int index) {
+        return depMinute[index];
+    }
+
+    public int arrMinute(int index) {
+        return arrMinute[index];
+    }
+
+    public double durationHours(int index) {
+        return durationHours[index];
+    }
+
+    public double cost(int index) {
+        return cost[index];
+    }
+
+    public boolean isNight(int index) {
+        return night[index];
+    }
+
+    public boolean isDated() {
+        return depDay != null;
+    }
+
+    // epoch day of the departure (dated tables only)
+    public int depDay(int index) {
+        return depDay[index];
+    }
+
+    // departure in minutes since the epoch, or minute of the day in a cyclic table
+    public int depTime(int index) {
+        return depDay == null ? depMinute[index] : depDay[index] * MINUTES_PER_DAY + depMinute[index];
+    }
+
+    // depTime plus the block time, so it may pass 24:00 in a cyclic table
+    public int arrTime(int index) {
+        return depTime(index) + blockMinutes(index);
+    }
+
+    // departure to arrival, wrapped past midnight
+    public int blockMinutes(int index) {
+        int mins = arrMinute[index] - depMinute[index];
+        return mins < 0 ? mins + MINUTES_PER_DAY : mins;
+    }
+
+    /*
+     * 64-bit hash of everything that defines flight index: ID, airports, base, aircraft,
+     * times, date, duration, cost and night flag. Equal in two tables only if the flight
+     * is unchanged, whatever its index.
+     */
+    public long fingerprint(int index) {
+        long h = 0;
+        for (byte b : flightId(index).getBytes(StandardCharsets.UTF_8)) {
+            h = mix(h, b);
+        }
+        h = mix(h, airports.codeOf(from[index]).hashCode());
+        h = mix(h, airports.codeOf(to[index]).hashCode());
+        h = mix(h, airports.codeOf(base[index]).hashCode());
+        h = mix(h, aircraftTypes.codeOf(aircraft[index]).hashCode());
+        h = mix(h, depDay == null ? Integer.MIN_VALUE : depDay[index]);
+        h = mix(h, depMinute[index]);
+        h = mix(h, arrMinute[index]);
+        h = mix(h, Double.doubleToLongBits(durationHours[index]));
+        h = mix(h, Double.doubleToLongBits(cost[index]));
+        return mix(h, night[index] ? 1 : 0);
+    }
+
+    // one step of the fingerprint hashes: folds value into hash
+    public static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /*
+     * ground time from the arrival of a to the departure of b: absolute in a dated table,
+     * on the clock in a cyclic one (negative if b leaves earlier in the day)
+     */
+    public int connectionMinutes(int a, int b) {
+        if (depDay == null)
+            return depMinute[b] - arrMinute[a];
+        return depTime(b) - arrTime(a);
+    }
+}
@@ -7,6 +7,8 @@ import java.util.stream.Collectors;
 public class Pairing {
     private List<Flight> flights;
     private double cost;
+    // FlightTable indices of the flights, in sequence (null if built flight by flight)
+    private int[] flightIndices;
 
     public Pairing() {
         this.flights = new ArrayList<>();
@@ -18,14 +20,37 @@ public class Pairing {
         this.cost = cost;
     }
 
+    public Pairing(List<Flight> flights, int[] flightIndices, double cost) {
+        this.flights = new ArrayList<>(flights);
+        this.flightIndices = flightIndices;
+        this.cost = cost;
+    }
+
     public void addFlight(Flight flight) {
         this.flights.add(flight);
+        this.flightIndices = null;
     }
 
     public List<Flight> getFlights() {
         return flights;
     }
 
+    public int[] getFlightIndices() {
+        return flightIndices;
+    }
+
+    // resolves the flight indices against the table if they are not known yet
+    public int[] getFlightIndices(FlightTable table) {
+        if (flightIndices == null) {
+            int[] indices = new int[flights.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = table.indexOf(flights.get(i).getFlightId());
+            }
+            flightIndices = indices;
+        }
+        return flightIndices;
+    }
+
     public double getCost() {
         return cost;
     }
@@ -34,6 +59,15 @@ public class Pairing {
         this.cost = cost;
     }
 
+    // cost minus the duals of the covered flights, duals indexed like the FlightTable
+    public double getReducedCost(double[] duals) {
+        double rc = cost;
+        for (int index : flightIndices) {
+            rc -= duals[index];
+        }
+        return rc;
+    }
+
     public Flight getLastFlight() {
         if (flights.isEmpty())
             return null;
@@ -0,0 +1,410 @@
+package network;
+
+import model.Flight;
+import model.FlightTable;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Flight connection network, built once from the parsed schedule and the turnaround /
+ * overnight rules. Connections never change between CG iterations, so the pricing
+ * engines walk these successor arrays instead of testing every pair of flights.
+ *
+ * Flights are identified by their FlightTable index. For each flight the successors are
+ * stored as an int[] sorted by departure time, together with the turn minutes of each
+ * connection.
+ *
+ * In a dated table a connection is measured in absolute time, so it may run into the
+ * next days (an overnight connection is one that departs on a later day than the
+ * arrival); maxConnectionMin caps the ground time, which keeps month-long schedules sparse.
+ */
+public class ConnectionNetwork {
+    private final FlightTable table;
+    private final long minTurnaroundMin;
+    private final boolean allowOvernight;
+    private final long maxConnectionMin;
+
+    private final int[] departureOrder;
+    private final int[][] successors;
+    private final int[][] turnMinutes;
+    private final int[] flightMinutes;
+    private final int arcCount;
+
+    public ConnectionNetwork(List<Flight> flights, long minTurnaroundMin, boolean allowOvernight) {
+        this(new FlightTable(flights), minTurnaroundMin, allowOvernight);
+    }
+
+    public ConnectionNetwork(FlightTable table, long minTurnaroundMin, boolean allowOvernight) {
+        this(table, minTurnaroundMin, allowOvernight, Long.MAX_VALUE);
+    }
+
+    // connections longer than maxConnectionMin are left out (Long.MAX_VALUE for no limit)
+    public ConnectionNetwork(FlightTable table, long minTurnaroundMin, boolean allowOvernight, long maxConnectionMin) {
+        this.table = table;
+        this.minTurnaroundMin = minTurnaroundMin;
+        this.allowOvernight = allowOvernight;
+        this.maxConnectionMin = maxConnectionMin;
+
+        int n = table.size();
+        // sort flights by departure time (stable, so ties keep input order)
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(table::depTime));
+        this.departureOrder = new int[n];
+        for (int k = 0; k < n; k++) {
+            departureOrder[k] = order[k];
+        }
+
+        this.successors = new int[n][];
+        this.turnMinutes = new int[n][];
+        this.flightMinutes = new int[n];
+
+        // group flights by departure airport so each flight only looks at the
+        // flights leaving from where it lands
+        int[] departureCount = new int[table.getAirports().size()];
+        for (int i = 0; i < n; i++) {
+            departureCount[table.from(i)]++;
+            flightMinutes[i] = table.blockMinutes(i);
+        }
+        int[][] departuresByAirport = new int[departureCount.length][];
+        for (int a = 0; a < departureCount.length; a++) {
+            departuresByAirport[a] = new int[departureCount[a]];
+            departureCount[a] = 0;
+        }
+        for (int i : departureOrder) {
+            departuresByAirport[table.from(i)][departureCount[table.from(i)]++] = i;
+        }
+
+        int arcs = 0;
+        for (int i = 0; i < n; i++) {
+            int[] candidates = departuresByAirport[table.to(i)];
+
+            // candidates are in departure order, so the ground time grows along them: skip
+            // to the first one after the turnaround and stop past the longest connection
+            int[] next = new int[candidates.length];
+            int[] turns = new int[candidates.length];
+            int count = 0;
+            for (int c = firstAfterTurnaround(i, candidates); c < candidates.length; c++) {
+                int j = candidates[c];
+                int turn = table.connectionMinutes(i, j);
+                if (turn > maxConnectionMin)
+                    break;
+                if (isValidConnection(i, j)) {
+                    next[count] = j;
+                    turns[count] = turn;
+                    count++;
+                }
+            }
+            successors[i] = Arrays.copyOf(next, count);
+            turnMinutes[i] = Arrays.copyOf(turns, count);
+            arcs += count;
+        }
+        this.arcCount = arcs;
+    }
+
+    // first candidate whose ground time after flight i reaches the minimum turnaround
+    private int firstAfterTurnaround(int i, int[] candidates) {
+        int lo = 0;
+        int hi = candidates.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (table.connectionMinutes(i, candidates[mid]) < minTurnaroundMin) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /*
+     * network with precomputed arcs, as stored by the binary schedule format: the
+     * successors of flight i are targets[offsets[i], offsets[i + 1]) in departure order,
+     * with the matching turn minutes, built under the given rules
+     */
+    public ConnectionNetwork(FlightTable table, long minTurnaroundMin, boolean allowOvernight,
+                             long maxConnectionMin, int[] departureOrder, int[] offsets, int[] targets, int[] turns) {
+        this.table = table;
+        this.minTurnaroundMin = minTurnaroundMin;
+        this.allowOvernight = allowOvernight;
+        this.maxConnectionMin = maxConnectionMin;
+        this.departureOrder = departureOrder;
+
+        int n = table.size();
+        this.successors = new int[n][];
+        this.turnMinutes = new int[n][];
+        this.flightMinutes = new int[n];
+        for (int i = 0; i < n; i++) {
+            successors[i] = Arrays.copyOfRange(targets, offsets[i], offsets[i + 1]);
+            turnMinutes[i] = Arrays.copyOfRange(turns, offsets[i], offsets[i + 1]);
+            flightMinutes[i] = table.blockMinutes(i);
+        }
+        this.arcCount = offsets[n];
+    }
+
+    // copy of this network with only the connections accepted by the filter (used by branching)
+    public ConnectionNetwork filter(ArcFilter keep) {
+        return new ConnectionNetwork(this, keep);
+    }
+
+    private ConnectionNetwork(ConnectionNetwork parent, ArcFilter keep) {
+        this.table = parent.table;
+        this.minTurnaroundMin = parent.minTurnaroundMin;
+        this.allowOvernight = parent.allowOvernight;
+        this.maxConnectionMin = parent.maxConnectionMin;
+        this.departureOrder = parent.departureOrder;
+        this.flightMinutes = parent.flightMinutes;
+
+        int n = table.size();
+        this.successors = new int[n][];
+        this.turnMinutes = new int[n][];
+        int arcs = 0;
+        for (int i = 0; i < n; i++) {
+            int[] next = parent.successors[i];
+            int[] turns = parent.turnMinutes[i];
+            int[] keptNext = new int[next.length];
+            int[] keptTurns = new int[next.length];
+            int count = 0;
+            for (int k = 0; k < next.length; k++) {
+                if (keep.keep(i, next[k])) {
+                    keptNext[count] = next[k];
+                    keptTurns[count] = turns[k];
+                    count++;
+                }
+            }
+            successors[i] = Arrays.copyOf(keptNext, count);
+            turnMinutes[i] = Arrays.copyOf(keptTurns, count);
+            arcs += count;
+        }
+        this.arcCount = arcs;
+    }
+
+    /*
+     * this network over a changed schedule: newTable keeps every flight of this one at its
+     * index and may append new ones. Arcs between two unchanged flights are copied; only the
+     * arcs into and out of the changed flights (changed[i], or i past the old table) are
+     * tested again, and the dropped flights (null for none) get none at all. The result is
+     * the network a full build over newTable without the dropped flights would give.
+     */
+    public ConnectionNetwork update(FlightTable newTable, boolean[] changed, boolean[] dropped) {
+        return new ConnectionNetwork(this, newTable, changed, dropped);
+    }
+
+    private ConnectionNetwork(ConnectionNetwork parent, FlightTable newTable, boolean[] changed, boolean[] dropped) {
+        this.table = newTable;
+        this.minTurnaroundMin = parent.minTurnaroundMin;
+        this.allowOvernight = parent.allowOvernight;
+        this.maxConnectionMin = parent.maxConnectionMin;
+
+        int n = newTable.size();
+        int oldN = parent.table.size();
+        boolean[] touched = new boolean[n];
+        boolean[] gone = new boolean[n];
+        int[] touchedList = new int[n];
+        int touchedCount = 0;
+        for (int i = 0; i < n; i++) {
+            touched[i] = i >= oldN || (i < changed.length && changed[i]);
+            gone[i] = dropped != null && i < dropped.length && dropped[i];
+            if (touched[i] || gone[i]) {
+                touchedList[touchedCount++] = i;
+            }
+        }
+
+        // the unchanged flights keep their order, the changed ones are merged in by
+        // (departure, index), which is the order of the stable sort of a full build
+        Integer[] moved = new Integer[touchedCount];
+        for (int k = 0; k < touchedCount; k++) {
+            moved[k] = touchedList[k];
+        }
+        Arrays.sort(moved, Comparator.comparingInt(newTable::depTime));
+        this.departureOrder = new int[n];
+        int m = 0;
+        int pos = 0;
+        for (int i : parent.departureOrder) {
+            if (touched[i] || gone[i])
+                continue;
+            while (m < moved.length && departsBefore(newTable, moved[m], i)) {
+                departureOrder[pos++] = moved[m++];
+            }
+            departureOrder[pos++] = i;
+        }
+        while (m < moved.length) {
+            departureOrder[pos++] = moved[m++];
+        }
+        int[] position = new int[n];
+        for (int k = 0; k < n; k++) {
+            position[departureOrder[k]] = k;
+        }
+
+        this.successors = new int[n][];
+        this.turnMinutes = new int[n][];
+        this.flightMinutes = new int[n];
+        int[][] departuresByAirport = null;
+        int arcs = 0;
+        for (int i = 0; i < n; i++) {
+            flightMinutes[i] = newTable.blockMinutes(i);
+            if (gone[i]) {
+                successors[i] = new int[0];
+                turnMinutes[i] = new int[0];
+                continue;
+            }
+            if (touched[i]) {
+                if (departuresByAirport == null) {
+                    departuresByAirport = departuresByAirport(gone);
+                }
+                int[] candidates = departuresByAirport[newTable.to(i)];
+                int[] next = new int[candidates.length];
+                int count = 0;
+                for (int c = firstAfterTurnaround(i, candidates); c < candidates.length; c++) {
+                    if (newTable.connectionMinutes(i, candidates[c]) > maxConnectionMin)
+                        break;
+                    if (isValidConnection(i, candidates[c])) {
+                        next[count++] = candidates[c];
+                    }
+                }
+                setSuccessors(i, next, count);
+                arcs += count;
+                continue;
+            }
+
+            // unchanged: keep the arcs to unchanged flights, test the changed ones again
+            int[] old = parent.successors[i];
+            int[] next = new int[old.length + touchedCount];
+            int count = 0;
+            for (int j : old) {
+                if (!touched[j] && !gone[j]) {
+                    next[count++] = j;
+                }
+            }
+            int kept = count;
+            for (int k = 0; k < touchedCount; k++) {
+                int j = touchedList[k];
+                if (!gone[j] && isValidConnection(i, j)) {
+                    next[count++] = j;
+                }
+            }
+            if (count > kept) {
+                Integer[] sorted = new Integer[count];
+                for (int k = 0; k < count; k++) {
+                    sorted[k] = next[k];
+                }
+                Arrays.sort(sorted, Comparator.comparingInt(j -> position[j]));
+                for (int k = 0; k < count; k++) {
+                    next[k] = sorted[k];
+                }
+            }
+            setSuccessors(i, next, count);
+            arcs += count;
+        }
+        this.arcCount = arcs;
+    }
+
+    private static boolean departsBefore(FlightTable table, int a, int b) {
+        int c = Integer.compare(table.depTime(a), table.depTime(b));
+        return c < 0 || (c == 0 && a < b);
+    }
+
+    // flights leaving each airport in departure order, without the dropped ones
+    private int[][] departuresByAirport(boolean[] dropped) {
+        int[] departureCount = new int[table.getAirports().size()];
+        for (int i : departureOrder) {
+            if (!dropped[i]) {
+                departureCount[table.from(i)]++;
+            }
+        }
+        int[][] byAirport = new int[departureCount.length][];
+        for (int a = 0; a < departureCount.length; a++) {
+            byAirport[a] = new int[departureCount[a]];
+            departureCount[a] = 0;
+        }
+        for (int i : departureOrder) {
+            if (!dropped[i]) {
+                byAirport[table.from(i)][departureCount[table.from(i)]++] = i;
+            }
+        }
+        return byAirport;
+    }
+
+    private void setSuccessors(int i, int[] next, int count) {
+        successors[i] = Arrays.copyOf(next, count);
+        turnMinutes[i] = new int[count];
+        for (int k = 0; k < count; k++) {
+            turnMinutes[i][k] = table.connectionMinutes(i, next[k]);
+        }
+    }
+
+    public interface ArcFilter {
+        boolean keep(int from, int to);
+    }
+
+    public boolean isValidConnection(int f1, int f2) {
+        // location connection
+        if (table.to(f1) != table.from(f2))
+            return false;
+
+        // time connection
+        int turn = table.connectionMinutes(f1, f2);
+        if (turn < minTurnaroundMin || turn > maxConnectionMin)
+            return false;
+
+        if (table.isDated()) {
+            // departs on a later day than it arrives
+            int arrDay = Math.floorDiv(table.arrTime(f1), FlightTable.MINUTES_PER_DAY);
+            if (table.depDay(f2) > arrDay && !allowOvernight)
+                return false;
+        } else if (table.depMinute(f2) < table.arrMinute(f1)) {
+            // If f2.dep < f1.arr, it's next day.
+            if (!allowOvernight)
+                return false;
+        }
+        return true;
+    }
+
+    public FlightTable getTable() {
+        return table;
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    // flight indices sorted by departure time
+    public int[] getDepartureOrder() {
+        return departureOrder;
+    }
+
+    public int[] getSuccessors(int index) {
+        return successors[index];
+    }
+
+    // turn minutes of each connection, parallel to getSuccessors(index)
+    public int[] getTurnMinutes(int index) {
+        return turnMinutes[index];
+    }
+
+    // block minutes of the flight, wrapped past midnight
+    public int getFlightMinutes(int index) {
+        return flightMinutes[index];
+    }
+
+    public int getArcCount() {
+        return arcCount;
+    }
+
+    public long getMinTurnaroundMin() {
+        return minTurnaroundMin;
+    }
+
+    public boolean isAllowOvernight() {
+        return allowOvernight;
+    }
+
+    // Long.MAX_VALUE if connections are not capped
+    public long getMaxConnectionMin() {
+        return maxConnectionMin;
+    }
+}
@@ -0,0 +1,317 @@
+package pricing;
+
+import model.Pairing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Pricing that runs next to the master instead of between its solves: worker threads
+ * keep pricing at the latest dual vector the master published and stream the columns they
+ * find into a lock-free queue, which the master drains whenever it is between solves.
+ *
+ * The search is split into parts priced one at a time: the subtree of each start flight
+ * for the DFS and label-setting engines (on their own or under ParallelPricing, whose
+ * threads give way to the workers), the parts of every base under MultiBasePricing, and a
+ * whole solve for any other engine. A PricingCascade is split by its exact engine, and
+ * its heuristic tiers gate every round the way they gate a synchronous solve: one worker
+ * runs them first, and only when they find nothing are the parts priced.
+ *
+ * A round prices every part once at one dual vector. Publishing new duals starts a new
+ * round where the last one got to, so no part is starved when the master publishes faster
+ * than a round takes. A round whose columns are all drained without one pricing out at
+ * its duals, with no newer duals published, means the master has nothing left to gain
+ * from this pricing; the caller confirms with a synchronous exact round.
+ */
+public class AsyncPricing implements AutoCloseable {
+    // a part's gains that came out null, AtomicReferenceArray cannot tell it from unset
+    private static final Object NO_GAINS = new Object();
+    // states of a round's heuristic gate
+    private static final int GATE_PENDING = 0;
+    private static final int GATE_RUNNING = 1;
+    private static final int GATE_HIT = 2; // the heuristics found columns, the parts are skipped
+    private static final int GATE_MISS = 3; // the parts are priced
+
+    private final List<Part> parts = new ArrayList<>();
+    private final List<PricingCascade> cascades = new ArrayList<>();
+    private final List<StartFlightPricer> pricers = new ArrayList<>();
+    private final int columnLimit;
+    private final Queue<Pairing> columns = new ConcurrentLinkedQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final Thread master;
+    private final AtomicInteger partsPriced = new AtomicInteger();
+    private volatile Round round;
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+
+    /*
+     * starts the workers, they wait for the first publish(); the calling thread is the
+     * master that await() parks
+     */
+    public AsyncPricing(PricingEngine engine, int threads, int columnLimit) {
+        this.columnLimit = columnLimit;
+        this.master = Thread.currentThread();
+        split(engine);
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread t = new Thread(this::work, "async-pricing-" + (i + 1));
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+    }
+
+    private void split(PricingEngine engine) {
+        if (engine instanceof ParallelPricing) {
+            addSubtrees(((ParallelPricing) engine).getPricer());
+        } else if (engine instanceof StartFlightPricer) {
+            addSubtrees((StartFlightPricer) engine);
+        } else if (engine instanceof PricingCascade) {
+            cascades.add((PricingCascade) engine);
+            split(((PricingCascade) engine).getExactEngine());
+        } else if (engine instanceof MultiBasePricing) {
+            for (PricingEngine base : ((MultiBasePricing) engine).getEngines().values()) {
+                split(base);
+            }
+        } else {
+            parts.add(new SolvePart(engine));
+        }
+    }
+
+    private void addSubtrees(StartFlightPricer pricer) {
+        int index = pricers.size();
+        pricers.add(pricer);
+        for (int start : pricer.getStartFlights()) {
+            parts.add(new SubtreePart(pricer, index, start));
+        }
+    }
+
+    /*
+     * the workers price at these duals from now on; returns their version, which
+     * isComplete() and await() take
+     */
+    public int publish(double[] duals) {
+        Round last = round;
+        int offset = 0;
+        int version = 0;
+        if (last != null) {
+            offset = (last.offset + Math.min(last.next.get(), parts.size())) % Math.max(1, parts.size());
+            version = last.version + 1;
+        }
+        round = new Round(version, duals.clone(), offset, pricers.size(),
+                cascades.isEmpty() ? GATE_MISS : GATE_PENDING);
+        for (Thread t : workers) {
+            LockSupport.unpark(t);
+        }
+        return version;
+    }
+
+    // the next column found, at any of the published duals, or null if there is none yet
+    public Pairing poll() {
+        checkFailure();
+        return columns.poll();
+    }
+
+    /*
+     * the round of this version is done and its columns are queued: the heuristics found
+     * some, or every part has been priced
+     */
+    public boolean isComplete(int version) {
+        Round r = round;
+        return r != null && r.version == version && (r.gate.get() == GATE_HIT || r.done.get() == parts.size());
+    }
+
+    // parts priced at the duals of this version so far, all of them once the heuristics found columns
+    public int getPriced(int version) {
+        Round r = round;
+        if (r == null || r.version != version)
+            return 0;
+        return r.gate.get() == GATE_HIT ? parts.size() : r.done.get();
+    }
+
+    // parks the master until a column is queued or the round of this version completes
+    public void await(int version) {
+        while (columns.isEmpty() && !isComplete(version) && failure == null && !closed) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Pricing interrupted");
+            }
+        }
+        checkFailure();
+    }
+
+    // parts priced so far over all rounds, a run of the heuristic tiers counting as one
+    public int getPartsPriced() {
+        return partsPriced.get();
+    }
+
+    public int getPartCount() {
+        return parts.size();
+    }
+
+    // stops the workers once their current part is priced
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread t : workers) {
+            LockSupport.unpark(t);
+        }
+        boolean interrupted = false;
+        for (Thread t : workers) {
+            while (t.isAlive()) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        columns.clear();
+    }
+
+    private void checkFailure() {
+        RuntimeException e = failure;
+        if (e != null)
+            throw new IllegalStateException("Pricing failed: " + e, e);
+    }
+
+    private void work() {
+        while (!closed) {
+            Round r = round;
+            if (r != null && r.gate.get() == GATE_PENDING && r.gate.compareAndSet(GATE_PENDING, GATE_RUNNING)) {
+                boolean hit = false;
+                try {
+                    hit = priceHeuristics(r);
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+                partsPriced.incrementAndGet();
+                r.gate.set(hit ? GATE_HIT : GATE_MISS);
+                // the master sees the round complete, the other workers may go on with the parts
+                for (Thread t : workers) {
+                    LockSupport.unpark(t);
+                }
+                LockSupport.unpark(master);
+                continue;
+            }
+            if (r == null || r.gate.get() != GATE_MISS || r.next.get() >= parts.size()) {
+                // nothing to do at these duals (yet), wait for the gate or the next duals
+                while (round == r && (r == null || r.gate.get() == GATE_RUNNING
+                        || r.gate.get() == GATE_HIT || r.next.get() >= parts.size()) && !closed) {
+                    LockSupport.park(this);
+                }
+                continue;
+            }
+            int k = r.next.getAndIncrement();
+            if (k >= parts.size())
+                continue;
+            try {
+                parts.get((r.offset + k) % parts.size()).price(r, columns);
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            partsPriced.incrementAndGet();
+            r.done.incrementAndGet();
+            LockSupport.unpark(master);
+        }
+    }
+
+    // the heuristic tiers of every cascade at the round's duals; whether any found columns
+    private boolean priceHeuristics(Round r) {
+        boolean hit = false;
+        for (PricingCascade cascade : cascades) {
+            List<Pairing> found;
+            synchronized (cascade) {
+                found = cascade.solveHeuristics(r.duals);
+            }
+            columns.addAll(found);
+            hit |= !found.isEmpty();
+        }
+        return hit;
+    }
+
+    private void fail(RuntimeException e) {
+        failure = e;
+        LockSupport.unpark(master);
+    }
+
+    // one dual vector and how far the workers got with it
+    private static final class Round {
+        final int version;
+        final double[] duals;
+        final int offset; // the first part of this round, where the previous one stopped
+        final AtomicInteger next = new AtomicInteger(); // parts handed out
+        final AtomicInteger done = new AtomicInteger(); // parts priced, columns queued
+        final AtomicInteger gate;
+        final AtomicReferenceArray<Object> gains; // by pricer, computed by the first worker
+
+        Round(int version, double[] duals, int offset, int pricers, int gate) {
+            this.version = version;
+            this.duals = duals;
+            this.offset = offset;
+            this.gate = new AtomicInteger(gate);
+            this.gains = new AtomicReferenceArray<>(pricers);
+        }
+
+        CompletionIndex.Gains gains(StartFlightPricer pricer, int index) {
+            Object g = gains.get(index);
+            if (g == null) {
+                // workers that get here together compute the same gains, the first one is kept
+                CompletionIndex.Gains computed = pricer.completionGains(duals);
+                gains.compareAndSet(index, null, computed == null ? NO_GAINS : computed);
+                g = gains.get(index);
+            }
+            return g == NO_GAINS ? null : (CompletionIndex.Gains) g;
+        }
+    }
+
+    private abstract static class Part {
+        abstract void price(Round round, Queue<Pairing> out);
+    }
+
+    // the pairings that start with one flight out of base
+    private final class SubtreePart extends Part {
+        private final StartFlightPricer pricer;
+        private final int index;
+        private final int start;
+
+        SubtreePart(StartFlightPricer pricer, int index, int start) {
+            this.pricer = pricer;
+            this.index = index;
+            this.start = start;
+        }
+
+        @Override
+        void price(Round round, Queue<Pairing> out) {
+            TopKColumns top = new TopKColumns(columnLimit);
+            pricer.priceFrom(start, round.duals, round.gains(pricer, index), top);
+            out.addAll(top.toPairings(pricer));
+        }
+    }
+
+    // an engine that cannot split its search, one solve at a time
+    private static final class SolvePart extends Part {
+        private final PricingEngine engine;
+
+        SolvePart(PricingEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        void price(Round round, Queue<Pairing> out) {
+            synchronized (engine) {
+                out.addAll(engine.solve(round.duals));
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package pricing;
+
+// receives the negative reduced cost paths found by a pricing engine
+interface ColumnSink {
+    // path[0..length) is only valid during the call, copy it to keep it
+    void accept(int[] path, int length, double cost, double reducedCost);
+}
@@ -0,0 +1,364 @@
+package pricing;
+
+import model.FlightTable;
+import network.ConnectionNetwork;
+
+import java.util.Arrays;
+
+/*
+ * Backward index over the connection network of a PricingProblem, for cutting partial
+ * pairings that can never become a column:
+ *
+ *   completion: for every flight, the least flying hours and the least elapsed minutes
+ *     after its arrival until its duty can end, either by landing at base or (if the crew
+ *     has a duty left) by a rest at an outstation. Shortest paths over the in-duty
+ *     connections, each limit on its own, so they are lower bounds and a partial duty
+ *     that already breaks a limit with them cannot close feasibly.
+ *   gains: for the duals of one pricing call, the most any completion can still lower
+ *     the reduced cost, i.e. the longest path of (dual - flight cost - hourly cost) to a
+ *     flight that can close. Cost terms left out (night penalty, overtime, the fixed cost
+ *     and layover of later duties) are never negative, so the partial reduced cost minus
+ *     the gain is an optimistic bound: once it is no longer negative, no pairing through
+ *     the flight prices out.
+ *
+ * Both are relaxations of the engines' own checks, so the columns found do not change.
+ * On an acyclic network (a dated table) the gains are a longest path in reverse
+ * topological order. A cyclic table's connections go round the clock (a red-eye lands
+ * after midnight and connects to the morning), so there the gains also depend on the
+ * duty time left: every connection uses at least unitMin minutes (turn plus flight), so
+ * counting it as floor(minutes / unitMin) units never overstates it and makes the levels
+ * of duty time left strictly decrease along a path. Pairings with several duties on a
+ * cyclic network, or too many levels, get no gains and only the limits are cut.
+ */
+final class CompletionIndex {
+    static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+    // a subtree is cut when its bound is no lower than the acceptance threshold
+    static final double BOUND_THRESHOLD = -0.0001 + 1e-6;
+    // largest level table (levels x flights) built per pricing call
+    private static final int MAX_GAIN_ENTRIES = 1 << 22;
+
+    private final PricingProblem problem;
+    private final FlightTable table;
+    private final ConnectionNetwork network;
+    // indexed by flight; the rest arrays are the close arrays when pairings have one duty
+    private final double[] closeFly;
+    private final int[] closeMinutes;
+    private final double[] restFly;
+    private final int[] restMinutes;
+    private final int[] topological; // null if the network has a cycle
+    private final int unitMin; // least minutes of any in-duty connection, levels of a cyclic network
+    private final boolean boundValid;
+    private final int unreachable;
+
+    CompletionIndex(PricingProblem problem) {
+        this.problem = problem;
+        this.network = problem.getNetwork();
+        this.table = network.getTable();
+        int n = table.size();
+
+        // in-duty connections, reversed
+        int[] predCount = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int[] turns = network.getTurnMinutes(i);
+            for (int k = 0; k < turns.length; k++) {
+                if (!problem.isRest(turns[k])) {
+                    predCount[network.getSuccessors(i)[k] + 1]++;
+                }
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            predCount[j + 1] += predCount[j];
+        }
+        int[] predStart = predCount.clone();
+        int[] preds = new int[predCount[n]];
+        int[] predTurn = new int[predCount[n]];
+        int unit = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            int[] next = network.getSuccessors(i);
+            int[] turns = network.getTurnMinutes(i);
+            for (int k = 0; k < next.length; k++) {
+                if (!problem.isRest(turns[k])) {
+                    int slot = predStart[next[k]]++;
+                    preds[slot] = i;
+                    predTurn[slot] = turns[k];
+                    unit = Math.min(unit, turns[k] + network.getFlightMinutes(next[k]));
+                }
+            }
+        }
+        unitMin = unit;
+
+        boolean[] close = new boolean[n];
+        boolean[] rest = new boolean[n];
+        boolean canRest = false;
+        for (int i = 0; i < n; i++) {
+            close[i] = problem.canClose(i);
+            rest[i] = close[i] || hasRest(i);
+            canRest |= rest[i] && !close[i];
+        }
+        closeFly = new double[n];
+        closeMinutes = new int[n];
+        shortestPaths(close, predCount, preds, predTurn, closeFly, closeMinutes);
+        if (canRest) {
+            restFly = new double[n];
+            restMinutes = new int[n];
+            shortestPaths(rest, predCount, preds, predTurn, restFly, restMinutes);
+        } else {
+            restFly = closeFly;
+            restMinutes = closeMinutes;
+        }
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (restMinutes[i] >= UNREACHABLE) {
+                count++;
+            }
+        }
+        unreachable = count;
+
+        topological = topologicalOrder();
+        boundValid = problem.getNightPenalty() >= 0 && problem.getOvertimePenaltyPerHour() >= 0
+                && problem.getFixedCost() >= 0 && problem.getLayoverCost() >= 0;
+    }
+
+    // Kahn's algorithm over all connections
+    private int[] topologicalOrder() {
+        int n = table.size();
+        int[] inDegree = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int j : network.getSuccessors(i)) {
+                inDegree[j]++;
+            }
+        }
+        int[] order = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) {
+                order[size++] = i;
+            }
+        }
+        for (int k = 0; k < size; k++) {
+            for (int j : network.getSuccessors(order[k])) {
+                if (--inDegree[j] == 0) {
+                    order[size++] = j;
+                }
+            }
+        }
+        return size == n ? order : null;
+    }
+
+    // the crew may rest after this flight, given a duty left
+    private boolean hasRest(int flight) {
+        if (table.to(flight) == problem.getBaseId())
+            return false;
+        for (int turn : network.getTurnMinutes(flight)) {
+            if (problem.isRest(turn))
+                return true;
+        }
+        return false;
+    }
+
+    // Dijkstra from the end flights backwards, for flying hours and for minutes separately
+    private void shortestPaths(boolean[] end, int[] predStart, int[] preds, int[] predTurn, double[] fly,
+                               int[] minutes) {
+        int n = end.length;
+        Arrays.fill(fly, Double.POSITIVE_INFINITY);
+        Arrays.fill(minutes, UNREACHABLE);
+        MinHeap heap = new MinHeap(n);
+        for (int i = 0; i < n; i++) {
+            if (end[i]) {
+                fly[i] = 0;
+                heap.push(0, i);
+            }
+        }
+        while (!heap.isEmpty()) {
+            double d = heap.topKey();
+            int j = heap.pop();
+            if (d > fly[j])
+                continue;
+            double via = d + table.durationHours(j);
+            for (int p = predStart[j]; p < predStart[j + 1]; p++) {
+                if (via < fly[preds[p]]) {
+                    fly[preds[p]] = via;
+                    heap.push(via, preds[p]);
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (end[i]) {
+                minutes[i] = 0;
+                heap.push(0, i);
+            }
+        }
+        while (!heap.isEmpty()) {
+            double d = heap.topKey();
+            int j = heap.pop();
+            if (d > minutes[j])
+                continue;
+            for (int p = predStart[j]; p < predStart[j + 1]; p++) {
+                int via = (int) d + predTurn[p] + network.getFlightMinutes(j);
+                if (via < minutes[preds[p]]) {
+                    minutes[preds[p]] = via;
+                    heap.push(via, preds[p]);
+                }
+            }
+        }
+    }
+
+    /*
+     * a duty that reaches flight with these flying hours and elapsed minutes can still end
+     * within the limits; dutiesLeft says whether it may end in a rest
+     */
+    boolean canComplete(int flight, double dutyFly, int dutyMin, boolean dutiesLeft) {
+        if (dutiesLeft)
+            return dutyFly + restFly[flight] <= problem.getMaxFlyingHours() + 1e-9
+                    && dutyMin + restMinutes[flight] <= problem.getMaxDutyHours() * 60;
+        return dutyFly + closeFly[flight] <= problem.getMaxFlyingHours() + 1e-9
+                && dutyMin + closeMinutes[flight] <= problem.getMaxDutyHours() * 60;
+    }
+
+    /*
+     * the most a completion after each flight can lower the reduced cost at these duals;
+     * null if the network or the cost parameters rule the bound out
+     */
+    Gains gains(double[] duals) {
+        if (!boundValid)
+            return null;
+        int n = table.size();
+        double[] value = new double[n];
+        for (int j = 0; j < n; j++) {
+            value[j] = -problem.arcCost(j, duals);
+        }
+        if (topological != null) {
+            double[] gain = new double[n];
+            for (int k = n - 1; k >= 0; k--) {
+                int i = topological[k];
+                double best = problem.canClose(i) ? 0 : Double.NEGATIVE_INFINITY;
+                for (int j : network.getSuccessors(i)) {
+                    best = Math.max(best, gain[j] + value[j]);
+                }
+                gain[i] = best;
+            }
+            return new Gains(gain, n, 0, 0);
+        }
+
+        int maxDutyMin = (int) Math.floor(problem.getMaxDutyHours() * 60);
+        if (problem.getMaxDuties() > 1 || unitMin < 1 || unitMin == Integer.MAX_VALUE)
+            return null;
+        int levels = maxDutyMin / unitMin + 1;
+        if ((long) levels * n > MAX_GAIN_ENTRIES)
+            return null;
+        // level r: completions of at most r units
+        double[] gain = new double[levels * n];
+        for (int r = 0; r < levels; r++) {
+            for (int i = 0; i < n; i++) {
+                double best = problem.canClose(i) ? 0 : Double.NEGATIVE_INFINITY;
+                int[] next = network.getSuccessors(i);
+                int[] turns = network.getTurnMinutes(i);
+                for (int k = 0; k < next.length; k++) {
+                    int units = (turns[k] + network.getFlightMinutes(next[k])) / unitMin;
+                    if (units <= r) {
+                        best = Math.max(best, gain[(r - units) * n + next[k]] + value[next[k]]);
+                    }
+                }
+                gain[r * n + i] = best;
+            }
+        }
+        return new Gains(gain, n, unitMin, maxDutyMin);
+    }
+
+    // completion gains of one pricing call, by flight and (on a cyclic network) duty time left
+    static final class Gains {
+        private final double[] gain;
+        private final int flights;
+        private final int unitMin; // 0: one level
+        private final int maxDutyMin;
+
+        Gains(double[] gain, int flights, int unitMin, int maxDutyMin) {
+            this.gain = gain;
+            this.flights = flights;
+            this.unitMin = unitMin;
+            this.maxDutyMin = maxDutyMin;
+        }
+
+        // after flight, its duty elapsed dutyMin (within max duty); -infinity if it cannot close
+        double at(int flight, int dutyMin) {
+            if (unitMin == 0)
+                return gain[flight];
+            return gain[(maxDutyMin - dutyMin) / unitMin * flights + flight];
+        }
+
+        /*
+         * the pairing through flight, whose reduced cost so far (fixed cost included) is
+         * partial, can no longer price out
+         */
+        boolean cuts(double partial, int flight, int dutyMin) {
+            return partial - at(flight, dutyMin) > BOUND_THRESHOLD;
+        }
+    }
+
+    // flights from which no duty can end, so the engines never extend to them
+    int getUnreachableCount() {
+        return unreachable;
+    }
+
+    // binary heap of (key, flight), stale entries are skipped by the caller
+    private static final class MinHeap {
+        private double[] keys;
+        private int[] values;
+        private int size;
+
+        MinHeap(int capacity) {
+            keys = new double[Math.max(16, capacity)];
+            values = new int[keys.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double topKey() {
+            return keys[0];
+        }
+
+        void push(double key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int k = size++;
+            while (k > 0) {
+                int parent = (k - 1) >>> 1;
+                if (keys[parent] <= key)
+                    break;
+                keys[k] = keys[parent];
+                values[k] = values[parent];
+                k = parent;
+            }
+            keys[k] = key;
+            values[k] = value;
+        }
+
+        int pop() {
+            int top = values[0];
+            size--;
+            double key = keys[size];
+            int value = values[size];
+            int k = 0;
+            while (true) {
+                int child = 2 * k + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key)
+                    break;
+                keys[k] = keys[child];
+                values[k] = values[child];
+                k = child;
+            }
+            keys[k] = key;
+            values[k] = value;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package pricing;
+
+import model.FlightTable;
+import model.Pairing;
+import network.ConnectionNetwork;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+ * Label-setting RCSPP engine for the pricing subproblem.
+ *
+ * Instead of enumerating every path like PricingProblem.dfs, labels are extended over the
+ * connection network in order of elapsed duty time. Each label carries the resources of a
+ * partial pairing (elapsed minutes since the first departure, flying time, night flag and
+ * the partial reduced cost) and a label is dropped as soon as another label at the same
+ * flight is no worse in every resource. All cost terms are monotone in these resources,
+ * so the most negative pairings found by the DFS survive the pruning.
+ *
+ * Duty time is measured as elapsed time along the path, which matches the DFS for every
+ * pairing shorter than 24 hours. With several duties per pairing a label also carries its
+ * duty count, and its duty time and flying time restart after each rest; the fixed cost,
+ * overtime and layover of a duty closed by a rest go into the partial reduced cost.
+ *
+ * Labels whose duty can no longer end within the limits, or from which no pairing can
+ * price out at the current duals, are never created (see CompletionIndex).
+ */
+public class LabelSettingPricing implements PricingEngine, StartFlightPricer {
+    private static final double EPS = 1e-9;
+
+    private final PricingProblem problem;
+    private final ConnectionNetwork network;
+    private final FlightTable table;
+    private final SearchCounters counters = new SearchCounters();
+
+    public LabelSettingPricing(PricingProblem problem) {
+        this.problem = problem;
+        this.network = problem.getNetwork();
+        this.table = network.getTable();
+    }
+
+    // every pairing starts with its own flight out of base
+    @Override
+    public int getMaxPairings(int flightCount) {
+        return Math.min(flightCount, problem.getStartFlights().length);
+    }
+
+    @Override
+    public List<Pairing> solve(double[] duals) {
+        List<Pairing> newColumns = new ArrayList<>();
+        run(problem.getStartFlights(), duals, completionGains(duals),
+                (path, length, cost, redCost) -> newColumns.add(problem.createPairing(path, length, cost)));
+        return newColumns;
+    }
+
+    @Override
+    public void setCapacityDuals(double[] byAirport) {
+        problem.setCapacityDuals(byAirport);
+    }
+
+    @Override
+    public int[] getStartFlights() {
+        return problem.getStartFlights();
+    }
+
+    @Override
+    public CompletionIndex.Gains completionGains(double[] duals) {
+        return problem.completionGains(duals);
+    }
+
+    // labels of a single subtree, dominance only applies within it
+    @Override
+    public void priceFrom(int start, double[] duals, CompletionIndex.Gains gains, ColumnSink sink) {
+        run(new int[]{start}, duals, gains, sink);
+    }
+
+    @Override
+    public Pairing createPairing(int[] path, int length, double cost) {
+        return problem.createPairing(path, length, cost);
+    }
+
+    @Override
+    public SearchCounters getCounters() {
+        return counters;
+    }
+
+    // gains may be null
+    private void run(int[] starts, double[] duals, CompletionIndex.Gains gains, ColumnSink sink) {
+        int n = table.size();
+        double maxDutyMin = problem.getMaxDutyHours() * 60.0;
+        double maxFly = problem.getMaxFlyingHours();
+        double fixedCost = problem.getChargedFixedCost();
+        int maxDuties = problem.getMaxDuties();
+        CompletionIndex index = problem.getCompletionIndex();
+
+        // partial reduced cost contribution of each flight under the current duals
+        double[] arcCost = new double[n];
+        for (int i = 0; i < n; i++) {
+            arcCost[i] = problem.arcCost(i, duals);
+        }
+
+        // label buckets per flight, created on first use
+        List<List<Label>> labelsAt = new ArrayList<>(Collections.nCopies(n, null));
+        PriorityQueue<Label> queue = new PriorityQueue<>((a, b) -> {
+            if (a.elapsed != b.elapsed)
+                return Integer.compare(a.elapsed, b.elapsed);
+            return Double.compare(a.partialCost, b.partialCost);
+        });
+
+        long expanded = 0;
+        long generated = 0;
+        long pruned = 0;
+        long unclosable = 0;
+        long bounded = 0;
+
+        // one initial label per flight departing from base
+        for (int i : starts) {
+            if (!index.canComplete(i, table.durationHours(i), network.getFlightMinutes(i), maxDuties > 1)) {
+                unclosable++;
+                continue;
+            }
+            if (gains != null && gains.cuts(arcCost[i] + fixedCost, i, network.getFlightMinutes(i))) {
+                bounded++;
+                continue;
+            }
+            Label start = new Label(i, null, 1, network.getFlightMinutes(i), network.getFlightMinutes(i), 1,
+                    table.durationHours(i), table.isNight(i), arcCost[i]);
+            if (insert(start, labelsAt, i)) {
+                queue.add(start);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            Label label = queue.poll();
+            if (label.dominated) {
+                pruned++;
+                continue;
+            }
+            expanded++;
+
+            // close the pairing if we are back at base
+            if (problem.canClose(label.flight) && label.dutyElapsed / 60.0 <= problem.getMaxDutyHours()
+                    && closingCost(label) < -0.0001 + EPS) {
+                int[] path = label.path();
+                double cost = problem.calculateCost(path, path.length);
+                double redCost = problem.calculateReducedCost(cost, path, path.length, duals);
+                if (redCost < -0.0001) {
+                    sink.accept(path, path.length, cost, redCost);
+                }
+            }
+
+            // extend along the precomputed connections
+            int[] next = network.getSuccessors(label.flight);
+            int[] turns = network.getTurnMinutes(label.flight);
+            generated += next.length;
+            for (int k = 0; k < next.length; k++) {
+                int j = next[k];
+                boolean rest = problem.isRest(turns[k]);
+                if (rest && !problem.canRestAfter(label.flight, label.duties)) {
+                    pruned++;
+                    continue;
+                }
+                double fly = (rest ? 0 : label.dutyFly) + table.durationHours(j);
+                if (fly > maxFly) {
+                    pruned++;
+                    continue;
+                }
+                int duty = (rest ? 0 : label.dutyElapsed + turns[k]) + network.getFlightMinutes(j);
+                // elapsed time only grows, so this label could never close within max duty
+                if (duty > maxDutyMin) {
+                    pruned++;
+                    continue;
+                }
+
+                int duties = rest ? label.duties + 1 : label.duties;
+                if (!index.canComplete(j, fly, duty, duties < maxDuties)) {
+                    unclosable++;
+                    continue;
+                }
+
+                double partialCost = label.partialCost + arcCost[j];
+                if (rest) {
+                    partialCost += problem.dutyCost(label.dutyElapsed) + problem.getLayoverCost();
+                }
+                if (gains != null && gains.cuts(partialCost + fixedCost, j, duty)) {
+                    bounded++;
+                    continue;
+                }
+                int elapsed = label.elapsed + turns[k] + network.getFlightMinutes(j);
+                Label extended = new Label(j, label, label.length + 1, elapsed, duty, duties, fly,
+                        label.night || table.isNight(j), partialCost);
+                if (insert(extended, labelsAt, j)) {
+                    queue.add(extended);
+                } else {
+                    pruned++;
+                }
+            }
+        }
+        counters.add(new long[]{expanded, generated, pruned, unclosable, bounded});
+    }
+
+    // reduced cost of closing the pairing at this label, mirrors PricingProblem.calculateCost
+    private double closingCost(Label label) {
+        double cost = label.partialCost + problem.getChargedFixedCost();
+        if (label.night)
+            cost += problem.getNightPenalty();
+        return cost + problem.overtimeCost(label.dutyElapsed);
+    }
+
+    // adds the label to the bucket unless dominated; removes the labels it dominates
+    private boolean insert(Label label, List<List<Label>> labelsAt, int flight) {
+        List<Label> bucket = labelsAt.get(flight);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            labelsAt.set(flight, bucket);
+        }
+        for (Label other : bucket) {
+            if (other.dominates(label))
+                return false;
+        }
+        bucket.removeIf(other -> {
+            if (label.dominates(other)) {
+                other.dominated = true;
+                return true;
+            }
+            return false;
+        });
+        bucket.add(label);
+        return true;
+    }
+
+    private static class Label {
+        final int flight;
+        final Label parent;
+        final int length;
+        final int elapsed; // since the first departure, orders the queue
+        final int dutyElapsed; // since the current duty's first departure
+        final int duties;
+        final double dutyFly;
+        final boolean night;
+        final double partialCost;
+        boolean dominated;
+
+        Label(int flight, Label parent, int length, int elapsed, int dutyElapsed, int duties, double dutyFly,
+              boolean night, double partialCost) {
+            this.flight = flight;
+            this.parent = parent;
+            this.length = length;
+            this.elapsed = elapsed;
+            this.dutyElapsed = dutyElapsed;
+            this.duties = duties;
+            this.dutyFly = dutyFly;
+            this.night = night;
+            this.partialCost = partialCost;
+        }
+
+        // labels at one flight are at the same time, so only the current duty and the
+        // duties left limit the extensions
+        boolean dominates(Label other) {
+            return dutyElapsed <= other.dutyElapsed
+                    && duties <= other.duties
+                    && dutyFly <= other.dutyFly + EPS
+                    && (!night || other.night)
+                    && partialCost <= other.partialCost + EPS;
+        }
+
+        int[] path() {
+            int[] path = new int[length];
+            int k = length;
+            for (Label l = this; l != null; l = l.parent) {
+                path[--k] = l.flight;
+            }
+            return path;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package pricing;
+
+import model.Pairing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+ * Pricing over several crew bases: one engine per base (usually built on
+ * PricingProblem.forBase, so each prices over its own connection graph), all solved in
+ * parallel on the same duals. Their columns go to the one shared RMP; a pairing's base
+ * is its first departure airport, which is how the RMP finds its capacity row.
+ *
+ * Capacity duals (setCapacityDuals) go to every engine, each charges the dual of its own
+ * base: within a base it shifts every reduced cost by the same amount, but an engine that
+ * left it out would return columns that do not price out, take them for hits and stop early.
+ */
+public class MultiBasePricing implements PricingEngine {
+    private final Map<String, PricingEngine> engines = new LinkedHashMap<>();
+    private final Map<String, PricingProblem> problems = new LinkedHashMap<>();
+    private final int threads;
+    private ExecutorService pool;
+    private boolean lastSolveExact = true;
+
+    public MultiBasePricing(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /*
+     * one engine per base, each built by engineFactory from template.forBase(base, ownFlightsOnly)
+     */
+    public static MultiBasePricing forBases(PricingProblem template, List<String> bases, boolean ownFlightsOnly,
+                                            Function<PricingProblem, PricingEngine> engineFactory, int threads) {
+        MultiBasePricing pricing = new MultiBasePricing(threads);
+        for (String base : bases) {
+            PricingProblem problem = template.forBase(base, ownFlightsOnly);
+            pricing.addBase(base, problem, engineFactory.apply(problem));
+        }
+        return pricing;
+    }
+
+    public void addBase(String base, PricingEngine engine) {
+        engines.put(base, engine);
+    }
+
+    // an engine together with the problem whose rules it prices
+    public void addBase(String base, PricingProblem problem, PricingEngine engine) {
+        engines.put(base, engine);
+        problems.put(base, problem);
+    }
+
+    @Override
+    public List<Pairing> solve(double[] duals) {
+        if (pool == null) {
+            // idle threads time out, so a solver dropped without shutdown() leaves none behind
+            int size = Math.min(threads, Math.max(1, engines.size()));
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "base-pricing");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            pool = executor;
+        }
+        List<Future<List<Pairing>>> futures = new ArrayList<>();
+        for (PricingEngine engine : engines.values()) {
+            futures.add(pool.submit(() -> engine.solve(duals)));
+        }
+
+        List<Pairing> columns = new ArrayList<>();
+        try {
+            for (Future<List<Pairing>> f : futures) {
+                columns.addAll(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pricing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pricing failed: " + e.getCause(), e.getCause());
+        }
+
+        // exact only if every base searched all of its pairings
+        lastSolveExact = true;
+        for (PricingEngine engine : engines.values()) {
+            lastSolveExact &= engine.isLastSolveExact();
+        }
+        return columns;
+    }
+
+    @Override
+    public boolean isLastSolveExact() {
+        return lastSolveExact;
+    }
+
+    @Override
+    public void setCapacityDuals(double[] byAirport) {
+        for (PricingEngine engine : engines.values()) {
+            engine.setCapacityDuals(byAirport);
+        }
+    }
+
+    @Override
+    public void setColumnLimit(int maxColumns) {
+        for (PricingEngine engine : engines.values()) {
+            engine.setColumnLimit(maxColumns);
+        }
+    }
+
+    // every pairing starts with its own flight out of one of the bases
+    @Override
+    public int getMaxPairings(int flightCount) {
+        long total = 0;
+        for (PricingEngine engine : engines.values()) {
+            total += engine.getMaxPairings(flightCount);
+        }
+        return (int) Math.min(flightCount, total);
+    }
+
+    @Override
+    public SearchCounters getCounters() {
+        SearchCounters total = new SearchCounters();
+        for (PricingEngine engine : engines.values()) {
+            total.add(engine.getCounters());
+        }
+        return total;
+    }
+
+    public Map<String, PricingEngine> getEngines() {
+        return Collections.unmodifiableMap(engines);
+    }
+
+    // the problems of the bases added with one
+    public Map<String, PricingProblem> getProblems() {
+        return Collections.unmodifiableMap(problems);
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package pricing;
+
+import model.Pairing;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Parallel pricing mode: the subtrees rooted at each flight departing from base are
+ * independent, so they are spread over a ForkJoinPool and the workers merge what they
+ * find into a shared top-k pool (k = the solver's max columns per iteration).
+ *
+ * The returned columns are the same for any thread count and any scheduling.
+ */
+public class ParallelPricing implements PricingEngine {
+    private final StartFlightPricer pricer;
+    private final ForkJoinPool pool;
+    private int columnLimit = Integer.MAX_VALUE;
+
+    public ParallelPricing(PricingProblem problem, int threads) {
+        this((StartFlightPricer) problem, threads);
+    }
+
+    public ParallelPricing(LabelSettingPricing engine, int threads) {
+        this((StartFlightPricer) engine, threads);
+    }
+
+    private ParallelPricing(StartFlightPricer pricer, int threads) {
+        this.pricer = pricer;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    @Override
+    public void setColumnLimit(int maxColumns) {
+        this.columnLimit = maxColumns;
+    }
+
+    // every pairing starts with its own flight out of base
+    @Override
+    public int getMaxPairings(int flightCount) {
+        return Math.min(flightCount, pricer.getStartFlights().length);
+    }
+
+    @Override
+    public void setCapacityDuals(double[] byAirport) {
+        pricer.setCapacityDuals(byAirport);
+    }
+
+    @Override
+    public List<Pairing> solve(double[] duals) {
+        TopKColumns top = new TopKColumns(columnLimit);
+        int[] starts = pricer.getStartFlights();
+        pool.invoke(new StartRange(starts, 0, starts.length, duals, pricer.completionGains(duals), top));
+        return top.toPairings(pricer);
+    }
+
+    // the subtrees of every worker count into the engine they were priced with
+    @Override
+    public SearchCounters getCounters() {
+        return pricer.getCounters();
+    }
+
+    public int getThreads() {
+        return pool.getParallelism();
+    }
+
+    // the engine whose subtrees are spread over the pool
+    StartFlightPricer getPricer() {
+        return pricer;
+    }
+
+    // splits the start flights down to single subtrees
+    private class StartRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] starts;
+        private final int lo;
+        private final int hi;
+        private final double[] duals;
+        private final CompletionIndex.Gains gains;
+        private final TopKColumns top;
+
+        StartRange(int[] starts, int lo, int hi, double[] duals, CompletionIndex.Gains gains, TopKColumns top) {
+            this.starts = starts;
+            this.lo = lo;
+            this.hi = hi;
+            this.duals = duals;
+            this.gains = gains;
+            this.top = top;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                pricer.priceFrom(starts[lo], duals, gains, top);
+            } else if (hi > lo) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new StartRange(starts, lo, mid, duals, gains, top),
+                        new StartRange(starts, mid, hi, duals, gains, top));
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package pricing;
+
+import model.Pairing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Tiered pricing: cheap heuristic tiers are tried in order and the first one that finds
+ * negative reduced cost columns answers the call. The exact engine runs when every
+ * heuristic tier comes back empty, so the final round, the one that proves LP optimality,
+ * is always exact. Only exact rounds give a Lagrangian bound and move the stabilization
+ * center, so every exactInterval-th call also goes straight to the exact engine.
+ */
+public class PricingCascade implements PricingEngine {
+    private final List<Tier> tiers = new ArrayList<>(); // heuristic tiers, then the exact one
+    private final Tier exact;
+    private boolean lastSolveExact = true;
+    private int exactInterval = 10; // 0: exact only once the heuristic tiers fail
+    private int sinceExact;
+
+    // greedy, restricted graph and bounded-depth tiers ahead of the exact engine
+    public PricingCascade(PricingProblem problem, PricingEngine exact) {
+        this.exact = new Tier("exact", exact);
+        tiers.add(this.exact);
+        addTier("greedy", new RestrictedPricing(problem, 1, 0));
+        addTier("restricted", new RestrictedPricing(problem, 3, 0));
+        addTier("depth", new RestrictedPricing(problem, 0, 3));
+    }
+
+    // heuristic tiers run in the order they were added, always before the exact engine
+    public void addTier(String name, PricingEngine engine) {
+        tiers.add(tiers.size() - 1, new Tier(name, engine));
+    }
+
+    public void setExactInterval(int calls) {
+        this.exactInterval = calls;
+    }
+
+    @Override
+    public List<Pairing> solve(double[] duals) {
+        if (exactInterval > 0 && sinceExact >= exactInterval - 1) {
+            return solve(duals, tiers.size() - 1, tiers.size());
+        }
+        return solve(duals, 0, tiers.size());
+    }
+
+    // the heuristic tiers only, for AsyncPricing; empty if none of them finds a column
+    List<Pairing> solveHeuristics(double[] duals) {
+        return solve(duals, 0, tiers.size() - 1);
+    }
+
+    private List<Pairing> solve(double[] duals, int fromTier, int toTier) {
+        List<Pairing> columns = List.of();
+        for (Tier tier : tiers.subList(fromTier, toTier)) {
+            long start = System.nanoTime();
+            columns = tier.engine.solve(duals);
+            tier.calls++;
+            tier.nanos += System.nanoTime() - start;
+            lastSolveExact = tier == exact;
+            if (!columns.isEmpty()) {
+                tier.hits++;
+                tier.columns += columns.size();
+                break;
+            }
+        }
+        sinceExact = lastSolveExact ? 0 : sinceExact + 1;
+        return columns;
+    }
+
+    @Override
+    public boolean isLastSolveExact() {
+        return lastSolveExact;
+    }
+
+    @Override
+    public void setColumnLimit(int maxColumns) {
+        for (Tier tier : tiers) {
+            tier.engine.setColumnLimit(maxColumns);
+        }
+    }
+
+    @Override
+    public int getMaxPairings(int flightCount) {
+        return exact.engine.getMaxPairings(flightCount);
+    }
+
+    // a heuristic hit has to price out with the capacity dual charged, or the exact tier
+    // would never run for a base whose capacity is binding
+    @Override
+    public void setCapacityDuals(double[] byAirport) {
+        for (Tier tier : tiers) {
+            tier.engine.setCapacityDuals(byAirport);
+        }
+    }
+
+    // every tier's search, the heuristic ones included
+    @Override
+    public SearchCounters getCounters() {
+        SearchCounters total = new SearchCounters();
+        for (Tier tier : tiers) {
+            total.add(tier.engine.getCounters());
+        }
+        return total;
+    }
+
+    // the engine of the last tier, the one that proves optimality
+    PricingEngine getExactEngine() {
+        return exact.engine;
+    }
+
+    public List<Tier> getTiers() {
+        return tiers;
+    }
+
+    public String describeStats() {
+        StringBuilder sb = new StringBuilder("Pricing tiers:");
+        for (Tier tier : tiers) {
+            sb.append(String.format("%n  %-10s calls = %d | hits = %d (%.0f%%) | cols = %d | avg = %.2f ms",
+                    tier.name, tier.calls, tier.hits, 100.0 * tier.getHitRate(), tier.columns,
+                    tier.getAverageMillis()));
+        }
+        return sb.toString();
+    }
+
+    // per-tier counters: a hit is a call that returned columns
+    public static class Tier {
+        private final String name;
+        private final PricingEngine engine;
+        private int calls;
+        private int hits;
+        private long columns;
+        private long nanos;
+
+        Tier(String name, PricingEngine engine) {
+            this.name = name;
+            this.engine = engine;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+
+        public int getHits() {
+            return hits;
+        }
+
+        public long getColumns() {
+            return columns;
+        }
+
+        public double getHitRate() {
+            return calls == 0 ? 0.0 : (double) hits / calls;
+        }
+
+        public double getAverageMillis() {
+            return calls == 0 ? 0.0 : nanos / 1e6 / calls;
+        }
+    }
+}
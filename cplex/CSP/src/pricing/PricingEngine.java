@@ -0,0 +1,41 @@
+package pricing;
+
+import model.Pairing;
+
+import java.util.List;
+
+/*
+ * common contract for the pricing subproblem: given the duals of the RMP flight
+ * coverage rows (indexed like the FlightTable), return pairings with negative reduced cost
+ */
+public interface PricingEngine {
+    List<Pairing> solve(double[] duals);
+
+    // upper bound on the columns the solver will take from one call, engines may use it to
+    // keep only the best ones
+    default void setColumnLimit(int maxColumns) {
+    }
+
+    // upper bound on the number of pairings in any feasible partition (used by the
+    // Lagrangian bound); every pairing covers a flight, so the flight count is always valid
+    default int getMaxPairings(int flightCount) {
+        return flightCount;
+    }
+
+    // duals of the RMP capacity rows, indexed by airport id (empty without such rows): a
+    // pairing's reduced cost also loses the dual of its base, engines charge it with the
+    // fixed cost so that it counts in their cuts and their ranking
+    default void setCapacityDuals(double[] byAirport) {
+    }
+
+    // whether the last solve searched every pairing, so an empty result proves LP optimality
+    // and the most negative reduced cost gives a valid lower bound
+    default boolean isLastSolveExact() {
+        return true;
+    }
+
+    // search effort over all solves so far; engines that do not count report zeros
+    default SearchCounters getCounters() {
+        return new SearchCounters();
+    }
+}
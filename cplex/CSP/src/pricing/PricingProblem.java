@@ -1,43 +1,72 @@
 package pricing;
 
 import model.Flight;
+import model.FlightTable;
 import model.Pairing;
-import util.TimeUtils;
+import network.ConnectionNetwork;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-import java.time.LocalTime;
-import java.util.Map;
 
-public class PricingProblem {
-    private List<Flight> allFlights;
+/*
+ * Pairing rules and costs over a connection network, and the DFS pricing engine.
+ *
+ * By default a pairing is one duty: it leaves base, flies at most maxDuty hours of elapsed
+ * time and maxFlying hours, and lands back at base. With setDutyRules a pairing may be
+ * several duties: a connection of at least minRest hours is a rest that closes one duty
+ * and opens the next, allowed away from base only (a crew at base goes home). Duty and
+ * flying limits, the fixed cost and overtime then apply per duty, each rest adds the
+ * layover cost and the night penalty still applies once per pairing. Multi-day pairings
+ * need a dated FlightTable, so that rests can run past midnight.
+ */
+public class PricingProblem implements PricingEngine, StartFlightPricer {
+    // duty hours above which the overtime penalty applies
+    static final double OVERTIME_THRESHOLD_HOURS = 8.0;
+
+    private ConnectionNetwork network;
+    private FlightTable table;
     private String base;
+    private int baseId;
+    private int[] startFlights;
+    private boolean[] noEnd; // flights that may not close a pairing, null if all may
+    private volatile boolean[] isStart; // startFlights as flags, built on first recost
+    private volatile CompletionIndex completion; // built on first pricing
+    private final SearchCounters counters = new SearchCounters();
 
     // constraints
     private double maxDutyHours;
     private double maxFlyingHours;
-    private long minTurnaroundMin;
-    private boolean allowOvernight;
 
     // cost parameters
     private double fixedCost;
+    private volatile double baseDual; // of the base's capacity row, <= 0
     private double hourlyCost;
     private double nightPenalty;
     private double overtimePenaltyPerHour;
 
+    // duty rules, one duty per pairing unless set
+    private int maxDuties = 1;
+    private int minRestMin = Integer.MAX_VALUE;
+    private double layoverCost;
+
     public PricingProblem(List<Flight> allFlights, String base, double maxDutyHours, double maxFlyingHours,
                           long minTurnaroundMin, boolean allowOvernight, double fixedCost, double hourlyCost, double nightPenalty, double overtimePenaltyPerHour) {
-        this.allFlights = new ArrayList<>(allFlights);
-        // sort flights by departure time
-        this.allFlights.sort(Comparator.comparing(Flight::getDepTime));
+        this(new ConnectionNetwork(allFlights, minTurnaroundMin, allowOvernight), base, maxDutyHours, maxFlyingHours,
+                fixedCost, hourlyCost, nightPenalty, overtimePenaltyPerHour);
+    }
+
+    // shares a prebuilt connection network (turnaround and overnight rules are part of it)
+    public PricingProblem(ConnectionNetwork network, String base, double maxDutyHours, double maxFlyingHours,
+                          double fixedCost, double hourlyCost, double nightPenalty, double overtimePenaltyPerHour) {
+        this.network = network;
+        this.table = network.getTable();
 
         this.base = base;
+        this.baseId = table.getAirports().idOf(base);
+        this.startFlights = Arrays.stream(network.getDepartureOrder()).filter(i -> table.from(i) == baseId).toArray();
         this.maxDutyHours = maxDutyHours;
         this.maxFlyingHours = maxFlyingHours;
-        this.minTurnaroundMin = minTurnaroundMin;
-        this.allowOvernight = allowOvernight;
 
         this.fixedCost = fixedCost;
         this.hourlyCost = hourlyCost;
@@ -45,112 +74,289 @@ public class PricingProblem {
         this.overtimePenaltyPerHour = overtimePenaltyPerHour;
     }
 
+    /*
+     * same rules and costs over another network (a filtered or updated copy of this one),
+     * where the flagged flights may not start or end a pairing; either array may be null
+     */
+    public PricingProblem restrict(ConnectionNetwork restricted, boolean[] noStart, boolean[] noEnd) {
+        PricingProblem p = derive(restricted, base);
+        if (noStart != null) {
+            p.startFlights = Arrays.stream(p.startFlights).filter(i -> !noStart[i]).toArray();
+        }
+        p.noEnd = noEnd;
+        return p;
+    }
+
+    /*
+     * the same rules and costs for another crew base, over its own connection graph: only
+     * flights that can be reached from a departure out of that base and can still get back
+     * to it keep their connections. With ownFlightsOnly the graph is further limited to the
+     * flights whose Base column names that base.
+     */
+    public PricingProblem forBase(String otherBase, boolean ownFlightsOnly) {
+        int id = table.getAirports().idOf(otherBase);
+        if (id < 0)
+            throw new IllegalArgumentException("Unknown base: " + otherBase);
+        int n = table.size();
+        boolean[] allowed = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            allowed[i] = !ownFlightsOnly || table.base(i) == id;
+        }
+
+        // forward from the departures out of the base
+        boolean[] reached = new boolean[n];
+        int[] stack = new int[n];
+        int top = 0;
+        for (int i = 0; i < n; i++) {
+            if (allowed[i] && table.from(i) == id) {
+                reached[i] = true;
+                stack[top++] = i;
+            }
+        }
+        List<List<Integer>> predecessors = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            predecessors.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j : network.getSuccessors(i)) {
+                predecessors.get(j).add(i);
+            }
+        }
+        while (top > 0) {
+            int i = stack[--top];
+            for (int j : network.getSuccessors(i)) {
+                if (allowed[j] && !reached[j]) {
+                    reached[j] = true;
+                    stack[top++] = j;
+                }
+            }
+        }
+
+        // backward from the arrivals into the base
+        boolean[] returns = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            if (reached[i] && table.to(i) == id) {
+                returns[i] = true;
+                stack[top++] = i;
+            }
+        }
+        while (top > 0) {
+            int j = stack[--top];
+            for (int i : predecessors.get(j)) {
+                if (reached[i] && !returns[i]) {
+                    returns[i] = true;
+                    stack[top++] = i;
+                }
+            }
+        }
+
+        ConnectionNetwork own = network.filter((from, to) -> returns[from] && returns[to]);
+        PricingProblem p = derive(own, otherBase);
+        // a departure that can never get back is no start
+        p.startFlights = Arrays.stream(p.startFlights).filter(i -> returns[i]).toArray();
+        return p;
+    }
+
+    // same rules and costs over another network and base
+    private PricingProblem derive(ConnectionNetwork other, String otherBase) {
+        PricingProblem p = new PricingProblem(other, otherBase, maxDutyHours, maxFlyingHours,
+                fixedCost, hourlyCost, nightPenalty, overtimePenaltyPerHour);
+        p.maxDuties = maxDuties;
+        p.minRestMin = minRestMin;
+        p.layoverCost = layoverCost;
+        return p;
+    }
+
+    /*
+     * pairings of up to maxDuties duties, separated by connections of at least minRestHours
+     * at an outstation, each costing layoverCost; maxDuties = 1 restores single-duty pairings
+     */
+    public void setDutyRules(int maxDuties, double minRestHours, double layoverCost) {
+        if (maxDuties < 1)
+            throw new IllegalArgumentException("A pairing needs at least one duty: " + maxDuties);
+        this.maxDuties = maxDuties;
+        this.minRestMin = maxDuties == 1 ? Integer.MAX_VALUE : (int) Math.round(minRestHours * 60);
+        this.layoverCost = layoverCost;
+    }
+
+    // every pairing starts with its own flight out of base
+    @Override
+    public int getMaxPairings(int flightCount) {
+        return Math.min(flightCount, startFlights.length);
+    }
+
     /*
      * solves the RCSP(Resource Constrained Shortest Path) to find pairings with negative reduced cost.
      * 
-     * dual values from RMP(Restricted Master Problem), indexed corresponding to allFlights list (or map)
+     * dual values from RMP(Restricted Master Problem), indexed like the FlightTable (one per coverage row)
      *
      * list of generated pairings
      */
-    public List<Pairing> solve(Map<String, Double> dualMap) {
+    @Override
+    public List<Pairing> solve(double[] duals) {
         List<Pairing> newColumns = new ArrayList<>();
+        ColumnSink sink = (path, length, cost, redCost) -> newColumns.add(createPairing(path, length, cost));
 
         // simple DFS approach to find valid pairings
         // start from any flight departing from BASE
-        for (Flight f : allFlights) {
-            if (f.getFrom().equals(base)) {
-                List<Flight> path = new ArrayList<>();
-                path.add(f);
-                dfs(f, path, f.getDurationHours(), dualMap, newColumns);
-            }
+        CompletionIndex.Gains gains = completionGains(duals);
+        for (int start : startFlights) {
+            priceFrom(start, duals, gains, sink);
         }
 
         return newColumns;
     }
 
-    // we need duals by Flight ID probably, or index. Map<flight_ID, duals> dualMap
-    // overloading to match what I wrote above (which might mismatch RMP if RMP uses index)
-    // RMP uses List<Flight>, so I can map index to ID. Let's assume RMP passes a Map.
+    // flights departing from base, in departure order
+    @Override
+    public int[] getStartFlights() {
+        return startFlights;
+    }
 
-    private void dfs(Flight current, List<Flight> currentPath, double currentFlyingTime,
-            Map<String, Double> duals, List<Pairing> solutions) {
+    @Override
+    public CompletionIndex.Gains completionGains(double[] duals) {
+        return getCompletionIndex().gains(duals);
+    }
 
-        // check if we can close the pairing to Base
-        if (current.getTo().equals(base)) {
-            // crheck full duty validity & Cost
-            double dutyTime = calculateDutyTime(currentPath);
-            if (dutyTime <= maxDutyHours) {
-                Pairing p = createPairing(currentPath);
-                double redCost = calculateReducedCost(p, duals);
-                if (redCost < -0.0001) { // negative reduced cost
-                    solutions.add(p);
-                }
-            }
+    // DFS over the subtree of pairings starting with this flight; gains may be null
+    @Override
+    public void priceFrom(int start, double[] duals, CompletionIndex.Gains gains, ColumnSink sink) {
+        CompletionIndex index = getCompletionIndex();
+        long[] counts = new long[SearchCounters.SLOTS];
+        double partial = arcCost(start, duals);
+        if (!index.canComplete(start, table.durationHours(start), network.getFlightMinutes(start), maxDuties > 1)) {
+            counts[SearchCounters.UNCLOSABLE]++;
+        } else if (gains != null && gains.cuts(partial + getChargedFixedCost(), start, network.getFlightMinutes(start))) {
+            counts[SearchCounters.BOUNDED]++;
+        } else {
+            int[] path = new int[table.size()];
+            path[0] = start;
+            dfs(path, 1, table.durationHours(start), network.getFlightMinutes(start), 1, partial, duals, gains, sink,
+                    counts);
         }
+        counters.add(counts);
+    }
 
-        // try to extend
-        for (Flight next : allFlights) {
-            if (isValidConnection(current, next)) {
-                // check flying time
-                if (currentFlyingTime + next.getDurationHours() <= maxFlyingHours) {
-                    // check duty time
-                    // assuming single duty day for simplicity unless overnight allowed.
-
-                    // if overnight not allowed, next flight must be same day (dep > arr)
-                    // TimeUtils handles times. If next.dep < current.arr, it implies next day (or impossible same day).
-
-                    currentPath.add(next);
-                    dfs(next, currentPath, currentFlyingTime + next.getDurationHours(), duals, solutions);
-                    currentPath.remove(currentPath.size() - 1);
+    // the backward completion index of this problem's network and rules
+    CompletionIndex getCompletionIndex() {
+        CompletionIndex index = completion;
+        if (index == null) {
+            synchronized (this) {
+                index = completion;
+                if (index == null) {
+                    index = new CompletionIndex(this);
+                    completion = index;
                 }
             }
         }
+        return index;
+    }
+
+    // the flight's share of a partial reduced cost: its cost and flying hours, less its dual
+    double arcCost(int flight, double[] duals) {
+        return table.cost(flight) + table.durationHours(flight) * hourlyCost - duals[flight];
+    }
+
+    @Override
+    public SearchCounters getCounters() {
+        return counters;
     }
 
-    private boolean isValidConnection(Flight f1, Flight f2) {
-        // location connection
-        if (!f1.getTo().equals(f2.getFrom()))
-            return false;
+    /*
+     * path[0..depth) is the current partial pairing, as flight indices; dutyFly and dutyMin
+     * are the flying and elapsed time of its current duty, the duties-th one. Elapsed time
+     * only grows, so a duty past max duty is cut: without that, connections after an
+     * overnight flight would let it run on for days (and revisit flights) while its wrapped
+     * duty time still looked short. partial is the reduced cost of the path without the
+     * fixed cost, night penalty and overtime of its current duty; an extension is also cut
+     * when its duty can no longer end within the limits or, with gains, when no completion
+     * can price out (see CompletionIndex).
+     */
+    private void dfs(int[] path, int depth, double dutyFly, int dutyMin, int duties, double partial, double[] duals,
+                     CompletionIndex.Gains gains, ColumnSink solutions, long[] counts) {
+        int current = path[depth - 1];
+        counts[SearchCounters.EXPANDED]++;
+        CompletionIndex index = completion;
 
-        // time connection
-        long turn = TimeUtils.minutesBetween(f1.getArrTime(), f2.getDepTime());
-        if (turn < minTurnaroundMin)
-            return false;
+        // check if we can close the pairing to Base (every duty is within max duty already)
+        if (canClose(current)) {
+            double cost = calculateCost(path, depth);
+            double redCost = calculateReducedCost(cost, path, depth, duals);
+            if (redCost < -0.0001) { // negative reduced cost
+                solutions.accept(path, depth, cost, redCost);
+            }
+        }
 
-        // If times loop around (e.g. 23:00 -> 01:00), turn might be calculated as
-        // negative or large?
-        // simple TimeUtils.minutesBetween implies same day if we just use LocalTime.
-        // If f2.dep < f1.arr, it's next day.
-        if (f2.getDepTime().isBefore(f1.getArrTime())) {
-            if (!allowOvernight)
-                return false;
+        // try to extend, only along real connections
+        int[] successors = network.getSuccessors(current);
+        int[] turns = network.getTurnMinutes(current);
+        counts[SearchCounters.GENERATED] += successors.length;
+        for (int k = 0; k < successors.length; k++) {
+            int next = successors[k];
+            boolean rest = isRest(turns[k]);
+            if (rest && !canRestAfter(current, duties)) {
+                counts[SearchCounters.PRUNED]++;
+                continue;
+            }
+            double fly = (rest ? 0 : dutyFly) + table.durationHours(next);
+            int elapsed = (rest ? 0 : dutyMin + turns[k]) + network.getFlightMinutes(next);
+            // check flying time and duty time
+            if (fly > maxFlyingHours || elapsed > maxDutyHours * 60) {
+                counts[SearchCounters.PRUNED]++;
+                continue;
+            }
+            int nextDuties = rest ? duties + 1 : duties;
+            if (!index.canComplete(next, fly, elapsed, nextDuties < maxDuties)) {
+                counts[SearchCounters.UNCLOSABLE]++;
+                continue;
+            }
+            double nextPartial = partial + arcCost(next, duals) + (rest ? dutyCost(dutyMin) + layoverCost : 0);
+            if (gains != null && gains.cuts(nextPartial + getChargedFixedCost(), next, elapsed)) {
+                counts[SearchCounters.BOUNDED]++;
+                continue;
+            }
+            path[depth] = next;
+            dfs(path, depth + 1, fly, elapsed, nextDuties, nextPartial, duals, gains, solutions, counts);
         }
-        return true;
     }
 
-    private double calculateDutyTime(List<Flight> path) {
-        if (path.isEmpty())
-            return 0;
-        LocalTime start = path.get(0).getDepTime();
-        LocalTime end = path.get(path.size() - 1).getArrTime();
+    // the flight lands at base and may end a pairing
+    boolean canClose(int flight) {
+        return table.to(flight) == baseId && (noEnd == null || !noEnd[flight]);
+    }
 
-        long mins = TimeUtils.minutesBetween(start, end);
-        // Handle overnight (if end < start, add 24h)
-        if (end.isBefore(start)) {
-            mins += 24 * 60;
-        }
-        return mins / 60.0;
+    // a connection of this many minutes is a rest between two duties
+    boolean isRest(int turnMin) {
+        return turnMin >= minRestMin;
+    }
+
+    // the crew may rest after this flight: it has a duty left and is away from base
+    boolean canRestAfter(int flight, int duties) {
+        return duties < maxDuties && table.to(flight) != baseId;
     }
 
-    private Pairing createPairing(List<Flight> path) {
+    double calculateCost(int[] path, int length) {
         double cost = 0;
         double flyingTime = 0;
         boolean hasNight = false;
+        int dutyMin = 0;
+        double earlierDuties = 0; // duties closed by a rest, with their layovers
 
-        for (Flight f : path) {
-            cost += f.getFlightCost();
-            flyingTime += f.getDurationHours();
-            if (f.isNight())
+        for (int k = 0; k < length; k++) {
+            int f = path[k];
+            if (k > 0) {
+                int turn = table.connectionMinutes(path[k - 1], f);
+                if (isRest(turn)) {
+                    earlierDuties += dutyCost(dutyMin) + layoverCost;
+                    dutyMin = 0;
+                } else {
+                    dutyMin += turn;
+                }
+            }
+            dutyMin += table.blockMinutes(f);
+            cost += table.cost(f);
+            flyingTime += table.durationHours(f);
+            if (table.isNight(f))
                 hasNight = true;
         }
 
@@ -158,9 +364,20 @@ public class PricingProblem {
         cost += (flyingTime * hourlyCost);
         if (hasNight)
             cost += nightPenalty;
+        cost += overtimeCost(dutyMin); // last (or only) duty
+        return cost + earlierDuties;
+    }
+
+    // fixed cost and overtime of one duty of this many elapsed minutes
+    double dutyCost(int dutyMin) {
+        return fixedCost + overtimeCost(dutyMin);
+    }
+
+    double overtimeCost(int dutyMin) {
+        double cost = 0;
 
         // Overtime
-        double duty = calculateDutyTime(path);
+        double duty = dutyMin / 60.0;
         // Assuming overtime threshold is standard (e.g. > 8 hours or something? prompt
         // says "Overtime penalty per hour")
         // But prompt input asks "Overtime penalty per hour" without specifying
@@ -171,20 +388,153 @@ public class PricingProblem {
         // specified.
         // Prompt just says "Overtime penalty (if duty exceeds threshold)". Let's assume
         // threshold = 8h.
-        if (duty > 8.0) {
-            cost += (duty - 8.0) * overtimePenaltyPerHour;
+        if (duty > OVERTIME_THRESHOLD_HOURS) {
+            cost += (duty - OVERTIME_THRESHOLD_HOURS) * overtimePenaltyPerHour;
         }
 
-        return new Pairing(path, cost);
+        return cost;
     }
 
-    private double calculateReducedCost(Pairing p, java.util.Map<String, Double> duals) {
+    /*
+     * cost of the pairing that flies these flights in order, or NaN if it is not one this
+     * problem would generate (wrong base, missing connection, a duty or rest rule broken);
+     * checks columns that were not priced here, e.g. from a ColumnCache
+     */
+    public double recost(int[] path) {
+        int length = path.length;
+        if (length == 0 || !isStart(path[0]) || !canClose(path[length - 1]))
+            return Double.NaN;
+        double dutyFly = table.durationHours(path[0]);
+        int dutyMin = network.getFlightMinutes(path[0]);
+        int duties = 1;
+        for (int k = 1; k < length; k++) {
+            int current = path[k - 1];
+            int next = path[k];
+            int[] successors = network.getSuccessors(current);
+            int arc = 0;
+            while (arc < successors.length && successors[arc] != next) {
+                arc++;
+            }
+            if (arc == successors.length)
+                return Double.NaN;
+            int turn = network.getTurnMinutes(current)[arc];
+            boolean rest = isRest(turn);
+            if (rest && !canRestAfter(current, duties))
+                return Double.NaN;
+            dutyFly = (rest ? 0 : dutyFly) + table.durationHours(next);
+            dutyMin = (rest ? 0 : dutyMin + turn) + network.getFlightMinutes(next);
+            if (dutyFly > maxFlyingHours || dutyMin > maxDutyHours * 60)
+                return Double.NaN;
+            if (rest) {
+                duties++;
+            }
+        }
+        return calculateCost(path, length);
+    }
+
+    private boolean isStart(int flight) {
+        boolean[] starts = isStart;
+        if (starts == null) {
+            starts = new boolean[table.size()];
+            for (int i : startFlights) {
+                starts[i] = true;
+            }
+            isStart = starts;
+        }
+        return starts[flight];
+    }
+
+    /*
+     * hash of the base, limits, duty rules and cost parameters, and of the network's
+     * turnaround / overnight / connection rules: problems with equal fingerprints generate
+     * the same pairings at the same costs on the same flights
+     */
+    public long getRulesFingerprint() {
+        long h = FlightTable.mix(0, base.hashCode());
+        for (double v : new double[]{maxDutyHours, maxFlyingHours, fixedCost, hourlyCost, nightPenalty,
+                overtimePenaltyPerHour, layoverCost}) {
+            h = FlightTable.mix(h, Double.doubleToLongBits(v));
+        }
+        h = FlightTable.mix(h, maxDuties);
+        h = FlightTable.mix(h, minRestMin);
+        h = FlightTable.mix(h, network.getMinTurnaroundMin());
+        h = FlightTable.mix(h, network.isAllowOvernight() ? 1 : 0);
+        h = FlightTable.mix(h, network.getMaxConnectionMin());
+        return FlightTable.mix(h, noEnd == null ? 0 : Arrays.hashCode(noEnd));
+    }
+
+    double calculateReducedCost(double cost, int[] path, int length, double[] duals) {
         double dualSum = 0;
-        for (Flight f : p.getFlights()) {
-            dualSum += duals.getOrDefault(f.getFlightId(), 0.0);
+        for (int k = 0; k < length; k++) {
+            dualSum += duals[path[k]];
         }
-        return p.getCost() - dualSum;
+        return cost - dualSum - baseDual;
     }
 
-    // Helper to facilitate Mapping
+    // only materialize Flight objects for the pairings that are returned
+    @Override
+    public Pairing createPairing(int[] path, int length, double cost) {
+        List<Flight> flights = new ArrayList<>(length);
+        for (int k = 0; k < length; k++) {
+            flights.add(table.getFlight(path[k]));
+        }
+        return new Pairing(flights, Arrays.copyOf(path, length), cost);
+    }
+
+    public ConnectionNetwork getNetwork() {
+        return network;
+    }
+
+    // accessors shared with the other pricing engines in this package
+
+    String getBase() {
+        return base;
+    }
+
+    int getBaseId() {
+        return baseId;
+    }
+
+    double getMaxDutyHours() {
+        return maxDutyHours;
+    }
+
+    double getMaxFlyingHours() {
+        return maxFlyingHours;
+    }
+
+    double getFixedCost() {
+        return fixedCost;
+    }
+
+    // what every pairing's reduced cost carries besides its flights and duties: the fixed
+    // cost and, with a capacity row at the base, minus its dual
+    double getChargedFixedCost() {
+        return fixedCost - baseDual;
+    }
+
+    @Override
+    public void setCapacityDuals(double[] byAirport) {
+        baseDual = baseId >= 0 && baseId < byAirport.length ? byAirport[baseId] : 0.0;
+    }
+
+    double getHourlyCost() {
+        return hourlyCost;
+    }
+
+    double getNightPenalty() {
+        return nightPenalty;
+    }
+
+    double getOvertimePenaltyPerHour() {
+        return overtimePenaltyPerHour;
+    }
+
+    double getLayoverCost() {
+        return layoverCost;
+    }
+
+    int getMaxDuties() {
+        return maxDuties;
+    }
 }
@@ -0,0 +1,170 @@
+package pricing;
+
+import model.FlightTable;
+import model.Pairing;
+import network.ConnectionNetwork;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Heuristic pricing over a thinned connection network: every flight keeps only its
+ * successorsPerFlight cheapest connections under the current duals, and pairings are cut
+ * at maxDepth flights (0 disables either limit). One successor gives a greedy best-dual
+ * extension, a handful gives a restricted graph search and no successor limit with a small
+ * depth gives a bounded-depth search.
+ *
+ * Whatever it returns is a valid negative reduced cost column, but an empty result proves
+ * nothing, so it is never exact. Duty time is measured as elapsed time like in the label
+ * engine, and restarts after a rest when pairings may have several duties. The exact
+ * engines' completion cuts (CompletionIndex) apply here too.
+ */
+public class RestrictedPricing implements PricingEngine {
+    private final PricingProblem problem;
+    private final ConnectionNetwork network;
+    private final FlightTable table;
+    private final int successorsPerFlight;
+    private final int maxDepth;
+    private int columnLimit = Integer.MAX_VALUE;
+    private final SearchCounters counters = new SearchCounters();
+
+    public RestrictedPricing(PricingProblem problem, int successorsPerFlight, int maxDepth) {
+        this.problem = problem;
+        this.network = problem.getNetwork();
+        this.table = network.getTable();
+        this.successorsPerFlight = successorsPerFlight;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public void setColumnLimit(int maxColumns) {
+        this.columnLimit = maxColumns;
+    }
+
+    @Override
+    public int getMaxPairings(int flightCount) {
+        return Math.min(flightCount, problem.getStartFlights().length);
+    }
+
+    @Override
+    public void setCapacityDuals(double[] byAirport) {
+        problem.setCapacityDuals(byAirport);
+    }
+
+    @Override
+    public boolean isLastSolveExact() {
+        return false;
+    }
+
+    @Override
+    public List<Pairing> solve(double[] duals) {
+        int n = table.size();
+        double[] arcCost = new double[n];
+        for (int i = 0; i < n; i++) {
+            arcCost[i] = problem.arcCost(i, duals);
+        }
+        CompletionIndex index = problem.getCompletionIndex();
+        CompletionIndex.Gains gains = problem.completionGains(duals);
+
+        // positions (into the network successor lists) of the kept connections
+        int[][] kept = new int[n][];
+        for (int i = 0; i < n; i++) {
+            kept[i] = cheapestSuccessors(i, arcCost);
+        }
+
+        TopKColumns top = new TopKColumns(columnLimit);
+        int[] path = new int[maxDepth > 0 ? maxDepth : n];
+        long[] counts = new long[SearchCounters.SLOTS];
+        for (int start : problem.getStartFlights()) {
+            if (!index.canComplete(start, table.durationHours(start), network.getFlightMinutes(start),
+                    problem.getMaxDuties() > 1)) {
+                counts[SearchCounters.UNCLOSABLE]++;
+                continue;
+            }
+            if (gains != null
+                    && gains.cuts(arcCost[start] + problem.getChargedFixedCost(), start, network.getFlightMinutes(start))) {
+                counts[SearchCounters.BOUNDED]++;
+                continue;
+            }
+            path[0] = start;
+            search(path, 1, network.getFlightMinutes(start), table.durationHours(start), 1, arcCost[start], kept,
+                    index, arcCost, gains, duals, top, counts);
+        }
+        counters.add(counts);
+        return top.toPairings(problem);
+    }
+
+    @Override
+    public SearchCounters getCounters() {
+        return counters;
+    }
+
+    private int[] cheapestSuccessors(int flight, double[] arcCost) {
+        int[] next = network.getSuccessors(flight);
+        if (successorsPerFlight <= 0 || next.length <= successorsPerFlight) {
+            int[] all = new int[next.length];
+            for (int k = 0; k < all.length; k++) {
+                all[k] = k;
+            }
+            return all;
+        }
+        // stable on the departure order for equal costs
+        Integer[] order = new Integer[next.length];
+        for (int k = 0; k < order.length; k++) {
+            order[k] = k;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(arcCost[next[a]], arcCost[next[b]]));
+        int[] best = new int[successorsPerFlight];
+        for (int k = 0; k < best.length; k++) {
+            best[k] = order[k];
+        }
+        return best;
+    }
+
+    // elapsed and flyingHours count the current duty, the duties-th one; partial as in PricingProblem.dfs
+    private void search(int[] path, int depth, int elapsed, double flyingHours, int duties, double partial,
+                        int[][] kept, CompletionIndex index, double[] arcCost, CompletionIndex.Gains gains, double[] duals,
+                        ColumnSink sink, long[] counts) {
+        int current = path[depth - 1];
+        counts[SearchCounters.EXPANDED]++;
+
+        if (problem.canClose(current)) {
+            double cost = problem.calculateCost(path, depth);
+            double redCost = problem.calculateReducedCost(cost, path, depth, duals);
+            if (redCost < -0.0001) {
+                sink.accept(path, depth, cost, redCost);
+            }
+        }
+        if (depth == path.length)
+            return;
+
+        int[] next = network.getSuccessors(current);
+        int[] turns = network.getTurnMinutes(current);
+        counts[SearchCounters.GENERATED] += kept[current].length;
+        for (int k : kept[current]) {
+            int j = next[k];
+            boolean rest = problem.isRest(turns[k]);
+            double fly = (rest ? 0 : flyingHours) + table.durationHours(j);
+            int time = (rest ? 0 : elapsed + turns[k]) + network.getFlightMinutes(j);
+            if ((rest && !problem.canRestAfter(current, duties)) || fly > problem.getMaxFlyingHours()
+                    || time > problem.getMaxDutyHours() * 60.0) {
+                counts[SearchCounters.PRUNED]++;
+                continue;
+            }
+            int nextDuties = rest ? duties + 1 : duties;
+            if (!index.canComplete(j, fly, time, nextDuties < problem.getMaxDuties())) {
+                counts[SearchCounters.UNCLOSABLE]++;
+                continue;
+            }
+            double nextPartial = partial + arcCost[j]
+                    + (rest ? problem.dutyCost(elapsed) + problem.getLayoverCost() : 0);
+            if (gains != null && gains.cuts(nextPartial + problem.getChargedFixedCost(), j, time)) {
+                counts[SearchCounters.BOUNDED]++;
+                continue;
+            }
+            path[depth] = j;
+            search(path, depth + 1, time, fly, nextDuties, nextPartial, kept, index, arcCost, gains, duals, sink,
+                    counts);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pricing;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Search effort of a pricing engine, cumulative over all its solves:
+ *   expanded:  DFS nodes visited, labels taken off the queue
+ *   generated: extensions along a connection that were tried
+ *   pruned:    extensions cut by a rest, flying or duty limit, and labels dominated
+ *   unclosable: extensions cut by the CompletionIndex, their duty can no longer end
+ *              within the limits
+ *   bounded:   extensions cut by the completion bound, no pairing through them can
+ *              price out at the duals of the call
+ * A search counts in locals and adds them once at its end, so the counters cost nothing
+ * per node and one instance can be shared by the subtrees priced on several threads.
+ * Composite engines (cascade, parallel, multi-base) report the sum of their parts.
+ */
+public final class SearchCounters {
+    // slots of the long[] a search counts into
+    static final int EXPANDED = 0;
+    static final int GENERATED = 1;
+    static final int PRUNED = 2;
+    static final int UNCLOSABLE = 3;
+    static final int BOUNDED = 4;
+    static final int SLOTS = 5;
+
+    private final LongAdder expanded = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final LongAdder unclosable = new LongAdder();
+    private final LongAdder bounded = new LongAdder();
+
+    // one search's counts, indexed by the slots above
+    void add(long[] counts) {
+        expanded.add(counts[EXPANDED]);
+        generated.add(counts[GENERATED]);
+        pruned.add(counts[PRUNED]);
+        unclosable.add(counts[UNCLOSABLE]);
+        bounded.add(counts[BOUNDED]);
+    }
+
+    public void add(SearchCounters other) {
+        expanded.add(other.getExpanded());
+        generated.add(other.getGenerated());
+        pruned.add(other.getPruned());
+        unclosable.add(other.getUnclosable());
+        bounded.add(other.getBounded());
+    }
+
+    // the counts as they are now
+    public SearchCounters copy() {
+        SearchCounters copy = new SearchCounters();
+        copy.add(this);
+        return copy;
+    }
+
+    public long getExpanded() {
+        return expanded.sum();
+    }
+
+    public long getGenerated() {
+        return generated.sum();
+    }
+
+    public long getPruned() {
+        return pruned.sum();
+    }
+
+    public long getUnclosable() {
+        return unclosable.sum();
+    }
+
+    public long getBounded() {
+        return bounded.sum();
+    }
+}
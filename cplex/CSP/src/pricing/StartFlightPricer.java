@@ -0,0 +1,24 @@
+package pricing;
+
+import model.Pairing;
+
+/*
+ * engines whose search decomposes into independent subtrees, one per flight departing
+ * from base, so the subtrees can be priced in parallel
+ */
+interface StartFlightPricer {
+    // flights departing from base, in departure order
+    int[] getStartFlights();
+
+    // see PricingEngine.setCapacityDuals
+    void setCapacityDuals(double[] byAirport);
+
+    // the completion gains of these duals (CompletionIndex.gains), shared by the subtrees
+    CompletionIndex.Gains completionGains(double[] duals);
+
+    void priceFrom(int start, double[] duals, CompletionIndex.Gains gains, ColumnSink sink);
+
+    Pairing createPairing(int[] path, int length, double cost);
+
+    SearchCounters getCounters();
+}
@@ -0,0 +1,80 @@
+package pricing;
+
+import model.Pairing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+ * Bounded pool of the k best columns by reduced cost, shared by the pricing workers.
+ *
+ * Ties on reduced cost are broken on the flight index sequence, so the kept set only
+ * depends on which paths were offered, never on the order the workers offered them in.
+ */
+class TopKColumns implements ColumnSink {
+    private static final Comparator<Candidate> ORDER = (a, b) -> {
+        int c = Double.compare(a.reducedCost, b.reducedCost);
+        if (c != 0)
+            return c;
+        return Arrays.compare(a.path, b.path);
+    };
+
+    private final int capacity;
+    // worst kept candidate on top
+    private final PriorityQueue<Candidate> heap = new PriorityQueue<>(ORDER.reversed());
+    // reduced cost of the worst kept candidate once full, lets workers reject without locking
+    private volatile double threshold = Double.POSITIVE_INFINITY;
+
+    TopKColumns(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void accept(int[] path, int length, double cost, double reducedCost) {
+        if (reducedCost > threshold)
+            return;
+        Candidate candidate = new Candidate(Arrays.copyOf(path, length), cost, reducedCost);
+        synchronized (heap) {
+            if (heap.size() < capacity) {
+                heap.add(candidate);
+            } else if (ORDER.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            } else {
+                return;
+            }
+            if (heap.size() == capacity) {
+                threshold = heap.peek().reducedCost;
+            }
+        }
+    }
+
+    // kept columns, most negative reduced cost first
+    List<Pairing> toPairings(StartFlightPricer pricer) {
+        List<Candidate> sorted;
+        synchronized (heap) {
+            sorted = new ArrayList<>(heap);
+        }
+        sorted.sort(ORDER);
+        List<Pairing> pairings = new ArrayList<>(sorted.size());
+        for (Candidate c : sorted) {
+            pairings.add(pricer.createPairing(c.path, c.path.length, c.cost));
+        }
+        return pairings;
+    }
+
+    private static class Candidate {
+        final int[] path;
+        final double cost;
+        final double reducedCost;
+
+        Candidate(int[] path, double cost, double reducedCost) {
+            this.path = path;
+            this.cost = cost;
+            this.reducedCost = reducedCost;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The little JSON the solve service speaks, without a library: parse() reads objects as
+ * LinkedHashMap, arrays as List, numbers as BigDecimal (so 50 stays "50", not "50.0"),
+ * strings, booleans and null; Builder writes one object, non-finite numbers as null.
+ */
+final class Json {
+    private final String text;
+    private int pos;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipSpace();
+        if (json.pos < text.length())
+            throw json.error("unexpected " + text.charAt(json.pos));
+        return value;
+    }
+
+    // the text must be one object
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map))
+            throw new IllegalArgumentException("Expected a JSON object");
+        return (Map<String, Object>) value;
+    }
+
+    static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static String value(Object value) {
+        if (value == null)
+            return "null";
+        if (value instanceof String)
+            return quote((String) value);
+        if (value instanceof Double && !Double.isFinite((Double) value))
+            return "null";
+        return String.valueOf(value);
+    }
+
+    private Object value() {
+        skipSpace();
+        if (pos >= text.length())
+            throw error("unexpected end");
+        char c = text.charAt(pos);
+        switch (c) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                return number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+        skipSpace();
+        if (peek('}'))
+            return map;
+        do {
+            skipSpace();
+            if (pos >= text.length() || text.charAt(pos) != '"')
+                throw error("expected a key");
+            String key = string();
+            skipSpace();
+            expect(':');
+            map.put(key, value());
+            skipSpace();
+        } while (peek(','));
+        expect('}');
+        return map;
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        pos++;
+        skipSpace();
+        if (peek(']'))
+            return list;
+        do {
+            list.add(value());
+            skipSpace();
+        } while (peek(','));
+        expect(']');
+        return list;
+    }
+
+    private String string() {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while (true) {
+            if (pos >= text.length())
+                throw error("unterminated string");
+            char c = text.charAt(pos++);
+            if (c == '"')
+                return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= text.length())
+                throw error("unterminated string");
+            char e = text.charAt(pos++);
+            switch (e) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > text.length())
+                        throw error("bad \\u escape");
+                    try {
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("bad \\u escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    sb.append(e); // \" \\ \/
+            }
+        }
+    }
+
+    private BigDecimal number() {
+        int from = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        try {
+            return new BigDecimal(text.substring(from, pos));
+        } catch (NumberFormatException e) {
+            throw error("bad value");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, pos))
+            throw error("bad value");
+        pos += word.length();
+        return value;
+    }
+
+    private boolean peek(char c) {
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        skipSpace();
+        if (!peek(c))
+            throw error("expected " + c);
+    }
+
+    private void skipSpace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Bad JSON at " + pos + ": " + message);
+    }
+
+    // one object, fields in the order they are added
+    static final class Builder {
+        private final StringBuilder sb = new StringBuilder("{");
+
+        Builder field(String name, Object value) {
+            return raw(name, value(value));
+        }
+
+        // value is JSON already, e.g. a nested object
+        Builder raw(String name, String json) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(quote(name)).append(':').append(json);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString() + "}";
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package service;
+
+import batch.Scenario;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Load-test client of the SolveService (Main loadtest): uploads one schedule, then keeps
+ * clients jobs in flight until jobs have finished. Each client submits a job (waiting and
+ * retrying while the service answers 503), polls it until it finishes and submits the
+ * next one. Reports throughput and the percentiles of the latency from submit to the
+ * poll that saw the job finished, and of the queue wait and run time the service measured.
+ *
+ *   --url u          service (default http://localhost:8080)
+ *   --file path      schedule to upload (default data/flights.csv)
+ *   --jobs n         jobs to run (default 20)
+ *   --clients n      jobs in flight at once (default 4)
+ *   --poll-ms n      poll interval (default 20)
+ *   --<key> v        any Scenario key, sent with every job
+ */
+public class LoadTest {
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final String url;
+    private final long pollMillis;
+
+    private LoadTest(String url, long pollMillis) {
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.pollMillis = pollMillis;
+    }
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        } catch (InterruptedException e) {
+            System.err.println("Interrupted");
+            System.exit(1);
+        }
+    }
+
+    // returns the exit status: 0 if every job finished without an error
+    public static int run(String[] args) throws IOException, InterruptedException {
+        String url = "http://localhost:8080";
+        String file = "data/flights.csv";
+        int jobs = 20;
+        int clients = 4;
+        long poll = 20;
+        Json.Builder params = new Json.Builder();
+        for (Map.Entry<String, String> e : SolveService.parseFlags(args).entrySet()) {
+            switch (e.getKey()) {
+                case "url":
+                    url = e.getValue();
+                    break;
+                case "file":
+                    file = e.getValue();
+                    break;
+                case "jobs":
+                    jobs = Integer.parseInt(e.getValue());
+                    break;
+                case "clients":
+                    clients = Integer.parseInt(e.getValue());
+                    break;
+                case "poll-ms":
+                    poll = Long.parseLong(e.getValue());
+                    break;
+                default:
+                    if (!Scenario.isKey(e.getKey()))
+                        throw new IllegalArgumentException("Unknown option: --" + e.getKey());
+                    params.field(e.getKey(), e.getValue());
+            }
+        }
+        LoadTest test = new LoadTest(url, poll);
+
+        HttpResponse<String> upload = test.http.send(HttpRequest.newBuilder(URI.create(test.url + "/schedules"))
+                .POST(HttpRequest.BodyPublishers.ofFile(Path.of(file))).build(), HttpResponse.BodyHandlers.ofString());
+        Map<String, Object> schedule = Json.parseObject(upload.body());
+        if (upload.statusCode() >= 300)
+            throw new IOException("Upload failed: " + schedule.get("error"));
+        String body = params.field("schedule", schedule.get("schedule")).toString();
+        System.err.printf("Uploaded %s: %s flights%s%n", schedule.get("schedule"), schedule.get("flights"),
+                Boolean.TRUE.equals(schedule.get("cached")) ? " (cached)" : "");
+
+        List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger remaining = new AtomicInteger(jobs);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        for (int c = 0; c < Math.max(1, clients); c++) {
+            Thread t = new Thread(() -> {
+                try {
+                    while (remaining.getAndDecrement() > 0) {
+                        samples.add(test.runJob(body, rejected));
+                    }
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    failures.add(e);
+                }
+            }, "load-client-" + (c + 1));
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (!failures.isEmpty())
+            throw new IOException("Client failed: " + failures.get(0).getMessage(), failures.get(0));
+
+        int errors = 0;
+        List<Long> latency = new ArrayList<>();
+        List<Long> queued = new ArrayList<>();
+        List<Long> run = new ArrayList<>();
+        for (Sample s : samples) {
+            if (!s.status.equals("done")) {
+                errors++;
+                System.err.printf("Job %s %s: %s%n", s.job, s.status, s.error);
+            }
+            latency.add(s.latencyMillis);
+            queued.add(s.queuedMillis);
+            run.add(s.runMillis);
+        }
+        System.out.printf(Locale.ROOT, "%d jobs in %.2f s on %d clients: %.2f jobs/s, %d failed, %d rejected (retried)%n",
+                samples.size(), seconds, clients, samples.size() / seconds, errors, rejected.get());
+        System.out.println(percentiles("latency ms", latency));
+        System.out.println(percentiles("queued ms ", queued));
+        System.out.println(percentiles("run ms    ", run));
+        return errors == 0 ? 0 : 1;
+    }
+
+    // submits, polls until finished
+    private Sample runJob(String body, AtomicInteger rejected) throws IOException, InterruptedException {
+        long submit = System.nanoTime();
+        Map<String, Object> job;
+        while (true) {
+            HttpResponse<String> r = http.send(HttpRequest.newBuilder(URI.create(url + "/jobs"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+            job = Json.parseObject(r.body());
+            if (r.statusCode() != 503)
+                break;
+            rejected.incrementAndGet();
+            Thread.sleep(1000L * Integer.parseInt(r.headers().firstValue("Retry-After").orElse("1")));
+        }
+        if (job.get("job") == null)
+            throw new IOException("Submit failed: " + job.get("error"));
+        URI poll = URI.create(url + "/jobs/" + job.get("job"));
+        while (job.get("status").equals("queued") || job.get("status").equals("running")) {
+            Thread.sleep(pollMillis);
+            job = Json.parseObject(http.send(HttpRequest.newBuilder(poll).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+        }
+        Sample s = new Sample();
+        s.latencyMillis = (System.nanoTime() - submit) / 1_000_000;
+        s.job = String.valueOf(job.get("job"));
+        s.status = String.valueOf(job.get("status"));
+        s.error = job.get("error");
+        s.queuedMillis = millis(job.get("queued_ms"));
+        s.runMillis = millis(job.get("run_ms"));
+        return s;
+    }
+
+    private static long millis(Object value) {
+        return value instanceof BigDecimal ? ((BigDecimal) value).longValue() : 0;
+    }
+
+    // p50 / p90 / p99 / max, nearest rank
+    private static String percentiles(String label, List<Long> values) {
+        if (values.isEmpty())
+            return label + ": -";
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return String.format(Locale.ROOT, "%s: p50 %d | p90 %d | p99 %d | max %d", label, rank(sorted, 0.50),
+                rank(sorted, 0.90), rank(sorted, 0.99), sorted.get(sorted.size() - 1));
+    }
+
+    private static long rank(List<Long> sorted, double p) {
+        return sorted.get(Math.max(0, (int) Math.ceil(p * sorted.size()) - 1));
+    }
+
+    private static final class Sample {
+        String job;
+        String status;
+        Object error;
+        long latencyMillis;
+        long queuedMillis;
+        long runMillis;
+    }
+}
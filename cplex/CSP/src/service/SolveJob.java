@@ -0,0 +1,142 @@
+package service;
+
+import batch.BatchRunner;
+import batch.Scenario;
+import cg.IterationListener;
+import cg.IterationStats;
+
+import java.util.List;
+
+/*
+ * One scenario submitted to the SolveService: queued, then run on a worker by the
+ * BatchRunner of its schedule. It listens to its solver for progress (the latest
+ * IterationStats) and is the solver's cancellation. Fields a poll reads are volatile,
+ * the job is written by its worker only.
+ */
+final class SolveJob implements IterationListener, Runnable {
+    enum Status {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final Scenario scenario;
+    private final String scheduleId;
+    private final BatchRunner runner;
+    private final long submitted = System.currentTimeMillis();
+    private volatile long started;
+    private volatile long finished;
+    private volatile Status status = Status.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile IterationStats latest;
+    private volatile BatchRunner.Result result;
+
+    SolveJob(String id, Scenario scenario, String scheduleId, BatchRunner runner) {
+        this.id = id;
+        this.scenario = scenario;
+        this.scheduleId = scheduleId;
+        this.runner = runner;
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (status != Status.QUEUED)
+                return; // cancelled while queued
+            status = Status.RUNNING;
+            started = System.currentTimeMillis();
+        }
+        BatchRunner.Result r = runner.solve(scenario, this, () -> cancelRequested);
+        synchronized (this) {
+            result = r;
+            finished = System.currentTimeMillis();
+            if (cancelRequested) {
+                status = Status.CANCELLED;
+            } else {
+                status = r.getError() == null ? Status.DONE : Status.FAILED;
+            }
+        }
+    }
+
+    @Override
+    public void iteration(IterationStats stats) {
+        latest = stats;
+    }
+
+    /*
+     * a queued job will not run, a running one stops after its current iteration; returns
+     * false if the job had finished already
+     */
+    synchronized boolean cancel() {
+        if (status == Status.QUEUED) {
+            status = Status.CANCELLED;
+            finished = System.currentTimeMillis();
+            cancelRequested = true;
+            return true;
+        }
+        if (status != Status.RUNNING)
+            return false;
+        cancelRequested = true;
+        return true;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    Status getStatus() {
+        return status;
+    }
+
+    boolean isFinished() {
+        Status s = status;
+        return s != Status.QUEUED && s != Status.RUNNING;
+    }
+
+    // the job as GET /jobs/<id> returns it
+    String toJson() {
+        Status s = status;
+        long now = System.currentTimeMillis();
+        Json.Builder json = new Json.Builder()
+                .field("job", id)
+                .field("name", scenario.getName())
+                .field("schedule", scheduleId)
+                .field("status", s.name().toLowerCase());
+        long start = started;
+        long end = finished;
+        json.field("queued_ms", (start > 0 ? start : end > 0 ? end : now) - submitted);
+        if (start > 0) {
+            json.field("run_ms", (end > 0 ? end : now) - start);
+        }
+        IterationStats stats = latest;
+        if (stats != null) {
+            List<String> names = IterationStats.fieldNames();
+            Object[] values = stats.values();
+            Json.Builder progress = new Json.Builder();
+            for (int k = 0; k < values.length; k++) {
+                progress.field(names.get(k), values[k]);
+            }
+            json.raw("progress", progress.toString());
+        }
+        BatchRunner.Result r = result;
+        if (r != null && r.getError() != null) {
+            json.field("error", r.getError());
+        } else if (r != null) {
+            json.raw("result", new Json.Builder()
+                    .field("objective", r.getObjective())
+                    .field("lower_bound", r.getLowerBound())
+                    .field("gap", r.getRelativeGap())
+                    .field("iterations", r.getIterations())
+                    .field("stop_reason", r.getStopReason())
+                    .field("pairings", r.getPairings())
+                    .field("uncovered", r.getUncovered())
+                    .field("rmp_columns", r.getRmpColumns())
+                    .field("cached_columns", r.getCachedColumns())
+                    .field("network_ms", r.getNetworkMillis())
+                    .field("solve_ms", r.getSolveMillis())
+                    .field("rmp_ms", r.getRmpMillis())
+                    .field("pricing_ms", r.getPricingMillis())
+                    .toString());
+        }
+        return json.toString();
+    }
+}
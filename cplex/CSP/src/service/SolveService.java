@@ -0,0 +1,428 @@
+package service;
+
+import batch.BatchRunner;
+import batch.Scenario;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import master.LpBackendPool;
+import model.FlightTable;
+import util.BinarySchedule;
+import util.InputParser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Long-running local solve service (Main serve): HTTP/JSON on the loopback interface, so
+ * a planning tool can submit many solves without paying for a JVM start, a schedule parse
+ * and an LP environment each time.
+ *
+ *   POST   /schedules   body: a schedule file, CSV or binary; returns its id. The same
+ *                       bytes again are a hit in the cache of parsed schedules
+ *   POST   /jobs        body: {"schedule": id, "name": ..., <Scenario key>: value, ...},
+ *                       values as strings, numbers or booleans; 202 with the job id,
+ *                       503 when the queue is full
+ *   GET    /jobs/<id>   status, progress (the latest IterationStats) and result
+ *   DELETE /jobs/<id>   cancels: a queued job is dropped, a running one stops after its
+ *                       current iteration and reports what it had
+ *   GET    /status      workers, queue, caches and LP pool
+ *
+ * Jobs run on a fixed pool of workers behind a bounded queue. Each cached schedule keeps
+ * its BatchRunner, so the connection networks it built stay warm for the next job with
+ * the same rules; LP backends are borrowed from an LpBackendPool and cleared between jobs
+ * instead of being opened and closed. The least recently used schedule is dropped when
+ * the cache is full, the oldest finished jobs when more than keep are held.
+ *
+ *   --port n        (default 8080)
+ *   --workers n     jobs solved at the same time (default: available cores)
+ *   --queue n       jobs waiting for a worker (default 64)
+ *   --schedules n   parsed schedules kept (default 8)
+ *   --lp-pool n     idle LP backends kept per backend name (default: workers)
+ *   --keep n        finished jobs kept for polling (default 1000)
+ */
+public class SolveService implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final ThreadPoolExecutor workers;
+    private final LpBackendPool backends;
+    private final int maxSchedules;
+    private final int keep;
+    private final Map<String, Schedule> schedules = new LinkedHashMap<>(16, 0.75f, true); // LRU order
+    private final Map<String, SolveJob> jobs = new LinkedHashMap<>(); // submission order
+    private final AtomicLong nextJob = new AtomicLong();
+    private final AtomicInteger scheduleHits = new AtomicInteger();
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    public SolveService(int port, int workerCount, int queueCapacity, int maxSchedules, int maxIdleBackends,
+                        int keep) throws IOException {
+        this.maxSchedules = Math.max(1, maxSchedules);
+        this.keep = Math.max(1, keep);
+        this.backends = new LpBackendPool(maxIdleBackends);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "solve-worker-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        // requests are short (a schedule parse at most), the solves run on the workers
+        this.requests = Executors.newFixedThreadPool(4);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/schedules", ex -> handle(ex, this::schedules));
+        server.createContext("/jobs", ex -> handle(ex, this::jobs));
+        server.createContext("/status", ex -> handle(ex, this::status));
+        server.setExecutor(requests);
+    }
+
+    public static void main(String[] args) {
+        try {
+            Map<String, String> flags = parseFlags(args);
+            int workers = Runtime.getRuntime().availableProcessors();
+            int port = 8080;
+            int queue = 64;
+            int schedules = 8;
+            int keep = 1000;
+            Integer lpPool = null;
+            for (Map.Entry<String, String> e : flags.entrySet()) {
+                int value = Integer.parseInt(e.getValue());
+                switch (e.getKey()) {
+                    case "port":
+                        port = value;
+                        break;
+                    case "workers":
+                        workers = value;
+                        break;
+                    case "queue":
+                        queue = value;
+                        break;
+                    case "schedules":
+                        schedules = value;
+                        break;
+                    case "lp-pool":
+                        lpPool = value;
+                        break;
+                    case "keep":
+                        keep = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: --" + e.getKey());
+                }
+            }
+            SolveService service = new SolveService(port, Math.max(1, workers), queue, schedules,
+                    lpPool != null ? lpPool : workers, keep);
+            Runtime.getRuntime().addShutdownHook(new Thread(service::close));
+            service.start();
+            System.err.printf("Serving on http://localhost:%d (%d workers, queue %d)%n", service.getPort(),
+                    Math.max(1, workers), queue);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // stops taking requests, cancels the jobs and closes the idle LP backends
+    @Override
+    public void close() {
+        server.stop(0);
+        requests.shutdownNow();
+        synchronized (jobs) {
+            for (SolveJob job : jobs.values()) {
+                job.cancel();
+            }
+        }
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        backends.close();
+    }
+
+    private Response schedules(HttpExchange ex, String path) throws IOException {
+        if (!path.isEmpty())
+            return Response.error(404, "No such resource");
+        if (!ex.getRequestMethod().equals("POST"))
+            return Response.error(405, "Use POST");
+        byte[] body = ex.getRequestBody().readAllBytes();
+        if (body.length == 0)
+            return Response.error(400, "Empty schedule");
+        String id = digest(body);
+        synchronized (schedules) {
+            Schedule cached = schedules.get(id);
+            if (cached != null) {
+                scheduleHits.incrementAndGet();
+                return new Response(200, scheduleJson(id, cached, true));
+            }
+        }
+        // parsed outside the lock, two uploads of the same new schedule may both parse it
+        Schedule schedule = parse(body);
+        synchronized (schedules) {
+            schedules.putIfAbsent(id, schedule);
+            Iterator<Schedule> lru = schedules.values().iterator();
+            while (schedules.size() > maxSchedules) {
+                lru.next();
+                lru.remove();
+            }
+        }
+        return new Response(201, scheduleJson(id, schedule, false));
+    }
+
+    private Response jobs(HttpExchange ex, String path) throws IOException {
+        String method = ex.getRequestMethod();
+        if (path.isEmpty()) {
+            if (!method.equals("POST"))
+                return Response.error(405, "Use POST");
+            return submit(new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        }
+        SolveJob job;
+        synchronized (jobs) {
+            job = jobs.get(path);
+        }
+        if (job == null)
+            return Response.error(404, "No such job: " + path);
+        switch (method) {
+            case "GET":
+                return new Response(200, job.toJson());
+            case "DELETE":
+                if (job.cancel()) {
+                    workers.remove(job); // frees its queue slot if it never started
+                }
+                return new Response(200, job.toJson());
+            default:
+                return Response.error(405, "Use GET or DELETE");
+        }
+    }
+
+    private Response submit(String body) {
+        Map<String, Object> request;
+        try {
+            request = Json.parseObject(body);
+        } catch (IllegalArgumentException e) {
+            return Response.error(400, e.getMessage());
+        }
+        Object scheduleId = request.remove("schedule");
+        Schedule schedule;
+        synchronized (schedules) {
+            schedule = scheduleId instanceof String ? schedules.get(scheduleId) : null;
+        }
+        if (schedule == null)
+            return Response.error(404, "Unknown schedule: " + scheduleId + " (POST it to /schedules first)");
+
+        String id = String.valueOf(nextJob.incrementAndGet());
+        Object name = request.remove("name");
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : request.entrySet()) {
+            if (!Scenario.isKey(e.getKey()))
+                return Response.error(400, "Unknown parameter: " + e.getKey());
+            Object v = e.getValue();
+            if (v instanceof Boolean) {
+                values.put(e.getKey(), (Boolean) v ? "yes" : "no");
+            } else if (v instanceof BigDecimal) {
+                values.put(e.getKey(), ((BigDecimal) v).toPlainString());
+            } else if (v instanceof String) {
+                values.put(e.getKey(), (String) v);
+            } else {
+                return Response.error(400, e.getKey() + " must be a string, number or boolean");
+            }
+        }
+        Scenario scenario = new Scenario(name != null ? String.valueOf(name) : "job-" + id, values);
+        try {
+            scenario.validate();
+        } catch (IllegalArgumentException e) {
+            return Response.error(400, e.getMessage());
+        }
+
+        SolveJob job = new SolveJob(id, scenario, (String) scheduleId, schedule.runner);
+        synchronized (jobs) {
+            jobs.put(id, job);
+            Iterator<SolveJob> oldest = jobs.values().iterator();
+            while (jobs.size() > keep && oldest.hasNext()) {
+                if (oldest.next().isFinished()) {
+                    oldest.remove();
+                }
+            }
+        }
+        try {
+            workers.execute(job);
+        } catch (RejectedExecutionException e) {
+            synchronized (jobs) {
+                jobs.remove(id);
+            }
+            rejected.incrementAndGet();
+            return Response.error(503, "Queue full, retry later");
+        }
+        submitted.incrementAndGet();
+        return new Response(202, job.toJson());
+    }
+
+    private Response status(HttpExchange ex, String path) {
+        if (!path.isEmpty())
+            return Response.error(404, "No such resource");
+        Json.Builder json = new Json.Builder()
+                .field("workers", workers.getMaximumPoolSize())
+                .field("running", workers.getActiveCount())
+                .field("queued", workers.getQueue().size())
+                .field("queue_capacity", workers.getQueue().size() + workers.getQueue().remainingCapacity())
+                .field("jobs_submitted", submitted.get())
+                .field("jobs_rejected", rejected.get());
+        synchronized (jobs) {
+            json.field("jobs_held", jobs.size());
+        }
+        synchronized (schedules) {
+            json.field("schedules", schedules.size());
+        }
+        return new Response(200, json.field("schedule_hits", scheduleHits.get())
+                .field("lp_idle", backends.getIdleCount())
+                .field("lp_lent", backends.getLentCount())
+                .field("lp_created", backends.getCreatedCount())
+                .field("lp_reused", backends.getReusedCount())
+                .toString());
+    }
+
+    private Schedule parse(byte[] body) throws IOException {
+        Path file = Files.createTempFile("schedule", ".csv");
+        try {
+            Files.write(file, body);
+            String path = file.toString();
+            BatchRunner runner;
+            FlightTable table;
+            if (BinarySchedule.isBinary(path)) {
+                BinarySchedule binary = BinarySchedule.read(path);
+                table = binary.getTable();
+                runner = new BatchRunner(binary);
+            } else {
+                table = new FlightTable(InputParser.parseFlights(path));
+                runner = new BatchRunner(table);
+            }
+            runner.setBackendPool(backends);
+            return new Schedule(table, runner);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static String scheduleJson(String id, Schedule schedule, boolean cached) {
+        return new Json.Builder()
+                .field("schedule", id)
+                .field("flights", schedule.table.size())
+                .field("dated", schedule.table.isDated())
+                .field("cached", cached)
+                .toString();
+    }
+
+    // the schedule's id: the first 64 bits of the SHA-256 of its bytes, in hex
+    private static String digest(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder sb = new StringBuilder();
+            for (int k = 0; k < 8; k++) {
+                sb.append(String.format("%02x", hash[k]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has SHA-256
+        }
+    }
+
+    // path is what follows the context, without the leading '/'
+    private static void handle(HttpExchange ex, Route route) throws IOException {
+        Response response;
+        try {
+            String context = ex.getHttpContext().getPath();
+            String path = ex.getRequestURI().getPath().substring(context.length());
+            response = route.respond(ex, path.startsWith("/") ? path.substring(1) : path);
+        } catch (IllegalArgumentException e) {
+            // a schedule that does not parse, a bad number in it
+            response = Response.error(400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            response = Response.error(500, e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        if (response.code == 503) {
+            ex.getResponseHeaders().set("Retry-After", "1");
+        }
+        ex.sendResponseHeaders(response.code, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // --key value or --key=value, in order; the values are checked by the caller
+    static Map<String, String> parseFlags(String[] args) {
+        Map<String, String> flags = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--"))
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            String key = arg.substring(2);
+            int eq = key.indexOf('=');
+            if (eq >= 0) {
+                flags.put(key.substring(0, eq), key.substring(eq + 1));
+            } else {
+                if (i + 1 >= args.length)
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                flags.put(key, args[++i]);
+            }
+        }
+        return flags;
+    }
+
+    private interface Route {
+        Response respond(HttpExchange ex, String path) throws IOException;
+    }
+
+    private static final class Response {
+        final int code;
+        final String body;
+
+        Response(int code, String body) {
+            this.code = code;
+            this.body = body;
+        }
+
+        static Response error(int code, String message) {
+            return new Response(code, new Json.Builder().field("error", message).toString());
+        }
+    }
+
+    // a parsed schedule and the runner that keeps its networks
+    private static final class Schedule {
+        final FlightTable table;
+        final BatchRunner runner;
+
+        Schedule(FlightTable table, BatchRunner runner) {
+            this.table = table;
+            this.runner = runner;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package stabilization;
+
+/*
+ * Box-step trust region: the RMP duals are projected onto the box center +/- delta, where
+ * the center is the dual vector with the best Lagrangian bound so far, or the last
+ * separation point while pricing gives no bound (see follow). Each misprice
+ * doubles the box; after maxExpansions misprices the box is dropped and pricing is exact.
+ */
+public class BoxStep implements DualStabilizer {
+    private final double delta;
+    private final int maxExpansions;
+    private double[] center;
+    private double bestBound = Double.NEGATIVE_INFINITY;
+
+    public BoxStep(double delta, int maxExpansions) {
+        if (delta <= 0)
+            throw new IllegalArgumentException("Box-step delta must be positive: " + delta);
+        this.delta = delta;
+        this.maxExpansions = maxExpansions;
+    }
+
+    @Override
+    public double[] separationPoint(double[] rmpDuals, int misprices) {
+        if (center == null || center.length != rmpDuals.length || isExact(misprices)) {
+            return rmpDuals;
+        }
+        double width = delta * Math.pow(2, misprices);
+        double[] duals = new double[rmpDuals.length];
+        for (int i = 0; i < duals.length; i++) {
+            duals[i] = Math.max(center[i] - width, Math.min(center[i] + width, rmpDuals[i]));
+        }
+        return duals;
+    }
+
+    @Override
+    public boolean isExact(int misprices) {
+        return center == null || misprices >= maxExpansions;
+    }
+
+    @Override
+    public void update(double[] separationDuals, double lagrangianBound) {
+        if (center == null || center.length != separationDuals.length || lagrangianBound > bestBound) {
+            center = separationDuals.clone();
+            bestBound = lagrangianBound;
+        }
+    }
+
+    @Override
+    public void follow(double[] separationDuals) {
+        center = separationDuals.clone();
+        bestBound = Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public void warmStart(double[] duals) {
+        if (center == null) {
+            center = duals.clone();
+        }
+    }
+
+    @Override
+    public String describe(int misprices) {
+        if (isExact(misprices))
+            return "box=off";
+        return String.format("box=%.1f", delta * Math.pow(2, misprices));
+    }
+}
@@ -0,0 +1,36 @@
+package stabilization;
+
+/*
+ * Dual stabilization stage between the RMP and pricing.
+ *
+ * Each CG iteration prices at a separation point derived from the RMP duals. When
+ * nothing found there prices out at the RMP duals (a misprice), the solver asks again
+ * with one more misprice, and the separation point moves toward the RMP duals until
+ * pricing is exact.
+ */
+public interface DualStabilizer {
+    // duals to price at, after this many misprices in the current iteration
+    double[] separationPoint(double[] rmpDuals, int misprices);
+
+    // true once the separation point equals the RMP duals (no further fallback possible)
+    boolean isExact(int misprices);
+
+    // Lagrangian bound obtained by exact pricing at the separation point, moves the center
+    void update(double[] separationDuals, double lagrangianBound);
+
+    /*
+     * an iteration priced at these duals without a bound (heuristic pricing): the center
+     * moves to them, so the first RMP duals seed it and it keeps up with the RMP until an
+     * exact round gives a bound; the next bound replaces it whatever its value
+     */
+    default void follow(double[] separationDuals) {
+    }
+
+    // short state for the iteration log
+    String describe(int misprices);
+
+    // starting center from an earlier, similar solve (e.g. the previous rolling-horizon
+    // window); the first exact bound replaces it
+    default void warmStart(double[] duals) {
+    }
+}
@@ -0,0 +1,23 @@
+package stabilization;
+
+// prices directly at the RMP duals
+public class NoStabilization implements DualStabilizer {
+    @Override
+    public double[] separationPoint(double[] rmpDuals, int misprices) {
+        return rmpDuals;
+    }
+
+    @Override
+    public boolean isExact(int misprices) {
+        return true;
+    }
+
+    @Override
+    public void update(double[] separationDuals, double lagrangianBound) {
+    }
+
+    @Override
+    public String describe(int misprices) {
+        return "none";
+    }
+}
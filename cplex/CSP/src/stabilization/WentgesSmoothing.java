@@ -0,0 +1,67 @@
+package stabilization;
+
+/*
+ * Wentges smoothing: price at alpha * center + (1 - alpha) * rmpDuals, where the center is
+ * the dual vector with the best Lagrangian bound so far, or the last separation point while
+ * pricing gives no bound (see follow). After k misprices the weight drops to
+ * max(0, 1 - (k + 1)(1 - alpha)), so pricing falls back to the RMP duals.
+ */
+public class WentgesSmoothing implements DualStabilizer {
+    private final double alpha;
+    private double[] center;
+    private double bestBound = Double.NEGATIVE_INFINITY;
+
+    public WentgesSmoothing(double alpha) {
+        if (alpha < 0 || alpha >= 1)
+            throw new IllegalArgumentException("Smoothing alpha must be in [0, 1): " + alpha);
+        this.alpha = alpha;
+    }
+
+    private double weight(int misprices) {
+        return Math.max(0.0, 1.0 - (misprices + 1) * (1.0 - alpha));
+    }
+
+    @Override
+    public double[] separationPoint(double[] rmpDuals, int misprices) {
+        if (center == null || center.length != rmpDuals.length || isExact(misprices)) {
+            return rmpDuals;
+        }
+        double a = weight(misprices);
+        double[] duals = new double[rmpDuals.length];
+        for (int i = 0; i < duals.length; i++) {
+            duals[i] = a * center[i] + (1.0 - a) * rmpDuals[i];
+        }
+        return duals;
+    }
+
+    @Override
+    public boolean isExact(int misprices) {
+        return center == null || weight(misprices) == 0.0;
+    }
+
+    @Override
+    public void update(double[] separationDuals, double lagrangianBound) {
+        if (center == null || center.length != separationDuals.length || lagrangianBound > bestBound) {
+            center = separationDuals.clone();
+            bestBound = lagrangianBound;
+        }
+    }
+
+    @Override
+    public void follow(double[] separationDuals) {
+        center = separationDuals.clone();
+        bestBound = Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public void warmStart(double[] duals) {
+        if (center == null) {
+            center = duals.clone();
+        }
+    }
+
+    @Override
+    public String describe(int misprices) {
+        return String.format("alpha=%.2f", center == null ? 0.0 : weight(misprices));
+    }
+}
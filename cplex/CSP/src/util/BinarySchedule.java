@@ -0,0 +1,327 @@
+package util;
+
+import model.CodeDictionary;
+import model.FlightTable;
+import network.ConnectionNetwork;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/*
+ * Columnar binary form of a schedule, for solving the same schedule many times without
+ * parsing the CSV again. Everything is little-endian:
+ *
+ *   header       magic "CSPB", version, flights, airports, aircraft types, ID bytes,
+ *                arcs (-1 if none stored), min turnaround (long), overnight (0/1),
+ *                max connection (long), dated (0/1); version 1 files end after overnight
+ *   dictionaries airport codes, then aircraft types: u16 length + UTF-8 bytes each
+ *   flight IDs   int[flights + 1] offsets into the UTF-8 ID bytes, then the bytes
+ *   columns      from, to, base, aircraft, dep minute, arr minute (int[flights] each),
+ *                duration hours, cost (double[flights] each), night (byte[flights]),
+ *                departure epoch day (int[flights], dated schedules only)
+ *   arcs         departure order int[flights], successor offsets int[flights + 1],
+ *                successors int[arcs], turn minutes int[arcs]
+ *
+ * The reader maps the file and bulk-copies each column into the FlightTable's arrays;
+ * Flight objects and ID Strings are only made when something asks for them. The arcs are
+ * the ConnectionNetwork built under the stored turnaround / overnight rules and are used
+ * whenever a solve asks for the same rules.
+ *
+ * usage: java util.BinarySchedule flights.csv flights.bin [minTurnaround] [overnight yes/no]
+ *            [maxConnection minutes, dated schedules]
+ */
+public class BinarySchedule {
+    private static final int MAGIC = 0x42505343; // "CSPB" read little-endian
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES_V1 = 7 * 4 + 8 + 4;
+    private static final int HEADER_BYTES = HEADER_BYTES_V1 + 8 + 4;
+
+    private final FlightTable table;
+    private final long minTurnaroundMin;
+    private final boolean allowOvernight;
+    private final long maxConnectionMin;
+    // stored network in CSR form, null if none
+    private final int[] departureOrder;
+    private final int[] arcOffsets;
+    private final int[] arcTargets;
+    private final int[] arcTurns;
+
+    private BinarySchedule(FlightTable table, long minTurnaroundMin, boolean allowOvernight, long maxConnectionMin,
+                           int[] departureOrder, int[] arcOffsets, int[] arcTargets, int[] arcTurns) {
+        this.table = table;
+        this.minTurnaroundMin = minTurnaroundMin;
+        this.allowOvernight = allowOvernight;
+        this.maxConnectionMin = maxConnectionMin;
+        this.departureOrder = departureOrder;
+        this.arcOffsets = arcOffsets;
+        this.arcTargets = arcTargets;
+        this.arcTurns = arcTurns;
+    }
+
+    public FlightTable getTable() {
+        return table;
+    }
+
+    public boolean hasNetwork(long minTurnaroundMin, boolean allowOvernight) {
+        return hasNetwork(minTurnaroundMin, allowOvernight, Long.MAX_VALUE);
+    }
+
+    public boolean hasNetwork(long minTurnaroundMin, boolean allowOvernight, long maxConnectionMin) {
+        return arcOffsets != null && this.minTurnaroundMin == minTurnaroundMin && this.allowOvernight == allowOvernight
+                && this.maxConnectionMin == maxConnectionMin;
+    }
+
+    public ConnectionNetwork getNetwork(long minTurnaroundMin, boolean allowOvernight) {
+        return getNetwork(minTurnaroundMin, allowOvernight, Long.MAX_VALUE);
+    }
+
+    // the stored arcs if they were built under these rules, otherwise a freshly built network
+    public ConnectionNetwork getNetwork(long minTurnaroundMin, boolean allowOvernight, long maxConnectionMin) {
+        if (hasNetwork(minTurnaroundMin, allowOvernight, maxConnectionMin))
+            return new ConnectionNetwork(table, minTurnaroundMin, allowOvernight, maxConnectionMin,
+                    departureOrder, arcOffsets, arcTargets, arcTurns);
+        return new ConnectionNetwork(table, minTurnaroundMin, allowOvernight, maxConnectionMin);
+    }
+
+    // true if the file starts with the binary schedule magic
+    public static boolean isBinary(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // keep reading until four bytes or end of file
+            }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        }
+    }
+
+    public static BinarySchedule read(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES_V1 || channel.size() > Integer.MAX_VALUE)
+                throw new IOException(filePath + ": not a binary schedule");
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buf.getInt() != MAGIC)
+                throw new IOException(filePath + ": not a binary schedule");
+            int version = buf.getInt();
+            if (version != VERSION && version != 1)
+                throw new IOException(filePath + ": unsupported binary schedule version " + version);
+            int n = buf.getInt();
+            int airportCount = buf.getInt();
+            int aircraftCount = buf.getInt();
+            int idByteCount = buf.getInt();
+            int arcCount = buf.getInt();
+            long minTurn = buf.getLong();
+            boolean overnight = buf.getInt() != 0;
+            long maxConnection = version == 1 ? Long.MAX_VALUE : buf.getLong();
+            boolean dated = version != 1 && buf.getInt() != 0;
+
+            CodeDictionary airports = readDictionary(buf, airportCount);
+            CodeDictionary aircraftTypes = readDictionary(buf, aircraftCount);
+            int[] idOffsets = readInts(buf, n + 1);
+            byte[] idBytes = new byte[idByteCount];
+            buf.get(idBytes);
+
+            int[] from = readInts(buf, n);
+            int[] to = readInts(buf, n);
+            int[] base = readInts(buf, n);
+            int[] aircraft = readInts(buf, n);
+            int[] dep = readInts(buf, n);
+            int[] arr = readInts(buf, n);
+            double[] duration = readDoubles(buf, n);
+            double[] cost = readDoubles(buf, n);
+            boolean[] night = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                night[i] = buf.get() != 0;
+            }
+            int[] depDay = dated ? readInts(buf, n) : null;
+            FlightTable table = new FlightTable(airports, aircraftTypes, idBytes, idOffsets,
+                    from, to, base, aircraft, dep, arr, duration, cost, night, depDay);
+
+            if (arcCount < 0)
+                return new BinarySchedule(table, minTurn, overnight, maxConnection, null, null, null, null);
+            int[] order = readInts(buf, n);
+            int[] offsets = readInts(buf, n + 1);
+            int[] targets = readInts(buf, arcCount);
+            int[] turns = readInts(buf, arcCount);
+            return new BinarySchedule(table, minTurn, overnight, maxConnection, order, offsets, targets, turns);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(filePath + ": truncated binary schedule");
+        }
+    }
+
+    // writes the table, and the network's arcs if one is given
+    public static void write(FlightTable table, ConnectionNetwork network, String filePath) throws IOException {
+        int n = table.size();
+        byte[][] airportCodes = encode(table.getAirports());
+        byte[][] aircraftCodes = encode(table.getAircraftTypes());
+        int[] idOffsets = new int[n + 1];
+        byte[][] ids = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            ids[i] = table.flightId(i).getBytes(StandardCharsets.UTF_8);
+            idOffsets[i + 1] = idOffsets[i] + ids[i].length;
+        }
+        int arcCount = network == null ? -1 : network.getArcCount();
+
+        long size = HEADER_BYTES + dictionaryBytes(airportCodes) + dictionaryBytes(aircraftCodes)
+                + 4L * (n + 1) + idOffsets[n] + 6 * 4L * n + 2 * 8L * n + n + (table.isDated() ? 4L * n : 0);
+        if (network != null) {
+            size += 4L * n + 4L * (n + 1) + 2 * 4L * arcCount;
+        }
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Schedule too large for the binary format: " + size + " bytes");
+
+        Files.deleteIfExists(Path.of(filePath));
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            buf.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(airportCodes.length).putInt(aircraftCodes.length)
+                    .putInt(idOffsets[n]).putInt(arcCount);
+            buf.putLong(network == null ? 0 : network.getMinTurnaroundMin());
+            buf.putInt(network != null && network.isAllowOvernight() ? 1 : 0);
+            buf.putLong(network == null ? Long.MAX_VALUE : network.getMaxConnectionMin());
+            buf.putInt(table.isDated() ? 1 : 0);
+
+            writeDictionary(buf, airportCodes);
+            writeDictionary(buf, aircraftCodes);
+            writeInts(buf, idOffsets);
+            for (byte[] id : ids) {
+                buf.put(id);
+            }
+
+            writeInts(buf, column(n, table::from));
+            writeInts(buf, column(n, table::to));
+            writeInts(buf, column(n, table::base));
+            writeInts(buf, column(n, table::aircraft));
+            writeInts(buf, column(n, table::depMinute));
+            writeInts(buf, column(n, table::arrMinute));
+            writeDoubles(buf, doubleColumn(n, table::durationHours));
+            writeDoubles(buf, doubleColumn(n, table::cost));
+            for (int i = 0; i < n; i++) {
+                buf.put((byte) (table.isNight(i) ? 1 : 0));
+            }
+            if (table.isDated()) {
+                writeInts(buf, column(n, table::depDay));
+            }
+
+            if (network != null) {
+                writeInts(buf, network.getDepartureOrder());
+                int[] offsets = new int[n + 1];
+                for (int i = 0; i < n; i++) {
+                    offsets[i + 1] = offsets[i] + network.getSuccessors(i).length;
+                }
+                writeInts(buf, offsets);
+                for (int i = 0; i < n; i++) {
+                    writeInts(buf, network.getSuccessors(i));
+                }
+                for (int i = 0; i < n; i++) {
+                    writeInts(buf, network.getTurnMinutes(i));
+                }
+            }
+            buf.force();
+        }
+    }
+
+    private static int[] column(int n, IntUnaryOperator value) {
+        int[] column = new int[n];
+        for (int i = 0; i < n; i++) {
+            column[i] = value.applyAsInt(i);
+        }
+        return column;
+    }
+
+    private static double[] doubleColumn(int n, IntToDoubleFunction value) {
+        double[] column = new double[n];
+        for (int i = 0; i < n; i++) {
+            column[i] = value.applyAsDouble(i);
+        }
+        return column;
+    }
+
+    private static byte[][] encode(CodeDictionary dictionary) {
+        byte[][] codes = new byte[dictionary.size()][];
+        for (int id = 0; id < codes.length; id++) {
+            codes[id] = dictionary.codeOf(id).getBytes(StandardCharsets.UTF_8);
+        }
+        return codes;
+    }
+
+    private static long dictionaryBytes(byte[][] codes) {
+        long bytes = 0;
+        for (byte[] code : codes) {
+            bytes += 2 + code.length;
+        }
+        return bytes;
+    }
+
+    private static void writeDictionary(ByteBuffer buf, byte[][] codes) {
+        for (byte[] code : codes) {
+            buf.putShort((short) code.length);
+            buf.put(code);
+        }
+    }
+
+    // codes come back with the ids they were written with
+    private static CodeDictionary readDictionary(ByteBuffer buf, int count) {
+        CodeDictionary dictionary = new CodeDictionary();
+        for (int id = 0; id < count; id++) {
+            byte[] code = new byte[Short.toUnsignedInt(buf.getShort())];
+            buf.get(code);
+            dictionary.intern(new String(code, StandardCharsets.UTF_8));
+        }
+        return dictionary;
+    }
+
+    private static void writeInts(ByteBuffer buf, int[] values) {
+        buf.asIntBuffer().put(values);
+        buf.position(buf.position() + 4 * values.length);
+    }
+
+    private static void writeDoubles(ByteBuffer buf, double[] values) {
+        buf.asDoubleBuffer().put(values);
+        buf.position(buf.position() + 8 * values.length);
+    }
+
+    private static int[] readInts(ByteBuffer buf, int count) {
+        int[] values = new int[count];
+        buf.asIntBuffer().get(values);
+        buf.position(buf.position() + 4 * count);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer buf, int count) {
+        double[] values = new double[count];
+        buf.asDoubleBuffer().get(values);
+        buf.position(buf.position() + 8 * count);
+        return values;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: java util.BinarySchedule flights.csv flights.bin [minTurnaround] [overnight yes/no]"
+                    + " [maxConnection minutes]");
+            System.exit(1);
+        }
+        long start = System.currentTimeMillis();
+        FlightTable table = new FlightTable(InputParser.parseFlights(args[0]));
+        long minTurn = args.length > 2 ? Long.parseLong(args[2]) : 40;
+        boolean overnight = args.length > 3 && (args[3].equalsIgnoreCase("yes") || args[3].equalsIgnoreCase("y"));
+        long maxConnection = args.length > 4 ? Long.parseLong(args[4]) : Long.MAX_VALUE;
+        ConnectionNetwork network = new ConnectionNetwork(table, minTurn, overnight, maxConnection);
+        write(table, network, args[1]);
+        System.out.println("Wrote " + table.size() + " flights and " + network.getArcCount() + " arcs to " + args[1]
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
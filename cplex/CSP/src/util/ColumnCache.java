@@ -0,0 +1,320 @@
+package util;
+
+import model.FlightTable;
+import model.Pairing;
+import pricing.PricingProblem;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Generated columns kept on disk between runs, so a re-solve of a mostly unchanged schedule
+ * starts from the pairings found last time instead of from the Big-M singletons.
+ *
+ * Each entry is a file <rules>-<schedule>.cols in one directory, named by the fingerprint
+ * of the pricing rules and cost parameters (PricingProblem.getRulesFingerprint) and that
+ * of the flight set. A column is stored as the fingerprints of its flights, so it does not
+ * depend on flight indices: load() takes the columns of every entry with the same rules
+ * whose flights are all still in the table unchanged, recosts them and checks them against
+ * the connections and duty rules of the problem of their base. Columns over changed or
+ * cancelled flights are dropped, so a schedule that changed in a few flights keeps all its
+ * other pairings. Costs are never stored. The final duals are too, by flight ID rather than
+ * fingerprint, since a retimed or repriced flight keeps a dual close to its old one; they
+ * warm-start the next solve (ColumnGenerationSolver.setWarmStartDuals).
+ *
+ * Files are little-endian: magic "CSPC", version, column count, then per column its flight
+ * count and flight fingerprints (long), then the dual count and (ID hash, dual) pairs
+ * (long, double). An entry is written to a temp file and moved into
+ * place, so concurrent readers never see half of one. The directory is kept under maxBytes
+ * by evicting the least recently used entries, by last-modified time, which load() renews
+ * for every entry that seeds a solve.
+ */
+public class ColumnCache {
+    private static final int MAGIC = 0x43505343; // "CSPC" read little-endian
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".cols";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // last load
+    private double[] loadedDuals;
+    private int loadedColumns;
+    private int staleColumns;
+    private int entriesRead;
+
+    public ColumnCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    /*
+     * valid cached columns for this table, recosted by the problems (one per priced base),
+     * each column once; the entry of this exact schedule is read first
+     */
+    public List<Pairing> load(FlightTable table, List<PricingProblem> problems) throws IOException {
+        String rules = Long.toHexString(rulesFingerprint(problems));
+        Path exact = entry(rules, scheduleFingerprint(table));
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(directory, rules + "-*" + SUFFIX)) {
+            for (Path p : dir) {
+                entries.add(p);
+            }
+        }
+        Map<Path, FileTime> used = new HashMap<>();
+        for (Path p : entries) {
+            try {
+                used.put(p, Files.getLastModifiedTime(p));
+            } catch (NoSuchFileException e) {
+                // evicted meanwhile
+            }
+        }
+        entries.removeIf(p -> !used.containsKey(p));
+        entries.sort(Comparator.comparing((Path p) -> !p.equals(exact)).thenComparing(used::get,
+                Comparator.reverseOrder()));
+
+        Map<Long, Integer> indexByFingerprint = new HashMap<>();
+        for (int i = 0; i < table.size(); i++) {
+            indexByFingerprint.put(table.fingerprint(i), i);
+        }
+
+        List<Pairing> columns = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        Map<Long, Double> duals = new HashMap<>();
+        loadedColumns = 0;
+        staleColumns = 0;
+        entriesRead = 0;
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        for (Path p : entries) {
+            ByteBuffer buf;
+            try {
+                buf = ByteBuffer.wrap(Files.readAllBytes(p)).order(ByteOrder.LITTLE_ENDIAN);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            int before = columns.size();
+            try {
+                if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+                    throw new BufferUnderflowException();
+                int count = buf.getInt();
+                for (int c = 0; c < count; c++) {
+                    int[] path = new int[buf.getInt()];
+                    long key = 0;
+                    boolean present = true;
+                    for (int k = 0; k < path.length; k++) {
+                        long flight = buf.getLong();
+                        key = FlightTable.mix(key, flight);
+                        Integer index = indexByFingerprint.get(flight);
+                        present &= index != null;
+                        path[k] = present ? index : -1;
+                    }
+                    if (!seen.add(key))
+                        continue;
+                    Pairing column = present ? recost(path, problems) : null;
+                    if (column == null) {
+                        staleColumns++;
+                    } else {
+                        columns.add(column);
+                    }
+                }
+                int dualCount = buf.getInt();
+                for (int k = 0; k < dualCount; k++) {
+                    duals.putIfAbsent(buf.getLong(), buf.getDouble());
+                }
+            } catch (BufferUnderflowException e) {
+                // not an entry of this version, or cut short: drop it
+                Files.deleteIfExists(p);
+                continue;
+            }
+            entriesRead++;
+            if (columns.size() > before) {
+                try {
+                    Files.setLastModifiedTime(p, now);
+                } catch (NoSuchFileException e) {
+                    // evicted meanwhile, the columns are read already
+                }
+            }
+        }
+        loadedColumns = columns.size();
+        loadedDuals = warmDuals(table, duals);
+        return columns;
+    }
+
+    // duals of the table's flights, the mean one for flights no entry knows; null if none do
+    private static double[] warmDuals(FlightTable table, Map<Long, Double> known) {
+        double[] duals = new double[table.size()];
+        double sum = 0;
+        int found = 0;
+        for (int i = 0; i < duals.length; i++) {
+            Double d = known.get(idHash(table, i));
+            duals[i] = d == null ? Double.NaN : d;
+            if (d != null) {
+                sum += d;
+                found++;
+            }
+        }
+        if (found == 0)
+            return null;
+        for (int i = 0; i < duals.length; i++) {
+            if (Double.isNaN(duals[i])) {
+                duals[i] = sum / found;
+            }
+        }
+        return duals;
+    }
+
+    // the problem of the column's base prices it, null if none accepts it
+    private static Pairing recost(int[] path, List<PricingProblem> problems) {
+        for (PricingProblem problem : problems) {
+            double cost = problem.recost(path);
+            if (!Double.isNaN(cost))
+                return problem.createPairing(path, path.length, cost);
+        }
+        return null;
+    }
+
+    /*
+     * stores the columns and final duals (indexed like the table, null if none) as the entry
+     * of this table and these problems, replacing the previous one, then evicts old entries
+     * down to the size cap
+     */
+    public void store(FlightTable table, List<PricingProblem> problems, List<Pairing> columns, double[] duals)
+            throws IOException {
+        List<long[]> unique = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        long bytes = 12;
+        for (Pairing p : columns) {
+            int[] indices = p.getFlightIndices(table);
+            long[] flights = new long[indices.length];
+            long key = 0;
+            for (int k = 0; k < indices.length; k++) {
+                flights[k] = table.fingerprint(indices[k]);
+                key = FlightTable.mix(key, flights[k]);
+            }
+            if (seen.add(key)) {
+                unique.add(flights);
+                bytes += 4 + 8L * flights.length;
+            }
+        }
+
+        int dualCount = duals == null ? 0 : table.size();
+        bytes += 4 + 16L * dualCount;
+
+        ByteBuffer buf = ByteBuffer.allocate(Math.toIntExact(bytes)).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(unique.size());
+        for (long[] flights : unique) {
+            buf.putInt(flights.length);
+            for (long f : flights) {
+                buf.putLong(f);
+            }
+        }
+        buf.putInt(dualCount);
+        for (int i = 0; i < dualCount; i++) {
+            buf.putLong(idHash(table, i)).putDouble(duals[i]);
+        }
+
+        Path target = entry(Long.toHexString(rulesFingerprint(problems)), scheduleFingerprint(table));
+        Path temp = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            Files.write(temp, buf.array());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        evict(target);
+    }
+
+    // deletes the least recently used entries, other than keep, until the directory fits maxBytes
+    private void evict(Path keep) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        Map<Path, FileTime> used = new HashMap<>();
+        Map<Path, Long> sizes = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path p : dir) {
+                try {
+                    used.put(p, Files.getLastModifiedTime(p));
+                    sizes.put(p, Files.size(p));
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                entries.add(p);
+                total += sizes.get(p);
+            }
+        }
+        entries.sort(Comparator.comparing(used::get));
+        for (Path p : entries) {
+            if (total <= maxBytes)
+                break;
+            if (p.equals(keep))
+                continue;
+            Files.deleteIfExists(p);
+            total -= sizes.get(p);
+        }
+    }
+
+    private static long idHash(FlightTable table, int index) {
+        long h = 0;
+        for (byte b : table.flightId(index).getBytes(StandardCharsets.UTF_8)) {
+            h = FlightTable.mix(h, b);
+        }
+        return h;
+    }
+
+    private Path entry(String rules, long schedule) {
+        return directory.resolve(rules + "-" + Long.toHexString(schedule) + SUFFIX);
+    }
+
+    // combined rules of the priced bases, in order
+    public static long rulesFingerprint(List<PricingProblem> problems) {
+        long h = 0;
+        for (PricingProblem p : problems) {
+            h = FlightTable.mix(h, p.getRulesFingerprint());
+        }
+        return h;
+    }
+
+    // the flight set, whatever the order of its flights
+    public static long scheduleFingerprint(FlightTable table) {
+        long h = table.size();
+        for (int i = 0; i < table.size(); i++) {
+            h += FlightTable.mix(0, table.fingerprint(i));
+        }
+        return FlightTable.mix(0, h);
+    }
+
+    // duals of the last load, indexed like its table, null if no entry had any
+    public double[] getLoadedDuals() {
+        return loadedDuals;
+    }
+
+    // columns the last load returned
+    public int getLoadedColumns() {
+        return loadedColumns;
+    }
+
+    // columns the last load dropped: a flight changed or left, or a rule no longer holds
+    public int getStaleColumns() {
+        return staleColumns;
+    }
+
+    public int getEntriesRead() {
+        return entriesRead;
+    }
+}
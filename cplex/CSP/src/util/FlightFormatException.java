@@ -0,0 +1,28 @@
+package util;
+
+import java.io.IOException;
+
+/*
+ * A schedule row that cannot be read: which file, which line and what is wrong with it.
+ */
+public class FlightFormatException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String file;
+    private final long line;
+
+    public FlightFormatException(String file, long line, String message) {
+        super(file + ":" + line + ": " + message);
+        this.file = file;
+        this.line = line;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    // 1-based line number in the file
+    public long getLine() {
+        return line;
+    }
+}
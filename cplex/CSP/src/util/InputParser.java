@@ -1,49 +1,406 @@
 package util;
 
 import model.Flight;
-import java.io.BufferedReader;
-import java.io.FileReader;
+
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/*
+ * Reads the flight schedule CSV:
+ *   FlightID,From,To,DepTime,ArrTime,Duration,Aircraft,Base,FlightCost,Night[,Date]
+ *
+ * The optional Date (yyyy-MM-dd, the departure's operating day) makes the schedule dated:
+ * times become absolute and pairings may span days. Without it the schedule is one day
+ * that repeats. A file must give a Date on every row or on none.
+ *
+ * The file is memory-mapped and parsed in place, one row at a time into a FlightSink, so
+ * multi-million-row schedules never exist as lines or split fields. Times (HH:mm) and
+ * numbers are parsed straight from the bytes, airport and aircraft codes are interned so
+ * every Flight of a file shares one String per code, and times share one LocalTime per
+ * minute of the day. Only the flight ID is a fresh String per row.
+ *
+ * Blank lines, "---" separators, "inputId" lines and the header are skipped. Any other
+ * row that cannot be read (missing fields, bad time or number) is reported with its line
+ * number through the ErrorHandler; the default one throws FlightFormatException.
+ */
 public class InputParser {
+    // the mapping is done in windows, so files above 2 GB work too
+    private static final long WINDOW = 1L << 30;
+    private static final int FIELDS = 10;
+    private static final int MAX_FIELDS = FIELDS + 1;
+    private static final String[] FIELD_NAMES = {"FlightID", "From", "To", "DepTime", "ArrTime",
+            "Duration", "Aircraft", "Base", "FlightCost", "Night", "Date"};
+
+    private static final LocalTime[] CLOCK = new LocalTime[24 * 60];
+    static {
+        for (int m = 0; m < CLOCK.length; m++) {
+            CLOCK[m] = LocalTime.of(m / 60, m % 60);
+        }
+    }
+
+    private static final double[] POWERS_OF_TEN = new double[19];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int k = 1; k < POWERS_OF_TEN.length; k++) {
+            POWERS_OF_TEN[k] = POWERS_OF_TEN[k - 1] * 10;
+        }
+    }
+
+    public interface FlightSink {
+        void accept(Flight flight) throws IOException;
+    }
+
+    public interface ErrorHandler {
+        // throw to abort the parse, return to skip the row
+        void rowError(FlightFormatException error) throws IOException;
+    }
+
+    public static final ErrorHandler STRICT = error -> {
+        throw error;
+    };
 
     public static List<Flight> parseFlights(String filePath) throws IOException {
         List<Flight> flights = new ArrayList<>();
+        parseFlights(filePath, flights::add, STRICT);
+        return flights;
+    }
+
+    // reads every row into the sink; returns the number of flights read
+    public static long parseFlights(String filePath, FlightSink sink, ErrorHandler errors) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            return new RowReader(filePath, sink, errors).read(channel);
+        }
+    }
+
+    private static final class RowReader {
+        private final String file;
+        private final FlightSink sink;
+        private final ErrorHandler errors;
+        private final CodeInterner codes = new CodeInterner();
+
+        // field i of the current row is [start[i], end[i]) in the mapped window, trimmed
+        private final int[] start = new int[MAX_FIELDS];
+        private final int[] end = new int[MAX_FIELDS];
+        private LocalDate lastDate; // consecutive rows mostly share their date
+        private byte[] scratch = new byte[64];
+
+        private MappedByteBuffer buf;
+        private long lineNumber = 0;
+        private long count = 0;
+        private boolean seenData = false;
+
+        RowReader(String file, FlightSink sink, ErrorHandler errors) {
+            this.file = file;
+            this.sink = sink;
+            this.errors = errors;
+        }
+
+        long read(FileChannel channel) throws IOException {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(WINDOW, size - position);
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+                int limit = (int) length;
 
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            boolean firstLine = true;
-            while ((line = br.readLine()) != null) {
-                if (line.trim().isEmpty() || line.startsWith("---") || line.startsWith("inputId")) {
-                    continue; // Skip empty lines, separators, or headers if not standard
+                int lineStart = 0;
+                while (lineStart < limit) {
+                    int lineEnd = indexOfNewline(lineStart, limit);
+                    if (lineEnd < 0) {
+                        if (!last)
+                            break; // the row continues in the next window
+                        lineEnd = limit;
+                    }
+                    lineNumber++;
+                    row(lineStart, lineEnd);
+                    lineStart = lineEnd + 1;
                 }
-                // Specifically handling the header from the prompt example
-                if (firstLine && line.toLowerCase().startsWith("flightid")) {
-                    firstLine = false;
-                    continue;
+                if (lineStart == 0 && !last)
+                    throw new FlightFormatException(file, lineNumber + 1, "row longer than " + WINDOW + " bytes");
+                position += Math.min(lineStart, limit);
+            }
+            return count;
+        }
+
+        private int indexOfNewline(int from, int limit) {
+            for (int i = from; i < limit; i++) {
+                if (buf.get(i) == '\n')
+                    return i;
+            }
+            return -1;
+        }
+
+        private void row(int from, int to) throws IOException {
+            if (to > from && buf.get(to - 1) == '\r') {
+                to--;
+            }
+            int first = skipBlank(from, to);
+            if (first == to || startsWith(first, to, "---") || startsWith(first, to, "inputId"))
+                return;
+            if (!seenData) {
+                seenData = true;
+                if (startsWithIgnoreCase(first, to, "flightid"))
+                    return;
+            }
+
+            // split in place; columns after the Date are ignored
+            int fields = 0;
+            int fieldStart = from;
+            for (int i = from; i <= to && fields < MAX_FIELDS; i++) {
+                if (i == to || buf.get(i) == ',') {
+                    start[fields] = skipBlank(fieldStart, i);
+                    end[fields] = trimEnd(start[fields], i);
+                    fields++;
+                    fieldStart = i + 1;
                 }
+            }
+            if (fields < FIELDS) {
+                errors.rowError(error("expected " + FIELDS + " fields, found " + fields));
+                return;
+            }
 
-                String[] parts = line.split(",");
-                if (parts.length < 10)
-                    continue;
+            try {
+                String id = text(0);
+                if (id.isEmpty())
+                    throw error("empty FlightID");
+                String fromCode = code(1);
+                String toCode = code(2);
+                LocalTime dep = CLOCK[clock(3)];
+                LocalTime arr = CLOCK[clock(4)];
+                double duration = decimal(5);
+                String aircraft = code(6);
+                String base = code(7);
+                double cost = decimal(8);
+                double night = decimal(9);
+                if (night != Math.rint(night))
+                    throw error("Night is not an integer: " + text(9));
+                LocalDate date = fields > FIELDS && end[10] > start[10] ? date(10) : null;
+                if (count > 0 && (date != null) != (lastDate != null))
+                    throw error(date == null ? "missing Date in a dated schedule" : "Date in an undated schedule");
+                lastDate = date;
 
-                // FlightID,From,To,DepTime,ArrTime,Duration,Aircraft,Base,FlightCost,Night
-                String id = parts[0].trim();
-                String from = parts[1].trim();
-                String to = parts[2].trim();
-                String dep = parts[3].trim();
-                String arr = parts[4].trim();
-                double duration = Double.parseDouble(parts[5].trim());
-                String aircraft = parts[6].trim();
-                String base = parts[7].trim();
-                double cost = Double.parseDouble(parts[8].trim());
-                int night = Integer.parseInt(parts[9].trim());
+                sink.accept(new Flight(id, fromCode, toCode, date, dep, arr, duration, aircraft, base, cost, night == 1));
+                count++;
+            } catch (FlightFormatException e) {
+                errors.rowError(e);
+            }
+        }
 
-                flights.add(new Flight(id, from, to, dep, arr, duration, aircraft, base, cost, night));
+        // minute of the day of an H:mm or HH:mm field
+        private int clock(int field) throws FlightFormatException {
+            int i = start[field];
+            int hours = 0;
+            int digits = 0;
+            while (i < end[field] && isDigit(buf.get(i)) && digits < 2) {
+                hours = hours * 10 + (buf.get(i++) - '0');
+                digits++;
             }
+            if (digits == 0 || i + 3 != end[field] || buf.get(i) != ':'
+                    || !isDigit(buf.get(i + 1)) || !isDigit(buf.get(i + 2)))
+                throw error(FIELD_NAMES[field] + " is not a HH:mm time: " + text(field));
+            int minutes = (buf.get(i + 1) - '0') * 10 + (buf.get(i + 2) - '0');
+            if (hours > 23 || minutes > 59)
+                throw error(FIELD_NAMES[field] + " is out of range: " + text(field));
+            return hours * 60 + minutes;
+        }
+
+        // yyyy-MM-dd
+        private LocalDate date(int field) throws FlightFormatException {
+            int i = start[field];
+            if (end[field] - i != 10 || buf.get(i + 4) != '-' || buf.get(i + 7) != '-')
+                throw error(FIELD_NAMES[field] + " is not a yyyy-MM-dd date: " + text(field));
+            int year = digits(i, 4, field);
+            int month = digits(i + 5, 2, field);
+            int day = digits(i + 8, 2, field);
+            if (lastDate != null && lastDate.getYear() == year && lastDate.getMonthValue() == month
+                    && lastDate.getDayOfMonth() == day)
+                return lastDate;
+            try {
+                return LocalDate.of(year, month, day);
+            } catch (DateTimeException e) {
+                throw error(FIELD_NAMES[field] + " is out of range: " + text(field));
+            }
+        }
+
+        private int digits(int from, int count, int field) throws FlightFormatException {
+            int value = 0;
+            for (int k = from; k < from + count; k++) {
+                if (!isDigit(buf.get(k)))
+                    throw error(FIELD_NAMES[field] + " is not a yyyy-MM-dd date: " + text(field));
+                value = value * 10 + (buf.get(k) - '0');
+            }
+            return value;
+        }
+
+        /*
+         * plain decimals ([-]digits[.digits]) are parsed from the bytes: the digits form an
+         * exact long and one division by an exact power of ten rounds the same way as
+         * Double.parseDouble; anything longer or fancier (exponents) goes through it
+         */
+        private double decimal(int field) throws FlightFormatException {
+            int i = start[field];
+            int to = end[field];
+            boolean negative = i < to && buf.get(i) == '-';
+            if (negative || (i < to && buf.get(i) == '+')) {
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = -1;
+            for (; i < to; i++) {
+                byte b = buf.get(i);
+                if (isDigit(b)) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (scale >= 0) {
+                        scale++;
+                    }
+                } else if (b == '.' && scale < 0) {
+                    scale = 0;
+                } else {
+                    break;
+                }
+            }
+            if (i == to && digits > 0 && digits <= 15) {
+                double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+                return negative ? -value : value;
+            }
+            try {
+                return Double.parseDouble(text(field));
+            } catch (NumberFormatException e) {
+                throw error(FIELD_NAMES[field] + " is not a number: " + text(field));
+            }
+        }
+
+        private String code(int field) throws FlightFormatException {
+            int length = end[field] - start[field];
+            if (length == 0)
+                throw error("empty " + FIELD_NAMES[field]);
+            return codes.intern(bytes(field), length);
+        }
+
+        private String text(int field) {
+            return new String(bytes(field), 0, end[field] - start[field], StandardCharsets.UTF_8);
+        }
+
+        // the field's bytes at the front of the scratch array
+        private byte[] bytes(int field) {
+            int length = end[field] - start[field];
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, 2 * scratch.length)];
+            }
+            buf.get(start[field], scratch, 0, length);
+            return scratch;
+        }
+
+        private FlightFormatException error(String message) {
+            return new FlightFormatException(file, lineNumber, message);
+        }
+
+        private int skipBlank(int from, int to) {
+            while (from < to && isBlank(buf.get(from))) {
+                from++;
+            }
+            return from;
+        }
+
+        private int trimEnd(int from, int to) {
+            while (to > from && isBlank(buf.get(to - 1))) {
+                to--;
+            }
+            return to;
+        }
+
+        private boolean startsWith(int from, int to, String prefix) {
+            if (to - from < prefix.length())
+                return false;
+            for (int k = 0; k < prefix.length(); k++) {
+                if (buf.get(from + k) != prefix.charAt(k))
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean startsWithIgnoreCase(int from, int to, String prefix) {
+            if (to - from < prefix.length())
+                return false;
+            for (int k = 0; k < prefix.length(); k++) {
+                if (Character.toLowerCase(buf.get(from + k)) != prefix.charAt(k))
+                    return false;
+            }
+            return true;
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t';
+        }
+    }
+
+    /*
+     * byte-keyed open-addressing table from code bytes to their String, so a code that was
+     * seen before costs a hash and a compare instead of a new String
+     */
+    private static final class CodeInterner {
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int size = 0;
+
+        String intern(byte[] bytes, int length) {
+            int mask = keys.length - 1;
+            int slot = hash(bytes, length) & mask;
+            while (keys[slot] != null) {
+                if (Arrays.equals(keys[slot], 0, keys[slot].length, bytes, 0, length))
+                    return values[slot];
+                slot = (slot + 1) & mask;
+            }
+            String code = new String(bytes, 0, length, StandardCharsets.UTF_8).intern();
+            keys[slot] = Arrays.copyOf(bytes, length);
+            values[slot] = code;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return code;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldKeys[k] == null)
+                    continue;
+                int slot = hash(oldKeys[k], oldKeys[k].length) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[k];
+                values[slot] = oldValues[k];
+            }
+        }
+
+        private static int hash(byte[] bytes, int length) {
+            int h = 0;
+            for (int k = 0; k < length; k++) {
+                h = 31 * h + bytes[k];
+            }
+            return h ^ (h >>> 16);
         }
-        return flights;
     }
 }
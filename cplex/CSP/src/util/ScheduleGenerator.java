@@ -0,0 +1,284 @@
+package util;
+
+import model.Flight;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/*
+ * Synthetic hub-and-spoke schedules in the InputParser CSV format
+ * (FlightID,From,To,DepTime,ArrTime,Duration,Aircraft,Base,FlightCost,Night[,Date]), for
+ * scaling tests of the parser, the pricing engines and the master.
+ *
+ * Flights come in aircraft rotations out of one of the bases (hubs): a rotation flies 1-3
+ * round trips to the hub's spokes, or to another hub with probability interHubShare, and
+ * its Base is the hub it starts from. Knobs:
+ *   spokesPerBase  fewer spokes means more flights per airport, so a denser network
+ *   banks          hub departure waves per day (0 = none); rotations leave the hub in a
+ *                  bank, which concentrates connections at the hubs
+ *   nightShare     share of rotations starting between 22:00 and 06:00 (Night = 1 for
+ *                  flights departing in that window)
+ *   days           the flight count is spread over this many operating days, each day
+ *                  gets its own rotations and flight IDs
+ *   startDate      date of the first day; when set every row carries its departure Date,
+ *                  so the schedule is dated, otherwise times are cyclic times of day
+ *
+ * Output only depends on the settings and the seed. Rows are streamed, so 100k+ flight
+ * files need no memory beyond one rotation.
+ *
+ * usage: java util.ScheduleGenerator [--flights N] [--bases DAC,CGP] [--spokes N]
+ *            [--banks N] [--night-share X] [--inter-hub-share X] [--days N]
+ *            [--start-date yyyy-MM-dd] [--seed N] [--out file.csv]
+ */
+public class ScheduleGenerator {
+    private static final String HEADER = "FlightID,From,To,DepTime,ArrTime,Duration,Aircraft,Base,FlightCost,Night";
+    private static final int DAY = 24 * 60;
+
+    private int flights = 1000;
+    private List<String> bases = List.of("DAC");
+    private int spokesPerBase = 20;
+    private int banks = 0;
+    private double nightShare = 0.1;
+    private double interHubShare = 0.1;
+    private int days = 1;
+    private LocalDate startDate;
+    private long seed = 42;
+
+    // receives the generated rows, times in minutes of the day, date null if undated
+    private interface RowSink {
+        void accept(String id, String from, String to, LocalDate date, int dep, int arr, double hours,
+                    String aircraft, String base, double cost, int night) throws IOException;
+    }
+
+    public void write(Writer out) throws IOException {
+        out.write(startDate == null ? HEADER : HEADER + ",Date");
+        out.write('\n');
+        generate((id, from, to, date, dep, arr, hours, aircraft, base, cost, night) -> {
+            out.write(String.format(Locale.ROOT, "%s,%s,%s,%s,%s,%.2f,%s,%s,%.0f,%d",
+                    id, from, to, clock(dep), clock(arr), hours, aircraft, base, cost, night));
+            if (date != null) {
+                out.write(',');
+                out.write(date.toString());
+            }
+            out.write('\n');
+        });
+    }
+
+    public void write(String filePath) throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(filePath), 1 << 16)) {
+            write(out);
+        }
+    }
+
+    public List<Flight> generate() {
+        List<Flight> result = new ArrayList<>(flights);
+        try {
+            generate((id, from, to, date, dep, arr, hours, aircraft, base, cost, night) ->
+                    result.add(new Flight(id, from, to, date, LocalTime.of(dep / 60, dep % 60),
+                            LocalTime.of(arr / 60, arr % 60), Math.round(hours * 100) / 100.0,
+                            aircraft, base, cost, night == 1)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // the list sink does no IO
+        }
+        return result;
+    }
+
+    private void generate(RowSink sink) throws IOException {
+        if (bases.isEmpty())
+            throw new IllegalArgumentException("At least one base is needed");
+        Random random = new Random(seed);
+        String[][] spokes = spokeCodes();
+        int idWidth = Math.max(2, String.valueOf(flights).length());
+
+        int count = 0;
+        for (int day = 0; day < days; day++) {
+            // spread the remainder over the first days
+            int dayTarget = flights / days + (day < flights % days ? 1 : 0);
+            int dayCount = 0;
+            while (dayCount < dayTarget) {
+                int hub = random.nextInt(bases.size());
+                String base = bases.get(hub);
+                boolean nightRotation = random.nextDouble() < nightShare;
+                int t = nightRotation ? 22 * 60 + random.nextInt(8 * 60) : 6 * 60 + random.nextInt(14 * 60);
+                if (!nightRotation && banks > 0) {
+                    t = nextBank(t, random);
+                }
+                // day rotations are back at the hub before midnight, so they can be covered
+                // without overnight duties
+                int end = nightRotation ? t + 14 * 60 : Math.min(t + 14 * 60, DAY - 1);
+                int roundTrips = 1 + random.nextInt(3);
+
+                for (int trip = 0; trip < roundTrips && dayCount < dayTarget; trip++) {
+                    String dest;
+                    int block;
+                    if (bases.size() > 1 && random.nextDouble() < interHubShare) {
+                        int other = (hub + 1 + random.nextInt(bases.size() - 1)) % bases.size();
+                        dest = bases.get(other);
+                        block = 60 + random.nextInt(120);
+                    } else {
+                        dest = spokes[hub][random.nextInt(spokes[hub].length)];
+                        block = 35 + random.nextInt(110);
+                    }
+                    if (t + 2 * block + 40 > end)
+                        break;
+                    String aircraft = block < 70 ? "ATR72" : "A320";
+                    double cost = Math.round(6.0 * block * (0.9 + 0.2 * random.nextDouble()));
+
+                    emit(sink, ++count, idWidth, day, base, dest, t, block, aircraft, base, cost);
+                    dayCount++;
+                    t += block + 40 + random.nextInt(50);
+                    if (dayCount < dayTarget) {
+                        emit(sink, ++count, idWidth, day, dest, base, t, block, aircraft, base, cost);
+                        dayCount++;
+                    }
+                    t += block + 40 + random.nextInt(90);
+                    if (banks > 0 && (t % DAY) >= 6 * 60) {
+                        t = nextBank(t, random);
+                    }
+                }
+            }
+        }
+    }
+
+    // dep counts minutes from the start of the rotation's day and may pass midnight
+    private void emit(RowSink sink, int index, int idWidth, int day, String from, String to, int dep, int block,
+                      String aircraft, String base, double cost) throws IOException {
+        int depMin = dep % DAY;
+        int arrMin = (dep + block) % DAY;
+        int night = depMin >= 22 * 60 || depMin < 6 * 60 ? 1 : 0;
+        String id = String.format("F%0" + idWidth + "d", index);
+        LocalDate date = startDate == null ? null : startDate.plusDays(day + dep / DAY);
+        sink.accept(id, from, to, date, depMin, arrMin, block / 60.0, aircraft, base, cost, night);
+    }
+
+    // first bank departure at or after t (banks spread over 06:00-22:00), with a small jitter
+    private int nextBank(int t, Random random) {
+        int spacing = 16 * 60 / banks;
+        int dayStart = t - t % DAY;
+        int offset = t - dayStart - 6 * 60;
+        int bank = offset <= 0 ? 0 : (offset + spacing - 1) / spacing;
+        return dayStart + 6 * 60 + bank * spacing + random.nextInt(20);
+    }
+
+    // distinct three-letter spoke codes QAA..ZZZ per hub, skipping any that is also a base
+    private String[][] spokeCodes() {
+        if (bases.size() * spokesPerBase > 10 * 26 * 26 - bases.size())
+            throw new IllegalArgumentException("Too many spokes: " + bases.size() * spokesPerBase);
+        String[][] codes = new String[bases.size()][spokesPerBase];
+        int next = 0;
+        for (int h = 0; h < bases.size(); h++) {
+            for (int k = 0; k < spokesPerBase; k++) {
+                String code;
+                do {
+                    code = "" + (char) ('Q' + next / 676 % 10) + (char) ('A' + next / 26 % 26) + (char) ('A' + next % 26);
+                    next++;
+                } while (bases.contains(code));
+                codes[h][k] = code;
+            }
+        }
+        return codes;
+    }
+
+    private static String clock(int minute) {
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+
+    public void setFlights(int flights) {
+        this.flights = flights;
+    }
+
+    public void setBases(List<String> bases) {
+        this.bases = List.copyOf(bases);
+    }
+
+    public void setSpokesPerBase(int spokesPerBase) {
+        this.spokesPerBase = spokesPerBase;
+    }
+
+    public void setBanks(int banks) {
+        this.banks = banks;
+    }
+
+    public void setNightShare(double nightShare) {
+        this.nightShare = nightShare;
+    }
+
+    public void setInterHubShare(double interHubShare) {
+        this.interHubShare = interHubShare;
+    }
+
+    public void setDays(int days) {
+        this.days = days;
+    }
+
+    // null for a cyclic schedule without dates
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        ScheduleGenerator generator = new ScheduleGenerator();
+        String out = null;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--flights":
+                    generator.setFlights(Integer.parseInt(value));
+                    break;
+                case "--bases":
+                    generator.setBases(Arrays.asList(value.split(",")));
+                    break;
+                case "--spokes":
+                    generator.setSpokesPerBase(Integer.parseInt(value));
+                    break;
+                case "--banks":
+                    generator.setBanks(Integer.parseInt(value));
+                    break;
+                case "--night-share":
+                    generator.setNightShare(Double.parseDouble(value));
+                    break;
+                case "--inter-hub-share":
+                    generator.setInterHubShare(Double.parseDouble(value));
+                    break;
+                case "--days":
+                    generator.setDays(Integer.parseInt(value));
+                    break;
+                case "--start-date":
+                    generator.setStartDate(LocalDate.parse(value));
+                    break;
+                case "--seed":
+                    generator.setSeed(Long.parseLong(value));
+                    break;
+                case "--out":
+                    out = value;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+            i++;
+        }
+
+        if (out == null) {
+            Writer writer = new BufferedWriter(new java.io.OutputStreamWriter(System.out), 1 << 16);
+            generator.write(writer);
+            writer.flush();
+        } else {
+            generator.write(out);
+            System.err.println("Wrote " + generator.flights + " flights to " + out);
+        }
+    }
+}